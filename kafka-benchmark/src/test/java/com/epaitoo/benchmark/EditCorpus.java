@@ -0,0 +1,132 @@
+package com.epaitoo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Wikimedia recentchange events to replay through the pipeline
+ *
+ * Either a recorded stream (one JSON event per line, e.g. the "data:" lines of
+ * https://stream.wikimedia.org/v2/stream/recentchange) or a synthetic English Wikipedia
+ * corpus in which a small share of pages are edit wars. Events are replayed in a loop;
+ * each one gets meta.dt = now when it is handed to the producer, so the consumer's
+ * END_TO_END latency measures producer → SSE emit rather than the age of the recording.
+ */
+final class EditCorpus {
+
+    private static final String WIKI = "en.wikipedia.org";
+
+    private final ObjectMapper objectMapper;
+    private final List<ObjectNode> events;
+    private final String description;
+    private int next;
+
+    private EditCorpus(ObjectMapper objectMapper, List<ObjectNode> events, String description) {
+        this.objectMapper = objectMapper;
+        this.events = events;
+        this.description = description;
+    }
+
+    /**
+     * Load a recorded corpus (blank and unparseable lines are skipped)
+     */
+    static EditCorpus recorded(ObjectMapper objectMapper, Path file) {
+        List<ObjectNode> events = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(file)) {
+                line = line.startsWith("data: ") ? line.substring(6) : line;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    if (objectMapper.readTree(line) instanceof ObjectNode event) {
+                        events.add(event);
+                    }
+                } catch (IOException e) {
+                    // not an event (SSE comment, truncated line): skip
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read corpus " + file, e);
+        }
+        if (events.isEmpty()) {
+            throw new IllegalArgumentException("No events in corpus " + file);
+        }
+        return new EditCorpus(objectMapper, events, file.toString());
+    }
+
+    /**
+     * Build a synthetic corpus of human main-namespace edits
+     *
+     * @param size Events before the corpus repeats
+     * @param pages Distinct pages
+     * @param warShare Share of events that belong to pages where two users revert each other
+     */
+    static EditCorpus synthetic(ObjectMapper objectMapper, int size, int pages, double warShare, long seed) {
+        Random random = new Random(seed);
+        long timestamp = Instant.now().getEpochSecond();
+        int warPages = Math.max(1, (int) (pages * warShare));
+        List<ObjectNode> events = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            boolean war = random.nextDouble() < warShare;
+            int page = war ? random.nextInt(warPages) : warPages + random.nextInt(pages - warPages);
+            ObjectNode event = objectMapper.createObjectNode();
+            event.put("type", "edit");
+            event.put("title", "Benchmark_Page_" + page);
+            event.put("namespace", 0);
+            event.put("bot", false);
+            event.put("server_name", WIKI);
+            event.put("timestamp", timestamp + i / 50);  // ~50 edits per second of event time
+            ObjectNode length = event.putObject("length");
+            if (war) {
+                // Alice adds a paragraph, Bob takes it out again
+                boolean alice = random.nextBoolean();
+                event.put("user", alice ? "Alice" : "Bob");
+                length.put("old", alice ? 5000 : 5200);
+                length.put("new", alice ? 5200 : 5000);
+            } else {
+                int old = 1_000 + random.nextInt(50_000);
+                event.put("user", "User_" + random.nextInt(5_000));
+                length.put("old", old);
+                length.put("new", old + random.nextInt(400) - 100);
+            }
+            ObjectNode meta = event.putObject("meta");
+            meta.put("domain", WIKI);
+            meta.put("uri", "https://" + WIKI + "/wiki/Benchmark_Page_" + page);
+            events.add(event);
+        }
+        return new EditCorpus(objectMapper, events, "synthetic (" + size + " events, " + pages
+                + " pages, " + (int) (warShare * 100) + "% edit wars)");
+    }
+
+    String description() {
+        return description;
+    }
+
+    /**
+     * Next event as raw JSON, stamped with the current time (single sender thread only)
+     */
+    String next() {
+        ObjectNode event = events.get(next);
+        next = (next + 1) % events.size();
+        ObjectNode meta = event.has("meta") && event.get("meta").isObject()
+                ? (ObjectNode) event.get("meta")
+                : event.putObject("meta");
+        meta.put("dt", Instant.now().toString());
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.epaitoo.benchmark;
+
+import com.epaitoo.springboot.ApiRealTImeChangesConsumer;
+import com.epaitoo.springboot.ApiRealTImeChangesHandler;
+import com.epaitoo.springboot.ApiRealTImeChangesProducer;
+import com.epaitoo.springboot.SpringBootConsumerApplication;
+import com.epaitoo.springboot.SpringBootProducerApplication;
+import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity;
+import com.epaitoo.springboot.persistence.repository.EditWarAlertRepository;
+import com.epaitoo.springboot.service.LatencyTracker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.launchdarkly.eventsource.MessageEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Whole-system throughput benchmark: ApiRealTImeChangesHandler → Kafka → ApiRealTImeChangesConsumer
+ * → detection → H2 → SSE clients, all in one JVM with an embedded KRaft broker
+ *
+ * Replays a corpus (see {@link EditCorpus}) at each target rate and reports sustained
+ * events/second, end-to-end latency (producer → SSE emit, from LatencyTracker), heap use,
+ * drops and alerts per level as JSON (target/benchmark-report.json).
+ *
+ *   ./mvnw -Pbenchmark test -pl kafka-benchmark -am
+ *
+ * Settings (-D...):
+ *   benchmark.rates         events/second per level, 0 = as fast as possible (default 500,2000,8000,0)
+ *   benchmark.seconds       length of each paced level (default 15)
+ *   benchmark.max-events    events in the unpaced level (default 100000)
+ *   benchmark.warmup-seconds  unreported warm-up at 1000/s (default 5)
+ *   benchmark.corpus        recorded recentchange events, one JSON per line (default: synthetic)
+ *   benchmark.sse-clients   connected /stream clients (default 4)
+ *   benchmark.payload       record value the producer sends, PROJECTED or RAW (default PROJECTED)
+ *
+ * Broker, consumer and producer share the machine, so compare numbers between runs on the
+ * same hardware, not against production.
+ */
+@Slf4j
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        classes = EndToEndBenchmark.BenchmarkConfig.class,
+        properties = {
+                "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "detection.engine=listener",
+                "logging.level.com.epaitoo=WARN",
+                "logging.level.org.apache.kafka=WARN",
+                "logging.level.kafka=WARN",
+                "logging.level.org.springframework.kafka=WARN"
+        }
+)
+@EmbeddedKafka(kraft = true, partitions = 3,
+        topics = {ApiRealTImeChangesConsumer.TOPIC, "edit-war-alerts", "page-edit-windows-changelog"})
+class EndToEndBenchmark {
+
+    private static final List<Integer> RATES = Arrays.stream(
+                    System.getProperty("benchmark.rates", "500,2000,8000,0").split(","))
+            .map(String::trim)
+            .map(Integer::parseInt)
+            .toList();
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 15);
+    private static final int MAX_EVENTS = Integer.getInteger("benchmark.max-events", 100_000);
+    private static final int WARMUP_SECONDS = Integer.getInteger("benchmark.warmup-seconds", 5);
+    private static final int SSE_CLIENTS = Integer.getInteger("benchmark.sse-clients", 4);
+    private static final String CORPUS = System.getProperty("benchmark.corpus");
+    private static final ApiRealTImeChangesHandler.Payload PAYLOAD =
+            ApiRealTImeChangesHandler.Payload.valueOf(System.getProperty("benchmark.payload", "PROJECTED"));
+    private static final Path REPORT = Path.of(System.getProperty("benchmark.report", "target/benchmark-report.json"));
+
+    // Give up on a level when nothing has been delivered for this long
+    private static final long STALL_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * The consumer application without its @SpringBootApplication class, so the producer
+     * application (same package, on the classpath for ApiRealTImeChangesHandler) stays out
+     */
+    @Configuration
+    @EnableAutoConfiguration
+    @ComponentScan(basePackages = "com.epaitoo.springboot", excludeFilters = @ComponentScan.Filter(
+            type = FilterType.ASSIGNABLE_TYPE,
+            classes = {SpringBootConsumerApplication.class, SpringBootProducerApplication.class,
+                    ApiRealTImeChangesProducer.class}))
+    @EntityScan(basePackageClasses = EditWarAlertEntity.class)
+    @EnableJpaRepositories(basePackageClasses = EditWarAlertRepository.class)
+    static class BenchmarkConfig {
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    private LatencyTracker latencyTracker;
+
+    @Autowired
+    private EditWarAlertRepository alertRepository;
+
+    @Autowired
+    private MeterRegistry consumerRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MeterRegistry producerRegistry = new SimpleMeterRegistry();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final AtomicLong sseFrames = new AtomicLong();
+    private final List<Disposable> sseClients = new ArrayList<>();
+
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private ApiRealTImeChangesHandler handler;
+    private EditCorpus corpus;
+
+    /**
+     * One level's results (latencies in milliseconds, heap in megabytes)
+     */
+    record LevelResult(int targetRate, long sent, long delivered, long dispatchDropped, long sseFrames,
+                       long alertsSaved, long durationMs, double eventsPerSecond,
+                       double p50Ms, double p99Ms, double p999Ms, double maxMs,
+                       double heapPeakMb, double heapAfterGcMb,
+                       Map<String, Map<String, Object>> stages) {
+    }
+
+    record Report(Instant startedAt, String corpus, int availableProcessors, double maxHeapMb,
+                  String javaVersion, int sseClients, List<LevelResult> levels) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Same settings as kafka-producer-api's application.properties
+        Map<String, Object> props = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.RETRIES_CONFIG, 3,
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd",
+                ProducerConfig.LINGER_MS_CONFIG, 20,
+                ProducerConfig.BATCH_SIZE_CONFIG, 65536);
+        kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+        handler = new ApiRealTImeChangesHandler(kafkaTemplate, ApiRealTImeChangesConsumer.TOPIC,
+                PAYLOAD, producerRegistry);
+
+        corpus = CORPUS == null
+                ? EditCorpus.synthetic(objectMapper, 50_000, 2_000, 0.05, 42L)
+                : EditCorpus.recorded(objectMapper, Path.of(CORPUS));
+
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (ApiRealTImeChangesConsumer.GROUP_ID.equals(container.getGroupId())) {
+                ContainerTestUtils.waitForAssignment(container, broker.getPartitionsPerTopic());
+            }
+        }
+
+        WebClient client = WebClient.create("http://localhost:" + port);
+        for (int i = 0; i < SSE_CLIENTS; i++) {
+            sseClients.add(client.get().uri("/stream")
+                    .retrieve()
+                    .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                    })
+                    .subscribe(frame -> sseFrames.incrementAndGet(), error -> log.warn("SSE client failed", error)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        sseClients.forEach(Disposable::dispose);
+        kafkaTemplate.destroy();
+    }
+
+    @Test
+    @DisplayName("Should report sustained throughput, end-to-end latency and heap at each load level")
+    void benchmark() throws Exception {
+        Instant startedAt = Instant.now();
+        if (WARMUP_SECONDS > 0) {
+            runLevel(1_000, 1_000 * WARMUP_SECONDS);
+        }
+
+        List<LevelResult> levels = new ArrayList<>();
+        for (int rate : RATES) {
+            LevelResult result = runLevel(rate, rate > 0 ? rate * SECONDS : MAX_EVENTS);
+            levels.add(result);
+            log.warn("Benchmark level {}/s: {} sent, {} delivered in {} ms = {} events/s, p50 {} ms, p99 {} ms, heap peak {} MB",
+                    rate == 0 ? "max" : rate, result.sent(), result.delivered(), result.durationMs(),
+                    Math.round(result.eventsPerSecond()), result.p50Ms(), result.p99Ms(), Math.round(result.heapPeakMb()));
+        }
+
+        Report report = new Report(startedAt, corpus.description(), Runtime.getRuntime().availableProcessors(),
+                mb(Runtime.getRuntime().maxMemory()), Runtime.version().toString(), SSE_CLIENTS, levels);
+        Files.createDirectories(REPORT.toAbsolutePath().getParent());
+        objectMapper.copy()
+                .findAndRegisterModules()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writeValue(REPORT.toFile(), report);
+        log.warn("Benchmark report written to {}", REPORT.toAbsolutePath());
+
+        for (LevelResult level : levels) {
+            assertTrue(level.delivered() > 0, "Nothing delivered at " + level.targetRate() + "/s");
+        }
+    }
+
+    /**
+     * Send events at the target rate (0 = unpaced) and wait until every sent edit was emitted or dropped
+     */
+    private LevelResult runLevel(int rate, int events) throws Exception {
+        System.gc();
+        latencyTracker.reset();
+        long sentBefore = sent();
+        long droppedBefore = dispatchDropped();
+        long framesBefore = sseFrames.get();
+        long alertsBefore = alertRepository.count();
+
+        AtomicLong heapPeak = new AtomicLong();
+        ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor();
+        heapSampler.scheduleAtFixedRate(() -> heapPeak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, 20, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        long nextSend = start;
+        for (int i = 0; i < events; i++) {
+            if (interval > 0) {
+                long wait = nextSend - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                nextSend += interval;
+            }
+            handler.onMessage("message", new MessageEvent(corpus.next()));
+        }
+        kafkaTemplate.flush();
+
+        long sent = sent() - sentBefore;
+        long delivered = 0;
+        long lastProgress = System.nanoTime();
+        long end = lastProgress;
+        while (true) {
+            long now = delivered();
+            long dropped = dispatchDropped() - droppedBefore;
+            if (now != delivered) {
+                delivered = now;
+                lastProgress = System.nanoTime();
+                end = lastProgress;
+            }
+            if (delivered + dropped >= sent || System.nanoTime() - lastProgress > STALL_TIMEOUT_NANOS) {
+                break;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        heapSampler.shutdownNow();
+        System.gc();
+        double heapAfterGc = mb(memory.getHeapMemoryUsage().getUsed());
+
+        long durationNanos = Math.max(1, end - start);
+        Map<String, Map<String, Object>> stages = latencyTracker.getSnapshot();
+        Map<String, Object> endToEnd = stages.get(LatencyTracker.Stage.END_TO_END.name());
+        return new LevelResult(rate, sent, delivered, dispatchDropped() - droppedBefore, sseFrames.get() - framesBefore,
+                alertRepository.count() - alertsBefore, TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                delivered * 1e9 / durationNanos,
+                (double) endToEnd.get("p50Ms"), (double) endToEnd.get("p99Ms"),
+                (double) endToEnd.get("p999Ms"), (double) endToEnd.get("maxMs"),
+                mb(heapPeak.get()), heapAfterGc, stages);
+    }
+
+    private long sent() {
+        return (long) producerRegistry.find("wikimedia.events.sent").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private long delivered() {
+        return (long) latencyTracker.getSnapshot().get(LatencyTracker.Stage.END_TO_END.name()).get("count");
+    }
+
+    private long dispatchDropped() {
+        FunctionCounter dropped = consumerRegistry.find("sse.dispatch.dropped").functionCounter();
+        return dropped == null ? 0 : (long) dropped.count();
+    }
+
+    private static double mb(long bytes) {
+        return Math.round(bytes / 1024.0 / 102.4) / 10.0;
+    }
+}
@@ -0,0 +1,212 @@
+package com.epaitoo.benchmark;
+
+import com.epaitoo.springboot.EditEventSerializer;
+import com.epaitoo.springboot.PayloadProjector;
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import com.epaitoo.springboot.service.WikimediaEventParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Single-thread parse benchmark: the consumer's record value → WikimediaEditEvent
+ *
+ * Compares, per event, the listener's previous path (StringDeserializer, then databind into
+ * WikimediaEditEvent with its nested LengthInfo/MetaInfo and processNestedFields) with the
+ * streaming parser on a String and on the raw record bytes, then on the producer's projected
+ * payload (PayloadProjector) and binary encoding (EditEventSerializer), and on records that are
+ * thrown away (non-edit types, truncated payloads). Reports ns/event, events/s and
+ * bytes allocated per event (thread allocation counter) as JSON (target/parser-benchmark.json).
+ *
+ *   ./mvnw -Pbenchmark test -pl kafka-benchmark -am -Dtest=ParserBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ *
+ * Settings (-D...):
+ *   benchmark.corpus          recorded recentchange events, one JSON per line (default: synthetic).
+ *                             The synthetic corpus only has the fields detection reads; recorded or
+ *                             loadgen events (~1 KB, 25+ fields) are closer to production
+ *   benchmark.parser-seconds  measured time per variant (default 5, after as long again of warm-up)
+ */
+@Slf4j
+class ParserBenchmark {
+
+    private static final String CORPUS = System.getProperty("benchmark.corpus");
+    private static final int SECONDS = Integer.getInteger("benchmark.parser-seconds", 5);
+    private static final Path REPORT = Path.of(System.getProperty("benchmark.parser-report", "target/parser-benchmark.json"));
+    private static final int CORPUS_SIZE = 20_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WikimediaEventParser parser = new WikimediaEventParser(meterRegistry);
+    // The parser times every call; time the databind path the same way so the comparison is fair
+    private final Timer databindTimer = meterRegistry.timer("benchmark.databind");
+
+    // Keeps results reachable so the JIT can't drop the work
+    private long sink;
+
+    record VariantResult(String variant, long events, double nsPerEvent, double eventsPerSecond,
+                         double bytesAllocatedPerEvent) {
+    }
+
+    record Report(Instant startedAt, String corpus, int corpusEvents, double meanPayloadBytes,
+                  String javaVersion, List<VariantResult> variants) {
+    }
+
+    @Test
+    @DisplayName("Should report parse time and allocation per event for databind and streaming parsers")
+    void benchmark() throws Exception {
+        EditCorpus corpus = CORPUS == null
+                ? EditCorpus.synthetic(objectMapper, CORPUS_SIZE, 2_000, 0.05, 42L)
+                : EditCorpus.recorded(objectMapper, Path.of(CORPUS));
+        byte[][] payloads = new byte[CORPUS_SIZE][];
+        long payloadBytes = 0;
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = corpus.next().getBytes(StandardCharsets.UTF_8);
+            payloadBytes += payloads[i].length;
+        }
+
+        // All three must agree before their speed means anything
+        for (byte[] payload : payloads) {
+            WikimediaEditEvent expected = databind(payload);
+            WikimediaEditEvent actual = parser.parse(payload);
+            assertEquals(expected == null, actual == null);
+            if (expected != null) {
+                assertEquals(expected.getPageTitle(), actual.getPageTitle());
+                assertEquals(expected.getUsername(), actual.getUsername());
+                assertEquals(expected.getLengthChange(), actual.getLengthChange());
+                assertEquals(expected.getWiki(), actual.getWiki());
+                assertEquals(expected.getMeta().getDt(), actual.getEventTime());
+            }
+        }
+
+        List<VariantResult> variants = new ArrayList<>();
+        variants.add(run("databind (String)", payloads, this::databind));
+        variants.add(run("streaming (String)", payloads,
+                payload -> parser.parse(new String(payload, StandardCharsets.UTF_8))));
+        variants.add(run("streaming (byte[])", payloads, parser::parse));
+
+        // What the producer sends with producer.payload=PROJECTED
+        PayloadProjector projector = new PayloadProjector(objectMapper);
+        byte[][] projected = new byte[payloads.length][];
+        for (int i = 0; i < payloads.length; i++) {
+            projected[i] = projector.project(objectMapper.readTree(payloads[i])).getBytes(StandardCharsets.UTF_8);
+            assertEquals(parser.parse(payloads[i]), parser.parse(projected[i]));
+        }
+        variants.add(run("databind (String), projected", projected, this::databind));
+        variants.add(run("streaming (byte[]), projected", projected, parser::parse));
+
+        // What the producer sends with producer.payload=BINARY
+        EditEventSerializer serializer = new EditEventSerializer();
+        Headers binaryHeaders = new RecordHeaders();
+        byte[][] binary = new byte[payloads.length][];
+        long binaryBytes = 0;
+        for (int i = 0; i < payloads.length; i++) {
+            Headers headers = new RecordHeaders();
+            binary[i] = serializer.serialize("benchmark", headers, new String(payloads[i], StandardCharsets.UTF_8));
+            binaryBytes += binary[i].length;
+            if (i == 0) {
+                headers.forEach(binaryHeaders::add);
+            }
+            assertEquals(parser.parse(payloads[i]), parser.parse(headers, binary[i]));
+        }
+        log.warn("Binary encoding: {} bytes/event", binaryBytes / binary.length);
+        variants.add(run("binary codec", binary, payload -> parser.parse(binaryHeaders, payload)));
+
+        // Records the listener throws away: other event types, and payloads cut off mid-way
+        byte[][] nonEdits = new byte[payloads.length][];
+        byte[][] truncated = new byte[payloads.length][];
+        for (int i = 0; i < payloads.length; i++) {
+            String json = new String(payloads[i], StandardCharsets.UTF_8);
+            nonEdits[i] = json.replace("\"type\":\"edit\"", "\"type\":\"log\"").getBytes(StandardCharsets.UTF_8);
+            truncated[i] = Arrays.copyOf(payloads[i], payloads[i].length / 2);
+        }
+        variants.add(run("databind (String), non-edit", nonEdits, this::databind));
+        variants.add(run("streaming (byte[]), non-edit", nonEdits, parser::parse));
+        variants.add(run("databind (String), truncated", truncated, this::databind));
+        variants.add(run("streaming (byte[]), truncated", truncated, parser::parse));
+
+        Report report = new Report(Instant.now(), corpus.description(), payloads.length,
+                (double) payloadBytes / payloads.length, Runtime.version().toString(), variants);
+        Files.createDirectories(REPORT.toAbsolutePath().getParent());
+        objectMapper.copy()
+                .findAndRegisterModules()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writeValue(REPORT.toFile(), report);
+        log.warn("Parser benchmark report written to {} (sink {})", REPORT.toAbsolutePath(), sink);
+
+        assertTrue(variants.stream().allMatch(variant -> variant.events() > 0));
+    }
+
+    /**
+     * The listener's parse before the streaming parser: decode, databind, flatten
+     */
+    private WikimediaEditEvent databind(byte[] payload) {
+        long start = System.nanoTime();
+        try {
+            WikimediaEditEvent event = objectMapper.readValue(
+                    new String(payload, StandardCharsets.UTF_8), WikimediaEditEvent.class);
+            event.processNestedFields();
+            if (!event.isEditType() || event.getPageTitle() == null || event.getUsername() == null) {
+                return null;
+            }
+            if (event.getTimestamp() == null) {
+                event.setTimestamp(System.currentTimeMillis() / 1000);
+            }
+            return event;
+        } catch (Exception e) {
+            return null;
+        } finally {
+            databindTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private VariantResult run(String variant, byte[][] payloads, Function<byte[], WikimediaEditEvent> parse) {
+        loop(payloads, parse, TimeUnit.SECONDS.toNanos(SECONDS));  // warm-up
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long events = loop(payloads, parse, TimeUnit.SECONDS.toNanos(SECONDS));
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        VariantResult result = new VariantResult(variant, events, (double) elapsed / events,
+                events / (elapsed / 1e9), (double) allocated / events);
+        log.warn("Parser benchmark {}: {} ns/event, {} events/s, {} bytes allocated/event",
+                variant, Math.round(result.nsPerEvent()), Math.round(result.eventsPerSecond()),
+                Math.round(result.bytesAllocatedPerEvent()));
+        return result;
+    }
+
+    private long loop(byte[][] payloads, Function<byte[], WikimediaEditEvent> parse, long durationNanos) {
+        long deadline = System.nanoTime() + durationNanos;
+        long events = 0;
+        do {
+            for (byte[] payload : payloads) {
+                WikimediaEditEvent event = parse.apply(payload);
+                sink += event == null ? 1 : event.getPageTitle().length();
+            }
+            events += payloads.length;
+        } while (System.nanoTime() < deadline);
+        return events;
+    }
+}
@@ -1,6 +0,0 @@
-package com.epaitoo.springboot;
-
-public interface ApiEventListener {
-    void onData(String event);
-    void processComplete();
-}
@@ -3,15 +3,22 @@ package com.epaitoo.springboot;
 import com.epaitoo.springboot.entity.EditWarAlert;
 import com.epaitoo.springboot.entity.WikimediaEditEvent;
 import com.epaitoo.springboot.service.AlertEventPublisher;
+import com.epaitoo.springboot.service.AlertTopicPublisher;
+import com.epaitoo.springboot.service.EditEventCodec;
 import com.epaitoo.springboot.service.EditWarDetectionService;
+import com.epaitoo.springboot.service.EventTimeline;
+import com.epaitoo.springboot.service.LatencyTracker;
+import com.epaitoo.springboot.service.RoutingFilter;
 import com.epaitoo.springboot.service.WikimediaEventParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -20,59 +27,76 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ApiRealTImeChangesConsumer {
     private static final Logger LOGGER = LoggerFactory.getLogger(ApiRealTImeChangesConsumer.class);
+    private static final LogSampler EDIT_LOG = LogSampler.of(LOGGER, "edit.received", 1, Duration.ofSeconds(1));
+    // A page at war re-alerts on every further edit, so alerts are sampled too
+    private static final LogSampler ALERT_LOG = LogSampler.of(LOGGER, "alert.detected", 10, Duration.ofMinutes(1));
+
+    public static final String TOPIC = "wikimedia-stream-api";
+    public static final String GROUP_ID = "myGroup";
 
     private final WikimediaEventParser parser;
     private final EditWarDetectionService detectionService;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final AlertEventPublisher eventPublisher;
+    private final AlertTopicPublisher alertTopicPublisher;
+    private final LatencyTracker latencyTracker;
+    private final RoutingFilter routingFilter;
+
+    // Only runs with detection.engine=listener: "streams" uses EditWarTopology, "none" is a stateless API node.
+    // Values arrive as raw bytes: the parser reads them directly and the SSE dispatcher decodes them.
+    // detection.source-topic picks one of the producer's wiki topics (producer.routing.routes)
+    @KafkaListener(topics = "${detection.source-topic:" + TOPIC + "}", groupId = GROUP_ID,
+            autoStartup = "#{'${detection.engine:listener}' == 'listener'}",
+            properties = "value.deserializer=org.apache.kafka.common.serialization.ByteArrayDeserializer")
+    public void consume(ConsumerRecord<String, byte[]> record) {
+        // Out-of-scope records (by the producer's routing headers) are dropped unparsed
+        if (!routingFilter.accept(record.headers())) {
+            return;
+        }
 
-    private ApiEventListener apiEventListener;
-
-    public void register(ApiEventListener apiEventListener) {
-        this.apiEventListener = apiEventListener;
-        eventPublisher.register(apiEventListener);
-    }
-
-    public void onEvent(String event) {
-        if (apiEventListener != null) apiEventListener.onData(event);
-    }
-
-    public void onComplete() {
-        if (apiEventListener != null) apiEventListener.processComplete();
-    }
+        byte[] eventMessage = record.value();
 
-    @KafkaListener(topics = "wikimedia-stream-api", groupId = "myGroup")
-    public void consume(String eventMessage) {
-        // Parse JSON into WikimediaEditEvent
-        WikimediaEditEvent event = parser.parse(eventMessage);
+        // Parse JSON (or decode a binary record) into WikimediaEditEvent
+        WikimediaEditEvent event = eventMessage == null ? null : parser.parse(record.headers(), eventMessage);
 
         if (event == null) {
             LOGGER.debug("Skipped invalid or non-edit event");
             return;
         }
+        if (!routingFilter.accept(event)) {
+            return;
+        }
 
-        LOGGER.info("Processing edit on page: {} by user: {}",
+        EDIT_LOG.info("Processing edit on page: {} by user: {}",
                 event.getPageTitle(), event.getUsername());
 
+        // Stamps each stage; the SSE dispatcher records them once the edit is emitted
+        EventTimeline timeline = latencyTracker.start(record, event);
+
         // Detect edit wars
-        Optional<EditWarAlert> alertOpt = detectionService.processEdit(event);
+        Optional<EditWarAlert> alertOpt = detectionService.detectEdit(event, record.partition());
+        timeline.detected();
 
         if (alertOpt.isPresent()) {
-            EditWarAlert alert = alertOpt.get();
-            LOGGER.warn("\uD83D\uDEA8\uD83D\uDEA8\uD83D\uDEA8🚨🚨🚨 EDIT WAR DETECTED \uD83D\uDEA8\uD83D\uDEA8\uD83D\uDEA8🚨🚨🚨");
-            LOGGER.warn("Page: {}", alert.getPageTitle());
-            LOGGER.warn("Users: {}", alert.getInvolvedUsers());
-            LOGGER.warn("Severity: {} ({})", alert.getSeverityScore(), alert.getSeverityLevel());
-            LOGGER.warn("Edits: {} ({}% conflict)",
+            EditWarAlert alert = detectionService.saveAlert(alertOpt.get());
+            timeline.committed();
+
+            ALERT_LOG.warn("🚨 EDIT WAR DETECTED on page: {} users: {} severity: {} ({}) edits: {} ({}% conflict)",
+                    alert.getPageTitle(),
+                    alert.getInvolvedUsers(),
+                    alert.getSeverityScore(),
+                    alert.getSeverityLevel(),
                     alert.getTotalEdits(),
                     (int)(alert.getConflictRatio() * 100));
 
-            // Publish through event publisher
-            eventPublisher.publishAlert(alert);
+            // Publish through event publisher, and to the alert topic for other nodes
+            eventPublisher.publishAlert(alert, timeline);
+            alertTopicPublisher.publish(alert);
 
         } else {
-            // Stream normal event to frontend
-            onEvent(eventMessage);
+            // Stream normal event to frontend (binary records are rendered as JSON by the dispatcher)
+            boolean binary = EditEventCodec.isEncoded(record.headers());
+            eventPublisher.publishEdit(event, binary ? null : eventMessage, timeline);
         }
     }
 
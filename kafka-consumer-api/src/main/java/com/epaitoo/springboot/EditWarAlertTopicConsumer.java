@@ -0,0 +1,51 @@
+package com.epaitoo.springboot;
+
+import com.epaitoo.springboot.entity.EditWarAlert;
+import com.epaitoo.springboot.service.AlertEventPublisher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Service;
+
+/**
+ * Feeds alerts from the edit-war-alerts topic into this node's SSE stream
+ *
+ * Only started on stateless API nodes (alerts.topic.listen=true, usually together with
+ * detection.engine=none). Each node uses its own consumer group so every node sees
+ * every alert, and starts from the latest offset because /stream is live-only.
+ */
+@Slf4j
+@Service
+public class EditWarAlertTopicConsumer {
+
+    private final AlertEventPublisher eventPublisher;
+    private final ObjectReader alertReader;
+
+    public EditWarAlertTopicConsumer(AlertEventPublisher eventPublisher, ObjectMapper objectMapper) {
+        this.eventPublisher = eventPublisher;
+        // Records also carry derived fields (severityLevel, editFrequency) that have no setter
+        this.alertReader = objectMapper.readerFor(EditWarAlert.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @KafkaListener(
+            topics = "${alerts.topic.name:edit-war-alerts}",
+            groupId = "edit-war-alerts-api-${random.uuid}",
+            autoStartup = "${alerts.topic.listen:false}",
+            properties = "auto.offset.reset=latest"
+    )
+    public void consume(@Payload(required = false) String alertMessage) {
+        if (alertMessage == null) {
+            return;  // tombstone: nothing to stream
+        }
+        try {
+            eventPublisher.publishAlert(alertReader.readValue(alertMessage));
+        } catch (JsonProcessingException e) {
+            log.error("Skipping unreadable alert record: {}", alertMessage, e);
+        }
+    }
+}
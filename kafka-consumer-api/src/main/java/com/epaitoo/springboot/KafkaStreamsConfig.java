@@ -0,0 +1,27 @@
+package com.epaitoo.springboot;
+
+import com.epaitoo.springboot.entity.EditWarAlert;
+import com.epaitoo.springboot.service.EditWarTopology;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.KStream;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+
+/**
+ * Starts the Kafka Streams detection engine (detection.engine=streams)
+ *
+ * Boot builds the KafkaStreams instance from the spring.kafka.streams.* properties;
+ * instances sharing an application id split the partitions and window state between them.
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(name = "detection.engine", havingValue = "streams")
+public class KafkaStreamsConfig {
+
+    @Bean
+    public KStream<String, EditWarAlert> editWarStream(StreamsBuilder streamsBuilder, EditWarTopology topology) {
+        return topology.build(streamsBuilder);
+    }
+}
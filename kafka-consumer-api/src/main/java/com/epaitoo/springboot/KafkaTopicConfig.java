@@ -0,0 +1,40 @@
+package com.epaitoo.springboot;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    /**
+     * Log-compacted alert topic: keeps the latest state of each page's alert
+     */
+    @Bean
+    public NewTopic alertTopic(
+            @Value("${alerts.topic.name:edit-war-alerts}") String name,
+            @Value("${alerts.topic.partitions:3}") int partitions
+    ) {
+        return TopicBuilder.name(name)
+                .partitions(partitions)
+                .compact()
+                .build();
+    }
+
+    /**
+     * Log-compacted changelog of the listener engine's page windows
+     * (partition count must match wikimedia-stream-api)
+     */
+    @Bean
+    public NewTopic windowChangelogTopic(
+            @Value("${detection.changelog.topic:page-edit-windows-changelog}") String name,
+            @Value("${detection.changelog.partitions:3}") int partitions
+    ) {
+        return TopicBuilder.name(name)
+                .partitions(partitions)
+                .compact()
+                .build();
+    }
+}
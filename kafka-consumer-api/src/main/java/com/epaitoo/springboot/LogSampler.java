@@ -0,0 +1,119 @@
+package com.epaitoo.springboot;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate-limited logging for lines written once per event
+ *
+ * Each sampler is one category (e.g. "edit.received") that lets at most N lines through
+ * per interval and drops the rest. The next line that gets through carries how many were
+ * dropped before it, as the key/value pair "suppressed" (visible with structured logging)
+ * and as a "[+N suppressed]" suffix. Totals per category are exported as the
+ * logging.sampled.suppressed counter.
+ *
+ * Meant for static fields next to the class's logger:
+ * <pre>
+ * private static final LogSampler EDIT_LOG = LogSampler.of(LOGGER, "edit.received", 1, Duration.ofSeconds(1));
+ * </pre>
+ */
+public final class LogSampler {
+
+    private final Logger logger;
+    private final String category;
+    private final int linesPerInterval;
+    private final long intervalNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicLong intervalStart;
+    private final AtomicInteger linesInInterval = new AtomicInteger();
+    private final AtomicLong pendingSuppressed = new AtomicLong();
+    private final AtomicLong totalSuppressed = new AtomicLong();
+
+    LogSampler(Logger logger, String category, int linesPerInterval, Duration interval, LongSupplier nanoClock) {
+        this.logger = logger;
+        this.category = category;
+        this.linesPerInterval = linesPerInterval;
+        this.intervalNanos = interval.toNanos();
+        this.nanoClock = nanoClock;
+        this.intervalStart = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Create a sampler and register its suppressed-lines counter with the global registry
+     * (Spring Boot adds its registries to it, so samplers created in static initializers are exported too)
+     *
+     * @param logger Logger the sampled lines go to
+     * @param category Name of the sampled line, used as the counter's tag
+     * @param linesPerInterval Lines let through per interval
+     * @param interval Sampling interval
+     */
+    public static LogSampler of(Logger logger, String category, int linesPerInterval, Duration interval) {
+        LogSampler sampler = new LogSampler(logger, category, linesPerInterval, interval, System::nanoTime);
+        FunctionCounter.builder("logging.sampled.suppressed", sampler, LogSampler::getSuppressed)
+                .description("Log lines dropped by rate limiting")
+                .tag("category", category)
+                .register(Metrics.globalRegistry);
+        return sampler;
+    }
+
+    public void debug(String format, Object... args) {
+        log(Level.DEBUG, format, args);
+    }
+
+    public void info(String format, Object... args) {
+        log(Level.INFO, format, args);
+    }
+
+    public void warn(String format, Object... args) {
+        log(Level.WARN, format, args);
+    }
+
+    /**
+     * Get the number of lines dropped since startup
+     */
+    public long getSuppressed() {
+        return totalSuppressed.get();
+    }
+
+    /**
+     * Take one line from the current interval's allowance; false if it is used up
+     * (counts the line as suppressed)
+     */
+    boolean tryAcquire() {
+        long now = nanoClock.getAsLong();
+        long start = intervalStart.get();
+        if (now - start >= intervalNanos && intervalStart.compareAndSet(start, now)) {
+            linesInInterval.set(0);
+        }
+        if (linesInInterval.incrementAndGet() <= linesPerInterval) {
+            return true;
+        }
+        pendingSuppressed.incrementAndGet();
+        totalSuppressed.incrementAndGet();
+        return false;
+    }
+
+    private void log(Level level, String format, Object... args) {
+        // Level check first: a disabled level neither uses the allowance nor counts as suppressed
+        if (!logger.isEnabledForLevel(level) || !tryAcquire()) {
+            return;
+        }
+
+        LoggingEventBuilder event = logger.atLevel(level).addKeyValue("category", category);
+        long suppressed = pendingSuppressed.getAndSet(0);
+        if (suppressed > 0) {
+            event = event.addKeyValue("suppressed", suppressed);
+            format = format + " [+" + suppressed + " suppressed]";
+        }
+        event.log(format, args);
+    }
+}
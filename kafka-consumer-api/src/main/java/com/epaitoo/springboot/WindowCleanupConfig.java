@@ -0,0 +1,29 @@
+package com.epaitoo.springboot;
+
+import com.epaitoo.springboot.service.EditWarDetectionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Drops idle page windows of the listener engine (detection.engine=listener)
+ *
+ * Without it a page edited once stays in memory, and in the changelog, for good. The Streams
+ * engine evicts its own windows on stream time (PageWindowProcessor).
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "detection.engine", havingValue = "listener", matchIfMissing = true)
+@RequiredArgsConstructor
+public class WindowCleanupConfig {
+
+    private final EditWarDetectionService detectionService;
+
+    @Scheduled(initialDelayString = "${detection.cleanup.interval:10m}",
+            fixedDelayString = "${detection.cleanup.interval:10m}")
+    public void cleanupOldWindows() {
+        detectionService.cleanupOldWindows();
+    }
+}
@@ -0,0 +1,81 @@
+package com.epaitoo.springboot;
+
+import com.epaitoo.springboot.service.EditWarDetectionService;
+import com.epaitoo.springboot.service.WindowChangelog;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hands page windows over between listener instances on a consumer group rebalance
+ *
+ * Boot applies this to every listener container, so it only acts on the detection
+ * listener's group. Callbacks run on the consumer thread inside poll(), so the windows
+ * of newly assigned partitions are restored before the first record is delivered, and
+ * the windows of revoked ones are all in the changelog before their offsets are committed.
+ */
+@Slf4j
+@Component
+public class WindowRestoreRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final EditWarDetectionService detectionService;
+    private final WindowChangelog changelog;
+    private final String sourceTopic;
+
+    public WindowRestoreRebalanceListener(
+            EditWarDetectionService detectionService,
+            WindowChangelog changelog,
+            @Value("${detection.source-topic:" + ApiRealTImeChangesConsumer.TOPIC + "}") String sourceTopic
+    ) {
+        this.detectionService = detectionService;
+        this.changelog = changelog;
+        this.sourceTopic = sourceTopic;
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // The next owner restores up to the changelog's end: the writes for the records
+        // behind the offsets about to be committed must be there by then
+        if (isDetectionConsumer(consumer) && !changelog.flush()) {
+            log.warn("Handing over partitions {} with changelog writes missing; their windows restore without them",
+                    partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (isDetectionConsumer(consumer)) {
+            // The full assignment, not just the delta: eager rebalances revoke and re-assign everything
+            detectionService.retainPartitions(sourcePartitions(consumer.assignment(), Set.of()));
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (isDetectionConsumer(consumer)) {
+            log.warn("Lost partitions {}, dropping their page windows", partitions);
+            detectionService.retainPartitions(sourcePartitions(consumer.assignment(), partitions));
+        }
+    }
+
+    private static boolean isDetectionConsumer(Consumer<?, ?> consumer) {
+        return ApiRealTImeChangesConsumer.GROUP_ID.equals(consumer.groupMetadata().groupId());
+    }
+
+    private Set<Integer> sourcePartitions(Collection<TopicPartition> assignment, Collection<TopicPartition> excluded) {
+        Set<Integer> partitions = new HashSet<>();
+        for (TopicPartition tp : assignment) {
+            if (sourceTopic.equals(tp.topic()) && !excluded.contains(tp)) {
+                partitions.add(tp.partition());
+            }
+        }
+        return partitions;
+    }
+}
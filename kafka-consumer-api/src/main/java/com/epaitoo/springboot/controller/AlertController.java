@@ -9,13 +9,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @Slf4j
 @RestController
@@ -24,6 +28,10 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class AlertController {
 
+    /** Default and chunk sizes for NDJSON streaming endpoints */
+    private static final int DEFAULT_STREAM_LIMIT = 10_000;
+    private static final int STREAM_CHUNK_SIZE = 500;
+
     private final AlertService alertService;
 
     /**
@@ -115,22 +123,24 @@ public class AlertController {
     }
 
     /**
-     * GET /api/alerts/status/{status}
+     * GET /api/alerts/status/{status}?limit=100
      *
-     * Get alerts filtered by status
+     * Get alerts filtered by status (newest first)
      *
      * @param status Alert status (ACTIVE, RESOLVED, etc.)
+     * @param limit Maximum number of alerts (default: 100, capped at 1000)
      * @return List of alerts with given status
      */
     @GetMapping("/alerts/status/{status}")
     public Mono<ResponseEntity<List<EditWarAlert>>> getAlertsByStatus(
-            @PathVariable String status
+            @PathVariable String status,
+            @RequestParam(defaultValue = "" + AlertService.DEFAULT_LIMIT) int limit
     ) {
-        log.info("GET /api/alerts/status/{}", status);
+        log.info("GET /api/alerts/status/{} - limit: {}", status, limit);
 
         return Mono.fromCallable(() -> {
             EditWarStatus warStatus = EditWarStatus.valueOf(status.toUpperCase());
-            List<EditWarAlert> alerts = alertService.getAlertsByStatus(warStatus);
+            List<EditWarAlert> alerts = alertService.getAlertsByStatus(warStatus, limit);
             return ResponseEntity.ok(alerts);
         }).onErrorResume(IllegalArgumentException.class, e -> {
             log.error("Invalid status: {}", status);
@@ -139,21 +149,49 @@ public class AlertController {
     }
 
     /**
-     * GET /api/alerts/severity/{level}
+     * GET /api/alerts/status/{status}/stream?limit=10000
+     *
+     * Stream alerts filtered by status as NDJSON, one alert per line
+     *
+     * @param status Alert status (ACTIVE, RESOLVED, etc.)
+     * @param limit Maximum number of alerts (default: 10000, capped at 100000)
+     * @return NDJSON stream of alerts with given status
+     */
+    @GetMapping(value = "/alerts/status/{status}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<EditWarAlert>>> streamAlertsByStatus(
+            @PathVariable String status,
+            @RequestParam(defaultValue = "" + DEFAULT_STREAM_LIMIT) int limit
+    ) {
+        log.info("GET /api/alerts/status/{}/stream - limit: {}", status, limit);
+
+        return Mono.fromCallable(() -> EditWarStatus.valueOf(status.toUpperCase()))
+                .flatMap(warStatus -> streamAlerts(
+                        last -> alertService.getAlertsByStatus(warStatus, idOf(last), STREAM_CHUNK_SIZE),
+                        limit))
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.error("Invalid status: {}", status);
+                    return Mono.just(ResponseEntity.badRequest().build());
+                });
+    }
+
+    /**
+     * GET /api/alerts/severity/{level}?limit=100
      *
-     * Get alerts filtered by severity level
+     * Get alerts filtered by severity level (newest first)
      *
      * @param level Severity level (LOW, MEDIUM, HIGH, CRITICAL)
+     * @param limit Maximum number of alerts (default: 100, capped at 1000)
      * @return List of alerts with given severity
      */
     @GetMapping("/alerts/severity/{level}")
     public Mono<ResponseEntity<List<EditWarAlert>>> getAlertsBySeverity(
-            @PathVariable String level
+            @PathVariable String level,
+            @RequestParam(defaultValue = "" + AlertService.DEFAULT_LIMIT) int limit
     ) {
-        log.info("GET /api/alerts/severity/{}", level);
+        log.info("GET /api/alerts/severity/{} - limit: {}", level, limit);
 
         return Mono.fromCallable(() -> {
-            List<EditWarAlert> alerts = alertService.getAlertsBySeverity(level);
+            List<EditWarAlert> alerts = alertService.getAlertsBySeverity(level, limit);
             return ResponseEntity.ok(alerts);
         }).onErrorResume(IllegalArgumentException.class, e -> {
             log.error("Invalid severity level: {}", level);
@@ -162,43 +200,117 @@ public class AlertController {
     }
 
     /**
-     * GET /api/alerts/wiki/{wiki}
+     * GET /api/alerts/severity/{level}/stream?limit=10000
      *
-     * Get alerts for specific wiki
+     * Stream alerts filtered by severity level as NDJSON, one alert per line
+     *
+     * @param level Severity level (LOW, MEDIUM, HIGH, CRITICAL)
+     * @param limit Maximum number of alerts (default: 10000, capped at 100000)
+     * @return NDJSON stream of alerts with given severity
+     */
+    @GetMapping(value = "/alerts/severity/{level}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<EditWarAlert>>> streamAlertsBySeverity(
+            @PathVariable String level,
+            @RequestParam(defaultValue = "" + DEFAULT_STREAM_LIMIT) int limit
+    ) {
+        log.info("GET /api/alerts/severity/{}/stream - limit: {}", level, limit);
+
+        return streamAlerts(
+                last -> alertService.getAlertsBySeverity(level, idOf(last), STREAM_CHUNK_SIZE),
+                limit
+        ).onErrorResume(IllegalArgumentException.class, e -> {
+            log.error("Invalid severity level: {}", level);
+            return Mono.just(ResponseEntity.badRequest().build());
+        });
+    }
+
+    /**
+     * GET /api/alerts/wiki/{wiki}?limit=100
+     *
+     * Get alerts for specific wiki (newest first)
      *
      * @param wiki Wiki domain (e.g., en.wikipedia.org)
+     * @param limit Maximum number of alerts (default: 100, capped at 1000)
      * @return List of alerts for given wiki
      */
     @GetMapping("/alerts/wiki/{wiki}")
     public Mono<ResponseEntity<List<EditWarAlert>>> getAlertsByWiki(
-            @PathVariable String wiki
+            @PathVariable String wiki,
+            @RequestParam(defaultValue = "" + AlertService.DEFAULT_LIMIT) int limit
     ) {
-        log.info("GET /api/alerts/wiki/{}", wiki);
+        log.info("GET /api/alerts/wiki/{} - limit: {}", wiki, limit);
 
         return Mono.fromCallable(() -> {
-            List<EditWarAlert> alerts = alertService.getAlertsByWiki(wiki);
+            List<EditWarAlert> alerts = alertService.getAlertsByWiki(wiki, limit);
             return ResponseEntity.ok(alerts);
         });
     }
 
     /**
-     * GET /api/alerts/recent
+     * GET /api/alerts/wiki/{wiki}/stream?limit=10000
+     *
+     * Stream alerts for specific wiki as NDJSON, one alert per line
+     *
+     * @param wiki Wiki domain (e.g., en.wikipedia.org)
+     * @param limit Maximum number of alerts (default: 10000, capped at 100000)
+     * @return NDJSON stream of alerts for given wiki
+     */
+    @GetMapping(value = "/alerts/wiki/{wiki}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<EditWarAlert>>> streamAlertsByWiki(
+            @PathVariable String wiki,
+            @RequestParam(defaultValue = "" + DEFAULT_STREAM_LIMIT) int limit
+    ) {
+        log.info("GET /api/alerts/wiki/{}/stream - limit: {}", wiki, limit);
+
+        return streamAlerts(
+                last -> alertService.getAlertsByWiki(wiki, idOf(last), STREAM_CHUNK_SIZE),
+                limit
+        );
+    }
+
+    /**
+     * GET /api/alerts/recent?limit=100
      *
      * Get recent active alerts (ordered by detection time)
      *
+     * @param limit Maximum number of alerts (default: 100, capped at 1000)
      * @return List of recent active alerts
      */
     @GetMapping("/alerts/recent")
-    public Mono<ResponseEntity<List<EditWarAlert>>> getRecentActiveAlerts() {
-        log.info("GET /api/alerts/recent");
+    public Mono<ResponseEntity<List<EditWarAlert>>> getRecentActiveAlerts(
+            @RequestParam(defaultValue = "" + AlertService.DEFAULT_LIMIT) int limit
+    ) {
+        log.info("GET /api/alerts/recent - limit: {}", limit);
 
         return Mono.fromCallable(() -> {
-            List<EditWarAlert> alerts = alertService.getRecentActiveAlerts();
+            List<EditWarAlert> alerts = alertService.getRecentActiveAlerts(limit);
             log.info("Returning {} recent alerts", alerts.size());
             return ResponseEntity.ok(alerts);
         });
     }
 
+    /**
+     * GET /api/alerts/recent/stream?limit=10000
+     *
+     * Stream recent active alerts as NDJSON, one alert per line
+     *
+     * @param limit Maximum number of alerts (default: 10000, capped at 100000)
+     * @return NDJSON stream of recent active alerts
+     */
+    @GetMapping(value = "/alerts/recent/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<EditWarAlert>>> streamRecentActiveAlerts(
+            @RequestParam(defaultValue = "" + DEFAULT_STREAM_LIMIT) int limit
+    ) {
+        log.info("GET /api/alerts/recent/stream - limit: {}", limit);
+
+        return streamAlerts(
+                last -> last == null
+                        ? alertService.getRecentActiveAlerts(STREAM_CHUNK_SIZE)
+                        : alertService.getRecentActiveAlerts(last.getDetectedAt(), last.getId(), STREAM_CHUNK_SIZE),
+                limit
+        );
+    }
+
     /**
      * GET /api/stats
      *
@@ -238,4 +350,45 @@ public class AlertController {
     }
 
 
+    /**
+     * Stream alerts chunk by chunk (keyset pagination), so at most one chunk
+     * is held in memory regardless of how many alerts match.
+     *
+     * The first chunk is loaded before the response is committed, so invalid
+     * arguments still surface as 400 instead of a broken stream.
+     *
+     * @param nextChunk Loads the chunk following the given alert (null for the first chunk)
+     * @param limit Requested maximum number of alerts (capped at MAX_STREAM_LIMIT)
+     */
+    private Mono<ResponseEntity<Flux<EditWarAlert>>> streamAlerts(
+            Function<EditWarAlert, List<EditWarAlert>> nextChunk, int limit) {
+        int maxAlerts = Math.max(1, Math.min(limit, AlertService.MAX_STREAM_LIMIT));
+
+        return fetchChunk(nextChunk, null)
+                .map(firstChunk -> {
+                    Flux<EditWarAlert> body = Mono.just(firstChunk)
+                            .expand(chunk -> chunk.size() < STREAM_CHUNK_SIZE
+                                    ? Mono.empty()
+                                    : fetchChunk(nextChunk, chunk.getLast()))
+                            .flatMapIterable(chunk -> chunk)
+                            .take(maxAlerts);
+
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .body(body);
+                });
+    }
+
+    /**
+     * Load one chunk off the event loop (JPA calls are blocking)
+     */
+    private Mono<List<EditWarAlert>> fetchChunk(
+            Function<EditWarAlert, List<EditWarAlert>> nextChunk, EditWarAlert last) {
+        return Mono.fromCallable(() -> nextChunk.apply(last))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Long idOf(EditWarAlert alert) {
+        return alert != null ? alert.getId() : null;
+    }
 }
@@ -1,43 +1,92 @@
 package com.epaitoo.springboot.controller;
 
-import com.epaitoo.springboot.ApiEventListener;
-import com.epaitoo.springboot.ApiRealTImeChangesConsumer;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity.SeverityLevel;
+import com.epaitoo.springboot.service.AlertEventPublisher;
+import com.epaitoo.springboot.service.StreamFilter;
+import com.epaitoo.springboot.service.StreamFilter.Delivery;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 
+@Slf4j
 @RestController
+@RequiredArgsConstructor
 public class ApiRealTimeChangesController {
 
-    @Autowired
-    private ApiRealTImeChangesConsumer apiRealTImeChangesConsumer;
+    private final AlertEventPublisher eventPublisher;
 
-    private Flux<String> bridge;
+    /**
+     * GET /stream?wiki=en.wikipedia.org&minSeverity=HIGH&alertsOnly=true&titlePrefix=Talk:&mode=batch
+     *
+     * Live edits and edit war alerts as Server-Sent Events, filtered on the server.
+     * Every event carries an id; browsers reconnect with Last-Event-ID and get the
+     * missed events replayed (or a "gap" event if they are no longer retained).
+     *
+     * @param wiki Only frames from this wiki (optional)
+     * @param minSeverity Drop alerts below this level: LOW, MEDIUM, HIGH, CRITICAL (optional)
+     * @param alertsOnly Drop plain edits (default: false)
+     * @param titlePrefix Only pages whose title starts with this prefix (optional)
+     * @param mode Edit delivery: raw (one frame per edit), batch, or conflate (per-page counts) (default: raw)
+     * @param lastEventId Id of the last event the client received (set by the browser on reconnect)
+     * @return Matching events, or 400 if minSeverity or mode is invalid
+     */
+    @GetMapping(value = "/stream", produces = "text/event-stream;charset=UTF-8")
+    public Flux<ServerSentEvent<String>> getStreamEvents(
+            @RequestParam(required = false) String wiki,
+            @RequestParam(required = false) String minSeverity,
+            @RequestParam(defaultValue = "false") boolean alertsOnly,
+            @RequestParam(required = false) String titlePrefix,
+            @RequestParam(defaultValue = "raw") String mode,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        StreamFilter filter = new StreamFilter(wiki, parseSeverity(minSeverity), alertsOnly, titlePrefix,
+                parseDelivery(mode));
+        log.debug("GET /stream - filter: {}, Last-Event-ID: {}", filter, lastEventId);
 
-    public ApiRealTimeChangesController() {
-        this.bridge = createBridge().publish().autoConnect().cache(10).log();
+        return eventPublisher.subscribe(filter, parseEventId(lastEventId));
     }
 
-    @GetMapping(value = "/stream", produces = "text/event-stream;charset=UTF-8")
-    public Flux<String> getStreamEvents() {
-        return bridge;
+    /**
+     * Ids are only ever issued by this server; anything else is treated as a fresh connection
+     */
+    private Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring invalid Last-Event-ID: {}", lastEventId);
+            return null;
+        }
+    }
+
+    private SeverityLevel parseSeverity(String minSeverity) {
+        if (minSeverity == null || minSeverity.isBlank()) {
+            return null;
+        }
+        try {
+            return SeverityLevel.valueOf(minSeverity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid severity level: {}", minSeverity);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid minSeverity: " + minSeverity);
+        }
     }
 
-    private Flux<String> createBridge() {
-        return Flux.create(sink -> {
-            apiRealTImeChangesConsumer.register(new ApiEventListener() {
-                @Override
-                public void onData(String event) {
-                    sink.next(event);
-                }
-
-                @Override
-                public void processComplete() {
-                    sink.complete();
-                }
-            });
-        });
+    private Delivery parseDelivery(String mode) {
+        try {
+            return Delivery.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid stream mode: {}", mode);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid mode: " + mode);
+        }
     }
 
 }
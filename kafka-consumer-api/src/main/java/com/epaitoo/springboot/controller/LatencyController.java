@@ -0,0 +1,49 @@
+package com.epaitoo.springboot.controller;
+
+import com.epaitoo.springboot.service.LatencyTracker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class LatencyController {
+
+    private final LatencyTracker latencyTracker;
+
+    /**
+     * GET /api/latency
+     *
+     * Get per-stage latency percentiles of the edit pipeline, from Wikimedia event time to SSE emit
+     *
+     * @return Stage name → count, mean, p50, p90, p99, p99.9 and max in milliseconds
+     */
+    @GetMapping("/latency")
+    public Map<String, Map<String, Object>> getLatency() {
+        return latencyTracker.getSnapshot();
+    }
+
+    /**
+     * DELETE /api/latency
+     *
+     * Clear the latency histograms (e.g. before a load test)
+     *
+     * @return 204 No Content
+     */
+    @DeleteMapping("/latency")
+    public ResponseEntity<Void> resetLatency() {
+        log.info("DELETE /api/latency");
+        latencyTracker.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
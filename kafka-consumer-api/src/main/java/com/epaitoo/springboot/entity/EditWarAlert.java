@@ -14,6 +14,7 @@ import java.util.List;
 @Builder
 public class EditWarAlert {
     // Identification
+    private Long id;  // Database ID (null until persisted)
     private String pageTitle;
     private String wiki;
 
@@ -1,8 +1,10 @@
 package com.epaitoo.springboot.entity;
 
+import com.epaitoo.springboot.LogSampler;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashSet;
@@ -11,42 +13,57 @@ import java.util.Set;
 @Data
 @Slf4j
 public class PageEditWindow {
-    private static final int MAX_EDITS = 50; // Safety cap
-    private static final long ONE_HOUR_SECONDS = 3600L; // 1 hour in seconds
+    private static final LogSampler STATS_LOG = LogSampler.of(log, "window.stats", 1, Duration.ofSeconds(1));
+    // A page stuck at the cap hits it on every edit
+    private static final LogSampler CAPPED_LOG = LogSampler.of(log, "window.capped", 1, Duration.ofMinutes(1));
 
     // State
     private String pageTitle;
     private Deque<WikimediaEditEvent> edits;
+    private RevisionHistory history;
 
     public PageEditWindow(String pageTitle) {
         this.pageTitle = pageTitle;
         this.edits = new ArrayDeque<>();
+        this.history = new RevisionHistory();
     }
 
     /**
-     * Add a new edit to the window
+     * Add a new edit to the window, with the default thresholds
      */
     public void addEdit(WikimediaEditEvent edit) {
+        addEdit(edit, WarThresholds.DEFAULT);
+    }
+
+    /**
+     * Add a new edit to the window
+     *
+     * @param thresholds The wiki's thresholds (window length and edit cap)
+     */
+    public void addEdit(WikimediaEditEvent edit, WarThresholds thresholds) {
         // Remove expired edits first
-        removeExpiredEdits(edit.getTimestamp());
+        removeExpiredEdits(edit.getTimestamp(), thresholds.window().toSeconds());
+
+        // Match against the page's revisions (kept beyond the window) while they are at hand
+        edit.setRevertedTo(history.record(edit));
 
         // Add new edit to the end
         edits.addLast(edit);
 
         // Safety cap to prevent memory explosion
-        if (edits.size() > MAX_EDITS) {
+        if (edits.size() > thresholds.maxEdits()) {
             edits.removeFirst();
-            log.warn("Page {} exceeded max edits, removed oldest", pageTitle);
+            CAPPED_LOG.warn("Page {} exceeded max edits, removed oldest", pageTitle);
         }
     }
 
     /**
-     * Remove edits older than 1 hour
+     * Remove edits older than the window (timestamps in seconds)
      */
-    private void removeExpiredEdits(Long currentTimestamp) {
+    private void removeExpiredEdits(Long currentTimestamp, long windowSeconds) {
         while (!edits.isEmpty()) {
             WikimediaEditEvent oldest = edits.peekFirst();
-            if (oldest != null && (currentTimestamp - oldest.getTimestamp()) >= ONE_HOUR_SECONDS) {
+            if (oldest != null && (currentTimestamp - oldest.getTimestamp()) >= windowSeconds) {
                 edits.removeFirst();
                 log.debug("Removed expired edit from page {}", pageTitle);
             } else {
@@ -56,7 +73,7 @@ public class PageEditWindow {
     }
 
     /**
-     * Check if this page is experiencing an edit war
+     * Check if this page is experiencing an edit war, with the default thresholds
      *
      * Criteria:
      * - At least 5 edits in the window
@@ -65,8 +82,15 @@ public class PageEditWindow {
      * - At least 50% of edits show conflict patterns
      */
     public boolean isEditWar() {
-        // Need at least 5 edits
-        if (edits.size() < 5) {
+        return isEditWar(WarThresholds.DEFAULT);
+    }
+
+    /**
+     * Check if this page is experiencing an edit war, with a wiki's own thresholds
+     */
+    public boolean isEditWar(WarThresholds thresholds) {
+        // Need enough edits
+        if (edits.size() < thresholds.minEdits()) {
             return false;
         }
 
@@ -78,9 +102,10 @@ public class PageEditWindow {
             }
         }
 
-        // Need 2-3 distinct human users
-        if (users.size() < 2 || users.size() > 3) {
-            log.debug("Page {} has {} users (need 2-3 humans)", pageTitle, users.size());
+        // Need 2-3 distinct human users (by default)
+        if (users.size() < thresholds.minUsers() || users.size() > thresholds.maxUsers()) {
+            log.debug("Page {} has {} users (need {}-{} humans)", pageTitle, users.size(),
+                    thresholds.minUsers(), thresholds.maxUsers());
             return false;
         }
 
@@ -89,21 +114,21 @@ public class PageEditWindow {
         double conflictRatio = (double) conflictEdits / edits.size();
 
         // Log when close to threshold (for debugging)
-        if (edits.size() >= 5) {
-            log.info("📊 Page {} - {} edits, {} users, {} conflicts ({}%)",
+        if (edits.size() >= thresholds.minEdits()) {
+            STATS_LOG.debug("📊 Page {} - {} edits, {} users, {} conflicts ({}%)",
                     pageTitle, edits.size(), users.size(), conflictEdits,
                     (int)(conflictRatio * 100));
         }
 
-        // At least 50% must be conflicts
-        return conflictRatio >= 0.5;
+        // At least 50% (by default) must be conflicts
+        return conflictRatio >= thresholds.conflictRatio();
     }
 
     /**
      * Count edits that show conflict behavior
      */
     private int countConflictEdits() {
-        if (edits.size() < 2) {
+        if (edits.isEmpty()) {
             return 0;
         }
 
@@ -121,11 +146,11 @@ public class PageEditWindow {
 
             boolean isConflict = false;
 
-            // Check for pure revert (strong signal)
-            if (isPureRevert(currentEdit, previousLengths)) {
+            // Check for a revert (strong signal)
+            if (isRevert(currentEdit, previousLengths)) {
                 isConflict = true;
-                log.debug("Pure revert detected on page {}: {} -> {}",
-                        pageTitle, currentEdit.getLengthOld(), currentEdit.getLengthNew());
+                log.debug("Revert detected on page {}: {} -> {} (revision {})",
+                        pageTitle, currentEdit.getLengthOld(), currentEdit.getLengthNew(), currentEdit.getRevertedTo());
             }
             // Check for opposing edit (medium signal)
             else if (i > 0 && isOpposingEdit(editArray[i - 1], currentEdit)) {
@@ -156,6 +181,17 @@ public class PageEditWindow {
         return (prevChange > 0 && currChange < 0) || (prevChange < 0 && currChange > 0);
     }
 
+    /**
+     * Check if this edit reverts the page: to an earlier revision, found in the history when the
+     * edit was added, or for edits without revision ids (older producers) to a length in the window
+     */
+    private boolean isRevert(WikimediaEditEvent currentEdit, Set<Integer> previousLengths) {
+        if (currentEdit.getRevisionNew() != null) {
+            return currentEdit.getRevertedTo() != null;
+        }
+        return isPureRevert(currentEdit, previousLengths);
+    }
+
     /**
      * Check if this edit reverts to a previous length
      */
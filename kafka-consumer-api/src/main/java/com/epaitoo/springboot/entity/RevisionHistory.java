@@ -0,0 +1,200 @@
+package com.epaitoo.springboot.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A page's recent revisions and their lengths, to tell which earlier revision an edit restores
+ *
+ * Each edit names its parent (revision.old) and its own revision (revision.new). An edit is a
+ * revert to revision N when it changes the page's length back to N's, N being an older
+ * revision than its parent: "back to revision N" rather than "a length seen somewhere in
+ * the window". The history outlives the time window and the window's edit cap, so a revert
+ * to a revision from before either is still recognised.
+ *
+ * Revisions are kept in a ring of at most CAPACITY entries (oldest dropped first), with an
+ * open-addressing index from length to the newest revision of that length. Recording an
+ * edit is constant time. The ring starts small and doubles as the page gets busier, so a
+ * page never holds more than about 1.3 KB of history (64 ids, lengths and index buckets).
+ *
+ * recentchange events carry no content hash, so two revisions of the same length are
+ * indistinguishable: equal length is the best evidence of restored content available.
+ */
+public class RevisionHistory {
+
+    public static final int CAPACITY = 64;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] revisions;
+    private int[] lengths;
+    private int oldest;
+    private int size;
+    // Ring slot + 1 per bucket (0 = empty), twice as many buckets as slots
+    private int[] index;
+
+    public RevisionHistory() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Rebuild a stored history (oldest revision first)
+     */
+    @JsonCreator
+    public RevisionHistory(@JsonProperty("revisions") long[] revisions, @JsonProperty("lengths") int[] lengths) {
+        this();
+        if (revisions != null && lengths != null) {
+            for (int i = 0; i < Math.min(revisions.length, lengths.length); i++) {
+                add(revisions[i], lengths[i]);
+            }
+        }
+    }
+
+    /**
+     * Record an edit's revisions and find the one it restores
+     *
+     * @param edit An edit; without revision.new and length.new it is ignored
+     * @return Id of the earlier revision whose length the edit restores, null if it isn't a revert
+     */
+    public Long record(WikimediaEditEvent edit) {
+        Long revision = edit.getRevisionNew();
+        Integer length = edit.getLengthNew();
+        if (revision == null || length == null) {
+            return null;
+        }
+        if (size > 0 && revisions[slot(size - 1)] >= revision) {
+            return null;  // delivered again, or out of order: its successors are already known
+        }
+
+        Long parent = edit.getRevisionOld();
+        Integer parentLength = edit.getLengthOld();
+        Long target = null;
+        // An edit that leaves the length alone restores nothing we could tell apart
+        if (parentLength != null && !parentLength.equals(length)) {
+            int slot = find(length);
+            if (slot >= 0 && (parent == null || revisions[slot] != parent)) {
+                target = revisions[slot];
+            }
+        }
+
+        // The parent is normally the newest entry already; after a gap, learn it from this edit
+        if (parent != null && parentLength != null && (size == 0 || revisions[slot(size - 1)] != parent)) {
+            add(parent, parentLength);
+        }
+        add(revision, length);
+        return target;
+    }
+
+    /**
+     * Get the recorded revision ids, oldest first
+     */
+    public long[] getRevisions() {
+        long[] ordered = new long[size];
+        for (int i = 0; i < size; i++) {
+            ordered[i] = revisions[slot(i)];
+        }
+        return ordered;
+    }
+
+    /**
+     * Get the lengths of the recorded revisions, oldest first
+     */
+    public int[] getLengths() {
+        int[] ordered = new int[size];
+        for (int i = 0; i < size; i++) {
+            ordered[i] = lengths[slot(i)];
+        }
+        return ordered;
+    }
+
+    /**
+     * Number of revisions recorded
+     */
+    public int size() {
+        return size;
+    }
+
+    private void add(long revision, int length) {
+        if (size == revisions.length) {
+            if (revisions.length < CAPACITY) {
+                grow();
+            } else {
+                unindex(oldest);
+                oldest = (oldest + 1) & (revisions.length - 1);
+                size--;
+            }
+        }
+        int slot = slot(size++);
+        revisions[slot] = revision;
+        lengths[slot] = length;
+
+        // Point the length at this revision: either its bucket or the first free one
+        int mask = index.length - 1;
+        int bucket = hash(length) & mask;
+        while (index[bucket] != 0 && lengths[index[bucket] - 1] != length) {
+            bucket = (bucket + 1) & mask;
+        }
+        index[bucket] = slot + 1;
+    }
+
+    /**
+     * Ring slot of the newest revision with this length, or -1
+     */
+    private int find(int length) {
+        int mask = index.length - 1;
+        for (int bucket = hash(length) & mask; index[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int slot = index[bucket] - 1;
+            if (lengths[slot] == length) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Drop a slot about to be overwritten from the index, if it is still its length's newest
+     */
+    private void unindex(int slot) {
+        int mask = index.length - 1;
+        int hole = hash(lengths[slot]) & mask;
+        while (index[hole] != 0 && lengths[index[hole] - 1] != lengths[slot]) {
+            hole = (hole + 1) & mask;
+        }
+        if (index[hole] != slot + 1) {
+            return;  // a newer revision has the same length
+        }
+        // Backward-shift deletion: move later entries of the probe run into the hole
+        for (int bucket = (hole + 1) & mask; index[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int home = hash(lengths[index[bucket] - 1]) & mask;
+            if (((bucket - home) & mask) >= ((bucket - hole) & mask)) {
+                index[hole] = index[bucket];
+                hole = bucket;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    private void grow() {
+        long[] oldRevisions = getRevisions();
+        int[] oldLengths = getLengths();
+        allocate(revisions.length * 2);
+        for (int i = 0; i < oldRevisions.length; i++) {
+            add(oldRevisions[i], oldLengths[i]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        revisions = new long[capacity];
+        lengths = new int[capacity];
+        index = new int[capacity * 2];
+        oldest = 0;
+        size = 0;
+    }
+
+    private int slot(int position) {
+        return (oldest + position) & (revisions.length - 1);
+    }
+
+    private static int hash(int length) {
+        return length * 0x9E3779B9 >>> 16;
+    }
+}
@@ -0,0 +1,34 @@
+package com.epaitoo.springboot.entity;
+
+import java.time.Duration;
+
+/**
+ * When a page's window counts as an edit war, and how much history it keeps
+ *
+ * @param minEdits Edits the window needs before it is checked
+ * @param minUsers Fewest distinct human editors in the main namespace
+ * @param maxUsers Most distinct human editors (more looks like busy collaboration, not a war)
+ * @param conflictRatio Share of edits that must revert or oppose the previous one
+ * @param window How long an edit stays in the window
+ * @param maxEdits Edits kept per window at most (oldest dropped first)
+ */
+public record WarThresholds(int minEdits, int minUsers, int maxUsers, double conflictRatio,
+                            Duration window, int maxEdits) {
+
+    public static final WarThresholds DEFAULT = new WarThresholds(5, 2, 3, 0.5, Duration.ofHours(1), 50);
+
+    public WarThresholds {
+        if (minEdits < 2 || maxEdits < minEdits) {
+            throw new IllegalArgumentException("Need 2 <= min-edits <= max-edits, got " + minEdits + " and " + maxEdits);
+        }
+        if (minUsers < 1 || maxUsers < minUsers) {
+            throw new IllegalArgumentException("Need 1 <= min-users <= max-users, got " + minUsers + " and " + maxUsers);
+        }
+        if (conflictRatio <= 0 || conflictRatio > 1) {
+            throw new IllegalArgumentException("conflict-ratio must be in (0, 1], got " + conflictRatio);
+        }
+        if (window == null || window.toSeconds() < 1) {
+            throw new IllegalArgumentException("window must be at least a second, got " + window);
+        }
+    }
+}
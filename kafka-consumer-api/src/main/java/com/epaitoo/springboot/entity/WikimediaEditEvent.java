@@ -37,10 +37,17 @@ public class WikimediaEditEvent {
     @JsonProperty("meta")
     private MetaInfo meta;
 
+    @JsonProperty("revision")
+    private RevisionInfo revision;
+
     // Computed/helper fields (not from JSON)
     private Integer lengthOld;
     private Integer lengthNew;
+    private Long revisionOld;
+    private Long revisionNew;
+    private Long revertedTo;  // earlier revision this edit restores, set by the page's RevisionHistory
     private String wiki;
+    private String eventTime;  // meta.dt
 
     // Inner classes for nested JSON structures
     @Data
@@ -54,6 +61,17 @@ public class WikimediaEditEvent {
         private Integer newLength;
     }
 
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class RevisionInfo {
+        @JsonProperty("old")
+        private Long old;
+
+        @JsonProperty("new")
+        private Long newRevision;
+    }
+
     @Data
     @NoArgsConstructor
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -75,8 +93,14 @@ public class WikimediaEditEvent {
             this.lengthNew = length.getNewLength();
         }
 
+        if (revision != null) {
+            this.revisionOld = revision.getOld();
+            this.revisionNew = revision.getNewRevision();
+        }
+
         if (meta != null) {
             this.wiki = meta.getDomain();
+            this.eventTime = meta.getDt();
         }
 
         // Set defaults
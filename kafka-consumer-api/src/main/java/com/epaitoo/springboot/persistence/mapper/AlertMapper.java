@@ -62,6 +62,9 @@ public class AlertMapper {
         }
 
         EditWarAlert alert = EditWarAlert.builder()
+                // Identification
+                .id(entity.getId())
+
                 // Page information
                 .pageTitle(entity.getPageTitle())
                 .wiki(entity.getWiki())
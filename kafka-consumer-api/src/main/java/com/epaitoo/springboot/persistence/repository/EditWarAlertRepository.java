@@ -3,6 +3,7 @@ package com.epaitoo.springboot.persistence.repository;
 import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity;
 import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity.SeverityLevel;
 import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity.AlertStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -58,6 +59,72 @@ public interface EditWarAlertRepository extends JpaRepository<EditWarAlertEntity
             Pageable pageable
     );
 
+//    Keyset Queries (bounded chunks, newest first)
+    /**
+     * Next chunk of alerts with given status, older than the cursor ID
+     */
+    @Query("SELECT a FROM EditWarAlertEntity a " +
+            "WHERE a.status = :status " +
+            "AND a.Id < :beforeId " +
+            "ORDER BY a.Id DESC")
+    List<EditWarAlertEntity> findByStatusBeforeId(
+            @Param("status") AlertStatus status,
+            @Param("beforeId") Long beforeId,
+            Limit limit
+    );
+
+    /**
+     * Next chunk of alerts with given severity level, older than the cursor ID
+     */
+    @Query("SELECT a FROM EditWarAlertEntity a " +
+            "WHERE a.severityLevel = :level " +
+            "AND a.Id < :beforeId " +
+            "ORDER BY a.Id DESC")
+    List<EditWarAlertEntity> findBySeverityLevelBeforeId(
+            @Param("level") SeverityLevel severityLevel,
+            @Param("beforeId") Long beforeId,
+            Limit limit
+    );
+
+    /**
+     * Next chunk of alerts for given wiki, older than the cursor ID
+     */
+    @Query("SELECT a FROM EditWarAlertEntity a " +
+            "WHERE a.wiki = :wiki " +
+            "AND a.Id < :beforeId " +
+            "ORDER BY a.Id DESC")
+    List<EditWarAlertEntity> findByWikiBeforeId(
+            @Param("wiki") String wiki,
+            @Param("beforeId") Long beforeId,
+            Limit limit
+    );
+
+    /**
+     * First chunk of alerts with given status, ordered by detection time
+     */
+    @Query("SELECT a FROM EditWarAlertEntity a " +
+            "WHERE a.status = :status " +
+            "ORDER BY a.detectedAt DESC, a.Id DESC")
+    List<EditWarAlertEntity> findRecentByStatus(
+            @Param("status") AlertStatus status,
+            Limit limit
+    );
+
+    /**
+     * Next chunk of alerts with given status, detected before the cursor (detectedAt, id)
+     */
+    @Query("SELECT a FROM EditWarAlertEntity a " +
+            "WHERE a.status = :status " +
+            "AND (a.detectedAt < :beforeDetectedAt " +
+            "OR (a.detectedAt = :beforeDetectedAt AND a.Id < :beforeId)) " +
+            "ORDER BY a.detectedAt DESC, a.Id DESC")
+    List<EditWarAlertEntity> findRecentByStatusBefore(
+            @Param("status") AlertStatus status,
+            @Param("beforeDetectedAt") Instant beforeDetectedAt,
+            @Param("beforeId") Long beforeId,
+            Limit limit
+    );
+
     /**
      * Count alerts by severity level
      */
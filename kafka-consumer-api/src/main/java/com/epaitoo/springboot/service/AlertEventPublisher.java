@@ -1,45 +1,388 @@
 package com.epaitoo.springboot.service;
 
-import com.epaitoo.springboot.ApiEventListener;
 import com.epaitoo.springboot.entity.EditWarAlert;
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity.SeverityLevel;
+import com.epaitoo.springboot.service.StreamFilter.Delivery;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Single SSE hub: every edit and alert frame is published here.
+ *
+ * Publishing only hands the event to a bounded lock-free {@link DispatchQueue}; a
+ * dedicated dispatcher thread does the rest (alert serialization, routing, fan-out).
+ * The Kafka listener therefore never waits for subscribers: if the dispatcher falls
+ * behind, new events are dropped from the stream (and counted), not ingested slower.
+ *
+ * Fan-out never waits for subscribers either. Each subscriber drains its own bounded
+ * buffer, so a slow browser only affects itself:
+ * - DROP_OLDEST: the slow client loses its oldest pending frames
+ * - DISCONNECT: the slow client's stream is completed (the browser reconnects)
+ *
+ * Subscribers with equal {@link StreamFilter}s share one sink (a filter group).
+ * Each event is matched once against the index of active groups, so a frame is
+ * only ever queued for clients that asked for it.
+ *
+ * Every frame gets a monotonic id and is kept in a bounded {@link ReplayRing}, so a
+ * reconnecting browser (Last-Event-ID) gets exactly the frames it missed, or a "gap"
+ * event if they are no longer retained.
+ *
+ * Groups with BATCH / CONFLATE delivery collect plain edits and flush them as one
+ * frame per batch interval (alerts still go out immediately).
+ *
+ * The monitoring counters below are exported as sse.* meters (Boot binds MeterBinder beans).
+ */
 @Slf4j
 @Service
-public class AlertEventPublisher {
+public class AlertEventPublisher implements MeterBinder {
+
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        DISCONNECT
+    }
+
+    // Frames moved from a subscriber's buffer to its delivery worker at a time
+    static final int DELIVERY_PREFETCH = 32;
+
+    // Longest the idle dispatcher sleeps before re-checking its queue
+    private static final long DISPATCHER_IDLE_PARK_NANOS = 1_000_000;
+
     private final ObjectMapper objectMapper;
+    private final int subscriberBufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final Scheduler deliveryScheduler;
+
+    // Recent frames for Last-Event-ID resume (written on every publish, even with no listeners)
+    private final ReplayRing replayRing;
+
+    // Flushes batching groups once per batch interval
+    private final Disposable batchTicker;
 
-    // Thread-safe list of listeners (supports multiple SSE connections)
-    private final CopyOnWriteArrayList<ApiEventListener> listeners = new CopyOnWriteArrayList<>();
+    // Events waiting for the dispatcher thread (null: dispatch on the publishing thread)
+    private final DispatchQueue<Outgoing> dispatchQueue;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+    private volatile boolean dispatcherIdle;
+
+    // Active filter groups by filter; changes only on subscribe/unsubscribe (guarded by this)
+    private final Map<StreamFilter, FilterGroup> groups = new HashMap<>();
+
+    // Immutable snapshot of the groups read by publishers without locking
+    private volatile FilterIndex index = FilterIndex.EMPTY;
+
+    // Monitoring counters
+    private final AtomicInteger listenerCount = new AtomicInteger();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong disconnectedSubscribers = new AtomicLong();
+    private final AtomicLong replayGaps = new AtomicLong();
+    private final AtomicLong dispatchDrops = new AtomicLong();
+    private volatile long dispatchLagNanos;
+
+    // Time the dispatcher spends on one event (serialize, route, emit); set once metrics are bound
+    private volatile Timer broadcastTimer;
+
+    @Autowired
+    public AlertEventPublisher(
+            ObjectMapper objectMapper,
+            @Value("${sse.subscriber-buffer-size:256}") int subscriberBufferSize,
+            @Value("${sse.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy,
+            @Value("${sse.replay-buffer-size:4096}") int replayBufferSize,
+            @Value("${sse.batch-interval:250ms}") Duration batchInterval,
+            @Value("${sse.dispatch-queue-size:8192}") int dispatchQueueSize
+    ) {
+        this(objectMapper, subscriberBufferSize, overflowPolicy, replayBufferSize, batchInterval,
+                dispatchQueueSize, Schedulers.parallel());
+    }
 
-    public AlertEventPublisher(ObjectMapper objectMapper) {
+    /**
+     * @param dispatchQueueSize Capacity of the dispatch queue; 0 dispatches on the publishing thread
+     */
+    AlertEventPublisher(ObjectMapper objectMapper, int subscriberBufferSize, OverflowPolicy overflowPolicy,
+                        int replayBufferSize, Duration batchInterval, int dispatchQueueSize,
+                        Scheduler deliveryScheduler) {
         this.objectMapper = objectMapper;
+        this.subscriberBufferSize = subscriberBufferSize;
+        this.overflowPolicy = overflowPolicy;
+        this.replayRing = new ReplayRing(replayBufferSize);
+        this.deliveryScheduler = deliveryScheduler;
+        this.batchTicker = Flux.interval(batchInterval, batchInterval, Schedulers.parallel())
+                .subscribe(tick -> flushBatches());
+
+        if (dispatchQueueSize > 0) {
+            this.dispatchQueue = new DispatchQueue<>(dispatchQueueSize);
+            this.dispatcher = Thread.ofPlatform().name("sse-dispatcher").daemon().start(this::dispatchLoop);
+        } else {
+            this.dispatchQueue = null;
+            this.dispatcher = null;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        batchTicker.dispose();
+        running = false;
+        if (dispatcher != null) {
+            LockSupport.unpark(dispatcher);
+            try {
+                dispatcher.join(1_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Subscribe to the unfiltered live frame stream
+     *
+     * @return Frames published from now on, buffered per subscriber
+     */
+    public Flux<ServerSentEvent<String>> subscribe() {
+        return subscribe(StreamFilter.ALL, null);
     }
 
     /**
-     * Register an SSE listener to receive alerts
+     * Subscribe to the live frame stream (one call per SSE connection)
      *
-     * @param listener The event listener to register
+     * @param filter Frames the subscriber wants
+     * @param lastEventId Id of the last frame the client saw (Last-Event-ID), or null for a fresh connection
+     * @return Missed frames (when resuming) followed by matching live frames, buffered per subscriber
      */
-    public void register(ApiEventListener listener) {
-        listeners.add(listener);
-        log.info("SSE listener registered. Total listeners: {}", listeners.size());
+    public Flux<ServerSentEvent<String>> subscribe(StreamFilter filter, Long lastEventId) {
+        return Flux.defer(() -> {
+            FilterGroup group = join(filter);
+            Sinks.Empty<Void> overflow = Sinks.empty();
+
+            Flux<StreamFrame> live = group.sink.asFlux()
+                    .onBackpressureBuffer(
+                            subscriberBufferSize,
+                            dropped -> onOverflow(overflow),
+                            overflowPolicy == OverflowPolicy.DROP_OLDEST
+                                    ? BufferOverflowStrategy.DROP_OLDEST
+                                    : BufferOverflowStrategy.DROP_LATEST);
+
+            // Hand delivery (SSE encoding + socket write) to a worker, so the dispatcher only enqueues
+            Flux<ServerSentEvent<String>> events = (lastEventId == null
+                    ? live.map(StreamFrame::toEvent)
+                    : resume(live, group, lastEventId))
+                    .publishOn(deliveryScheduler, DELIVERY_PREFETCH);
+
+            if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                // Completing needs no demand, so even a fully stalled client is released at once
+                events = events.takeUntilOther(overflow.asMono());
+            }
+
+            return events
+                    .doOnSubscribe(s -> log.info("SSE listener registered. Total listeners: {}",
+                            listenerCount.incrementAndGet()))
+                    .doFinally(signal -> {
+                        leave(group);
+                        log.info("SSE listener unregistered ({}). Total listeners: {}",
+                                signal, listenerCount.decrementAndGet());
+                    });
+        });
     }
 
     /**
-     * Unregister an SSE listener
+     * Replay frames after lastEventId from the ring, then continue live without duplicates.
      *
-     * @param listener The event listener to unregister
+     * The live feed is subscribed (and held) before the ring is read, so a frame published
+     * meanwhile is either in the replay or in the held live frames, never in neither.
+     * For batching groups, edits are only replayed up to the last flushed batch; later
+     * ones are still pending in the batcher and arrive in the next live batch.
+     */
+    private Flux<ServerSentEvent<String>> resume(Flux<StreamFrame> live, FilterGroup group, long lastEventId) {
+        return Flux.create(sink -> {
+            HeldFrames held = new HeldFrames(sink);
+            long head;
+            long editsUpTo;
+            if (group.batcher == null) {
+                live.subscribe(held);
+                head = replayRing.head();
+                editsUpTo = head;
+            } else {
+                // No batch can be emitted between connecting and reading the batcher's watermark
+                synchronized (group.batcher) {
+                    live.subscribe(held);
+                    head = replayRing.head();
+                    editsUpTo = group.batcher.flushedUpTo();
+                }
+            }
+
+            Set<Long> pending = new HashSet<>();
+            ReplayRing.Replay replay = replayRing.since(lastEventId, head, group.filter, pending);
+            List<StreamFrame> frames = replay.frames().stream()
+                    .filter(frame -> frame.isAlert() || frame.id() <= editsUpTo)
+                    .toList();
+            if (group.batcher != null) {
+                frames = packEdits(frames, group.batcher);
+            }
+            log.info("Resuming SSE listener after event {}: {} frame(s) replayed{}",
+                    lastEventId, frames.size(), replay.gap() ? " (gap)" : "");
+
+            if (replay.gap()) {
+                replayGaps.incrementAndGet();
+                sink.next(gapEvent(lastEventId));
+            }
+            frames.forEach(frame -> sink.next(frame.toEvent()));
+
+            // Only now let live frames through, behind the replay
+            held.release(head, pending);
+            sink.onRequest(held::request);
+            sink.onDispose(held::dispose);
+        });
+    }
+
+    /**
+     * Live frames of a resuming subscriber. Subscribed before the ring is read but with no
+     * demand, so frames published meanwhile wait in the subscriber's bounded buffer.
+     */
+    private static final class HeldFrames extends BaseSubscriber<StreamFrame> {
+        private final FluxSink<ServerSentEvent<String>> sink;
+        private volatile long head;
+        private volatile Set<Long> pending;
+
+        private HeldFrames(FluxSink<ServerSentEvent<String>> sink) {
+            this.sink = sink;
+        }
+
+        void release(long head, Set<Long> pending) {
+            this.head = head;
+            this.pending = pending;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            // No demand until released
+        }
+
+        @Override
+        protected void hookOnNext(StreamFrame frame) {
+            // Skip live frames already replayed; ids still being written at read time only arrive live.
+            // Live batches only hold edits after the replayed ones, so they always pass.
+            if (frame.batch() || frame.id() > head || pending.contains(frame.id())) {
+                sink.next(frame.toEvent());
+            } else {
+                request(1);
+            }
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            sink.error(throwable);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            sink.complete();
+        }
+    }
+
+    /**
+     * Pack runs of replayed edits into batch frames, keeping alerts in place
+     */
+    private static List<StreamFrame> packEdits(List<StreamFrame> frames, EditBatcher batcher) {
+        List<StreamFrame> packed = new ArrayList<>();
+        List<StreamFrame> edits = new ArrayList<>();
+        for (StreamFrame frame : frames) {
+            if (!frame.isAlert()) {
+                edits.add(frame);
+                if (edits.size() < EditBatcher.MAX_BATCH_EDITS) continue;
+            }
+            if (!edits.isEmpty()) {
+                packed.add(batcher.encode(edits));
+                edits = new ArrayList<>();
+            }
+            if (frame.isAlert()) {
+                packed.add(frame);
+            }
+        }
+        if (!edits.isEmpty()) {
+            packed.add(batcher.encode(edits));
+        }
+        return packed;
+    }
+
+    /**
+     * Tells the client frames after lastEventId were lost and it should re-query the REST API
+     */
+    private ServerSentEvent<String> gapEvent(long lastEventId) {
+        return ServerSentEvent.builder("{\"type\":\"GAP\",\"lastEventId\":" + lastEventId + "}")
+                .event("gap")
+                .build();
+    }
+
+    /**
+     * Add a subscriber to the group for its filter, creating the group if needed
+     */
+    private synchronized FilterGroup join(StreamFilter filter) {
+        FilterGroup group = groups.get(filter);
+        if (group == null) {
+            // A new batcher starts after the newest frame: anything older is only in the replay ring
+            EditBatcher batcher = filter.delivery() == Delivery.RAW
+                    ? null
+                    : new EditBatcher(filter.delivery(), objectMapper, replayRing.head());
+            group = new FilterGroup(filter, batcher);
+            groups.put(filter, group);
+            index = FilterIndex.of(groups.values());
+            log.debug("SSE filter group created: {} (active groups: {})", filter, groups.size());
+        }
+        group.subscribers++;
+        return group;
+    }
+
+    /**
+     * Remove a subscriber; the group is dropped from the index with its last subscriber
      */
-    public void unregister(ApiEventListener listener) {
-        listeners.remove(listener);
-        log.info("SSE listener unregistered. Total listeners: {}", listeners.size());
+    private synchronized void leave(FilterGroup group) {
+        if (--group.subscribers == 0 && groups.remove(group.filter) == group) {
+            index = FilterIndex.of(groups.values());
+            log.debug("SSE filter group removed: {} (active groups: {})", group.filter, groups.size());
+        }
+    }
+
+    /**
+     * Called on the dispatcher thread when a subscriber's buffer is full
+     */
+    private void onOverflow(Sinks.Empty<Void> overflow) {
+        if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+            droppedFrames.incrementAndGet();
+        } else if (overflow.tryEmitEmpty().isSuccess()) {
+            disconnectedSubscribers.incrementAndGet();
+            log.warn("SSE subscriber fell {} frames behind, disconnecting", subscriberBufferSize);
+        }
     }
 
     /**
@@ -48,28 +391,139 @@ public class AlertEventPublisher {
      * @param alert The edit war alert to broadcast
      */
     public void publishAlert(EditWarAlert alert) {
-        if (listeners.isEmpty()) {
-            log.debug("No SSE listeners connected, skipping broadcast for: {}", alert.getPageTitle());
+        publishAlert(alert, null);
+    }
+
+    /**
+     * Publish an edit war alert and close its latency timeline once emitted
+     *
+     * @param alert The edit war alert to broadcast
+     * @param timeline Stamps of the edit that raised it, or null
+     */
+    public void publishAlert(EditWarAlert alert, EventTimeline timeline) {
+        enqueue(new Outgoing(alert, null, null, null, timeline, System.nanoTime()));
+    }
+
+    /**
+     * Publish a regular edit event (non-war)
+     *
+     * @param event Parsed event (used for filtering)
+     * @param eventJson Raw JSON event
+     */
+    public void publishEdit(WikimediaEditEvent event, String eventJson) {
+        publishEdit(event, eventJson, null);
+    }
+
+    /**
+     * Publish a regular edit event and close its latency timeline once emitted
+     *
+     * @param event Parsed event (used for filtering)
+     * @param eventJson Raw JSON event
+     * @param timeline Stamps of the edit, or null
+     */
+    public void publishEdit(WikimediaEditEvent event, String eventJson, EventTimeline timeline) {
+        enqueue(new Outgoing(null, event, eventJson, null, timeline, System.nanoTime()));
+    }
+
+    /**
+     * Publish a regular edit event as its raw Kafka bytes; they are decoded on the dispatcher
+     * thread, off the Kafka listener
+     *
+     * @param event Parsed event (used for filtering)
+     * @param eventJson Raw JSON event, UTF-8, or null to render the event itself (binary records)
+     * @param timeline Stamps of the edit, or null
+     */
+    public void publishEdit(WikimediaEditEvent event, byte[] eventJson, EventTimeline timeline) {
+        enqueue(new Outgoing(null, event, null, eventJson, timeline, System.nanoTime()));
+    }
+
+    /**
+     * Hand an event to the dispatcher without blocking; drops it if the dispatcher is too far behind
+     */
+    private void enqueue(Outgoing outgoing) {
+        if (dispatchQueue == null) {
+            dispatch(outgoing);
             return;
         }
 
-        try {
-            // Format as JSON with type field for frontend
-            String json = formatAlertAsJson(alert);
+        if (!dispatchQueue.offer(outgoing)) {
+            long dropped = dispatchDrops.incrementAndGet();
+            if (outgoing.alert() != null) {
+                log.warn("SSE dispatch queue full, alert not streamed: {}", outgoing.alert().getPageTitle());
+            } else if (dropped % 1_000 == 1) {
+                log.warn("SSE dispatch queue full ({} events), {} event(s) dropped so far",
+                        dispatchQueue.capacity(), dropped);
+            }
+            return;
+        }
 
-            // Broadcast to all listeners
-            int successCount = 0;
+        if (dispatcherIdle) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
 
-            for (ApiEventListener listener : listeners) {
-                try {
-                    listener.onData(json);
-                    successCount++;
-                } catch (Exception e) {
-                    log.warn("Failed to send alert to listener: {}", e.getMessage());
+    /**
+     * Dispatcher thread: drain the queue, sleep briefly when it is empty
+     */
+    private void dispatchLoop() {
+        log.info("SSE dispatcher started (queue capacity: {})", dispatchQueue.capacity());
+        while (running) {
+            Outgoing outgoing = dispatchQueue.poll();
+            if (outgoing == null) {
+                dispatcherIdle = true;
+                // Re-check after raising the flag: a publisher that saw it unset has already enqueued
+                if (dispatchQueue.size() == 0 && running) {
+                    LockSupport.parkNanos(this, DISPATCHER_IDLE_PARK_NANOS);
                 }
+                dispatcherIdle = false;
+                continue;
             }
 
-            log.info("Published alert to {} SSE client(s): {}", successCount, alert.getPageTitle());
+            try {
+                dispatch(outgoing);
+            } catch (Exception e) {
+                log.error("Failed to dispatch SSE event", e);
+            }
+        }
+        log.info("SSE dispatcher stopped");
+    }
+
+    private void dispatch(Outgoing outgoing) {
+        PipelineEvents.SseBroadcast jfr = new PipelineEvents.SseBroadcast();
+        jfr.begin();
+        long start = System.nanoTime();
+        EditWarAlert alert = outgoing.alert();
+        if (alert != null) {
+            dispatchAlert(alert);
+        } else {
+            WikimediaEditEvent event = outgoing.edit();
+            publish(replayRing.append(outgoing.json(), event.getWiki(), event.getPageTitle(), null));
+        }
+        long end = System.nanoTime();
+        dispatchLagNanos = start - outgoing.enqueuedAt();
+        if (alert != null) {
+            jfr.end(alert.getWiki(), alert.getPageTitle(), alert.getTotalEdits(), true, dispatchLagNanos);
+        } else {
+            jfr.end(outgoing.edit().getWiki(), outgoing.edit().getPageTitle(), 0, false, dispatchLagNanos);
+        }
+        if (outgoing.timeline() != null) {
+            outgoing.timeline().emitted(outgoing.alert() != null);
+        }
+
+        Timer timer = broadcastTimer;
+        if (timer != null) {
+            timer.record(end - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void dispatchAlert(EditWarAlert alert) {
+        try {
+            // Format as JSON with type field for frontend (once, shared by all subscribers and the replay ring)
+            String json = formatAlertAsJson(alert);
+            int groupCount = publish(replayRing.append(json, alert.getWiki(), alert.getPageTitle(),
+                    SeverityLevel.valueOf(alert.getSeverityLevel())));
+
+            log.debug("Published alert to {} SSE filter group(s): {}", groupCount, alert.getPageTitle());
 
         } catch (Exception e) {
             log.error("Failed to publish alert for page: {}", alert.getPageTitle(), e);
@@ -77,20 +531,36 @@ public class AlertEventPublisher {
     }
 
     /**
-     * Publish a regular edit event (non-war)
+     * Emit one frame to each matching group; the dispatcher and the batch ticker
+     * spin briefly on contention instead of failing
      *
-     * @param eventJson Raw JSON event
+     * @return Number of groups the frame was emitted to
      */
-    public void publishEdit(String eventJson) {
-        if (listeners.isEmpty()) {
-            return;
+    private int publish(StreamFrame frame) {
+        List<FilterGroup> targets = index.route(frame);
+        for (FilterGroup group : targets) {
+            if (group.batcher != null && !frame.isAlert()) {
+                group.batcher.add(frame, batch -> emit(group, batch));
+            } else {
+                emit(group, frame);
+            }
         }
+        return targets.size();
+    }
+
+    private static void emit(FilterGroup group, StreamFrame frame) {
+        group.sink.emitNext(frame, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+    }
 
-        for (ApiEventListener listener : listeners) {
+    /**
+     * Emit the pending edits of every batching group (runs once per batch interval)
+     */
+    void flushBatches() {
+        for (FilterGroup group : index.batching()) {
             try {
-                listener.onData(eventJson);
+                group.batcher.flush(batch -> emit(group, batch));
             } catch (Exception e) {
-                // Silently fail for regular edits
+                log.error("Failed to flush SSE batch for filter: {}", group.filter, e);
             }
         }
     }
@@ -110,6 +580,169 @@ public class AlertEventPublisher {
      * Get count of connected listeners (for monitoring)
      */
     public int getListenerCount() {
-        return listeners.size();
+        return listenerCount.get();
+    }
+
+    /**
+     * Frames dropped from slow subscribers' buffers (DROP_OLDEST policy)
+     */
+    public long getDroppedFrameCount() {
+        return droppedFrames.get();
+    }
+
+    /**
+     * Subscribers disconnected for falling behind (DISCONNECT policy)
+     */
+    public long getDisconnectedSubscriberCount() {
+        return disconnectedSubscribers.get();
+    }
+
+    /**
+     * Resumed subscribers whose missed frames had already left the replay ring
+     */
+    public long getReplayGapCount() {
+        return replayGaps.get();
+    }
+
+    /**
+     * Events dropped because the dispatcher fell a full queue behind
+     */
+    public long getDispatchDroppedCount() {
+        return dispatchDrops.get();
+    }
+
+    /**
+     * Events waiting for the dispatcher thread
+     */
+    public int getDispatchQueueDepth() {
+        return dispatchQueue == null ? 0 : dispatchQueue.size();
+    }
+
+    /**
+     * Time the most recently dispatched event spent in the queue
+     */
+    public long getDispatchLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(dispatchLagNanos);
+    }
+
+    /**
+     * Get count of distinct active filters (for monitoring)
+     */
+    public int getFilterGroupCount() {
+        return index.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("sse.listeners", listenerCount, AtomicInteger::get)
+                .description("Connected SSE clients")
+                .register(registry);
+        Gauge.builder("sse.filter.groups", this, AlertEventPublisher::getFilterGroupCount)
+                .description("Distinct active stream filters")
+                .register(registry);
+        Gauge.builder("sse.dispatch.queue.depth", this, AlertEventPublisher::getDispatchQueueDepth)
+                .description("Events waiting for the dispatcher thread")
+                .register(registry);
+        Gauge.builder("sse.dispatch.lag", this, publisher -> publisher.dispatchLagNanos / 1e9)
+                .description("Time the last dispatched event spent in the queue")
+                .baseUnit("seconds")
+                .register(registry);
+        FunctionCounter.builder("sse.frames.dropped", droppedFrames, AtomicLong::get)
+                .description("Frames dropped from slow clients' buffers")
+                .register(registry);
+        FunctionCounter.builder("sse.subscribers.disconnected", disconnectedSubscribers, AtomicLong::get)
+                .description("Clients disconnected for falling behind")
+                .register(registry);
+        FunctionCounter.builder("sse.replay.gaps", replayGaps, AtomicLong::get)
+                .description("Resumed clients whose missed frames had left the replay ring")
+                .register(registry);
+        FunctionCounter.builder("sse.dispatch.dropped", dispatchDrops, AtomicLong::get)
+                .description("Events dropped because the dispatch queue was full")
+                .register(registry);
+        broadcastTimer = Timer.builder("sse.broadcast")
+                .description("Time to serialize, route and emit one event to all matching clients")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Event waiting for the dispatcher: either an alert or a raw edit
+     */
+    private record Outgoing(EditWarAlert alert, WikimediaEditEvent edit, String editJson, byte[] editBytes,
+                            EventTimeline timeline, long enqueuedAt) {
+
+        String json() {
+            if (editJson != null) {
+                return editJson;
+            }
+            return editBytes != null ? new String(editBytes, StandardCharsets.UTF_8) : EditEventCodec.toJson(edit);
+        }
+    }
+
+    /**
+     * Subscribers sharing one filter; the sink emits to all of them and never blocks the publisher
+     */
+    private static final class FilterGroup {
+        private final StreamFilter filter;
+        private final EditBatcher batcher;  // null for RAW delivery
+        private final Sinks.Many<StreamFrame> sink = Sinks.many().multicast().directBestEffort();
+        private int subscribers;  // guarded by the publisher's lock
+
+        private FilterGroup(StreamFilter filter, EditBatcher batcher) {
+            this.filter = filter;
+            this.batcher = batcher;
+        }
+    }
+
+    /**
+     * Active groups bucketed by wiki, so an event only checks groups for its own wiki
+     * plus the groups that accept any wiki
+     */
+    private record FilterIndex(Map<String, List<FilterGroup>> byWiki, List<FilterGroup> anyWiki,
+                               List<FilterGroup> batching) {
+
+        static final FilterIndex EMPTY = new FilterIndex(Map.of(), List.of(), List.of());
+
+        static FilterIndex of(Iterable<FilterGroup> groups) {
+            Map<String, List<FilterGroup>> byWiki = new HashMap<>();
+            List<FilterGroup> anyWiki = new ArrayList<>();
+            List<FilterGroup> batching = new ArrayList<>();
+            for (FilterGroup group : groups) {
+                if (group.batcher != null) {
+                    batching.add(group);
+                }
+                if (group.filter.wiki() == null) {
+                    anyWiki.add(group);
+                } else {
+                    byWiki.computeIfAbsent(group.filter.wiki(), w -> new ArrayList<>()).add(group);
+                }
+            }
+            return new FilterIndex(byWiki, anyWiki, batching);
+        }
+
+        /**
+         * Groups that want a frame with the given metadata
+         */
+        List<FilterGroup> route(StreamFrame frame) {
+            List<FilterGroup> targets = new ArrayList<>();
+            collect(anyWiki, frame, targets);
+            List<FilterGroup> sameWiki = frame.wiki() == null ? null : byWiki.get(frame.wiki());
+            if (sameWiki != null) {
+                collect(sameWiki, frame, targets);
+            }
+            return targets;
+        }
+
+        private static void collect(List<FilterGroup> candidates, StreamFrame frame, List<FilterGroup> targets) {
+            for (FilterGroup group : candidates) {
+                if (frame.matches(group.filter)) {
+                    targets.add(group);
+                }
+            }
+        }
+
+        int size() {
+            return anyWiki.size() + byWiki.values().stream().mapToInt(List::size).sum();
+        }
     }
-}
\ No newline at end of file
+}
@@ -7,11 +7,13 @@ import com.epaitoo.springboot.persistence.mapper.AlertMapper;
 import com.epaitoo.springboot.persistence.repository.EditWarAlertRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +34,15 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class AlertService {
+    /** Default number of alerts returned by list endpoints */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /** Hard cap on alerts loaded by a single query (one list response or one stream chunk) */
+    public static final int MAX_LIMIT = 1000;
+
+    /** Hard cap on alerts written by a single NDJSON stream */
+    public static final int MAX_STREAM_LIMIT = 100_000;
+
     private final EditWarAlertRepository alertRepository;
     private final AlertMapper alertMapper;
 
@@ -62,16 +73,30 @@ public class AlertService {
     }
 
     /**
-     * Get alerts by status
+     * Get alerts by status (newest first, capped at MAX_LIMIT)
+     *
+     * @param status Alert status (ACTIVE, RESOLVED, etc.)
+     * @param limit Maximum number of alerts to return
+     * @return List of alerts with given status
+     */
+    public List<EditWarAlert> getAlertsByStatus(EditWarStatus status, int limit) {
+        return getAlertsByStatus(status, null, limit);
+    }
+
+    /**
+     * Get the next chunk of alerts by status, older than the given cursor
      *
      * @param status Alert status (ACTIVE, RESOLVED, etc.)
+     * @param beforeId ID of the last alert already returned (null for the first chunk)
+     * @param limit Maximum number of alerts to return
      * @return List of alerts with given status
      */
-    public List<EditWarAlert> getAlertsByStatus(EditWarStatus status) {
-        log.debug("Getting alerts by status: {}", status);
+    public List<EditWarAlert> getAlertsByStatus(EditWarStatus status, Long beforeId, int limit) {
+        log.debug("Getting alerts by status: {} (before: {}, limit: {})", status, beforeId, limit);
 
         EditWarAlertEntity.AlertStatus entityStatus = mapStatus(status);
-        List<EditWarAlertEntity> entities = alertRepository.findByStatus(entityStatus);
+        List<EditWarAlertEntity> entities = alertRepository.findByStatusBeforeId(
+                entityStatus, cursor(beforeId), boundedLimit(limit));
 
         return entities.stream()
                 .map(alertMapper::toDomain)
@@ -79,19 +104,33 @@ public class AlertService {
     }
 
     /**
-     * Get alerts by severity level
+     * Get alerts by severity level (newest first, capped at MAX_LIMIT)
      *
      * @param severityLevel Severity level (LOW, MEDIUM, HIGH, CRITICAL)
+     * @param limit Maximum number of alerts to return
      * @return List of alerts with given severity
      */
-    public List<EditWarAlert> getAlertsBySeverity(String severityLevel) {
-        log.debug("Getting alerts by severity: {}", severityLevel);
+    public List<EditWarAlert> getAlertsBySeverity(String severityLevel, int limit) {
+        return getAlertsBySeverity(severityLevel, null, limit);
+    }
+
+    /**
+     * Get the next chunk of alerts by severity level, older than the given cursor
+     *
+     * @param severityLevel Severity level (LOW, MEDIUM, HIGH, CRITICAL)
+     * @param beforeId ID of the last alert already returned (null for the first chunk)
+     * @param limit Maximum number of alerts to return
+     * @return List of alerts with given severity
+     */
+    public List<EditWarAlert> getAlertsBySeverity(String severityLevel, Long beforeId, int limit) {
+        log.debug("Getting alerts by severity: {} (before: {}, limit: {})", severityLevel, beforeId, limit);
 
         EditWarAlertEntity.SeverityLevel level = EditWarAlertEntity.SeverityLevel.valueOf(
                 severityLevel.toUpperCase()
         );
 
-        List<EditWarAlertEntity> entities = alertRepository.findBySeverityLevel(level);
+        List<EditWarAlertEntity> entities = alertRepository.findBySeverityLevelBeforeId(
+                level, cursor(beforeId), boundedLimit(limit));
 
         return entities.stream()
                 .map(alertMapper::toDomain)
@@ -116,15 +155,31 @@ public class AlertService {
     }
 
     /**
-     * Get recent active alerts (ordered by detection time)
+     * Get recent active alerts (ordered by detection time, capped at MAX_LIMIT)
      *
+     * @param limit Maximum number of alerts to return
      * @return List of recent active alerts
      */
-    public List<EditWarAlert> getRecentActiveAlerts() {
-        log.debug("Getting recent active alerts");
+    public List<EditWarAlert> getRecentActiveAlerts(int limit) {
+        return getRecentActiveAlerts(null, null, limit);
+    }
 
-        List<EditWarAlertEntity> entities = alertRepository
-                .findByStatusOrderByDetectedAtDesc(EditWarAlertEntity.AlertStatus.ACTIVE);
+    /**
+     * Get the next chunk of recent active alerts, detected before the given cursor
+     *
+     * @param beforeDetectedAt Detection time of the last alert already returned (null for the first chunk)
+     * @param beforeId ID of the last alert already returned (null for the first chunk)
+     * @param limit Maximum number of alerts to return
+     * @return List of recent active alerts
+     */
+    public List<EditWarAlert> getRecentActiveAlerts(Instant beforeDetectedAt, Long beforeId, int limit) {
+        log.debug("Getting recent active alerts (before: {}/{}, limit: {})", beforeDetectedAt, beforeId, limit);
+
+        List<EditWarAlertEntity> entities = beforeDetectedAt == null
+                ? alertRepository.findRecentByStatus(
+                        EditWarAlertEntity.AlertStatus.ACTIVE, boundedLimit(limit))
+                : alertRepository.findRecentByStatusBefore(
+                        EditWarAlertEntity.AlertStatus.ACTIVE, beforeDetectedAt, cursor(beforeId), boundedLimit(limit));
 
         return entities.stream()
                 .map(alertMapper::toDomain)
@@ -132,15 +187,29 @@ public class AlertService {
     }
 
     /**
-     * Get alerts by wiki (e.g., en.wikipedia.org)
+     * Get alerts by wiki (newest first, capped at MAX_LIMIT)
      *
      * @param wiki Wiki domain
+     * @param limit Maximum number of alerts to return
      * @return List of alerts for given wiki
      */
-    public List<EditWarAlert> getAlertsByWiki(String wiki) {
-        log.debug("Getting alerts by wiki: {}", wiki);
+    public List<EditWarAlert> getAlertsByWiki(String wiki, int limit) {
+        return getAlertsByWiki(wiki, null, limit);
+    }
 
-        List<EditWarAlertEntity> entities = alertRepository.findByWiki(wiki);
+    /**
+     * Get the next chunk of alerts by wiki, older than the given cursor
+     *
+     * @param wiki Wiki domain
+     * @param beforeId ID of the last alert already returned (null for the first chunk)
+     * @param limit Maximum number of alerts to return
+     * @return List of alerts for given wiki
+     */
+    public List<EditWarAlert> getAlertsByWiki(String wiki, Long beforeId, int limit) {
+        log.debug("Getting alerts by wiki: {} (before: {}, limit: {})", wiki, beforeId, limit);
+
+        List<EditWarAlertEntity> entities = alertRepository.findByWikiBeforeId(
+                wiki, cursor(beforeId), boundedLimit(limit));
 
         return entities.stream()
                 .map(alertMapper::toDomain)
@@ -187,6 +256,20 @@ public class AlertService {
         return alertRepository.countByStatus(entityStatus);
     }
 
+    /**
+     * Clamp a requested limit to [1, MAX_LIMIT]
+     */
+    private Limit boundedLimit(int limit) {
+        return Limit.of(Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    /**
+     * Keyset cursor: start from the newest alert when no cursor is given
+     */
+    private Long cursor(Long beforeId) {
+        return beforeId != null ? beforeId : Long.MAX_VALUE;
+    }
+
     /**
      * Map domain status to entity status
      */
@@ -0,0 +1,65 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.EditWarAlert;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Publishes alert state changes to the compacted edit-war-alerts topic
+ *
+ * Records are keyed by "wiki:title", so compaction keeps the latest state of every
+ * page's alert and all changes for one page land on the same partition, in order.
+ * API / SSE nodes that don't run detection consume this topic instead of the raw
+ * edit stream (see EditWarAlertTopicConsumer).
+ */
+@Slf4j
+@Service
+public class AlertTopicPublisher {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final String topic;
+
+    public AlertTopicPublisher(
+            KafkaTemplate<String, String> kafkaTemplate,
+            ObjectMapper objectMapper,
+            @Value("${alerts.topic.name:edit-war-alerts}") String topic
+    ) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+    }
+
+    /**
+     * Send the alert's current state (fire and forget; failures are logged)
+     *
+     * @param alert Alert that was created or changed
+     */
+    public void publish(EditWarAlert alert) {
+        String key = alertKey(alert.getWiki(), alert.getPageTitle());
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(alert);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize alert for {}", key, e);
+            return;
+        }
+
+        kafkaTemplate.send(topic, key, json).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Failed to publish alert for {} to {}", key, topic, ex);
+            }
+        });
+    }
+
+    /**
+     * Record key for a page's alert (same format as the detection service's page key)
+     */
+    public static String alertKey(String wiki, String pageTitle) {
+        return wiki + ":" + pageTitle;
+    }
+}
@@ -0,0 +1,64 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.WarThresholds;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Edit war thresholds per wiki, prefix "detection.thresholds"
+ *
+ * detection.thresholds.defaults.* applies to every wiki; detection.thresholds.wikis.[domain].*
+ * overrides single settings for one wiki (brackets keep the dots of the domain), e.g. a busy
+ * wiki that needs more edits before a page counts as a war:
+ *
+ *   detection.thresholds.wikis.[en.wikipedia.org].min-edits=6
+ *
+ * Settings left out fall back to the defaults, then to {@link WarThresholds#DEFAULT}.
+ */
+@ConfigurationProperties(prefix = "detection.thresholds")
+public class DetectionThresholds {
+
+    private final WarThresholds defaults;
+    private final Map<String, WarThresholds> wikis = new HashMap<>();
+
+    /**
+     * Settings of one level (defaults or a wiki); null = inherit
+     */
+    public record Limits(Integer minEdits, Integer minUsers, Integer maxUsers, Double conflictRatio,
+                         Duration window, Integer maxEdits) {
+
+        WarThresholds over(WarThresholds base) {
+            return new WarThresholds(
+                    minEdits != null ? minEdits : base.minEdits(),
+                    minUsers != null ? minUsers : base.minUsers(),
+                    maxUsers != null ? maxUsers : base.maxUsers(),
+                    conflictRatio != null ? conflictRatio : base.conflictRatio(),
+                    window != null ? window : base.window(),
+                    maxEdits != null ? maxEdits : base.maxEdits());
+        }
+    }
+
+    public DetectionThresholds(Limits defaults, Map<String, Limits> wikis) {
+        this.defaults = defaults == null ? WarThresholds.DEFAULT : defaults.over(WarThresholds.DEFAULT);
+        if (wikis != null) {
+            wikis.forEach((wiki, limits) -> this.wikis.put(wiki, limits.over(this.defaults)));
+        }
+    }
+
+    /**
+     * Built-in thresholds for every wiki
+     */
+    public static DetectionThresholds defaults() {
+        return new DetectionThresholds(null, null);
+    }
+
+    /**
+     * Get the thresholds of a wiki
+     */
+    public WarThresholds forWiki(String wiki) {
+        return wiki == null ? defaults : wikis.getOrDefault(wiki, defaults);
+    }
+}
@@ -0,0 +1,85 @@
+package com.epaitoo.springboot.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring between publishers and the SSE dispatcher thread
+ *
+ * Array-based queue after Dmitry Vyukov's bounded MPMC design: each slot carries a
+ * sequence number telling producers when it is free and the consumer when it is full,
+ * so neither side ever takes a lock. Any thread may offer (Kafka listener, test
+ * endpoints); only the dispatcher thread may poll.
+ */
+final class DispatchQueue<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private volatile long dequeuePosition;  // written by the consumer only
+
+    DispatchQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add an element without blocking
+     *
+     * @return false if the queue is full
+     */
+    boolean offer(E element) {
+        while (true) {
+            long position = enqueuePosition.get();
+            int index = (int) (position & mask);
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.set(index, position + 1);  // publishes the element to the consumer
+                    return true;
+                }
+            } else if (available < 0) {
+                return false;
+            }
+            // Otherwise another producer claimed this position first; retry with the next one
+        }
+    }
+
+    /**
+     * Remove the oldest element (consumer thread only)
+     *
+     * @return The element, or null if the queue is empty
+     */
+    E poll() {
+        long position = dequeuePosition;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;  // empty, or a producer has claimed the slot but not written it yet
+        }
+        E element = slots.get(index);
+        slots.lazySet(index, null);
+        sequences.set(index, position + mask + 1);  // free the slot for the producers' next lap
+        dequeuePosition = position + 1;
+        return element;
+    }
+
+    /**
+     * Approximate number of queued elements
+     */
+    int size() {
+        return (int) Math.max(0, enqueuePosition.get() - dequeuePosition);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,111 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.service.StreamFilter.Delivery;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Collects a filter group's plain edits and turns them into one frame per flush
+ *
+ * - BATCH:    {"type":"EDIT_BATCH","count":n,"edits":[raw edit JSON, ...]}
+ * - CONFLATE: {"type":"EDIT_COUNTS","count":n,"pages":[{"wiki":..,"title":..,"edits":k}, ...]}
+ *
+ * A batch frame's id is the id of its last edit, so Last-Event-ID resume works unchanged.
+ * All methods lock the batcher; resume holds the same lock while it reads
+ * {@link #flushedUpTo()}, so a batch is either replayed or delivered live, never both.
+ */
+final class EditBatcher {
+
+    // Flush early rather than build unbounded frames during bursts
+    static final int MAX_BATCH_EDITS = 1_000;
+
+    private final Delivery delivery;
+    private final ObjectMapper objectMapper;
+    private final List<StreamFrame> pending = new ArrayList<>();
+
+    // Id of the last edit handed out in a batch; edits up to here are only available via replay
+    private long flushedUpTo;
+
+    EditBatcher(Delivery delivery, ObjectMapper objectMapper, long startId) {
+        this.delivery = delivery;
+        this.objectMapper = objectMapper;
+        this.flushedUpTo = startId;
+    }
+
+    /**
+     * Queue an edit for the next batch
+     */
+    synchronized void add(StreamFrame edit, Consumer<StreamFrame> emitter) {
+        pending.add(edit);
+        if (pending.size() >= MAX_BATCH_EDITS) {
+            flush(emitter);
+        }
+    }
+
+    /**
+     * Emit the pending edits as one frame (no-op when nothing is pending)
+     */
+    synchronized void flush(Consumer<StreamFrame> emitter) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        StreamFrame batch = encode(pending);
+        pending.clear();
+        emitter.accept(batch);
+        flushedUpTo = batch.id();
+    }
+
+    synchronized long flushedUpTo() {
+        return flushedUpTo;
+    }
+
+    /**
+     * Encode edits (in id order) as one batch frame
+     */
+    StreamFrame encode(List<StreamFrame> edits) {
+        long lastId = edits.get(edits.size() - 1).id();
+        return StreamFrame.batch(lastId, delivery == Delivery.CONFLATE ? conflate(edits) : concatenate(edits));
+    }
+
+    private static String concatenate(List<StreamFrame> edits) {
+        // Raw edits are already JSON, so splice them in instead of re-serializing
+        StringBuilder json = new StringBuilder(64 + edits.size() * 512)
+                .append("{\"type\":\"EDIT_BATCH\",\"count\":").append(edits.size()).append(",\"edits\":[");
+        for (int i = 0; i < edits.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append(edits.get(i).data());
+        }
+        return json.append("]}").toString();
+    }
+
+    private String conflate(List<StreamFrame> edits) {
+        Map<String, Map<String, Object>> pages = new LinkedHashMap<>();
+        for (StreamFrame edit : edits) {
+            Map<String, Object> page = pages.computeIfAbsent(edit.wiki() + ":" + edit.pageTitle(), key -> {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("wiki", edit.wiki());
+                entry.put("title", edit.pageTitle());
+                entry.put("edits", 0);
+                return entry;
+            });
+            page.put("edits", (Integer) page.get("edits") + 1);
+        }
+
+        Map<String, Object> wrapper = new LinkedHashMap<>();
+        wrapper.put("type", "EDIT_COUNTS");
+        wrapper.put("count", edits.size());
+        wrapper.put("pages", pages.values());
+        try {
+            return objectMapper.writeValueAsString(wrapper);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the compact binary edits written by the producer's EditEventSerializer
+ * (producer.payload=BINARY)
+ *
+ * Binary records carry a wiki-format header naming their encoding and version; JSON records
+ * carry none. Old and new producers can therefore share the topic, and a consumer skips a
+ * version it doesn't know instead of misreading it. The layout, the header and WIKIS are
+ * documented on EditEventSerializer and must stay in sync with it (EditEventCodecTest decodes
+ * records the serializer is tested to write byte for byte).
+ *
+ * Version 2 appends the revision ids (revision.old/new), which revert detection reads;
+ * version 1 records decode without them.
+ *
+ * Decoding allocates the event and its three strings (title, user, event time); wiki names
+ * from the dictionary are shared constants.
+ */
+public final class EditEventCodec {
+
+    public static final String FORMAT_HEADER = "wiki-format";
+    static final byte[] FORMAT_V1 = "edit-v1".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] FORMAT_V2 = "edit-v2".getBytes(StandardCharsets.US_ASCII);
+    static final byte VERSION_1 = 1;
+    static final byte VERSION_2 = 2;
+
+    static final List<String> WIKIS = List.of(
+            "en.wikipedia.org", "commons.wikimedia.org", "www.wikidata.org", "de.wikipedia.org",
+            "fr.wikipedia.org", "es.wikipedia.org", "ja.wikipedia.org", "ru.wikipedia.org",
+            "it.wikipedia.org", "zh.wikipedia.org", "pt.wikipedia.org", "pl.wikipedia.org",
+            "nl.wikipedia.org", "ar.wikipedia.org", "uk.wikipedia.org", "fa.wikipedia.org",
+            "sv.wikipedia.org", "meta.wikimedia.org", "species.wikimedia.org", "en.wiktionary.org");
+
+    static final int FLAG_BOT = 1;
+    static final int FLAG_NAMESPACE = 2;
+    static final int FLAG_TIMESTAMP = 4;
+    static final int FLAG_LENGTH_OLD = 8;
+    static final int FLAG_LENGTH_NEW = 16;
+    // Version 2
+    static final int FLAG_REVISION_OLD = 32;
+    static final int FLAG_REVISION_NEW = 64;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private EditEventCodec() {
+    }
+
+    /**
+     * Whether a record is binary-encoded (any version); records without the header are JSON
+     */
+    public static boolean isEncoded(Headers headers) {
+        return headers.lastHeader(FORMAT_HEADER) != null;
+    }
+
+    /**
+     * Whether this codec reads the encoding named by a record's format header
+     */
+    static boolean isSupported(Header format) {
+        return version(format) != 0;
+    }
+
+    /**
+     * Get the encoding version a record's format header names, 0 if this codec doesn't know it
+     */
+    static int version(Header format) {
+        if (Arrays.equals(format.value(), FORMAT_V2)) {
+            return VERSION_2;
+        }
+        return Arrays.equals(format.value(), FORMAT_V1) ? VERSION_1 : 0;
+    }
+
+    /**
+     * Decode a version 1 record value
+     *
+     * @see #decode(byte[], int)
+     */
+    public static WikimediaEditEvent decode(byte[] value) {
+        return decode(value, VERSION_1);
+    }
+
+    /**
+     * Decode a record value
+     *
+     * @param value Record value
+     * @param version Version its format header names
+     * @return The edit, with the same defaults as the JSON parser for fields it left out
+     * @throws IllegalArgumentException if the value is truncated or not of that version
+     */
+    public static WikimediaEditEvent decode(byte[] value, int version) {
+        Input in = new Input(value);
+        if (in.read() != version) {
+            throw new IllegalArgumentException("Not a version " + version + " edit record");
+        }
+        int flags = in.read();
+
+        WikimediaEditEvent event = new WikimediaEditEvent();
+        event.setType("edit");
+        event.setIsBot((flags & FLAG_BOT) != 0);
+        int wiki = (int) in.varint();
+        if (wiki == 0) {
+            event.setWiki(in.string());
+        } else if (wiki <= WIKIS.size()) {
+            event.setWiki(WIKIS.get(wiki - 1));
+        } else {
+            throw new IllegalArgumentException("Unknown wiki index " + wiki);
+        }
+        event.setPageTitle(in.string());
+        event.setUsername(in.string());
+        String eventTime = in.string();
+        event.setEventTime(eventTime.isEmpty() ? null : eventTime);
+
+        event.setNamespace((flags & FLAG_NAMESPACE) != 0 ? in.zigzag() : -1);
+        event.setTimestamp((flags & FLAG_TIMESTAMP) != 0 ? in.varint() : System.currentTimeMillis() / 1000);
+        if ((flags & FLAG_LENGTH_OLD) != 0) {
+            event.setLengthOld(in.zigzag());
+        }
+        if ((flags & FLAG_LENGTH_NEW) != 0) {
+            event.setLengthNew(in.zigzag());
+        }
+        if (version >= VERSION_2) {
+            if ((flags & FLAG_REVISION_OLD) != 0) {
+                event.setRevisionOld(in.varint());
+            }
+            if ((flags & FLAG_REVISION_NEW) != 0) {
+                event.setRevisionNew(in.varint());
+            }
+        }
+        if (!in.isDone()) {
+            throw new IllegalArgumentException("Trailing bytes after the edit");
+        }
+        return event;
+    }
+
+    /**
+     * Render a decoded edit as recentchange-shaped JSON, with the fields a projected JSON record
+     * has (less meta.uri), for SSE clients
+     */
+    public static String toJson(WikimediaEditEvent event) {
+        StringWriter writer = new StringWriter(256);
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(writer)) {
+            json.writeStartObject();
+            json.writeStringField("type", event.getType());
+            json.writeObjectFieldStart("meta");
+            if (event.getEventTime() != null) {
+                json.writeStringField("dt", event.getEventTime());
+            }
+            json.writeStringField("domain", event.getWiki());
+            json.writeEndObject();
+            json.writeNumberField("namespace", event.getNamespace());
+            json.writeStringField("title", event.getPageTitle());
+            json.writeNumberField("timestamp", event.getTimestamp());
+            json.writeStringField("user", event.getUsername());
+            json.writeBooleanField("bot", Boolean.TRUE.equals(event.getIsBot()));
+            if (event.getLengthOld() != null || event.getLengthNew() != null) {
+                json.writeObjectFieldStart("length");
+                if (event.getLengthOld() != null) {
+                    json.writeNumberField("old", event.getLengthOld());
+                }
+                if (event.getLengthNew() != null) {
+                    json.writeNumberField("new", event.getLengthNew());
+                }
+                json.writeEndObject();
+            }
+            if (event.getRevisionOld() != null || event.getRevisionNew() != null) {
+                json.writeObjectFieldStart("revision");
+                if (event.getRevisionOld() != null) {
+                    json.writeNumberField("old", event.getRevisionOld());
+                }
+                if (event.getRevisionNew() != null) {
+                    json.writeNumberField("new", event.getRevisionNew());
+                }
+                json.writeEndObject();
+            }
+            json.writeStringField("server_name", event.getWiki());
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // StringWriter doesn't throw
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Cursor over a record value with the varint and string readers
+     */
+    private static final class Input {
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int read() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Truncated edit record");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        int zigzag() {
+            int value = (int) varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String string() {
+            long length = varint();
+            if (length > buffer.length - position) {
+                throw new IllegalArgumentException("Truncated edit record");
+            }
+            String value = new String(buffer, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+
+        boolean isDone() {
+            return position == buffer.length;
+        }
+    }
+}
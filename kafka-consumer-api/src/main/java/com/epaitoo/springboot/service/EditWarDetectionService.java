@@ -3,34 +3,121 @@ package com.epaitoo.springboot.service;
 import com.epaitoo.springboot.entity.EditWarAlert;
 import com.epaitoo.springboot.entity.EditWarStatus;
 import com.epaitoo.springboot.entity.PageEditWindow;
+import com.epaitoo.springboot.entity.WarThresholds;
 import com.epaitoo.springboot.entity.WikimediaEditEvent;
 import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity;
 import com.epaitoo.springboot.persistence.mapper.AlertMapper;
 import com.epaitoo.springboot.persistence.repository.EditWarAlertRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
+@EnableConfigurationProperties(DetectionThresholds.class)
 public class EditWarDetectionService {
 
+    // Edits that did not come from a Kafka partition (test endpoints): not written to the changelog
+    public static final int NO_PARTITION = -1;
+
+    // Windows without an edit for this long (or their wiki's window length, if longer) are dropped
+    static final Duration IDLE_WINDOW = Duration.ofHours(2);
+
     // Dependencies
     private final EditWarAlertRepository alertRepository;
     private final AlertMapper alertMapper;
 
-    // Store edit windows per page (thread-safe)
-    private final Map<String, PageEditWindow> pageWindows = new ConcurrentHashMap<>();
+    private final WindowChangelog changelog;
+    private final DetectionThresholds thresholds;
+    private final MeterRegistry meterRegistry;
+
+    // Hot path meters
+    private final Timer processTimer;
+    private final Timer saveTimer;
+    private final DistributionSummary windowFill;
+
+    /**
+     * Page windows of one wiki, with the wiki's thresholds
+     */
+    private record WikiWindows(WarThresholds thresholds, Map<String, PageEditWindow> pages) {
+    }
+
+    // Edit windows per wiki, then per page (thread-safe); a wiki's entry is made on its first edit
+    private final Map<String, WikiWindows> wikiWindows = new ConcurrentHashMap<>();
+
+    // Source partition of each page's edits, and the partitions whose windows this node holds
+    private final Map<String, Integer> pagePartitions = new ConcurrentHashMap<>();
+    private final Set<Integer> ownedPartitions = ConcurrentHashMap.newKeySet();
+
+    private volatile WindowChangelog.RestoreStats lastRestore;
+
+    public EditWarDetectionService(EditWarAlertRepository alertRepository, AlertMapper alertMapper,
+                                   WindowChangelog changelog, DetectionThresholds thresholds,
+                                   MeterRegistry meterRegistry) {
+        this.alertRepository = alertRepository;
+        this.alertMapper = alertMapper;
+        this.changelog = changelog;
+        this.thresholds = thresholds;
+        this.meterRegistry = meterRegistry;
+
+        this.processTimer = Timer.builder("editwar.process.edit")
+                .description("Time to add one edit to its page window and check for a war")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.saveTimer = Timer.builder("editwar.db.save")
+                .description("Time to save one alert to the database")
+                .register(meterRegistry);
+        this.windowFill = DistributionSummary.builder("editwar.window.fill")
+                .description("Edits in a page's window after each edit")
+                .serviceLevelObjectives(1, 2, 3, 5, 10, 20, 50)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get a wiki's windows, creating them (and the wiki's gauge) on its first edit
+     */
+    private WikiWindows wikiWindows(String wiki) {
+        return wikiWindows.computeIfAbsent(wiki, w -> {
+            WikiWindows windows = new WikiWindows(thresholds.forWiki(w), new ConcurrentHashMap<>());
+            Gauge.builder("editwar.tracked.pages", windows.pages(), Map::size)
+                    .description("Pages with an edit window on this node")
+                    .tag("wiki", w)
+                    .register(meterRegistry);
+            return windows;
+        });
+    }
+
+    /**
+     * Get the wiki part of a page key
+     */
+    static String wikiOf(String pageKey) {
+        return pageKey.substring(0, Math.max(pageKey.indexOf(':'), 0));
+    }
+
+    private void removeWindow(String pageKey) {
+        WikiWindows windows = wikiWindows.get(wikiOf(pageKey));
+        if (windows != null) {
+            windows.pages().remove(pageKey);
+        }
+    }
 
     /**
      * Process a new edit event
@@ -38,6 +125,39 @@ public class EditWarDetectionService {
      */
     @Transactional
     public Optional<EditWarAlert> processEdit(WikimediaEditEvent event) {
+        return processEdit(event, NO_PARTITION);
+    }
+
+    /**
+     * Process a new edit event consumed from a Kafka partition
+     *
+     * @param event Parsed edit
+     * @param partition Source partition, so the window change goes to the matching changelog partition
+     * @return The alert if a war is detected
+     */
+    @Transactional
+    public Optional<EditWarAlert> processEdit(WikimediaEditEvent event, int partition) {
+        return detectEdit(event, partition).map(this::saveAlert);
+    }
+
+    /**
+     * Add an edit to its page window and check for a war, without saving the alert
+     * (lets the caller time detection and the DB commit separately)
+     *
+     * @param event Parsed edit
+     * @param partition Source partition, or {@link #NO_PARTITION}
+     * @return The unsaved alert if a war is detected; pass it to {@link #saveAlert}
+     */
+    public Optional<EditWarAlert> detectEdit(WikimediaEditEvent event, int partition) {
+        long start = System.nanoTime();
+        try {
+            return detect(event, partition);
+        } finally {
+            processTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Optional<EditWarAlert> detect(WikimediaEditEvent event, int partition) {
         // Skip if null or invalid
         if (event == null || event.getPageTitle() == null) {
             log.warn("Received null or invalid event");
@@ -47,40 +167,78 @@ public class EditWarDetectionService {
         // Get or create page window
         String pageKey = createPageKey(event.getPageTitle(), event.getWiki());
 
-        PageEditWindow window = pageWindows.computeIfAbsent(
-                pageKey,
-                k -> new PageEditWindow(event.getPageTitle())
-        );
-
-        // Add edit to window
-        window.addEdit(event);
+        WikiWindows wiki = wikiWindows(wikiOf(pageKey));
+
+        // Add edit to window; under the map's lock for the page, so cleanup can't drop it meanwhile.
+        // Only the snapshot is taken there: serializing and sending it could block the lock's bin
+        PageWindowState[] changed = new PageWindowState[1];
+        PageEditWindow window = wiki.pages().compute(pageKey, (key, current) -> {
+            PageEditWindow page = current != null ? current : new PageEditWindow(event.getPageTitle());
+            PipelineEvents.WindowUpdate update = new PipelineEvents.WindowUpdate();
+            update.begin();
+            page.addEdit(event, wiki.thresholds());
+            update.end(key, page.getEditCount(), partition);
+
+            if (partition != NO_PARTITION) {
+                pagePartitions.put(key, partition);
+                changed[0] = PageWindowState.snapshot(page);
+            }
+            return page;
+        });
+        // A page's edits all come from one partition, read by one listener thread: its writes stay in order
+        if (changed[0] != null) {
+            changelog.append(partition, pageKey, changed[0]);
+        }
+        windowFill.record(window.getEditCount());
 
         log.debug("Added edit to page {}: {} edits in window",
                 pageKey, window.getEditCount());
 
         // Check for edit war
-        if (window.isEditWar()) {
-            log.info("EDIT WAR DETECTED on page: {}", pageKey);
-
-            // Create alert
-            EditWarAlert alert = createAlert(window, event.getWiki());
-
-            // Save to database
-            EditWarAlertEntity entity = alertMapper.toEntity(alert);
-            EditWarAlertEntity savedEntity = alertRepository.save(entity);
+        PipelineEvents.WarEvaluation evaluation = new PipelineEvents.WarEvaluation();
+        evaluation.begin();
+        boolean editWar = window.isEditWar(wiki.thresholds());
+        evaluation.end(pageKey, window.getEditCount(), editWar);
 
-            log.info("Alert saved to database with ID: {}", savedEntity.getId());
+        if (editWar) {
+            log.debug("EDIT WAR DETECTED on page: {}", pageKey);
 
-            return Optional.of(alert);
+            // Create alert (saved by the caller)
+            return Optional.of(createAlert(window, event.getWiki()));
         }
 
         return Optional.empty();
     }
 
     /**
-     * Create an EditWarAlert from a PageEditWindow
+     * Save a detected alert to the database
+     *
+     * @param alert Alert created by {@link #createAlert}
+     * @return The same alert, with its database ID set
      */
-    private EditWarAlert createAlert(PageEditWindow window, String wiki) {
+    @Transactional
+    public EditWarAlert saveAlert(EditWarAlert alert) {
+        meterRegistry.counter("editwar.alerts", "severity", alert.getSeverityLevel(),
+                "wiki", String.valueOf(alert.getWiki())).increment();
+
+        PipelineEvents.AlertPersist persist = new PipelineEvents.AlertPersist();
+        persist.begin();
+        EditWarAlertEntity entity = alertMapper.toEntity(alert);
+        long start = System.nanoTime();
+        EditWarAlertEntity savedEntity = alertRepository.save(entity);
+        saveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        alert.setId(savedEntity.getId());
+        persist.end(alert);
+
+        log.debug("Alert saved to database with ID: {}", savedEntity.getId());
+
+        return alert;
+    }
+
+    /**
+     * Create an EditWarAlert from a PageEditWindow (shared with the Kafka Streams engine)
+     */
+    static EditWarAlert createAlert(PageEditWindow window, String wiki) {
         // Extract involved users
         List<String> users = window.getEdits().stream()
                 .filter(event -> event.isHumanEdit() && event.isMainNamespace())
@@ -127,7 +285,7 @@ public class EditWarDetectionService {
         // Calculate severity
         alert.calculateSeverity();
 
-        log.info("Created alert: {} - Severity: {} ({})",
+        log.debug("Created alert: {} - Severity: {} ({})",
                 alert.getPageTitle(),
                 alert.getSeverityScore(),
                 alert.getSeverityLevel());
@@ -139,28 +297,106 @@ public class EditWarDetectionService {
     /**
      * Create unique key for page (includes wiki)
      */
-    private String createPageKey(String pageTitle, String wiki) {
+    static String createPageKey(String pageTitle, String wiki) {
         return wiki + ":" + pageTitle;
     }
 
     /**
      * Clean up old windows periodically (prevents memory leaks)
+     *
+     * Run every detection.cleanup.interval by WindowCleanupConfig (listener engine only; the
+     * Streams engine evicts in PageWindowProcessor). Each dropped window is tombstoned in the
+     * changelog, so it isn't restored after a rebalance either.
      */
     public void cleanupOldWindows() {
-        long now = System.currentTimeMillis();
+        long now = System.currentTimeMillis() / 1000;  // edit timestamps are in seconds
+
+        wikiWindows.values().forEach(wiki -> {
+            long idleSeconds = idleSeconds(wiki.thresholds());
+            for (String pageKey : wiki.pages().keySet()) {
+                // Checked and removed under the page's lock, so an edit arriving meanwhile keeps it
+                Integer[] dropped = new Integer[1];
+                wiki.pages().computeIfPresent(pageKey, (key, window) -> {
+                    // Remove if no edits in the idle limit
+                    boolean idle = window.getEdits().isEmpty()
+                            || (now - window.getEdits().peekLast().getTimestamp()) > idleSeconds;
+                    if (!idle) {
+                        return window;
+                    }
+                    dropped[0] = pagePartitions.remove(key);
+                    return null;
+                });
+                // Tombstoned outside the lock; unless an edit has made a new window since, whose write supersedes it
+                if (dropped[0] != null && !wiki.pages().containsKey(pageKey)) {
+                    changelog.remove(dropped[0], pageKey);
+                }
+            }
+        });
 
-        pageWindows.entrySet().removeIf(entry -> {
-            PageEditWindow window = entry.getValue();
+        log.debug("Cleanup: {} pages being tracked", trackedPages());
+    }
 
-            // Remove if no edits in last 2 hours
-            if (window.getEdits().isEmpty()) {
-                return true;
+    /**
+     * Get how long a window of a wiki with these thresholds is kept without edits
+     */
+    static long idleSeconds(WarThresholds thresholds) {
+        return Math.max(IDLE_WINDOW.toSeconds(), thresholds.window().toSeconds());
+    }
+
+    /**
+     * Get the thresholds edits of a wiki are checked against
+     */
+    public WarThresholds thresholdsFor(String wiki) {
+        return thresholds.forWiki(wiki);
+    }
+
+    private int trackedPages() {
+        return wikiWindows.values().stream().mapToInt(wiki -> wiki.pages().size()).sum();
+    }
+
+    /**
+     * Hold windows for exactly the given source partitions after a rebalance
+     *
+     * Windows of partitions no longer assigned are dropped; partitions that are new to
+     * this node are rebuilt from the changelog. Called on the listener thread before it
+     * resumes consuming, so no edit is processed against an empty window.
+     *
+     * @param assignment All source partitions currently assigned to this node
+     */
+    public void retainPartitions(Collection<Integer> assignment) {
+        Set<Integer> revoked = new HashSet<>(ownedPartitions);
+        revoked.removeAll(assignment);
+        if (!revoked.isEmpty()) {
+            pagePartitions.entrySet().removeIf(entry -> {
+                boolean drop = revoked.contains(entry.getValue());
+                if (drop) {
+                    removeWindow(entry.getKey());
+                }
+                return drop;
+            });
+            ownedPartitions.removeAll(revoked);
+            log.info("Dropped page windows of revoked partitions {}", revoked);
+        }
+
+        Set<Integer> added = new HashSet<>(assignment);
+        added.removeAll(ownedPartitions);
+        if (added.isEmpty()) {
+            return;
+        }
+        WindowChangelog.RestoreStats stats = changelog.restore(added, (partition, pageKey, window) -> {
+            if (window == null) {
+                removeWindow(pageKey);
+                pagePartitions.remove(pageKey);
+            } else {
+                wikiWindows(wikiOf(pageKey)).pages().put(pageKey, window);
+                pagePartitions.put(pageKey, partition);
             }
-            Long lastEdit = window.getEdits().peekLast().getTimestamp();
-            return (now - lastEdit) > 7200000L; // 2 hours
         });
+        ownedPartitions.addAll(added);
+        lastRestore = stats;
 
-        log.debug("Cleanup: {} pages being tracked", pageWindows.size());
+        log.info("Restored page windows of partitions {}: {} records, {} bytes in {} ms",
+                added, stats.records(), stats.bytes(), stats.millis());
     }
 
     /**
@@ -168,10 +404,18 @@ public class EditWarDetectionService {
      */
     public Map<String, Object> getStats() {
         Map<String, Object> stats = new HashMap<>();
-        stats.put("trackedPages", pageWindows.size());
-        stats.put("totalEdits", pageWindows.values().stream()
+        Map<String, Integer> pagesPerWiki = new HashMap<>();
+        wikiWindows.forEach((wiki, windows) -> pagesPerWiki.put(wiki, windows.pages().size()));
+        stats.put("trackedPages", trackedPages());
+        stats.put("trackedPagesPerWiki", pagesPerWiki);
+        stats.put("totalEdits", wikiWindows.values().stream()
+                .flatMap(wiki -> wiki.pages().values().stream())
                 .mapToInt(PageEditWindow::getEditCount)
                 .sum());
+        stats.put("ownedPartitions", new HashSet<>(ownedPartitions));
+        if (lastRestore != null) {
+            stats.put("lastRestore", lastRestore);
+        }
         return stats;
     }
 }
@@ -0,0 +1,168 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.EditWarAlert;
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.serializer.JsonSerde;
+import org.springframework.stereotype.Component;
+
+/**
+ * Kafka Streams edit war detection (detection.engine=streams)
+ *
+ * wikimedia-stream-api → routing filter → parse → re-key by wiki:title
+ * → PageWindowProcessor (window per page in a RocksDB store)
+ * → save the alert and stream it to SSE, or stream the edit if it raised none
+ * → edit-war-alerts (same key, so the compacted topic keeps the latest alert per page)
+ *
+ * The re-keying repartition means each page's edits are handled by exactly one instance,
+ * and Kafka Streams moves partitions and their window state as instances come and go.
+ *
+ * SSE clients get the same frames as from the listener engine: one per edit, the alert
+ * instead of the edit when it raises one. Only the parsed event crosses the repartition, so
+ * edit frames are rendered from it (EditEventCodec.toJson), as for binary records: fields the
+ * parser doesn't read are not streamed with producer.payload=RAW.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "detection.engine", havingValue = "streams")
+public class EditWarTopology {
+
+    public static final String WINDOW_STORE = "page-edit-windows";
+    static final String REPARTITION_NAME = "edits-by-page";
+
+    private final WikimediaEventParser parser;
+    private final EditWarDetectionService detectionService;
+    private final AlertEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final DetectionThresholds thresholds;
+    private final RoutingFilter routingFilter;
+    private final String sourceTopic;
+    private final String alertTopic;
+
+    public EditWarTopology(
+            WikimediaEventParser parser,
+            EditWarDetectionService detectionService,
+            AlertEventPublisher eventPublisher,
+            ObjectMapper objectMapper,
+            DetectionThresholds thresholds,
+            RoutingFilter routingFilter,
+            @Value("${detection.source-topic:wikimedia-stream-api}") String sourceTopic,
+            @Value("${alerts.topic.name:edit-war-alerts}") String alertTopic
+    ) {
+        this.parser = parser;
+        this.detectionService = detectionService;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.thresholds = thresholds;
+        this.routingFilter = routingFilter;
+        this.sourceTopic = sourceTopic;
+        this.alertTopic = alertTopic;
+    }
+
+    /**
+     * Add the detection topology to the builder
+     *
+     * @return The stream of detected alerts, keyed by wiki:title
+     */
+    public KStream<String, EditWarAlert> build(StreamsBuilder builder) {
+        builder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(WINDOW_STORE),  // RocksDB, changelog-backed by default
+                Serdes.String(),
+                jsonSerde(PageWindowState.class)));
+
+        KStream<String, EditWarAlert> alerts = builder
+                .stream(sourceTopic, Consumed.with(Serdes.String(), Serdes.ByteArray()))
+                .filter((key, value) -> value != null)
+                // Processor API for the record headers, which say how the value is encoded
+                .processValues(EditParser::new)
+                .filter((key, event) -> event != null)
+                .selectKey((key, event) -> EditWarDetectionService.createPageKey(event.getPageTitle(), event.getWiki()))
+                .repartition(Repartitioned.with(Serdes.String(), jsonSerde(WikimediaEditEvent.class))
+                        .withName(REPARTITION_NAME))
+                .process(() -> new PageWindowProcessor(thresholds), WINDOW_STORE)
+                .mapValues(this::publish)
+                .filter((key, alert) -> alert != null);
+
+        alerts.mapValues(this::toJson)
+                .filter((key, json) -> json != null)
+                .to(alertTopic, Produced.with(Serdes.String(), Serdes.String()));
+
+        return alerts;
+    }
+
+    /**
+     * Stream an edit that raised no alert
+     *
+     * @return The alert the edit raised, or null
+     */
+    private EditWarAlert publish(PageWindowProcessor.Outcome outcome) {
+        if (outcome.alert() == null) {
+            eventPublisher.publishEdit(outcome.edit(), (byte[]) null, null);
+            return null;
+        }
+        return onAlert(outcome.alert());
+    }
+
+    /**
+     * Persist and stream an alert (a failing save must not kill the stream thread)
+     */
+    private EditWarAlert onAlert(EditWarAlert alert) {
+        try {
+            detectionService.saveAlert(alert);
+        } catch (RuntimeException e) {
+            log.error("Failed to save alert for page {}", alert.getPageTitle(), e);
+        }
+        eventPublisher.publishAlert(alert);
+        return alert;
+    }
+
+    private String toJson(EditWarAlert alert) {
+        try {
+            return objectMapper.writeValueAsString(alert);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize alert for page {}", alert.getPageTitle(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Parse (or decode) each record in scope (detection.wikis, namespaces, include-bots);
+     * the rest become null and are dropped
+     */
+    private final class EditParser implements FixedKeyProcessor<String, byte[], WikimediaEditEvent> {
+        private FixedKeyProcessorContext<String, WikimediaEditEvent> context;
+
+        @Override
+        public void init(FixedKeyProcessorContext<String, WikimediaEditEvent> context) {
+            this.context = context;
+        }
+
+        @Override
+        public void process(FixedKeyRecord<String, byte[]> record) {
+            // Out-of-scope records (by the producer's routing headers) are dropped unparsed
+            WikimediaEditEvent event = routingFilter.accept(record.headers())
+                    ? parser.parse(record.headers(), record.value())
+                    : null;
+            context.forward(record.withValue(event != null && routingFilter.accept(event) ? event : null));
+        }
+    }
+
+    private <T> Serde<T> jsonSerde(Class<T> type) {
+        return new JsonSerde<>(type, objectMapper).noTypeInfo().ignoreTypeHeaders();
+    }
+}
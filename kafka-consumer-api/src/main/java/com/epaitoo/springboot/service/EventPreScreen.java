@@ -0,0 +1,146 @@
+package com.epaitoo.springboot.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cheap first look at a raw recentchange payload, before any parsing
+ *
+ * A payload that doesn't start with '{' and end with '}' (garbage, a cut-off record) is
+ * rejected without reading the middle. Otherwise one pass tracks strings, nesting depth and
+ * top-level keys up to the top-level "type" and stops there, so accepted edits pay for a
+ * scan of roughly the meta block and irrelevant ones are rejected without ever reaching
+ * the parser. It allocates nothing and throws nothing.
+ *
+ * It is not a validator: an EDIT verdict still goes to the full parser, which checks the
+ * required fields and rejects anything malformed after the type.
+ */
+final class EventPreScreen {
+
+    enum Verdict {
+        /** top-level type "edit": worth parsing */
+        EDIT,
+        /** top-level type missing or not "edit" */
+        NOT_EDIT,
+        /** not a JSON object, unbalanced or cut off */
+        MALFORMED
+    }
+
+    private static final byte[] TYPE = ascii("type");
+    private static final byte[] EDIT = ascii("edit");
+
+    private EventPreScreen() {
+    }
+
+    static Verdict screen(byte[] json) {
+        if (json == null || !enclosedInBraces(json)) {
+            return Verdict.MALFORMED;
+        }
+
+        int depth = 0;
+        boolean keyExpected = false;
+        boolean typeNext = false;  // the next top-level value is the type
+
+        for (int i = 0; i < json.length; i++) {
+            byte b = json[i];
+            if (isWhitespace(b) || b == ':') {
+                continue;
+            }
+
+            switch (b) {
+                case '"' -> {
+                    int end = closingQuote(json, i + 1);
+                    if (end < 0) {
+                        return Verdict.MALFORMED;
+                    }
+                    if (depth == 1 && keyExpected) {
+                        typeNext = matches(json, i + 1, end, TYPE);
+                        keyExpected = false;
+                    } else if (depth == 1 && typeNext) {
+                        return matches(json, i + 1, end, EDIT) ? Verdict.EDIT : Verdict.NOT_EDIT;
+                    }
+                    i = end;
+                }
+                case '{', '[' -> {
+                    if (typeNext && depth == 1) {
+                        return Verdict.NOT_EDIT;
+                    }
+                    depth++;
+                    keyExpected = depth == 1;
+                }
+                case '}', ']' -> {
+                    depth--;
+                    if (depth == 0) {
+                        // Closed without a top-level type; anything after this isn't JSON
+                        return i == lastNonWhitespace(json) ? Verdict.NOT_EDIT : Verdict.MALFORMED;
+                    }
+                    if (depth < 0) {
+                        return Verdict.MALFORMED;
+                    }
+                }
+                case ',' -> keyExpected = depth == 1;
+                default -> {
+                    if (depth == 1 && keyExpected) {
+                        return Verdict.MALFORMED;  // unquoted key
+                    }
+                    if (depth == 1 && typeNext) {
+                        return Verdict.NOT_EDIT;  // number, true/false/null
+                    }
+                }
+            }
+        }
+        // Unbalanced: the final '}' closed a nested object
+        return Verdict.MALFORMED;
+    }
+
+    private static boolean enclosedInBraces(byte[] json) {
+        int first = 0;
+        while (first < json.length && isWhitespace(json[first])) {
+            first++;
+        }
+        int last = lastNonWhitespace(json);
+        return first < last && json[first] == '{' && json[last] == '}';
+    }
+
+    private static int lastNonWhitespace(byte[] json) {
+        int last = json.length - 1;
+        while (last >= 0 && isWhitespace(json[last])) {
+            last--;
+        }
+        return last;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Index of the quote ending the string that starts at from, -1 if it never ends
+     */
+    private static int closingQuote(byte[] json, int from) {
+        for (int i = from; i < json.length; i++) {
+            byte b = json[i];
+            if (b == '\\') {
+                i++;
+            } else if (b == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(byte[] json, int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (json[from + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
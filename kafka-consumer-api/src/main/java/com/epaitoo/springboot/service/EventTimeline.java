@@ -0,0 +1,67 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.service.LatencyTracker.Stage;
+
+/**
+ * Wall clock stamps (microseconds since the epoch) of one edit on its way to the SSE clients
+ *
+ * Created by {@link LatencyTracker#start} when the listener receives the record, stamped
+ * by the listener after detection and the DB commit, and closed by the SSE dispatcher,
+ * which records every stage into the tracker.
+ */
+public final class EventTimeline {
+
+    static final long UNKNOWN = 0L;
+
+    private final LatencyTracker tracker;
+    private final long eventTime;
+    private final long producerReceived;
+    private final long kafkaSent;
+    private final long consumerReceived;
+
+    // Written by the listener thread, read by the dispatcher after the queue hand-off
+    private volatile long detected = UNKNOWN;
+    private volatile long committed = UNKNOWN;
+
+    EventTimeline(LatencyTracker tracker, long eventTime, long producerReceived,
+                  long kafkaSent, long consumerReceived) {
+        this.tracker = tracker;
+        this.eventTime = eventTime;
+        this.producerReceived = producerReceived;
+        this.kafkaSent = kafkaSent;
+        this.consumerReceived = consumerReceived;
+    }
+
+    /**
+     * Stamp the end of detection
+     */
+    public void detected() {
+        detected = LatencyTracker.nowMicros();
+    }
+
+    /**
+     * Stamp the alert's DB commit
+     */
+    public void committed() {
+        committed = LatencyTracker.nowMicros();
+    }
+
+    /**
+     * Stamp the SSE emit and record all stages of this edit
+     *
+     * @param alert Whether the edit raised an alert (adds DB_COMMIT and ALERT_END_TO_END)
+     */
+    public void emitted(boolean alert) {
+        long emitted = LatencyTracker.nowMicros();
+        tracker.record(Stage.EVENT_TO_PRODUCER, eventTime, producerReceived);
+        tracker.record(Stage.PRODUCER, producerReceived, kafkaSent);
+        tracker.record(Stage.KAFKA, kafkaSent, consumerReceived);
+        tracker.record(Stage.DETECTION, consumerReceived, detected);
+        tracker.record(Stage.DB_COMMIT, detected, committed);
+        tracker.record(Stage.SSE_EMIT, committed != UNKNOWN ? committed : detected, emitted);
+        tracker.record(Stage.END_TO_END, eventTime, emitted);
+        if (alert) {
+            tracker.record(Stage.ALERT_END_TO_END, eventTime, emitted);
+        }
+    }
+}
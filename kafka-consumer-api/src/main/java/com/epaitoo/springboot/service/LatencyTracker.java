@@ -0,0 +1,173 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage latency of the listener engine, from the edit's event time to the SSE emit
+ *
+ * The producer stamps each record with Kafka headers when it receives the edit from
+ * Wikimedia and just before it sends it; the consumer adds its own stamps as the edit
+ * moves through detection, the DB commit and the SSE dispatcher (see {@link EventTimeline}).
+ * Every stage difference goes into an HDR histogram, so percentiles stay exact to three
+ * significant digits however skewed the distribution is.
+ *
+ * Stages that cross machines (event time → producer, producer → consumer) depend on
+ * clock sync between Wikimedia, the producer host and this one; negative values from
+ * clock skew are counted as zero.
+ */
+@Slf4j
+@Service
+public class LatencyTracker {
+
+    // Header names shared with the producer's ApiRealTImeChangesHandler: keep them in sync
+    public static final String PRODUCER_RECEIVED_HEADER = "wiki-received-us";
+    public static final String PRODUCER_SENT_HEADER = "wiki-sent-us";
+
+    // Latencies are recorded in microseconds, up to one hour (anything slower is clamped)
+    static final long MAX_LATENCY_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    /**
+     * Measured intervals between two stamps of an edit's journey
+     */
+    public enum Stage {
+        EVENT_TO_PRODUCER,  // Wikimedia event time → producer received it from the stream
+        PRODUCER,           // producer received → handed to the Kafka client
+        KAFKA,              // producer send → consumer received (client batching, broker, poll)
+        DETECTION,          // consumer received → window updated and checked
+        DB_COMMIT,          // detection done → alert saved (alerts only)
+        SSE_EMIT,           // detection done (or commit) → emitted to SSE clients
+        END_TO_END,         // event time → SSE emit, every edit
+        ALERT_END_TO_END    // event time → SSE emit, alerts only
+    }
+
+    private final Map<Stage, Histogram> histograms = new EnumMap<>(Stage.class);
+
+    public LatencyTracker() {
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new ConcurrentHistogram(MAX_LATENCY_MICROS, SIGNIFICANT_DIGITS));
+        }
+    }
+
+    /**
+     * Current wall clock time in microseconds since the epoch (the unit of all stamps)
+     */
+    public static long nowMicros() {
+        Instant now = Instant.now();
+        return TimeUnit.SECONDS.toMicros(now.getEpochSecond()) + now.getNano() / 1_000;
+    }
+
+    /**
+     * Start the timeline of an edit just consumed from Kafka
+     *
+     * @param record Consumed record, carrying the producer's stamps as headers
+     * @param event The parsed edit, for its event time
+     * @return Timeline stamped with everything known so far and "consumer received" = now
+     */
+    public EventTimeline start(ConsumerRecord<?, ?> record, WikimediaEditEvent event) {
+        long consumerReceived = nowMicros();
+        long kafkaSent = headerMicros(record.headers(), PRODUCER_SENT_HEADER);
+        if (kafkaSent == EventTimeline.UNKNOWN && record.timestamp() > 0) {
+            // Older producers did not stamp: the record's create time is the send call
+            kafkaSent = TimeUnit.MILLISECONDS.toMicros(record.timestamp());
+        }
+        return new EventTimeline(this,
+                eventTimeMicros(event),
+                headerMicros(record.headers(), PRODUCER_RECEIVED_HEADER),
+                kafkaSent,
+                consumerReceived);
+    }
+
+    /**
+     * Record the interval between two stamps; skipped if either is unknown
+     */
+    void record(Stage stage, long fromMicros, long toMicros) {
+        if (fromMicros == EventTimeline.UNKNOWN || toMicros == EventTimeline.UNKNOWN) {
+            return;
+        }
+        long latency = Math.min(Math.max(0, toMicros - fromMicros), MAX_LATENCY_MICROS);
+        histograms.get(stage).recordValue(latency);
+    }
+
+    /**
+     * Get the percentiles of every stage, in milliseconds
+     *
+     * @return Stage name → count, mean, p50, p90, p99, p99.9 and max
+     */
+    public Map<String, Map<String, Object>> getSnapshot() {
+        Map<String, Map<String, Object>> snapshot = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            Histogram histogram = histograms.get(stage).copy();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", histogram.getTotalCount());
+            stats.put("meanMs", millis(histogram.getMean()));
+            stats.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+            stats.put("p90Ms", millis(histogram.getValueAtPercentile(90)));
+            stats.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+            stats.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+            stats.put("maxMs", millis(histogram.getMaxValue()));
+            snapshot.put(stage.name(), stats);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Clear all histograms (e.g. before a load test)
+     */
+    public void reset() {
+        histograms.values().forEach(Histogram::reset);
+        log.info("Latency histograms reset");
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros) / 1_000.0;
+    }
+
+    private static long headerMicros(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        if (header == null || header.value() == null) {
+            return EventTimeline.UNKNOWN;
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed {} header", name);
+            return EventTimeline.UNKNOWN;
+        }
+    }
+
+    /**
+     * Event time of an edit: meta.dt (millisecond precision) if present, else timestamp (seconds)
+     */
+    static long eventTimeMicros(WikimediaEditEvent event) {
+        String eventTime = event.getEventTime() != null ? event.getEventTime()
+                : event.getMeta() != null ? event.getMeta().getDt() : null;
+        if (eventTime != null) {
+            try {
+                Instant dt = Instant.parse(eventTime);
+                return TimeUnit.SECONDS.toMicros(dt.getEpochSecond()) + dt.getNano() / 1_000;
+            } catch (DateTimeParseException e) {
+                log.debug("Unparseable meta.dt: {}", eventTime);
+            }
+        }
+        if (event.getTimestamp() != null) {
+            return TimeUnit.SECONDS.toMicros(event.getTimestamp());
+        }
+        return EventTimeline.UNKNOWN;
+    }
+}
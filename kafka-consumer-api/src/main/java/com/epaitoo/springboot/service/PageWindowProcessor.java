@@ -0,0 +1,108 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.LogSampler;
+import com.epaitoo.springboot.entity.EditWarAlert;
+import com.epaitoo.springboot.entity.PageEditWindow;
+import com.epaitoo.springboot.entity.WarThresholds;
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.processor.api.RecordMetadata;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the PageEditWindow logic for one partition of page-keyed edits
+ *
+ * The window of every page lives in a persistent (RocksDB) store backed by a changelog
+ * topic instead of EditWarDetectionService's in-memory map, so it moves with its
+ * partition when instances join or leave and is restored locally after a restart.
+ * Each page is checked against its wiki's thresholds (detection.thresholds).
+ *
+ * Every edit is forwarded with the alert it raised, if any, so the topology can stream
+ * either the alert or the edit, as the listener engine does.
+ */
+@Slf4j
+class PageWindowProcessor implements Processor<String, WikimediaEditEvent, String, PageWindowProcessor.Outcome> {
+
+    static final Duration CLEANUP_INTERVAL = Duration.ofMinutes(10);
+    // A page at war re-alerts on every further edit, so alerts are sampled (as in the listener engine)
+    private static final LogSampler ALERT_LOG = LogSampler.of(log, "alert.detected", 10, Duration.ofMinutes(1));
+
+    private final DetectionThresholds thresholds;
+    private ProcessorContext<String, Outcome> context;
+    private KeyValueStore<String, PageWindowState> windows;
+
+    PageWindowProcessor(DetectionThresholds thresholds) {
+        this.thresholds = thresholds;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, Outcome> context) {
+        this.context = context;
+        this.windows = context.getStateStore(EditWarTopology.WINDOW_STORE);
+        context.schedule(CLEANUP_INTERVAL, PunctuationType.STREAM_TIME, this::evictIdleWindows);
+    }
+
+    @Override
+    public void process(Record<String, WikimediaEditEvent> record) {
+        WikimediaEditEvent edit = record.value();
+        PageWindowState state = windows.get(record.key());
+        PageEditWindow window = state == null ? new PageEditWindow(edit.getPageTitle()) : state.toWindow();
+        WarThresholds limits = thresholds.forWiki(EditWarDetectionService.wikiOf(record.key()));
+
+        PipelineEvents.WindowUpdate update = new PipelineEvents.WindowUpdate();
+        update.begin();
+        window.addEdit(edit, limits);
+        windows.put(record.key(), PageWindowState.of(window));
+        update.end(record.key(), window.getEditCount(),
+                context.recordMetadata().map(RecordMetadata::partition).orElse(EditWarDetectionService.NO_PARTITION));
+
+        PipelineEvents.WarEvaluation evaluation = new PipelineEvents.WarEvaluation();
+        evaluation.begin();
+        boolean editWar = window.isEditWar(limits);
+        evaluation.end(record.key(), window.getEditCount(), editWar);
+
+        EditWarAlert alert = null;
+        if (editWar) {
+            ALERT_LOG.warn("EDIT WAR DETECTED on page: {}", record.key());
+            alert = EditWarDetectionService.createAlert(window, edit.getWiki());
+        }
+        context.forward(record.withValue(new Outcome(edit, alert)));
+    }
+
+    /**
+     * An edit and the alert it raised, or null
+     */
+    record Outcome(WikimediaEditEvent edit, EditWarAlert alert) {
+    }
+
+    /**
+     * Drop windows whose last edit is older than their wiki's idle limit: the rule of
+     * EditWarDetectionService.cleanupOldWindows(), which WindowCleanupConfig runs for the
+     * listener engine, here on stream time rather than the wall clock (edit timestamps are in seconds)
+     */
+    private void evictIdleWindows(long streamTimeMillis) {
+        long now = streamTimeMillis / 1000;
+        List<String> idle = new ArrayList<>();
+        try (KeyValueIterator<String, PageWindowState> iterator = windows.all()) {
+            while (iterator.hasNext()) {
+                KeyValue<String, PageWindowState> entry = iterator.next();
+                WarThresholds limits = thresholds.forWiki(EditWarDetectionService.wikiOf(entry.key));
+                if (entry.value.lastEditTimestamp() < now - EditWarDetectionService.idleSeconds(limits)) {
+                    idle.add(entry.key);
+                }
+            }
+        }
+        idle.forEach(windows::delete);
+        log.debug("Cleanup: removed {} idle page windows", idle.size());
+    }
+}
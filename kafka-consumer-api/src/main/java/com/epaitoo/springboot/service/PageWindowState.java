@@ -0,0 +1,44 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.PageEditWindow;
+import com.epaitoo.springboot.entity.RevisionHistory;
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Stored form of a PageEditWindow (the window itself also exposes derived getters)
+ *
+ * Used for the Kafka Streams window store and the listener engine's window changelog.
+ * States written before the revision history existed have none and start an empty one.
+ */
+record PageWindowState(String pageTitle, List<WikimediaEditEvent> edits, RevisionHistory history) {
+
+    static PageWindowState of(PageEditWindow window) {
+        return new PageWindowState(window.getPageTitle(), List.copyOf(window.getEdits()), window.getHistory());
+    }
+
+    /**
+     * A state later edits to the window don't change (of() shares its revision history),
+     * to serialize once the window's lock is released
+     */
+    static PageWindowState snapshot(PageEditWindow window) {
+        RevisionHistory history = window.getHistory();
+        return new PageWindowState(window.getPageTitle(), List.copyOf(window.getEdits()),
+                new RevisionHistory(history.getRevisions(), history.getLengths()));
+    }
+
+    PageEditWindow toWindow() {
+        PageEditWindow window = new PageEditWindow(pageTitle);
+        window.setEdits(new ArrayDeque<>(edits));
+        if (history != null) {
+            window.setHistory(history);
+        }
+        return window;
+    }
+
+    long lastEditTimestamp() {
+        return edits.isEmpty() ? 0L : edits.get(edits.size() - 1).getTimestamp();
+    }
+}
@@ -0,0 +1,149 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.EditWarAlert;
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events for each stage of the detection pipeline
+ *
+ * A stage creates its event, calls begin() and finishes with the event's end helper.
+ * The helpers only fill in fields and commit when a running recording wants the event
+ * (shouldCommit), so with JFR off an event is a couple of branches and, once inlined,
+ * no allocation. Events have no stack traces; they show up in JDK Mission Control under
+ * "Edit War" with their page key, so spikes can be traced back to individual pages.
+ */
+final class PipelineEvents {
+
+    private PipelineEvents() {
+    }
+
+    /**
+     * Fields shared by all pipeline events
+     */
+    @Category("Edit War")
+    @StackTrace(false)
+    abstract static class PageEvent extends Event {
+        @Label("Page Key")
+        @Description("wiki:title of the page")
+        String pageKey;
+
+        @Label("Window Size")
+        @Description("Edits in the page's window")
+        int windowSize;
+    }
+
+    @Name("com.epaitoo.editwar.EditParse")
+    @Label("Edit Parse")
+    @Description("JSON edit from Kafka parsed into a WikimediaEditEvent")
+    static final class EditParse extends PageEvent {
+        @Label("Payload Length")
+        @Description("Bytes of raw JSON (UTF-8)")
+        int payloadLength;
+
+        @Label("Accepted")
+        @Description("False for invalid, non-edit or incomplete events")
+        boolean accepted;
+
+        void end(int payloadLength, WikimediaEditEvent event) {
+            end();
+            if (shouldCommit()) {
+                this.payloadLength = payloadLength;
+                this.accepted = event != null;
+                if (event != null) {
+                    this.pageKey = EditWarDetectionService.createPageKey(event.getPageTitle(), event.getWiki());
+                }
+                commit();
+            }
+        }
+    }
+
+    @Name("com.epaitoo.editwar.WindowUpdate")
+    @Label("Window Update")
+    @Description("Edit added to its page's window")
+    static final class WindowUpdate extends PageEvent {
+        @Label("Partition")
+        @Description("Source partition, -1 for edits not consumed from Kafka")
+        int partition;
+
+        void end(String pageKey, int windowSize, int partition) {
+            end();
+            if (shouldCommit()) {
+                this.pageKey = pageKey;
+                this.windowSize = windowSize;
+                this.partition = partition;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.epaitoo.editwar.WarEvaluation")
+    @Label("War Evaluation")
+    @Description("Page window checked for an edit war")
+    static final class WarEvaluation extends PageEvent {
+        @Label("Edit War")
+        boolean editWar;
+
+        void end(String pageKey, int windowSize, boolean editWar) {
+            end();
+            if (shouldCommit()) {
+                this.pageKey = pageKey;
+                this.windowSize = windowSize;
+                this.editWar = editWar;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.epaitoo.editwar.AlertPersist")
+    @Label("Alert Persist")
+    @Description("Edit war alert saved to the database")
+    static final class AlertPersist extends PageEvent {
+        @Label("Alert ID")
+        long alertId;
+
+        @Label("Severity")
+        String severity;
+
+        void end(EditWarAlert alert) {
+            end();
+            if (shouldCommit()) {
+                this.pageKey = EditWarDetectionService.createPageKey(alert.getPageTitle(), alert.getWiki());
+                this.windowSize = alert.getTotalEdits();
+                this.alertId = alert.getId() == null ? -1 : alert.getId();
+                this.severity = alert.getSeverityLevel();
+                commit();
+            }
+        }
+    }
+
+    @Name("com.epaitoo.editwar.SseBroadcast")
+    @Label("SSE Broadcast")
+    @Description("Edit or alert serialized and emitted to the SSE filter groups")
+    static final class SseBroadcast extends PageEvent {
+        @Label("Alert")
+        boolean alert;
+
+        @Label("Queue Wait")
+        @Description("Time the event waited for the dispatcher")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueWait;
+
+        void end(String wiki, String pageTitle, int windowSize, boolean alert, long queueWaitNanos) {
+            end();
+            if (shouldCommit()) {
+                this.pageKey = EditWarDetectionService.createPageKey(pageTitle, wiki);
+                this.windowSize = windowSize;
+                this.alert = alert;
+                this.queueWait = queueWaitNanos;
+                commit();
+            }
+        }
+    }
+}
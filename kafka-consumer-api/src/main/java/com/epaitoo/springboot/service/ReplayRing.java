@@ -0,0 +1,81 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity.SeverityLevel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free ring of the most recent SSE frames, used to resume reconnecting clients
+ *
+ * Writers claim an id from a counter and store the frame in slot (id & mask), overwriting
+ * the frame {@code capacity} ids older. Readers never block writers: a slot holding a newer
+ * id than expected was overwritten (gap), an older one is still being written (pending).
+ */
+final class ReplayRing {
+
+    private final AtomicReferenceArray<StreamFrame> slots;
+    private final int mask;
+
+    // Ids start at the startup time in microseconds, so ids from a previous run
+    // (echoed back by browsers after a restart) are older than anything in the ring
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    ReplayRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Assign the next id to a frame and store it
+     */
+    StreamFrame append(String data, String wiki, String pageTitle, SeverityLevel severity) {
+        long id = sequence.incrementAndGet();
+        StreamFrame frame = new StreamFrame(id, data, wiki, pageTitle, severity, false);
+        slots.set((int) (id & mask), frame);
+        return frame;
+    }
+
+    /**
+     * Get the id of the newest frame handed out
+     */
+    long head() {
+        return sequence.get();
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Collect retained frames with ids in (afterId, upToId] matching the filter
+     *
+     * @param pending Receives ids claimed but not yet stored (their writers will still emit them live)
+     * @return Frames in id order; {@link Replay#gap()} is true if frames after afterId were lost
+     */
+    Replay since(long afterId, long upToId, StreamFilter filter, Set<Long> pending) {
+        List<StreamFrame> frames = new ArrayList<>();
+        long oldest = Math.max(afterId + 1, upToId - mask);
+        boolean gap = afterId > upToId || oldest > afterId + 1;
+
+        for (long id = oldest; id <= upToId; id++) {
+            StreamFrame frame = slots.get((int) (id & mask));
+            if (frame == null || frame.id() < id) {
+                pending.add(id);
+            } else if (frame.id() > id) {
+                // Overwritten by a writer lapping us while we were reading
+                gap = true;
+            } else if (frame.matches(filter)) {
+                frames.add(frame);
+            }
+        }
+        return new Replay(frames, gap);
+    }
+
+    record Replay(List<StreamFrame> frames, boolean gap) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Decides which edits either detection engine works on, from the routing headers the producer
+ * stamps on each record (wiki and namespace)
+ *
+ * A record whose headers say it is out of scope is skipped before its body is parsed.
+ * Records without the headers (older producers) are parsed and checked against the same
+ * rules afterwards, so the result is the same either way. An empty wiki or namespace set
+ * accepts everything.
+ *
+ * The producer only forwards human edits, so it stamps no type or bot header: the bot rule
+ * (detection.include-bots=false) is applied to the parsed event, for records from elsewhere.
+ */
+@Service
+public class RoutingFilter {
+
+    // Header names shared with the producer's ApiRealTImeChangesHandler: keep them in sync
+    public static final String WIKI_HEADER = "wiki-domain";
+    public static final String NAMESPACE_HEADER = "wiki-ns";
+
+    private final Set<String> wikis;
+    private final Set<Integer> namespaces;
+    private final boolean includeBots;
+
+    private final Counter unrouted;
+    private final Counter skippedWiki;
+    private final Counter skippedNamespace;
+    private final Counter skippedBot;
+
+    public RoutingFilter(
+            MeterRegistry meterRegistry,
+            @Value("${detection.wikis:}") Set<String> wikis,
+            @Value("${detection.namespaces:}") Set<Integer> namespaces,
+            @Value("${detection.include-bots:true}") boolean includeBots
+    ) {
+        this.wikis = Set.copyOf(wikis);
+        this.namespaces = Set.copyOf(namespaces);
+        this.includeBots = includeBots;
+        this.unrouted = Counter.builder("wikimedia.records.unrouted")
+                .description("Records without routing headers, filtered after parsing")
+                .register(meterRegistry);
+        this.skippedWiki = skipped(meterRegistry, "wiki");
+        this.skippedNamespace = skipped(meterRegistry, "namespace");
+        this.skippedBot = skipped(meterRegistry, "bot");
+    }
+
+    private static Counter skipped(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("wikimedia.records.skipped")
+                .description("Records out of the detection scope, skipped on their routing headers or once parsed")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check a record's routing headers, before its body is parsed
+     *
+     * @param headers Consumed record's headers
+     * @return false if the headers put the record out of scope; true if it is in scope or
+     *         carries no routing headers, in which case {@link #accept(WikimediaEditEvent)} decides
+     */
+    public boolean accept(Headers headers) {
+        Header wiki = headers.lastHeader(WIKI_HEADER);
+        if (wiki == null) {
+            unrouted.increment();
+            return true;
+        }
+        if (!wikis.isEmpty() && !inScope(wikis, text(wiki))) {
+            skippedWiki.increment();
+            return false;
+        }
+        if (!namespaces.isEmpty() && !inScope(namespaces, integer(headers.lastHeader(NAMESPACE_HEADER)))) {
+            skippedNamespace.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Apply the same rules to a parsed edit (records that had no routing headers), and the bot rule
+     *
+     * @param event Parsed edit
+     * @return true if the edit is in scope
+     */
+    public boolean accept(WikimediaEditEvent event) {
+        if (!wikis.isEmpty() && !inScope(wikis, event.getWiki())) {
+            skippedWiki.increment();
+            return false;
+        }
+        if (!namespaces.isEmpty() && !inScope(namespaces, event.getNamespace())) {
+            skippedNamespace.increment();
+            return false;
+        }
+        if (!includeBots && Boolean.TRUE.equals(event.getIsBot())) {
+            skippedBot.increment();
+            return false;
+        }
+        return true;
+    }
+
+    // Set.copyOf sets throw on contains(null); a missing value is simply out of scope
+    private static <T> boolean inScope(Set<T> allowed, T value) {
+        return value != null && allowed.contains(value);
+    }
+
+    private static String text(Header header) {
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * ASCII decimal header value, without going through a String; null if absent or not a number
+     */
+    private static Integer integer(Header header) {
+        byte[] value = header == null ? null : header.value();
+        if (value == null || value.length == 0 || value.length > 10) {
+            return null;
+        }
+        boolean negative = value[0] == '-';
+        int start = negative ? 1 : 0;
+        if (start == value.length) {
+            return null;
+        }
+        long result = 0;
+        for (int i = start; i < value.length; i++) {
+            int digit = value[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            result = result * 10 + digit;
+        }
+        return (int) (negative ? -result : result);
+    }
+}
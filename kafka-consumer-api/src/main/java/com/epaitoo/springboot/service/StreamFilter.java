@@ -0,0 +1,72 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity.SeverityLevel;
+
+/**
+ * What an SSE client wants to receive from /stream
+ *
+ * Every field is optional (null / false = no restriction):
+ * - wiki: only frames from this wiki (e.g. en.wikipedia.org)
+ * - minSeverity: drop alerts below this level (plain edits have no severity and are not affected)
+ * - alertsOnly: drop plain edits, keep edit war alerts
+ * - titlePrefix: only pages whose title starts with this prefix
+ *
+ * plus how matching edits are delivered (alerts are always sent immediately):
+ * - RAW: one frame per edit
+ * - BATCH: edits collected into one frame per batch interval
+ * - CONFLATE: per-page edit counts, one frame per batch interval
+ *
+ * Used as a map key: subscribers with equal filters share one delivery group.
+ */
+public record StreamFilter(
+        String wiki,
+        SeverityLevel minSeverity,
+        boolean alertsOnly,
+        String titlePrefix,
+        Delivery delivery
+) {
+
+    public enum Delivery {
+        RAW,
+        BATCH,
+        CONFLATE
+    }
+
+    /** The unfiltered firehose */
+    public static final StreamFilter ALL = new StreamFilter(null, null, false, null);
+
+    public StreamFilter {
+        // Blank query parameters mean "no restriction", and must map to the same group as omitted ones
+        wiki = blankToNull(wiki);
+        titlePrefix = blankToNull(titlePrefix);
+        if (delivery == null) delivery = Delivery.RAW;
+    }
+
+    public StreamFilter(String wiki, SeverityLevel minSeverity, boolean alertsOnly, String titlePrefix) {
+        this(wiki, minSeverity, alertsOnly, titlePrefix, Delivery.RAW);
+    }
+
+    /**
+     * Check whether a frame passes this filter
+     *
+     * @param frameWiki Wiki the frame belongs to
+     * @param pageTitle Page title the frame belongs to
+     * @param severity Alert severity, or null for a plain edit
+     * @return true if the frame should be delivered
+     */
+    public boolean matches(String frameWiki, String pageTitle, SeverityLevel severity) {
+        if (wiki != null && !wiki.equals(frameWiki)) {
+            return false;
+        }
+        if (severity == null) {
+            if (alertsOnly) return false;
+        } else if (minSeverity != null && severity.compareTo(minSeverity) < 0) {
+            return false;
+        }
+        return titlePrefix == null || (pageTitle != null && pageTitle.startsWith(titlePrefix));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,32 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity.SeverityLevel;
+import org.springframework.http.codec.ServerSentEvent;
+
+/**
+ * One published SSE frame plus the metadata filters match on
+ *
+ * @param id Monotonic event id (sent as the SSE id, echoed back by browsers as Last-Event-ID);
+ *           for a batch, the id of its last edit
+ * @param data JSON payload
+ * @param severity Alert severity, or null for a plain edit or batch
+ * @param batch True for a frame combining several edits (never stored in the replay ring)
+ */
+record StreamFrame(long id, String data, String wiki, String pageTitle, SeverityLevel severity, boolean batch) {
+
+    static StreamFrame batch(long lastEditId, String data) {
+        return new StreamFrame(lastEditId, data, null, null, null, true);
+    }
+
+    boolean isAlert() {
+        return severity != null;
+    }
+
+    boolean matches(StreamFilter filter) {
+        return filter.matches(wiki, pageTitle, severity);
+    }
+
+    ServerSentEvent<String> toEvent() {
+        return ServerSentEvent.builder(data).id(Long.toString(id)).build();
+    }
+}
@@ -1,30 +1,153 @@
 package com.epaitoo.springboot.service;
 
+import com.epaitoo.springboot.LogSampler;
 import com.epaitoo.springboot.entity.WikimediaEditEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
+
+/**
+ * Reads raw Wikimedia recentchange JSON into a flat WikimediaEditEvent
+ *
+ * EventPreScreen first rejects non-edit and malformed payloads on the raw bytes, without
+ * parsing or exceptions. The rest is streamed over, keeping only the fields detection
+ * needs (type, title, user, timestamp, bot, namespace, length.old/new, revision.old/new,
+ * meta.domain/dt); everything else is skipped without being materialized. No tree, no
+ * databind, no nested LengthInfo/RevisionInfo/MetaInfo objects.
+ *
+ * Records that the producer binary-encoded (a wiki-format header) go to EditEventCodec instead.
+ */
 @Slf4j
 @Service
 public class WikimediaEventParser {
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int RAW_PREVIEW_LENGTH = 200;
+    // Bad records come in bursts when the stream hiccups: a few lines per minute are enough
+    private static final LogSampler FAILURE_LOG = LogSampler.of(log, "parse.failed", 5, Duration.ofMinutes(1));
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Timer parseTimer;
+    private final Counter parseFailures;
+    private final Counter rejectedNotEdit;
+    private final Counter rejectedIncomplete;
+    private final Counter rejectedUnknownFormat;
+
+    public WikimediaEventParser(MeterRegistry meterRegistry) {
+        this.parseTimer = Timer.builder("wikimedia.parse")
+                .description("Time to parse one raw Wikimedia event")
+                .register(meterRegistry);
+        this.parseFailures = Counter.builder("wikimedia.parse.failures")
+                .description("Raw events that could not be parsed")
+                .register(meterRegistry);
+        this.rejectedNotEdit = rejectedCounter(meterRegistry, "not_edit");
+        this.rejectedIncomplete = rejectedCounter(meterRegistry, "incomplete");
+        this.rejectedUnknownFormat = rejectedCounter(meterRegistry, "unknown_format");
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("wikimedia.parse.rejected")
+                .description("Events skipped without a full parse (not an edit, missing title/user, or an encoding this version can't read)")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
 
     /**
-     * Parse JSON string into WikimediaEditEvent using Jackson auto-deserialization
+     * Parse a Kafka record value in whichever encoding its headers name
+     *
+     * @param headers Record headers; without a wiki-format header the value is JSON
+     * @param value Record value
+     * @return The edit, or null if it is skipped
      */
-    public WikimediaEditEvent parse(String jsonString) {
+    public WikimediaEditEvent parse(Headers headers, byte[] value) {
+        Header format = headers.lastHeader(EditEventCodec.FORMAT_HEADER);
+        if (format == null) {
+            return parse(value);
+        }
+
+        PipelineEvents.EditParse jfr = new PipelineEvents.EditParse();
+        jfr.begin();
+        long start = System.nanoTime();
+        WikimediaEditEvent event = null;
+        try {
+            event = decode(format, value);
+            return event;
+        } finally {
+            parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            jfr.end(value == null ? 0 : value.length, event);
+        }
+    }
+
+    private WikimediaEditEvent decode(Header format, byte[] value) {
+        if (!EditEventCodec.isSupported(format)) {
+            // A newer producer: skipped, not misread
+            rejectedUnknownFormat.increment();
+            FAILURE_LOG.warn("Skipping record in unsupported encoding {}",
+                    new String(format.value(), StandardCharsets.US_ASCII));
+            return null;
+        }
+        try {
+            return EditEventCodec.decode(value, EditEventCodec.version(format));
+        } catch (RuntimeException e) {
+            parseFailures.increment();
+            FAILURE_LOG.warn("Failed to decode binary Wikimedia event: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Parse a Kafka record value (UTF-8 JSON bytes) without decoding it into a String first
+     */
+    public WikimediaEditEvent parse(byte[] json) {
+        PipelineEvents.EditParse jfr = new PipelineEvents.EditParse();
+        jfr.begin();
+        long start = System.nanoTime();
+        WikimediaEditEvent event = null;
         try {
-            WikimediaEditEvent event = objectMapper.readValue(jsonString, WikimediaEditEvent.class);
+            event = doParse(json);
+            return event;
+        } finally {
+            parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            jfr.end(json == null ? 0 : json.length, event);
+        }
+    }
+
+    /**
+     * Parse a JSON string (same checks as the byte path, on its UTF-8 encoding)
+     */
+    public WikimediaEditEvent parse(String jsonString) {
+        return parse(jsonString == null ? null : jsonString.getBytes(StandardCharsets.UTF_8));
+    }
 
-            // Process nested fields (flatten structure)
-            event.processNestedFields();
+    private WikimediaEditEvent doParse(byte[] json) {
+        // Most irrelevant or broken records never reach Jackson (or an exception)
+        EventPreScreen.Verdict verdict = EventPreScreen.screen(json);
+        if (verdict != EventPreScreen.Verdict.EDIT) {
+            reject(verdict, json);
+            return null;
+        }
+
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            WikimediaEditEvent event = readEvent(parser);
 
             // Validate: only process edit events with required data
-            if (!event.isEditType() || event.getPageTitle() == null || event.getUsername() == null) {
-                log.debug("Skipping non-edit event or invalid data: type={}, title={}",
-                        event.getType(), event.getPageTitle());
+            if (event == null || event.getPageTitle() == null || event.getUsername() == null) {
+                rejectedIncomplete.increment();
+                log.debug("Skipping non-edit event or invalid data: title={}",
+                        event == null ? null : event.getPageTitle());
                 return null;
             }
 
@@ -36,10 +159,148 @@ public class WikimediaEventParser {
             log.debug("Successfully parsed event for page: {}", event.getPageTitle());
             return event;
 
-        } catch (Exception e) {
-            log.error("Failed to parse Wikimedia event: {}", e.getMessage());
-            log.debug("Raw JSON: {}", jsonString.substring(0, Math.min(200, jsonString.length())));
+        } catch (IOException | RuntimeException e) {
+            // Broken after the point where the pre-screen stopped
+            parseFailures.increment();
+            FAILURE_LOG.warn("Failed to parse Wikimedia event: {}",
+                    e instanceof JsonProcessingException jsonError ? jsonError.getOriginalMessage() : e.toString());
+            if (log.isDebugEnabled()) {
+                log.debug("Raw JSON: {}", preview(json));
+            }
             return null;
         }
     }
+
+    private void reject(EventPreScreen.Verdict verdict, byte[] json) {
+        switch (verdict) {
+            case NOT_EDIT -> rejectedNotEdit.increment();
+            default -> {
+                parseFailures.increment();
+                FAILURE_LOG.warn("Malformed Wikimedia event ({} bytes)", json == null ? 0 : json.length);
+                if (log.isDebugEnabled()) {
+                    log.debug("Raw JSON: {}", preview(json));
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the top-level object; null as soon as the event turns out not to be an edit
+     */
+    private static WikimediaEditEvent readEvent(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object");
+        }
+
+        WikimediaEditEvent event = new WikimediaEditEvent();
+        String type = null;
+        String field;
+        // Field names come from Jackson's symbol table, so the switch doesn't allocate
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "type" -> {
+                    type = text(parser, token);
+                    if (!"edit".equals(type)) {
+                        return null;
+                    }
+                }
+                case "title" -> event.setPageTitle(text(parser, token));
+                case "user" -> event.setUsername(text(parser, token));
+                case "timestamp" -> event.setTimestamp(token == JsonToken.VALUE_NULL ? null : parser.getValueAsLong());
+                case "bot" -> event.setIsBot(parser.getValueAsBoolean());
+                case "namespace" -> event.setNamespace(integer(parser, token));
+                case "length" -> readLength(parser, token, event);
+                case "revision" -> readRevision(parser, token, event);
+                case "meta" -> readMeta(parser, token, event);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (type == null) {
+            return null;
+        }
+        event.setType(type);
+        if (event.getIsBot() == null) event.setIsBot(false);
+        if (event.getNamespace() == null) event.setNamespace(-1);
+        if (event.getWiki() == null) event.setWiki("unknown");
+        return event;
+    }
+
+    private static void readLength(JsonParser parser, JsonToken token, WikimediaEditEvent event) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "old" -> event.setLengthOld(integer(parser, value));
+                case "new" -> event.setLengthNew(integer(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readRevision(JsonParser parser, JsonToken token, WikimediaEditEvent event) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "old" -> event.setRevisionOld(longValue(parser, value));
+                case "new" -> event.setRevisionNew(longValue(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readMeta(JsonParser parser, JsonToken token, WikimediaEditEvent event) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "domain" -> event.setWiki(text(parser, value));
+                case "dt" -> event.setEventTime(text(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+
+    private static Integer integer(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+    }
+
+    private static Long longValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+    }
+
+    private static String preview(byte[] json) {
+        return json == null ? null
+                : new String(json, 0, Math.min(RAW_PREVIEW_LENGTH, json.length), StandardCharsets.UTF_8);
+    }
 }
@@ -0,0 +1,251 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.PageEditWindow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Compacted changelog of the listener engine's page windows
+ *
+ * Every window mutation is written keyed by page, to the same partition number as the
+ * edit that caused it, so changelog partition N holds exactly the windows of source
+ * partition N. When a rebalance hands this node new partitions, their windows are
+ * rebuilt from the changelog before consumption resumes (WindowRestoreRebalanceListener).
+ * The changelog topic must therefore have as many partitions as wikimedia-stream-api.
+ *
+ * Writes are asynchronous. Before this node gives partitions up, flush() waits for them,
+ * so the next owner reads every change up to the offsets committed for the handover.
+ * A write that fails is counted (editwar.changelog.failures): the next owner restores
+ * the page's window as it was before that change.
+ */
+@Slf4j
+@Service
+public class WindowChangelog {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(200);
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader stateReader;
+    private final Supplier<Consumer<String, String>> restoreConsumers;
+    private final String topic;
+    private final Duration restoreTimeout;
+    private final Counter failures;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong failedSinceFlush = new AtomicLong();
+
+    /**
+     * Receives each restored window, or null for a page whose window was removed
+     */
+    @FunctionalInterface
+    public interface RestoredWindow {
+        void accept(int partition, String pageKey, PageEditWindow window);
+    }
+
+    /**
+     * Outcome of one restore: how much was read and how long it took
+     */
+    public record RestoreStats(int partitions, long records, long bytes, long millis) {
+    }
+
+    @Autowired
+    public WindowChangelog(
+            KafkaTemplate<String, String> kafkaTemplate,
+            ObjectMapper objectMapper,
+            KafkaProperties kafkaProperties,
+            @Value("${detection.changelog.topic:page-edit-windows-changelog}") String topic,
+            @Value("${detection.changelog.restore-timeout:60s}") Duration restoreTimeout,
+            MeterRegistry meterRegistry
+    ) {
+        this(kafkaTemplate, objectMapper, () -> createRestoreConsumer(kafkaProperties), topic, restoreTimeout,
+                meterRegistry);
+    }
+
+    WindowChangelog(
+            KafkaTemplate<String, String> kafkaTemplate,
+            ObjectMapper objectMapper,
+            Supplier<Consumer<String, String>> restoreConsumers,
+            String topic,
+            Duration restoreTimeout,
+            MeterRegistry meterRegistry
+    ) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.stateReader = objectMapper.readerFor(PageWindowState.class);
+        this.restoreConsumers = restoreConsumers;
+        this.topic = topic;
+        this.restoreTimeout = restoreTimeout;
+        this.failures = Counter.builder("editwar.changelog.failures")
+                .description("Window changes that could not be written to the changelog")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record a page's current window (asynchronous; failures are counted)
+     *
+     * @param partition Source partition of the edit that changed the window
+     * @param pageKey Page key (wiki:title)
+     * @param state Snapshot of the window after the change, taken under the window's lock
+     *              so it can be serialized and sent outside it
+     */
+    public void append(int partition, String pageKey, PageWindowState state) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(state);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize window for {}", pageKey, e);
+            failed();
+            return;
+        }
+        send(partition, pageKey, json);
+    }
+
+    /**
+     * Record that a page's window was dropped (tombstone, removed by compaction)
+     */
+    public void remove(int partition, String pageKey) {
+        send(partition, pageKey, null);
+    }
+
+    private void send(int partition, String pageKey, String json) {
+        pending.incrementAndGet();
+        try {
+            kafkaTemplate.send(topic, partition, pageKey, json).whenComplete((result, ex) -> {
+                pending.decrementAndGet();
+                if (ex != null) {
+                    log.error("Failed to write window changelog for {} to {}-{}", pageKey, topic, partition, ex);
+                    failed();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Failures found before the record is queued (e.g. no metadata within max.block.ms)
+            pending.decrementAndGet();
+            log.error("Failed to write window changelog for {} to {}-{}", pageKey, topic, partition, e);
+            failed();
+        }
+    }
+
+    private void failed() {
+        failures.increment();
+        failedSinceFlush.incrementAndGet();
+    }
+
+    /**
+     * Wait for every write so far to be acknowledged by Kafka or to fail
+     *
+     * @return false if a write failed since the last flush, or is still unacknowledged:
+     *         windows restored from the changelog miss those changes
+     */
+    public boolean flush() {
+        kafkaTemplate.flush();
+        long failed = failedSinceFlush.getAndSet(0);
+        long unacknowledged = pending.get();
+        if (failed > 0 || unacknowledged > 0) {
+            log.error("Window changelog incomplete: {} writes failed, {} unacknowledged", failed, unacknowledged);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Read the given partitions from the beginning up to their current end
+     *
+     * @param partitions Source partition numbers to restore
+     * @param sink Receives every window in changelog order (the last one per page wins)
+     * @return Records, bytes and time spent
+     */
+    public RestoreStats restore(Collection<Integer> partitions, RestoredWindow sink) {
+        long start = System.nanoTime();
+        long records = 0;
+        long bytes = 0;
+
+        try (Consumer<String, String> consumer = restoreConsumers.get()) {
+            List<TopicPartition> assigned = existingPartitions(consumer, partitions);
+            consumer.assign(assigned);
+            consumer.seekToBeginning(assigned);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(assigned);
+
+            Set<TopicPartition> remaining = new HashSet<>(assigned);
+            long deadline = start + restoreTimeout.toNanos();
+            while (true) {
+                remaining.removeIf(tp -> consumer.position(tp) >= endOffsets.get(tp));
+                if (remaining.isEmpty()) {
+                    break;
+                }
+                if (System.nanoTime() > deadline) {
+                    log.warn("Window restore timed out after {}; partitions {} are incomplete", restoreTimeout, remaining);
+                    break;
+                }
+                for (ConsumerRecord<String, String> record : consumer.poll(POLL_TIMEOUT)) {
+                    records++;
+                    bytes += Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+                    sink.accept(record.partition(), record.key(), toWindow(record));
+                }
+            }
+        }
+
+        return new RestoreStats(partitions.size(), records, bytes, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private List<TopicPartition> existingPartitions(Consumer<String, String> consumer, Collection<Integer> partitions) {
+        Set<Integer> existing = new HashSet<>();
+        for (PartitionInfo info : consumer.partitionsFor(topic)) {
+            existing.add(info.partition());
+        }
+        if (!existing.containsAll(partitions)) {
+            log.warn("Changelog {} has {} partitions, fewer than the source topic; some windows start empty",
+                    topic, existing.size());
+        }
+        return partitions.stream()
+                .filter(existing::contains)
+                .map(partition -> new TopicPartition(topic, partition))
+                .toList();
+    }
+
+    private PageEditWindow toWindow(ConsumerRecord<String, String> record) {
+        if (record.value() == null) {
+            return null;
+        }
+        try {
+            return stateReader.<PageWindowState>readValue(record.value()).toWindow();
+        } catch (JsonProcessingException e) {
+            log.error("Skipping unreadable window for {}", record.key(), e);
+            return null;
+        }
+    }
+
+    private static Consumer<String, String> createRestoreConsumer(KafkaProperties kafkaProperties) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        // Assigned manually and read from the start every time: no group, no commits
+        props.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        return new KafkaConsumer<>(props);
+    }
+}
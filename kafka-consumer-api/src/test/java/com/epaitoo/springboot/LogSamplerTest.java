@@ -0,0 +1,75 @@
+package com.epaitoo.springboot;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for rate-limited per-event logging
+ */
+class LogSamplerTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("LogSamplerTest");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final AtomicLong clock = new AtomicLong();
+
+    private LogSampler sampler;
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.INFO);
+        sampler = new LogSampler(logger, "edit.received", 2, Duration.ofSeconds(1), clock::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    // ==================== SAMPLING ====================
+
+    @Test
+    @DisplayName("Should let N lines through per interval and report the suppressed ones on the next line")
+    void testSampling_LimitPerInterval() {
+        // When: 5 lines in the first second, 1 in the next
+        for (int i = 0; i < 5; i++) {
+            sampler.info("Processing edit on page: {}", "Page_" + i);
+        }
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        sampler.info("Processing edit on page: {}", "Page_5");
+
+        // Then
+        assertEquals(3, appender.list.size());
+        assertEquals("Processing edit on page: Page_0", appender.list.get(0).getFormattedMessage());
+        assertEquals("Processing edit on page: Page_5 [+3 suppressed]", appender.list.get(2).getFormattedMessage());
+        assertTrue(appender.list.get(2).getKeyValuePairs().stream()
+                .anyMatch(pair -> pair.key.equals("suppressed") && pair.value.equals(3L)));
+        assertEquals(3, sampler.getSuppressed());
+    }
+
+    @Test
+    @DisplayName("Should neither log nor count lines below the logger's level")
+    void testSampling_DisabledLevel() {
+        // When
+        for (int i = 0; i < 5; i++) {
+            sampler.debug("📊 Page {}", i);
+        }
+
+        // Then
+        assertTrue(appender.list.isEmpty());
+        assertEquals(0, sampler.getSuppressed());
+    }
+}
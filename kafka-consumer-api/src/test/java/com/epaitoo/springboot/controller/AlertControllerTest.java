@@ -19,7 +19,10 @@ import java.time.Instant;
 import java.util.*;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
 /**
@@ -38,7 +41,12 @@ class AlertControllerTest {
     private AlertService alertService;
 
     private EditWarAlert createMockAlert(String pageTitle) {
+        return createMockAlert(null, pageTitle);
+    }
+
+    private EditWarAlert createMockAlert(Long id, String pageTitle) {
         return EditWarAlert.builder()
+                .id(id)
                 .pageTitle(pageTitle)
                 .wiki("en.wikipedia.org")
                 .severityScore(0.75)
@@ -178,7 +186,7 @@ class AlertControllerTest {
                 createMockAlert("Page1"),
                 createMockAlert("Page2")
         );
-        when(alertService.getAlertsByStatus(EditWarStatus.ACTIVE)).thenReturn(alerts);
+        when(alertService.getAlertsByStatus(EditWarStatus.ACTIVE, AlertService.DEFAULT_LIMIT)).thenReturn(alerts);
 
         // When & Then: Call API
         webTestClient.get()
@@ -189,6 +197,63 @@ class AlertControllerTest {
                 .jsonPath("$.length()").isEqualTo(2);
     }
 
+    @Test
+    @DisplayName("GET /api/alerts/status/{status}/stream - Should stream NDJSON across chunks")
+    void testStreamAlertsByStatus() {
+        // Given: A full first chunk (500) followed by a short second chunk
+        List<EditWarAlert> firstChunk = new ArrayList<>();
+        for (long id = 600; id > 100; id--) {
+            firstChunk.add(createMockAlert(id, "Page" + id));
+        }
+        List<EditWarAlert> secondChunk = List.of(createMockAlert(100L, "Page100"));
+
+        when(alertService.getAlertsByStatus(eq(EditWarStatus.ACTIVE), isNull(), anyInt()))
+                .thenReturn(firstChunk);
+        when(alertService.getAlertsByStatus(eq(EditWarStatus.ACTIVE), eq(101L), anyInt()))
+                .thenReturn(secondChunk);
+
+        // When & Then: Every alert arrives, one JSON object per line
+        webTestClient.get()
+                .uri("/api/alerts/status/ACTIVE/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(EditWarAlert.class)
+                .hasSize(501);
+    }
+
+    @Test
+    @DisplayName("GET /api/alerts/status/{status}/stream - Should stop at requested limit")
+    void testStreamAlertsByStatus_Limit() {
+        // Given: More alerts than requested
+        List<EditWarAlert> chunk = new ArrayList<>();
+        for (long id = 10; id > 0; id--) {
+            chunk.add(createMockAlert(id, "Page" + id));
+        }
+        when(alertService.getAlertsByStatus(eq(EditWarStatus.ACTIVE), isNull(), anyInt()))
+                .thenReturn(chunk);
+
+        // When & Then: Only 3 lines are written
+        webTestClient.get()
+                .uri("/api/alerts/status/ACTIVE/stream?limit=3")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(EditWarAlert.class)
+                .hasSize(3);
+    }
+
+    @Test
+    @DisplayName("GET /api/alerts/status/{status}/stream - Should return 400 for invalid status")
+    void testStreamAlertsByStatus_InvalidStatus() {
+        webTestClient.get()
+                .uri("/api/alerts/status/NOT_A_STATUS/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     // ==================== GET BY SEVERITY ====================
 
     @Test
@@ -196,7 +261,7 @@ class AlertControllerTest {
     void testGetAlertsBySeverity() {
         // Given: High severity alerts
         List<EditWarAlert> alerts = Arrays.asList(createMockAlert("Critical_Page"));
-        when(alertService.getAlertsBySeverity("HIGH")).thenReturn(alerts);
+        when(alertService.getAlertsBySeverity("HIGH", AlertService.DEFAULT_LIMIT)).thenReturn(alerts);
 
         // When & Then: Call API
         webTestClient.get()
@@ -214,7 +279,7 @@ class AlertControllerTest {
     void testGetAlertsByWiki() {
         // Given: Alerts for specific wiki
         List<EditWarAlert> alerts = Arrays.asList(createMockAlert("Page1"));
-        when(alertService.getAlertsByWiki("en.wikipedia.org")).thenReturn(alerts);
+        when(alertService.getAlertsByWiki("en.wikipedia.org", AlertService.DEFAULT_LIMIT)).thenReturn(alerts);
 
         // When & Then: Call API
         webTestClient.get()
@@ -235,7 +300,7 @@ class AlertControllerTest {
                 createMockAlert("Recent1"),
                 createMockAlert("Recent2")
         );
-        when(alertService.getRecentActiveAlerts()).thenReturn(alerts);
+        when(alertService.getRecentActiveAlerts(AlertService.DEFAULT_LIMIT)).thenReturn(alerts);
 
         // When & Then: Call API
         webTestClient.get()
@@ -0,0 +1,119 @@
+package com.epaitoo.springboot.controller;
+
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import com.epaitoo.springboot.service.AlertEventPublisher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test for GET /stream over real HTTP connections
+ *
+ * Opt-in (opens thousands of sockets):
+ *   ./mvnw test -pl kafka-consumer-api -Dtest=ApiRealTimeChangesControllerLoadTest -Dsse.loadtest=true
+ */
+@EnabledIfSystemProperty(named = "sse.loadtest", matches = "true")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        classes = ApiRealTimeChangesControllerLoadTest.StreamOnlyConfig.class,
+        properties = "logging.level.com.epaitoo=WARN"
+)
+class ApiRealTimeChangesControllerLoadTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("sse.loadtest.connections", 2_000);
+    private static final int FRAMES = 100;
+
+    /**
+     * Web layer + SSE hub only (no database, no Kafka)
+     */
+    @Configuration
+    @EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, KafkaAutoConfiguration.class})
+    @Import({ApiRealTimeChangesController.class, AlertEventPublisher.class})
+    static class StreamOnlyConfig {
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AlertEventPublisher eventPublisher;
+
+    @Test
+    @DisplayName("GET /stream - Should deliver every frame to thousands of concurrent clients")
+    void testThousandsOfConcurrentStreams() throws Exception {
+        ConnectionProvider provider = ConnectionProvider.builder("sse-load")
+                .maxConnections(CONNECTIONS)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider)))
+                .build();
+
+        // Given: Thousands of open SSE connections
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch allDone = new CountDownLatch(CONNECTIONS);
+        List<Disposable> connections = new ArrayList<>();
+        for (int i = 0; i < CONNECTIONS; i++) {
+            connections.add(client.get().uri("/stream")
+                    .retrieve()
+                    .bodyToFlux(String.class)
+                    .take(FRAMES)
+                    .doOnNext(frame -> received.incrementAndGet())
+                    .doFinally(signal -> allDone.countDown())
+                    .subscribe());
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (eventPublisher.getListenerCount() < CONNECTIONS && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(CONNECTIONS, eventPublisher.getListenerCount(), "All clients should be connected");
+
+        // When: Publish frames from a single thread (as the Kafka listener does)
+        WikimediaEditEvent edit = new WikimediaEditEvent();
+        edit.setWiki("en.wikipedia.org");
+        edit.setPageTitle("Load_Test");
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            eventPublisher.publishEdit(edit, "{\"type\":\"edit\",\"n\":" + i + "}");
+        }
+        long publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then: Every client receives every frame
+        assertTrue(allDone.await(120, TimeUnit.SECONDS), "Clients should finish streaming");
+        long deliverMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.printf("SSE load: %d clients x %d frames, publish %d ms, full delivery %d ms, dropped %d%n",
+                CONNECTIONS, FRAMES, publishMillis, deliverMillis, eventPublisher.getDroppedFrameCount());
+
+        assertEquals((long) CONNECTIONS * FRAMES, received.get());
+        assertEquals(0, eventPublisher.getDroppedFrameCount());
+        assertEquals(0, eventPublisher.getDispatchDroppedCount());
+
+        connections.forEach(Disposable::dispose);
+        provider.disposeLater().block(Duration.ofSeconds(10));
+    }
+}
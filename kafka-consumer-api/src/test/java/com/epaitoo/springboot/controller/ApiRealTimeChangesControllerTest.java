@@ -0,0 +1,116 @@
+package com.epaitoo.springboot.controller;
+
+import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity.SeverityLevel;
+import com.epaitoo.springboot.service.AlertEventPublisher;
+import com.epaitoo.springboot.service.StreamFilter;
+import com.epaitoo.springboot.service.StreamFilter.Delivery;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the SSE endpoint's query parameters
+ */
+@WebFluxTest(ApiRealTimeChangesController.class)
+class ApiRealTimeChangesControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockitoBean
+    private AlertEventPublisher eventPublisher;
+
+    @Test
+    @DisplayName("GET /stream - Should subscribe unfiltered without query parameters")
+    void testStream_NoFilter() {
+        when(eventPublisher.subscribe(any(StreamFilter.class), any())).thenReturn(Flux.just(ServerSentEvent.builder("frame").build()));
+
+        webTestClient.get()
+                .uri("/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(eventPublisher).subscribe(StreamFilter.ALL, null);
+    }
+
+    @Test
+    @DisplayName("GET /stream - Should pass query parameters as a filter")
+    void testStream_WithFilter() {
+        when(eventPublisher.subscribe(any(StreamFilter.class), any())).thenReturn(Flux.just(ServerSentEvent.builder("frame").build()));
+
+        webTestClient.get()
+                .uri("/stream?wiki=en.wikipedia.org&minSeverity=high&alertsOnly=true&titlePrefix=Talk:&mode=conflate")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(eventPublisher).subscribe(
+                new StreamFilter("en.wikipedia.org", SeverityLevel.HIGH, true, "Talk:", Delivery.CONFLATE), null);
+    }
+
+    @Test
+    @DisplayName("GET /stream - Should return 400 for invalid severity")
+    void testStream_InvalidSeverity() {
+        webTestClient.get()
+                .uri("/stream?minSeverity=EXTREME")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(eventPublisher, never()).subscribe(any(StreamFilter.class), any());
+    }
+
+    @Test
+    @DisplayName("GET /stream - Should return 400 for invalid mode")
+    void testStream_InvalidMode() {
+        webTestClient.get()
+                .uri("/stream?mode=sometimes")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(eventPublisher, never()).subscribe(any(StreamFilter.class), any());
+    }
+
+    @Test
+    @DisplayName("GET /stream - Should resume from Last-Event-ID")
+    void testStream_LastEventId() {
+        when(eventPublisher.subscribe(any(StreamFilter.class), any())).thenReturn(Flux.just(ServerSentEvent.builder("frame").build()));
+
+        webTestClient.get()
+                .uri("/stream")
+                .header("Last-Event-ID", "42")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(eventPublisher).subscribe(StreamFilter.ALL, 42L);
+    }
+
+    @Test
+    @DisplayName("GET /stream - Should ignore an invalid Last-Event-ID")
+    void testStream_InvalidLastEventId() {
+        when(eventPublisher.subscribe(any(StreamFilter.class), any())).thenReturn(Flux.just(ServerSentEvent.builder("frame").build()));
+
+        webTestClient.get()
+                .uri("/stream")
+                .header("Last-Event-ID", "not-a-number")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(eventPublisher).subscribe(StreamFilter.ALL, null);
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class PageEditWindowTest {
@@ -185,8 +187,104 @@ public class PageEditWindowTest {
                 "Should detect multiple conflicts in reverting pattern");
     }
 
+    @Test
+    @DisplayName("Should apply a wiki's own thresholds instead of the defaults")
+    void testEditWar_WithCustomThresholds() {
+        // Given: A war by the default thresholds, five reverting edits in 20 minutes
+        window.addEdit(createEdit("Alice", 5000, 5200, baseTimestamp));
+        window.addEdit(createEdit("Bob", 5200, 5000, baseTimestamp + 300));
+        window.addEdit(createEdit("Alice", 5000, 5200, baseTimestamp + 600));
+        window.addEdit(createEdit("Bob", 5200, 5000, baseTimestamp + 900));
+        window.addEdit(createEdit("Alice", 5000, 5200, baseTimestamp + 1200));
+        WarThresholds moreEdits = new WarThresholds(6, 2, 3, 0.5, Duration.ofHours(1), 50);
+        WarThresholds shortWindow = new WarThresholds(5, 2, 3, 0.5, Duration.ofMinutes(10), 50);
+
+        // Then
+        assertTrue(window.isEditWar());
+        assertFalse(window.isEditWar(moreEdits), "Should need a sixth edit");
+
+        // When: The next edit arrives on a wiki with a 10 minute window
+        window.addEdit(createEdit("Bob", 5200, 5000, baseTimestamp + 1500), shortWindow);
+
+        // Then: Only the edits of the last 10 minutes are kept
+        assertEquals(2, window.getEditCount());
+        assertFalse(window.isEditWar(shortWindow));
+    }
+
+    // ==================== REVISION HISTORY ====================
+
+    @Test
+    @DisplayName("Should detect reverts to earlier revisions from revision ids")
+    void testEditWar_WithRevisionReverts() {
+        // Given: Two users sending the page back and forth between revisions 100 and 101
+        window.addEdit(createRevisionEdit("Alice", 100, 5000, 101, 5200, baseTimestamp));
+        window.addEdit(createRevisionEdit("Bob", 101, 5200, 102, 5000, baseTimestamp + 300));
+        window.addEdit(createRevisionEdit("Alice", 102, 5000, 103, 5200, baseTimestamp + 600));
+        window.addEdit(createRevisionEdit("Bob", 103, 5200, 104, 5000, baseTimestamp + 900));
+        window.addEdit(createRevisionEdit("Alice", 104, 5000, 105, 5200, baseTimestamp + 1200));
+
+        // Then: Every edit after the first restores the revision before its parent
+        assertEquals(4, window.getConflictEditCount());
+        assertEquals(103L, window.getEdits().peekLast().getRevertedTo());
+        assertTrue(window.isEditWar());
+    }
+
+    @Test
+    @DisplayName("Should not count edits that keep the length as reverts when revision ids are known")
+    void testNoRevert_SameLengthEdits() {
+        // Given: Copy edits that leave the length at one already seen in the window
+        window.addEdit(createRevisionEdit("Alice", 100, 5000, 101, 5100, baseTimestamp));
+        window.addEdit(createRevisionEdit("Bob", 101, 5100, 102, 5100, baseTimestamp + 300));
+        window.addEdit(createRevisionEdit("Charlie", 102, 5100, 103, 5100, baseTimestamp + 600));
+        window.addEdit(createRevisionEdit("Alice", 103, 5100, 104, 5100, baseTimestamp + 900));
+        window.addEdit(createRevisionEdit("Bob", 104, 5100, 105, 5100, baseTimestamp + 1200));
+
+        // Then: The length heuristic would have flagged four of them
+        assertEquals(0, window.getConflictEditCount());
+        assertFalse(window.isEditWar());
+    }
+
+    @Test
+    @DisplayName("Should recognise a revert to a revision that has left the window")
+    void testRevert_OlderThanWindow() {
+        // Given: A vandal edit, and a revert two hours later, after the window has moved on
+        window.addEdit(createRevisionEdit("Alice", 100, 5000, 101, 5200, baseTimestamp));
+        WikimediaEditEvent revert = createRevisionEdit("Bob", 101, 5200, 102, 5000, baseTimestamp + 7200);
+
+        // When
+        window.addEdit(revert);
+
+        // Then
+        assertEquals(1, window.getEditCount());
+        assertEquals(100L, revert.getRevertedTo());
+        assertEquals(1, window.getConflictEditCount());
+    }
+
+    @Test
+    @DisplayName("Should not take a duplicated edit for a revert to itself")
+    void testNoRevert_DuplicateDelivery() {
+        // Given
+        window.addEdit(createRevisionEdit("Alice", 100, 5000, 101, 5200, baseTimestamp));
+        WikimediaEditEvent again = createRevisionEdit("Alice", 100, 5000, 101, 5200, baseTimestamp + 1);
+
+        // When
+        window.addEdit(again);
+
+        // Then
+        assertNull(again.getRevertedTo());
+        assertEquals(0, window.getConflictEditCount());
+    }
+
     // Helper methods to create test data
 
+    private WikimediaEditEvent createRevisionEdit(String username, long oldRevision, int oldLength,
+                                                  long newRevision, int newLength, long timestamp) {
+        WikimediaEditEvent event = createEdit(username, oldLength, newLength, timestamp);
+        event.setRevisionOld(oldRevision);
+        event.setRevisionNew(newRevision);
+        return event;
+    }
+
     private WikimediaEditEvent createEdit(String username, int oldLength, int newLength, long timestamp) {
         return createEditWithNamespace(username, oldLength, newLength, timestamp, 0);
     }
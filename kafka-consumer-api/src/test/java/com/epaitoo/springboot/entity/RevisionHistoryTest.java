@@ -0,0 +1,99 @@
+package com.epaitoo.springboot.entity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the per-page revision index behind exact revert detection
+ */
+class RevisionHistoryTest {
+
+    private static WikimediaEditEvent edit(long oldRevision, int oldLength, long newRevision, int newLength) {
+        WikimediaEditEvent edit = new WikimediaEditEvent();
+        edit.setRevisionOld(oldRevision);
+        edit.setLengthOld(oldLength);
+        edit.setRevisionNew(newRevision);
+        edit.setLengthNew(newLength);
+        return edit;
+    }
+
+    // ==================== RECORD ====================
+
+    @Test
+    @DisplayName("Should name the newest earlier revision with the restored length, never the parent")
+    void testRecord_NewestMatchingRevision() {
+        // Given: Revisions 1 and 3 both have length 100
+        RevisionHistory history = new RevisionHistory();
+        assertNull(history.record(edit(1, 100, 2, 150)));
+        assertEquals(1L, history.record(edit(2, 150, 3, 100)));
+        assertNull(history.record(edit(3, 100, 4, 180)));
+
+        // When & Then
+        assertEquals(3L, history.record(edit(4, 180, 5, 100)));
+        assertEquals(4L, history.record(edit(5, 100, 6, 180)));
+        assertEquals(6, history.size());
+    }
+
+    @Test
+    @DisplayName("Should ignore edits without revision ids and learn a parent after a gap")
+    void testRecord_MissingIdsAndGaps() {
+        // Given
+        RevisionHistory history = new RevisionHistory();
+        WikimediaEditEvent noIds = new WikimediaEditEvent();
+        noIds.setLengthOld(100);
+        noIds.setLengthNew(200);
+
+        // When
+        assertNull(history.record(noIds));
+        assertNull(history.record(edit(10, 100, 11, 200)));
+        // Revisions 12 to 19 were missed: 19 is only known from this edit
+        assertNull(history.record(edit(19, 300, 20, 350)));
+
+        // Then
+        assertArrayEquals(new long[]{10, 11, 19, 20}, history.getRevisions());
+        assertEquals(19L, history.record(edit(20, 350, 21, 300)));
+        assertEquals(10L, history.record(edit(21, 300, 22, 100)));
+    }
+
+    @Test
+    @DisplayName("Should keep the newest CAPACITY revisions and forget lengths only held by dropped ones")
+    void testRecord_EvictsOldest() {
+        // Given: Revision 1 has a length no later revision has; lengths cycle through 10 values after it
+        RevisionHistory history = new RevisionHistory();
+        history.record(edit(1, 999, 2, 0));
+        for (long revision = 3; revision <= RevisionHistory.CAPACITY + 10; revision++) {
+            history.record(edit(revision - 1, (int) ((revision - 1) % 10), revision, (int) (revision % 10)));
+        }
+
+        // Then: Revision 1 is gone, the cycle's lengths still resolve to their newest revision
+        long newest = RevisionHistory.CAPACITY + 10;
+        assertEquals(RevisionHistory.CAPACITY, history.size());
+        assertEquals(newest - RevisionHistory.CAPACITY + 1, history.getRevisions()[0]);
+        assertNull(history.record(edit(newest, (int) (newest % 10), newest + 1, 999)));
+        assertEquals(newest - 5, history.record(edit(newest + 1, 999, newest + 2, (int) ((newest - 5) % 10))));
+    }
+
+    // ==================== STATE ====================
+
+    @Test
+    @DisplayName("Should survive a JSON round trip, oldest revision first")
+    void testJson_RoundTrip() throws Exception {
+        // Given
+        ObjectMapper objectMapper = new ObjectMapper();
+        RevisionHistory history = new RevisionHistory();
+        history.record(edit(1, 100, 2, 150));
+        history.record(edit(2, 150, 3, 120));
+
+        // When
+        String json = objectMapper.writeValueAsString(history);
+        RevisionHistory restored = objectMapper.readValue(json, RevisionHistory.class);
+
+        // Then
+        assertEquals("{\"revisions\":[1,2,3],\"lengths\":[100,150,120]}", json);
+        assertArrayEquals(history.getRevisions(), restored.getRevisions());
+        assertEquals(1L, restored.record(edit(3, 120, 4, 100)));
+    }
+}
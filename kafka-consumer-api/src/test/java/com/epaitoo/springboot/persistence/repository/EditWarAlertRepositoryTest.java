@@ -7,10 +7,12 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -53,4 +55,47 @@ public class EditWarAlertRepositoryTest {
         assertEquals(new BigDecimal("0.75"), found.getSeverityScore());
         System.out.println("Found: " + found.getPageTitle());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testKeysetChunks() {
+        // Save 5 alerts, newest detected last
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+        for (int i = 0; i < 5; i++) {
+            repository.save(EditWarAlertEntity.builder()
+                    .pageTitle("Keyset_" + i)
+                    .wiki("keyset.wikipedia.org")
+                    .severityLevel(SeverityLevel.MEDIUM)
+                    .severityScore(new BigDecimal("0.50"))
+                    .totalEdits(5)
+                    .conflictEdits(3)
+                    .conflictRatio(new BigDecimal("0.60"))
+                    .userCount(2)
+                    .involvedUsers(Arrays.asList("Alice", "Bob"))
+                    .firstEditTimestamp(1000L)
+                    .lastEditTimestamp(2000L)
+                    .detectedAt(base.plusSeconds(i))
+                    .status(AlertStatus.RESOLVED)
+                    .build());
+        }
+
+        // First chunk by ID: newest two
+        List<EditWarAlertEntity> first = repository.findByWikiBeforeId(
+                "keyset.wikipedia.org", Long.MAX_VALUE, Limit.of(2));
+        assertEquals(List.of("Keyset_4", "Keyset_3"),
+                first.stream().map(EditWarAlertEntity::getPageTitle).toList());
+
+        // Next chunk continues strictly after the cursor
+        List<EditWarAlertEntity> second = repository.findByWikiBeforeId(
+                "keyset.wikipedia.org", first.getLast().getId(), Limit.of(2));
+        assertEquals(List.of("Keyset_2", "Keyset_1"),
+                second.stream().map(EditWarAlertEntity::getPageTitle).toList());
+
+        // Detection-time keyset walks the same order
+        List<EditWarAlertEntity> recent = repository.findRecentByStatus(AlertStatus.RESOLVED, Limit.of(3));
+        EditWarAlertEntity last = recent.getLast();
+        List<EditWarAlertEntity> older = repository.findRecentByStatusBefore(
+                AlertStatus.RESOLVED, last.getDetectedAt(), last.getId(), Limit.of(10));
+        assertEquals(List.of("Keyset_1", "Keyset_0"),
+                older.stream().map(EditWarAlertEntity::getPageTitle).toList());
+    }
+}
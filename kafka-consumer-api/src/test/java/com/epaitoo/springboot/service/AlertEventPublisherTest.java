@@ -0,0 +1,657 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.EditWarAlert;
+import com.epaitoo.springboot.entity.EditWarStatus;
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity.SeverityLevel;
+import com.epaitoo.springboot.service.AlertEventPublisher.OverflowPolicy;
+import com.epaitoo.springboot.service.StreamFilter.Delivery;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the SSE hub
+ *
+ * Testing:
+ * - Frames reach every subscriber
+ * - A stalled subscriber neither blocks the publisher nor other subscribers
+ * - Overflow policies (drop oldest / disconnect)
+ * - Server-side filters (wiki, severity, alerts only, title prefix)
+ * - Last-Event-ID resume from the replay ring
+ * - Batched and conflated edit delivery
+ * - Dispatcher thread decoupling publishers from fan-out
+ * - Exported meters
+ */
+class AlertEventPublisherTest {
+
+    private static final int BUFFER_SIZE = 16;
+    private static final int REPLAY_SIZE = 64;
+
+    private AlertEventPublisher createPublisher(OverflowPolicy policy) {
+        return createPublisher(policy, BUFFER_SIZE);
+    }
+
+    private AlertEventPublisher createPublisher(OverflowPolicy policy, int bufferSize) {
+        return createPublisher(policy, bufferSize, REPLAY_SIZE);
+    }
+
+    private AlertEventPublisher createPublisher(OverflowPolicy policy, int bufferSize, int replaySize) {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        // Deliver inline so only the deliberately stalled subscriber can fall behind
+        // Batches are flushed explicitly by the tests, events are dispatched on the test thread
+        return new AlertEventPublisher(objectMapper, bufferSize, policy, replaySize, Duration.ofHours(1), 0,
+                Schedulers.immediate());
+    }
+
+    private static Flux<String> frames(AlertEventPublisher publisher) {
+        return frames(publisher, StreamFilter.ALL);
+    }
+
+    private static Flux<String> frames(AlertEventPublisher publisher, StreamFilter filter) {
+        return publisher.subscribe(filter, null).map(ServerSentEvent::data);
+    }
+
+    /**
+     * Subscriber that takes one frame and then never requests again (a stuck browser)
+     */
+    private static WikimediaEditEvent edit(String wiki, String pageTitle) {
+        WikimediaEditEvent event = new WikimediaEditEvent();
+        event.setWiki(wiki);
+        event.setPageTitle(pageTitle);
+        return event;
+    }
+
+    private static EditWarAlert alert(String wiki, String pageTitle, double severityScore) {
+        return EditWarAlert.builder()
+                .pageTitle(pageTitle)
+                .wiki(wiki)
+                .involvedUsers(List.of("Alice", "Bob"))
+                .severityScore(severityScore)
+                .detectedAt(Instant.now())
+                .status(EditWarStatus.ACTIVE)
+                .build();
+    }
+
+    private static class StalledSubscriber extends BaseSubscriber<String> {
+        private final AtomicInteger received = new AtomicInteger();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private volatile boolean completed;
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            subscription.request(1);
+        }
+
+        @Override
+        protected void hookOnNext(String value) {
+            received.incrementAndGet();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error.set(throwable);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed = true;
+        }
+    }
+
+    /**
+     * Delivery happens on worker threads; wait for it to settle
+     */
+    private static void awaitCount(LongSupplier actual, long expected) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (actual.getAsLong() != expected && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        assertEquals(expected, actual.getAsLong());
+    }
+
+    private static void awaitCount(AtomicInteger actual, long expected) {
+        awaitCount(actual::get, expected);
+    }
+
+    @Test
+    @DisplayName("Should wrap alerts with EDIT_WAR type")
+    void testPublishAlert_FormatsFrame() {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST);
+
+        StepVerifier.create(frames(publisher).take(1))
+                .then(() -> publisher.publishAlert(alert("en.wikipedia.org", "Test_Page", 0.5)))
+                .assertNext(frame -> {
+                    assertTrue(frame.contains("\"type\":\"EDIT_WAR\""));
+                    assertTrue(frame.contains("\"pageTitle\":\"Test_Page\""));
+                })
+                .verifyComplete();
+
+        awaitCount(() -> publisher.getListenerCount(), 0);
+    }
+
+    @Test
+    @DisplayName("Should fan out to thousands of subscribers while one is stalled")
+    void testFanOut_StalledSubscriberDoesNotBlockOthers() {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST);
+        int subscribers = 5_000;
+        int frames = 200;
+
+        // Given: Thousands of fast subscribers and one stalled one
+        AtomicInteger delivered = new AtomicInteger();
+        List<Disposable> fast = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++) {
+            fast.add(frames(publisher).subscribe(frame -> delivered.incrementAndGet()));
+        }
+        StalledSubscriber stalled = new StalledSubscriber();
+        frames(publisher).subscribe(stalled);
+        assertEquals(subscribers + 1, publisher.getListenerCount());
+
+        // When: Publish more frames than the stalled subscriber can buffer
+        for (int i = 0; i < frames; i++) {
+            publisher.publishEdit(edit("en.wikipedia.org", "Page"), "{\"n\":" + i + "}");
+        }
+
+        // Then: Every fast subscriber got every frame, the stalled one only lost its own frames
+        awaitCount(delivered, (long) subscribers * frames);
+        assertEquals(1, stalled.received.get());
+        assertEquals(frames - AlertEventPublisher.DELIVERY_PREFETCH - BUFFER_SIZE,
+                publisher.getDroppedFrameCount());
+        assertNull(stalled.error.get());
+        assertFalse(stalled.completed);
+
+        fast.forEach(Disposable::dispose);
+        stalled.dispose();
+        awaitCount(() -> publisher.getListenerCount(), 0);
+    }
+
+    @Test
+    @DisplayName("Should disconnect a stalled subscriber under DISCONNECT policy")
+    void testDisconnectPolicy_TerminatesSlowSubscriber() {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DISCONNECT);
+
+        AtomicInteger delivered = new AtomicInteger();
+        Disposable fast = frames(publisher).subscribe(frame -> delivered.incrementAndGet());
+        StalledSubscriber stalled = new StalledSubscriber();
+        frames(publisher).subscribe(stalled);
+
+        // When: Overflow the stalled subscriber's buffer
+        int frames = AlertEventPublisher.DELIVERY_PREFETCH + BUFFER_SIZE + 10;
+        for (int i = 0; i < frames; i++) {
+            publisher.publishEdit(edit("en.wikipedia.org", "Page"), "{\"n\":" + i + "}");
+        }
+
+        // Then: Stalled subscriber is closed, fast subscriber keeps receiving
+        assertEquals(1, publisher.getDisconnectedSubscriberCount());
+        awaitCount(() -> publisher.getListenerCount(), 1);
+        assertTrue(stalled.completed);
+
+        publisher.publishEdit(edit("en.wikipedia.org", "Page"), "{\"after\":true}");
+        awaitCount(delivered, frames + 1);
+        fast.dispose();
+    }
+
+    @Test
+    @DisplayName("Should skip publishing when nobody is connected")
+    void testPublish_NoSubscribers() {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST);
+
+        assertDoesNotThrow(() -> publisher.publishEdit(edit("en.wikipedia.org", "Page"), "{}"));
+
+        // Late subscriber does not see earlier frames
+        StepVerifier.create(frames(publisher))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+    }
+
+    // ==================== FILTERED SUBSCRIPTIONS ====================
+
+    @Test
+    @DisplayName("Should only deliver frames matching each subscriber's filter")
+    void testFilteredSubscriptions_RouteFrames() {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST);
+
+        // Given: Subscribers with different filters
+        List<String> all = new ArrayList<>();
+        List<String> german = new ArrayList<>();
+        List<String> alertsOnly = new ArrayList<>();
+        List<String> highAlerts = new ArrayList<>();
+        List<String> talkPages = new ArrayList<>();
+        List<Disposable> subscriptions = List.of(
+                frames(publisher).subscribe(all::add),
+                frames(publisher, new StreamFilter("de.wikipedia.org", null, false, null)).subscribe(german::add),
+                frames(publisher, new StreamFilter(null, null, true, null)).subscribe(alertsOnly::add),
+                frames(publisher, new StreamFilter(null, SeverityLevel.HIGH, true, null)).subscribe(highAlerts::add),
+                frames(publisher, new StreamFilter(null, null, false, "Talk:")).subscribe(talkPages::add)
+        );
+
+        // When: Publish a mix of edits and alerts
+        publisher.publishEdit(edit("en.wikipedia.org", "Berlin"), "edit-en");
+        publisher.publishEdit(edit("de.wikipedia.org", "Talk:Berlin"), "edit-de-talk");
+        publisher.publishAlert(alert("en.wikipedia.org", "Talk:Paris", 0.3));   // LOW
+        publisher.publishAlert(alert("de.wikipedia.org", "Munich", 0.85));      // CRITICAL
+
+        // Then: Each subscriber sees only what it asked for
+        assertEquals(4, all.size());
+        assertEquals(2, german.size());
+        assertEquals("edit-de-talk", german.get(0));
+        assertTrue(german.get(1).contains("Munich"));
+        assertEquals(2, alertsOnly.size());
+        assertEquals(1, highAlerts.size());
+        assertTrue(highAlerts.get(0).contains("Munich"));
+        assertEquals(2, talkPages.size());
+        assertEquals("edit-de-talk", talkPages.get(0));
+        assertTrue(talkPages.get(1).contains("Talk:Paris"));
+
+        subscriptions.forEach(Disposable::dispose);
+    }
+
+    @Test
+    @DisplayName("Should share one filter group between subscribers with equal filters")
+    void testFilteredSubscriptions_ShareGroups() {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST);
+
+        // Given: Many subscribers with the same filter (blank params equal omitted ones)
+        List<Disposable> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            subscriptions.add(frames(publisher, new StreamFilter("en.wikipedia.org", null, false, "")).subscribe());
+        }
+        subscriptions.add(frames(publisher, new StreamFilter(" ", null, false, null)).subscribe());
+
+        // Then: Two groups (en.wikipedia.org, unfiltered) serve 101 subscribers
+        assertEquals(101, publisher.getListenerCount());
+        assertEquals(2, publisher.getFilterGroupCount());
+
+        // When: Everyone disconnects
+        subscriptions.forEach(Disposable::dispose);
+
+        // Then: Groups are dropped from the index
+        assertEquals(0, publisher.getFilterGroupCount());
+        assertEquals(0, publisher.getListenerCount());
+    }
+
+    @Test
+    @DisplayName("Should skip frames no filter group wants")
+    void testFilteredSubscriptions_NoMatchingGroup() {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST);
+
+        // Given: Only a subscriber for another wiki
+        List<String> received = new ArrayList<>();
+        Disposable subscription = frames(publisher, new StreamFilter("fr.wikipedia.org", null, false, null))
+                .subscribe(received::add);
+
+        // When
+        publisher.publishAlert(alert("en.wikipedia.org", "Page", 0.9));
+        publisher.publishEdit(edit("en.wikipedia.org", "Page"), "edit");
+
+        // Then
+        assertTrue(received.isEmpty());
+        subscription.dispose();
+    }
+
+    // ==================== LAST-EVENT-ID RESUME ====================
+
+    private static long idOf(ServerSentEvent<String> event) {
+        return Long.parseLong(event.id());
+    }
+
+    @Test
+    @DisplayName("Should replay exactly the missed frames, then continue live")
+    void testResume_ReplaysMissedFrames() {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST);
+
+        // Given: A client that saw one frame and disconnected
+        List<ServerSentEvent<String>> first = new ArrayList<>();
+        Disposable connection = publisher.subscribe().subscribe(first::add);
+        publisher.publishEdit(edit("en.wikipedia.org", "Page"), "seen");
+        connection.dispose();
+        long lastEventId = idOf(first.get(0));
+
+        publisher.publishEdit(edit("en.wikipedia.org", "Page"), "missed-1");
+        publisher.publishEdit(edit("de.wikipedia.org", "Seite"), "missed-2");
+
+        // When: It reconnects with Last-Event-ID
+        List<ServerSentEvent<String>> resumed = new ArrayList<>();
+        Disposable reconnection = publisher.subscribe(StreamFilter.ALL, lastEventId).subscribe(resumed::add);
+        publisher.publishEdit(edit("en.wikipedia.org", "Page"), "live");
+
+        // Then: Missed frames in order with consecutive ids, no duplicates, no gap
+        assertEquals(List.of("missed-1", "missed-2", "live"), resumed.stream().map(ServerSentEvent::data).toList());
+        assertEquals(List.of(lastEventId + 1, lastEventId + 2, lastEventId + 3),
+                resumed.stream().map(AlertEventPublisherTest::idOf).toList());
+        assertEquals(0, publisher.getReplayGapCount());
+
+        reconnection.dispose();
+    }
+
+    @Test
+    @DisplayName("Should only replay missed frames matching the filter")
+    void testResume_AppliesFilter() {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST);
+
+        List<ServerSentEvent<String>> first = new ArrayList<>();
+        Disposable connection = publisher.subscribe().subscribe(first::add);
+        publisher.publishEdit(edit("en.wikipedia.org", "Page"), "seen");
+        connection.dispose();
+
+        publisher.publishEdit(edit("en.wikipedia.org", "Page"), "edit");
+        publisher.publishAlert(alert("en.wikipedia.org", "War", 0.9));
+
+        // When: Resume with alerts only
+        List<String> resumed = new ArrayList<>();
+        Disposable reconnection = publisher.subscribe(new StreamFilter(null, null, true, null), idOf(first.get(0)))
+                .map(ServerSentEvent::data)
+                .subscribe(resumed::add);
+
+        // Then
+        assertEquals(1, resumed.size());
+        assertTrue(resumed.get(0).contains("\"pageTitle\":\"War\""));
+        reconnection.dispose();
+    }
+
+    @Test
+    @DisplayName("Should report a gap when missed frames left the ring")
+    void testResume_ReportsGap() {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST, 1_000);
+
+        List<ServerSentEvent<String>> first = new ArrayList<>();
+        Disposable connection = publisher.subscribe().subscribe(first::add);
+        publisher.publishEdit(edit("en.wikipedia.org", "Page"), "seen");
+        connection.dispose();
+        long lastEventId = idOf(first.get(0));
+
+        // When: More frames than the ring holds are published while away
+        for (int i = 0; i < REPLAY_SIZE * 2; i++) {
+            publisher.publishEdit(edit("en.wikipedia.org", "Page"), "missed-" + i);
+        }
+        List<ServerSentEvent<String>> resumed = new ArrayList<>();
+        Disposable reconnection = publisher.subscribe(StreamFilter.ALL, lastEventId).subscribe(resumed::add);
+
+        // Then: A gap event, followed by everything the ring still holds
+        assertEquals("gap", resumed.get(0).event());
+        assertTrue(resumed.get(0).data().contains("\"lastEventId\":" + lastEventId));
+        assertEquals(REPLAY_SIZE + 1, resumed.size());
+        assertEquals("missed-" + REPLAY_SIZE, resumed.get(1).data());
+        assertEquals(1, publisher.getReplayGapCount());
+
+        reconnection.dispose();
+    }
+
+    @Test
+    @DisplayName("Should neither lose nor duplicate frames published while resuming")
+    void testResume_ConcurrentPublishing() throws Exception {
+        int frames = 20_000;
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST, frames, frames);
+
+        // Given: A client tracking the ids it saw, while another thread publishes
+        AtomicLong firstSeen = new AtomicLong();
+        AtomicLong lastSeen = new AtomicLong();
+        Disposable connection = publisher.subscribe().subscribe(event -> {
+            firstSeen.compareAndSet(0, idOf(event));
+            lastSeen.set(idOf(event));
+        });
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < frames; i++) {
+                publisher.publishEdit(edit("en.wikipedia.org", "Page"), "{\"n\":" + i + "}");
+            }
+        });
+        producer.start();
+        awaitCount(() -> lastSeen.get() == 0 ? 0 : 1, 1);
+
+        // When: It reconnects mid-stream
+        connection.dispose();
+        long lastEventId = lastSeen.get();
+        List<Long> resumedIds = Collections.synchronizedList(new ArrayList<>());
+        Disposable reconnection = publisher.subscribe(StreamFilter.ALL, lastEventId)
+                .subscribe(event -> resumedIds.add(idOf(event)));
+        producer.join();
+
+        // Then: Every later frame exactly once, in order
+        long lastPublished = firstSeen.get() + frames - 1;
+        synchronized (resumedIds) {
+            assertEquals(lastPublished - lastEventId, resumedIds.size());
+            for (int i = 0; i < resumedIds.size(); i++) {
+                assertEquals(lastEventId + 1 + i, resumedIds.get(i));
+            }
+        }
+        assertEquals(0, publisher.getReplayGapCount());
+        reconnection.dispose();
+    }
+
+    // ==================== BATCHED / CONFLATED DELIVERY ====================
+
+    @Test
+    @DisplayName("Should collect edits into one batch frame while alerts go out immediately")
+    void testBatchDelivery_BatchesEdits() {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST);
+
+        List<ServerSentEvent<String>> received = new ArrayList<>();
+        Disposable subscription = publisher.subscribe(
+                new StreamFilter(null, null, false, null, Delivery.BATCH), null).subscribe(received::add);
+
+        // When: Edits and an alert arrive within one batch interval
+        publisher.publishEdit(edit("en.wikipedia.org", "A"), "{\"n\":1}");
+        publisher.publishEdit(edit("en.wikipedia.org", "B"), "{\"n\":2}");
+        publisher.publishAlert(alert("en.wikipedia.org", "War", 0.9));
+        publisher.publishEdit(edit("en.wikipedia.org", "C"), "{\"n\":3}");
+
+        // Then: Only the alert is delivered before the flush
+        assertEquals(1, received.size());
+        assertTrue(received.get(0).data().contains("EDIT_WAR"));
+        long alertId = idOf(received.get(0));
+
+        publisher.flushBatches();
+
+        // Then: One batch frame with all edits, identified by its last edit
+        assertEquals(2, received.size());
+        ServerSentEvent<String> batch = received.get(1);
+        assertEquals("{\"type\":\"EDIT_BATCH\",\"count\":3,\"edits\":[{\"n\":1},{\"n\":2},{\"n\":3}]}", batch.data());
+        assertEquals(alertId + 1, idOf(batch));
+
+        // Nothing pending, nothing sent
+        publisher.flushBatches();
+        assertEquals(2, received.size());
+        subscription.dispose();
+    }
+
+    @Test
+    @DisplayName("Should conflate edits into per-page counts")
+    void testConflatedDelivery_CountsPerPage() throws Exception {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST);
+
+        List<String> received = new ArrayList<>();
+        Disposable subscription = publisher.subscribe(
+                        new StreamFilter(null, null, false, null, Delivery.CONFLATE), null)
+                .map(ServerSentEvent::data)
+                .subscribe(received::add);
+
+        publisher.publishEdit(edit("en.wikipedia.org", "A"), "{}");
+        publisher.publishEdit(edit("en.wikipedia.org", "B"), "{}");
+        publisher.publishEdit(edit("en.wikipedia.org", "A"), "{}");
+        publisher.publishEdit(edit("de.wikipedia.org", "A"), "{}");
+        publisher.flushBatches();
+
+        assertEquals(1, received.size());
+        JsonNode frame = new ObjectMapper().readTree(received.get(0));
+        assertEquals("EDIT_COUNTS", frame.get("type").asText());
+        assertEquals(4, frame.get("count").asInt());
+        assertEquals(3, frame.get("pages").size());
+        assertEquals("A", frame.get("pages").get(0).get("title").asText());
+        assertEquals(2, frame.get("pages").get(0).get("edits").asInt());
+        assertEquals("de.wikipedia.org", frame.get("pages").get(2).get("wiki").asText());
+        subscription.dispose();
+    }
+
+    @Test
+    @DisplayName("Should resume a batched stream without losing or repeating edits")
+    void testBatchDelivery_Resume() {
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST);
+        StreamFilter batched = new StreamFilter(null, null, false, null, Delivery.BATCH);
+
+        // Given: A batched client that saw one batch and disconnected
+        List<ServerSentEvent<String>> first = new ArrayList<>();
+        Disposable connection = publisher.subscribe(batched, null).subscribe(first::add);
+        publisher.publishEdit(edit("en.wikipedia.org", "A"), "{\"n\":1}");
+        publisher.flushBatches();
+        connection.dispose();
+
+        publisher.publishEdit(edit("en.wikipedia.org", "A"), "{\"n\":2}");
+        publisher.publishEdit(edit("en.wikipedia.org", "A"), "{\"n\":3}");
+
+        // When: It reconnects, and more edits follow
+        List<String> resumed = new ArrayList<>();
+        Disposable reconnection = publisher.subscribe(batched, idOf(first.get(0)))
+                .map(ServerSentEvent::data)
+                .subscribe(resumed::add);
+        publisher.publishEdit(edit("en.wikipedia.org", "A"), "{\"n\":4}");
+        publisher.flushBatches();
+
+        // Then: Missed edits replayed as one batch, then the live batch
+        assertEquals(List.of(
+                "{\"type\":\"EDIT_BATCH\",\"count\":2,\"edits\":[{\"n\":2},{\"n\":3}]}",
+                "{\"type\":\"EDIT_BATCH\",\"count\":1,\"edits\":[{\"n\":4}]}"
+        ), resumed);
+        reconnection.dispose();
+    }
+
+    // ==================== DISPATCHER THREAD ====================
+
+    @Test
+    @DisplayName("Should never block the publisher when fan-out stalls")
+    void testDispatcher_StalledFanOutDoesNotBlockPublisher() throws Exception {
+        int queueSize = 16;
+        AlertEventPublisher publisher = new AlertEventPublisher(
+                new ObjectMapper().registerModule(new JavaTimeModule()), 1_000, OverflowPolicy.DROP_OLDEST,
+                REPLAY_SIZE, Duration.ofHours(1), queueSize, Schedulers.immediate());
+
+        // Given: A subscriber that blocks the dispatcher thread (delivery is inline)
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger received = new AtomicInteger();
+        Disposable subscription = frames(publisher).subscribe(frame -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.incrementAndGet();
+        });
+        publisher.publishEdit(edit("en.wikipedia.org", "Page"), "{\"n\":0}");
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        // When: Far more events than the queue holds are published
+        long start = System.nanoTime();
+        for (int i = 1; i <= 100; i++) {
+            publisher.publishEdit(edit("en.wikipedia.org", "Page"), "{\"n\":" + i + "}");
+        }
+        long publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then: The publisher returned immediately, overflow was counted
+        assertTrue(publishMillis < 1_000, "Publishing took " + publishMillis + " ms");
+        assertEquals(queueSize, publisher.getDispatchQueueDepth());
+        assertEquals(100 - queueSize, publisher.getDispatchDroppedCount());
+
+        // When: Fan-out recovers
+        release.countDown();
+
+        // Then: Everything that was queued is delivered
+        awaitCount(received, 1 + queueSize);
+        awaitCount(() -> publisher.getDispatchQueueDepth(), 0);
+        assertTrue(publisher.getDispatchLagMillis() >= 0);
+
+        subscription.dispose();
+        publisher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should deliver events from concurrent publishers through the dispatcher")
+    void testDispatcher_ConcurrentPublishers() throws Exception {
+        AlertEventPublisher publisher = new AlertEventPublisher(
+                new ObjectMapper().registerModule(new JavaTimeModule()), 100_000, OverflowPolicy.DROP_OLDEST,
+                REPLAY_SIZE, Duration.ofHours(1), 100_000, Schedulers.immediate());
+
+        List<Long> ids = Collections.synchronizedList(new ArrayList<>());
+        Disposable subscription = publisher.subscribe().subscribe(event -> ids.add(idOf(event)));
+
+        // When: Several threads publish at once (Kafka listener + test endpoints)
+        int threads = 4;
+        int perThread = 5_000;
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            producers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    publisher.publishEdit(edit("en.wikipedia.org", "Page"), "{}");
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // Then: All events arrive, with ids in order (assigned on the single dispatcher thread)
+        awaitCount(() -> ids.size(), threads * perThread);
+        assertEquals(0, publisher.getDispatchDroppedCount());
+        synchronized (ids) {
+            for (int i = 1; i < ids.size(); i++) {
+                assertEquals(ids.get(i - 1) + 1, ids.get(i));
+            }
+        }
+
+        subscription.dispose();
+        publisher.shutdown();
+    }
+
+    // ==================== METRICS ====================
+
+    @Test
+    @DisplayName("Should export listener gauges and broadcast time once bound")
+    void testMetrics_ExportedWhenBound() {
+        // Given
+        AlertEventPublisher publisher = createPublisher(OverflowPolicy.DROP_OLDEST);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        publisher.bindTo(registry);
+
+        // When
+        StepVerifier.create(frames(publisher).take(2))
+                .then(() -> {
+                    assertEquals(1.0, registry.get("sse.listeners").gauge().value());
+                    publisher.publishEdit(edit("en.wikipedia.org", "Page"), "{\"title\":\"Page\"}");
+                    publisher.publishAlert(alert("en.wikipedia.org", "Page", 0.5));
+                })
+                .expectNextCount(2)
+                .verifyComplete();
+
+        // Then
+        awaitCount(() -> (long) registry.get("sse.listeners").gauge().value(), 0);
+        assertEquals(2, registry.get("sse.broadcast").timer().count());
+        assertEquals(0.0, registry.get("sse.frames.dropped").functionCounter().count());
+    }
+}
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -26,6 +27,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 /**
@@ -162,19 +164,37 @@ class AlertServiceTest {
                 createMockEntity(2L, "Page2", "CRITICAL")
         );
 
-        when(alertRepository.findByStatus(EditWarAlertEntity.AlertStatus.ACTIVE))
+        when(alertRepository.findByStatusBeforeId(
+                EditWarAlertEntity.AlertStatus.ACTIVE, Long.MAX_VALUE, Limit.of(AlertService.DEFAULT_LIMIT)))
                 .thenReturn(entities);
         when(alertMapper.toDomain(any(EditWarAlertEntity.class)))
                 .thenAnswer(inv -> createMockDomainAlert(1L, "Page1"))
                 .thenAnswer(inv -> createMockDomainAlert(2L, "Page2"));
 
         // When: Get by status
-        List<EditWarAlert> result = alertService.getAlertsByStatus(EditWarStatus.ACTIVE);
+        List<EditWarAlert> result = alertService.getAlertsByStatus(
+                EditWarStatus.ACTIVE, AlertService.DEFAULT_LIMIT);
 
         // Then: Verify
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(alertRepository).findByStatus(EditWarAlertEntity.AlertStatus.ACTIVE);
+        verify(alertRepository).findByStatusBeforeId(
+                EditWarAlertEntity.AlertStatus.ACTIVE, Long.MAX_VALUE, Limit.of(AlertService.DEFAULT_LIMIT));
+    }
+
+    @Test
+    @DisplayName("Should continue from cursor and cap limit at MAX_LIMIT")
+    void testGetAlertsByStatus_CursorAndMaxLimit() {
+        // Given: Repository returns nothing
+        when(alertRepository.findByStatusBeforeId(any(), anyLong(), any(Limit.class)))
+                .thenReturn(Collections.emptyList());
+
+        // When: Ask for far more than the cap, after alert 42
+        alertService.getAlertsByStatus(EditWarStatus.RESOLVED, 42L, 1_000_000);
+
+        // Then: Query is bounded and starts at the cursor
+        verify(alertRepository).findByStatusBeforeId(
+                EditWarAlertEntity.AlertStatus.RESOLVED, 42L, Limit.of(AlertService.MAX_LIMIT));
     }
 
     // ==================== SEARCH ALERTS ====================
@@ -213,19 +233,21 @@ class AlertServiceTest {
                 createMockEntity(2L, "Page2", "HIGH")
         );
 
-        when(alertRepository.findBySeverityLevel(EditWarAlertEntity.SeverityLevel.HIGH))
+        when(alertRepository.findBySeverityLevelBeforeId(
+                EditWarAlertEntity.SeverityLevel.HIGH, Long.MAX_VALUE, Limit.of(AlertService.DEFAULT_LIMIT)))
                 .thenReturn(entities);
         when(alertMapper.toDomain(any(EditWarAlertEntity.class)))
                 .thenAnswer(inv -> createMockDomainAlert(1L, "Page1"))
                 .thenAnswer(inv -> createMockDomainAlert(2L, "Page2"));
 
         // When: Get by severity
-        List<EditWarAlert> result = alertService.getAlertsBySeverity("HIGH");
+        List<EditWarAlert> result = alertService.getAlertsBySeverity("HIGH", AlertService.DEFAULT_LIMIT);
 
         // Then: Verify
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(alertRepository).findBySeverityLevel(EditWarAlertEntity.SeverityLevel.HIGH);
+        verify(alertRepository).findBySeverityLevelBeforeId(
+                EditWarAlertEntity.SeverityLevel.HIGH, Long.MAX_VALUE, Limit.of(AlertService.DEFAULT_LIMIT));
     }
 
     // ==================== GET STATISTICS ====================
@@ -264,19 +286,21 @@ class AlertServiceTest {
                 createMockEntity(2L, "Recent2", "MEDIUM")
         );
 
-        when(alertRepository.findByStatusOrderByDetectedAtDesc(EditWarAlertEntity.AlertStatus.ACTIVE))
+        when(alertRepository.findRecentByStatus(
+                EditWarAlertEntity.AlertStatus.ACTIVE, Limit.of(AlertService.DEFAULT_LIMIT)))
                 .thenReturn(entities);
         when(alertMapper.toDomain(any(EditWarAlertEntity.class)))
                 .thenAnswer(inv -> createMockDomainAlert(1L, "Recent1"))
                 .thenAnswer(inv -> createMockDomainAlert(2L, "Recent2"));
 
         // When: Get recent
-        List<EditWarAlert> result = alertService.getRecentActiveAlerts();
+        List<EditWarAlert> result = alertService.getRecentActiveAlerts(AlertService.DEFAULT_LIMIT);
 
         // Then: Verify
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(alertRepository).findByStatusOrderByDetectedAtDesc(EditWarAlertEntity.AlertStatus.ACTIVE);
+        verify(alertRepository).findRecentByStatus(
+                EditWarAlertEntity.AlertStatus.ACTIVE, Limit.of(AlertService.DEFAULT_LIMIT));
     }
 
     // ==================== COUNT ALERTS ====================
@@ -0,0 +1,98 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.EditWarAlertTopicConsumer;
+import com.epaitoo.springboot.entity.EditWarAlert;
+import com.epaitoo.springboot.entity.EditWarStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for publishing alerts to the compacted edit-war-alerts topic
+ */
+@ExtendWith(MockitoExtension.class)
+class AlertTopicPublisherTest {
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Mock
+    private AlertEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private AlertTopicPublisher alertTopicPublisher;
+
+    @BeforeEach
+    void setUp() {
+        alertTopicPublisher = new AlertTopicPublisher(kafkaTemplate, objectMapper, "edit-war-alerts");
+    }
+
+    private static EditWarAlert createAlert() {
+        return EditWarAlert.builder()
+                .id(42L)
+                .pageTitle("Climate_Change")
+                .wiki("en.wikipedia.org")
+                .involvedUsers(List.of("Alice", "Bob"))
+                .userCount(2)
+                .totalEdits(6)
+                .conflictEdits(5)
+                .conflictRatio(0.83)
+                .severityScore(0.7)
+                .detectedAt(Instant.now().truncatedTo(ChronoUnit.MILLIS))
+                .status(EditWarStatus.ACTIVE)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should key alert records by wiki:title")
+    void testPublish_KeyedByPage() {
+        // Given
+        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenReturn(new CompletableFuture<>());
+
+        // When
+        alertTopicPublisher.publish(createAlert());
+
+        // Then
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate).send(eq("edit-war-alerts"), eq("en.wikipedia.org:Climate_Change"), json.capture());
+        assertTrue(json.getValue().contains("\"pageTitle\":\"Climate_Change\""));
+        assertTrue(json.getValue().contains("\"status\":\"ACTIVE\""));
+    }
+
+    @Test
+    @DisplayName("Should stream alerts read back from the topic on API nodes")
+    void testTopicConsumer_RoundTrip() {
+        // Given: The record a detection node wrote
+        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenReturn(new CompletableFuture<>());
+        EditWarAlert alert = createAlert();
+        alertTopicPublisher.publish(alert);
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate).send(anyString(), anyString(), json.capture());
+
+        // When: An API node consumes it (and skips tombstones)
+        EditWarAlertTopicConsumer consumer = new EditWarAlertTopicConsumer(eventPublisher, objectMapper);
+        consumer.consume(json.getValue());
+        consumer.consume(null);
+
+        // Then
+        verify(eventPublisher).publishAlert(alert);
+        verifyNoMoreInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,87 @@
+package com.epaitoo.springboot.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the dispatcher's bounded lock-free queue
+ */
+class DispatchQueueTest {
+
+    @Test
+    @DisplayName("Should keep FIFO order and reject offers when full")
+    void testOfferPoll_BoundedFifo() {
+        // Given: Capacity is rounded up to a power of two
+        DispatchQueue<Integer> queue = new DispatchQueue<>(3);
+        assertEquals(4, queue.capacity());
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        // Then
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+        assertEquals(0, queue.poll());
+        assertTrue(queue.offer(4));  // a freed slot is reused on the next lap
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, queue.poll());
+        }
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    @DisplayName("Should hand every element from many producers to the consumer exactly once")
+    void testConcurrentProducers_ExactlyOnce() throws Exception {
+        DispatchQueue<Integer> queue = new DispatchQueue<>(64);
+        int producers = 4;
+        int perProducer = 5_000;
+
+        // Given: Producers retrying on a small queue while one consumer drains it; they yield
+        // rather than spin, so the test also finishes quickly on a single CPU
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!queue.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        // When
+        boolean[] seen = new boolean[producers * perProducer];
+        int[] lastPerProducer = new int[producers];
+        Arrays.fill(lastPerProducer, -1);
+        int received = 0;
+        while (received < seen.length) {
+            Integer value = queue.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+
+            // Then: No duplicates, and each producer's elements stay in order
+            assertFalse(seen[value], "Duplicate element " + value);
+            seen[value] = true;
+            int producer = value / perProducer;
+            assertTrue(value > lastPerProducer[producer]);
+            lastPerProducer[producer] = value;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,223 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the binary edit decoding (records written by the producer's EditEventSerializer)
+ */
+class EditEventCodecTest {
+
+    /**
+     * Builds records by hand, byte by byte as the producer lays them out
+     */
+    private static final class Record {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Record(int flags) {
+            this(EditEventCodec.VERSION_1, flags);
+        }
+
+        Record(int version, int flags) {
+            out.write(version);
+            out.write(flags);
+        }
+
+        Record varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+            return this;
+        }
+
+        Record zigzag(int value) {
+            return varint(Integer.toUnsignedLong((value << 1) ^ (value >> 31)));
+        }
+
+        Record string(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            out.writeBytes(utf8);
+            return this;
+        }
+
+        byte[] bytes() {
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] fullEdit() {
+        int flags = EditEventCodec.FLAG_NAMESPACE | EditEventCodec.FLAG_TIMESTAMP
+                | EditEventCodec.FLAG_LENGTH_OLD | EditEventCodec.FLAG_LENGTH_NEW;
+        return new Record(flags)
+                .varint(1)  // en.wikipedia.org
+                .string("Climate_Change").string("Zoë_😀").string("2024-03-01T12:00:00.250Z")
+                .zigzag(0).varint(1_709_294_400L).zigzag(5200).zigzag(5000)
+                .bytes();
+    }
+
+    private static Headers binaryHeaders() {
+        Headers headers = new RecordHeaders();
+        headers.add(EditEventCodec.FORMAT_HEADER, "edit-v1".getBytes(StandardCharsets.US_ASCII));
+        return headers;
+    }
+
+    // ==================== DECODE ====================
+
+    @Test
+    @DisplayName("Should decode every detection field, wiki from the dictionary")
+    void testDecode_Full() {
+        // When
+        WikimediaEditEvent event = EditEventCodec.decode(fullEdit());
+
+        // Then
+        assertEquals("edit", event.getType());
+        assertEquals("en.wikipedia.org", event.getWiki());
+        assertSame(EditEventCodec.WIKIS.get(0), event.getWiki());
+        assertEquals("Climate_Change", event.getPageTitle());
+        assertEquals("Zoë_😀", event.getUsername());
+        assertEquals("2024-03-01T12:00:00.250Z", event.getEventTime());
+        assertEquals(0, event.getNamespace());
+        assertEquals(1_709_294_400L, event.getTimestamp());
+        assertEquals(5200, event.getLengthOld());
+        assertEquals(5000, event.getLengthNew());
+        assertEquals(-200, event.getLengthChange());
+        assertFalse(event.getIsBot());
+    }
+
+    @Test
+    @DisplayName("Should read a literal wiki name and apply the JSON parser's defaults to left-out fields")
+    void testDecode_LiteralWikiAndDefaults() {
+        // Given
+        byte[] value = new Record(EditEventCodec.FLAG_BOT)
+                .varint(0).string("xx.wikipedia.org")
+                .string("Page").string("Bob").string("")
+                .bytes();
+
+        // When
+        WikimediaEditEvent event = EditEventCodec.decode(value);
+
+        // Then
+        assertEquals("xx.wikipedia.org", event.getWiki());
+        assertTrue(event.getIsBot());
+        assertEquals(-1, event.getNamespace());
+        assertNotNull(event.getTimestamp());
+        assertNull(event.getEventTime());
+        assertNull(event.getLengthOld());
+        assertEquals(0, event.getLengthChange());
+    }
+
+    @Test
+    @DisplayName("Should decode the revision ids of a version 2 record")
+    void testDecode_Version2() {
+        // Given
+        int flags = EditEventCodec.FLAG_LENGTH_OLD | EditEventCodec.FLAG_LENGTH_NEW
+                | EditEventCodec.FLAG_REVISION_OLD | EditEventCodec.FLAG_REVISION_NEW;
+        byte[] value = new Record(EditEventCodec.VERSION_2, flags)
+                .varint(1).string("Climate_Change").string("Alice").string("")
+                .zigzag(5200).zigzag(5000).varint(1_200_000_000L).varint(1_200_000_001L)
+                .bytes();
+
+        // When
+        WikimediaEditEvent event = EditEventCodec.decode(value, EditEventCodec.VERSION_2);
+
+        // Then
+        assertEquals(5000, event.getLengthNew());
+        assertEquals(1_200_000_000L, event.getRevisionOld());
+        assertEquals(1_200_000_001L, event.getRevisionNew());
+        assertThrows(IllegalArgumentException.class, () -> EditEventCodec.decode(value));
+        assertNull(EditEventCodec.decode(fullEdit()).getRevisionNew());
+    }
+
+    @Test
+    @DisplayName("Should reject truncated, padded and unknown-version values")
+    void testDecode_Malformed() {
+        byte[] value = fullEdit();
+
+        assertThrows(IllegalArgumentException.class, () -> EditEventCodec.decode(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> EditEventCodec.decode(Arrays.copyOf(value, value.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> EditEventCodec.decode(Arrays.copyOf(value, 12)));
+        assertThrows(IllegalArgumentException.class, () -> EditEventCodec.decode(Arrays.copyOf(value, value.length + 1)));
+
+        value[0] = 2;
+        assertThrows(IllegalArgumentException.class, () -> EditEventCodec.decode(value));
+    }
+
+    // ==================== PRODUCER RECORDS ====================
+
+    @Test
+    @DisplayName("Should decode the producer's records of real events to what the JSON parser reads")
+    void testDecode_ProducerRecords() throws Exception {
+        // Given: Events and their records as the producer's EditEventSerializer writes them
+        // (its EditEventSerializerTest checks it still writes exactly these bytes)
+        WikimediaEventParser parser = new WikimediaEventParser(new SimpleMeterRegistry());
+        Headers headers = new RecordHeaders();
+        headers.add(EditEventCodec.FORMAT_HEADER, "edit-v2".getBytes(StandardCharsets.US_ASCII));
+
+        for (String name : new String[]{"edit", "edit-bot"}) {
+            // When
+            WikimediaEditEvent decoded = parser.parse(headers, resource(name + ".v2.bin"));
+            WikimediaEditEvent parsed = parser.parse(resource(name + ".raw.json"));
+
+            // Then
+            assertNotNull(decoded, name);
+            assertEquals(parsed, decoded, name);
+        }
+    }
+
+    private static byte[] resource(String name) throws Exception {
+        try (var in = EditEventCodecTest.class.getResourceAsStream("/recentchange/" + name)) {
+            return in.readAllBytes();
+        }
+    }
+
+    // ==================== PARSER ====================
+
+    @Test
+    @DisplayName("Should route records by their format header, JSON when there is none")
+    void testParse_ByHeader() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WikimediaEventParser parser = new WikimediaEventParser(meterRegistry);
+        Headers unknown = new RecordHeaders();
+        unknown.add(EditEventCodec.FORMAT_HEADER, "edit-v3".getBytes(StandardCharsets.US_ASCII));
+
+        // When & Then
+        assertEquals("Climate_Change", parser.parse(binaryHeaders(), fullEdit()).getPageTitle());
+        assertEquals("Page", parser.parse(new RecordHeaders(),
+                "{\"type\":\"edit\",\"title\":\"Page\",\"user\":\"Bob\"}".getBytes(StandardCharsets.UTF_8)).getPageTitle());
+        assertNull(parser.parse(unknown, fullEdit()));
+        assertNull(parser.parse(binaryHeaders(), Arrays.copyOf(fullEdit(), 5)));
+
+        assertEquals(1, meterRegistry.get("wikimedia.parse.rejected").tag("reason", "unknown_format").counter().count());
+        assertEquals(1, meterRegistry.get("wikimedia.parse.failures").counter().count());
+        assertEquals(4, meterRegistry.get("wikimedia.parse").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should render a decoded edit as JSON that parses back to the same event")
+    void testToJson_RoundTrip() {
+        // Given
+        WikimediaEventParser parser = new WikimediaEventParser(new SimpleMeterRegistry());
+        WikimediaEditEvent event = EditEventCodec.decode(fullEdit());
+
+        // When
+        String json = EditEventCodec.toJson(event);
+
+        // Then
+        assertEquals(event, parser.parse(json));
+        assertTrue(json.startsWith("{\"type\":\"edit\""));
+    }
+}
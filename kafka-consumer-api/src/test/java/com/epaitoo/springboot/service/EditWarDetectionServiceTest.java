@@ -1,10 +1,16 @@
 package com.epaitoo.springboot.service;
 
 import com.epaitoo.springboot.entity.EditWarAlert;
+import com.epaitoo.springboot.entity.PageEditWindow;
 import com.epaitoo.springboot.entity.WikimediaEditEvent;
 import com.epaitoo.springboot.persistence.entity.EditWarAlertEntity;
 import com.epaitoo.springboot.persistence.mapper.AlertMapper;
 import com.epaitoo.springboot.persistence.repository.EditWarAlertRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,9 +18,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -37,6 +51,15 @@ class EditWarDetectionServiceTest {
     @Mock
     private AlertMapper alertMapper;
 
+    @Mock
+    private WindowChangelog changelog;
+
+    @Spy
+    private DetectionThresholds thresholds = DetectionThresholds.defaults();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private EditWarDetectionService detectionService;
 
@@ -140,4 +163,210 @@ class EditWarDetectionServiceTest {
         // Verify repository received the entity
         verify(alertRepository).save(mockEntity);
     }
-}
\ No newline at end of file
+
+    // ==================== REBALANCE ====================
+
+    @Test
+    @DisplayName("Should write window changes to the changelog partition of the edit")
+    void testProcessEdit_WritesChangelog() {
+        // Given
+        long now = System.currentTimeMillis() / 1000;
+
+        // When
+        detectionService.processEdit(createTestEdit("Alice", 5000, 5200, now), 2);
+        detectionService.processEdit(createTestEdit("Bob", 5200, 5000, now + 180));
+
+        // Then: Only the edit consumed from Kafka is recorded
+        verify(changelog).append(eq(2), eq("en.wikipedia.org:Test_Article"), any(PageWindowState.class));
+        verifyNoMoreInteractions(changelog);
+    }
+
+    @Test
+    @DisplayName("Should write a snapshot that later edits to the window don't change")
+    void testProcessEdit_WritesSnapshot() {
+        // Given
+        long now = System.currentTimeMillis() / 1000;
+        ArgumentCaptor<PageWindowState> states = ArgumentCaptor.forClass(PageWindowState.class);
+
+        WikimediaEditEvent first = createTestEdit("Alice", 5000, 5200, now);
+        first.setRevisionOld(100L);
+        first.setRevisionNew(101L);
+        WikimediaEditEvent second = createTestEdit("Bob", 5200, 5000, now + 180);
+        second.setRevisionOld(101L);
+        second.setRevisionNew(102L);
+
+        // When
+        detectionService.processEdit(first, 2);
+        detectionService.processEdit(second, 2);
+
+        // Then: The first write still holds one edit, and its revision history as it was
+        verify(changelog, times(2)).append(eq(2), eq("en.wikipedia.org:Test_Article"), states.capture());
+        PageWindowState afterFirst = states.getAllValues().get(0);
+        PageWindowState afterSecond = states.getAllValues().get(1);
+        assertEquals(1, afterFirst.edits().size());
+        assertArrayEquals(new long[]{100, 101}, afterFirst.history().getRevisions());
+        assertEquals(2, afterSecond.edits().size());
+        assertArrayEquals(new long[]{100, 101, 102}, afterSecond.history().getRevisions());
+    }
+
+    @Test
+    @DisplayName("Should drop idle windows and tombstone them in the changelog")
+    void testCleanupOldWindows_TombstonesIdleWindows() {
+        // Given: One page last edited three hours ago, one just now
+        long now = System.currentTimeMillis() / 1000;
+        WikimediaEditEvent quiet = createTestEdit("Alice", 5000, 5200, now - 3 * 3600);
+        quiet.setPageTitle("Quiet_Page");
+        detectionService.processEdit(quiet, 2);
+        detectionService.processEdit(createTestEdit("Bob", 5200, 5000, now), 1);
+
+        // When
+        detectionService.cleanupOldWindows();
+
+        // Then: Only the idle window is dropped, with a tombstone on its partition
+        verify(changelog).remove(2, "en.wikipedia.org:Quiet_Page");
+        verify(changelog, never()).remove(eq(1), any());
+        assertEquals(1, detectionService.getStats().get("trackedPages"));
+    }
+
+    @Test
+    @DisplayName("Should continue restored windows on new partitions and drop revoked ones")
+    void testRetainPartitions_RestoresAndDrops() {
+        // Given: The previous owner of partition 1 saw four reverting edits
+        long now = System.currentTimeMillis() / 1000;
+        PageEditWindow previous = new PageEditWindow("Test_Article");
+        previous.addEdit(createTestEdit("Alice", 5000, 5200, now));
+        previous.addEdit(createTestEdit("Bob", 5200, 5000, now + 180));
+        previous.addEdit(createTestEdit("Alice", 5000, 5200, now + 360));
+        previous.addEdit(createTestEdit("Bob", 5200, 5000, now + 540));
+        when(changelog.restore(eq(Set.of(1)), any())).thenAnswer(invocation -> {
+            WindowChangelog.RestoredWindow sink = invocation.getArgument(1);
+            sink.accept(1, "en.wikipedia.org:Test_Article", previous);
+            return new WindowChangelog.RestoreStats(1, 1, 2048, 5);
+        });
+        EditWarAlertEntity mockEntity = new EditWarAlertEntity();
+        when(alertMapper.toEntity(any(EditWarAlert.class))).thenReturn(mockEntity);
+        when(alertRepository.save(any(EditWarAlertEntity.class))).thenReturn(mockEntity);
+
+        // When: Partition 1 is assigned, then the fifth edit arrives
+        detectionService.retainPartitions(List.of(1));
+        Optional<EditWarAlert> result = detectionService.processEdit(createTestEdit("Alice", 5000, 5200, now + 720), 1);
+
+        // Then: The war is detected across the handover
+        assertTrue(result.isPresent(), "Alert should be detected from the restored window");
+        assertEquals(5, result.get().getTotalEdits());
+        Map<String, Object> stats = detectionService.getStats();
+        assertEquals(new WindowChangelog.RestoreStats(1, 1, 2048, 5), stats.get("lastRestore"));
+
+        // When: The same assignment is confirmed, then partition 1 is revoked
+        detectionService.retainPartitions(List.of(1));
+        detectionService.retainPartitions(List.of());
+
+        // Then: No second restore, and the window is gone
+        verify(changelog, times(1)).restore(any(), any());
+        assertEquals(0, detectionService.getStats().get("trackedPages"));
+    }
+
+    // ==================== PER-WIKI ====================
+
+    @Test
+    @DisplayName("Should check each wiki against its own thresholds and track its windows apart")
+    void testProcessEdit_PerWikiThresholds() {
+        // Given: German Wikipedia needs six edits, other wikis keep the defaults
+        DetectionThresholds perWiki = new DetectionThresholds(null, Map.of("de.wikipedia.org",
+                new DetectionThresholds.Limits(6, null, null, null, null, null)));
+        EditWarDetectionService service = new EditWarDetectionService(
+                alertRepository, alertMapper, changelog, perWiki, meterRegistry);
+        long now = System.currentTimeMillis() / 1000;
+        List<Optional<EditWarAlert>> en = new ArrayList<>();
+        List<Optional<EditWarAlert>> de = new ArrayList<>();
+
+        // When: The same five reverting edits happen on both wikis
+        for (int i = 0; i < 5; i++) {
+            WikimediaEditEvent edit = createTestEdit(i % 2 == 0 ? "Alice" : "Bob",
+                    i % 2 == 0 ? 5000 : 5200, i % 2 == 0 ? 5200 : 5000, now + i * 180L);
+            en.add(service.detectEdit(edit, EditWarDetectionService.NO_PARTITION));
+            WikimediaEditEvent german = createTestEdit(edit.getUsername(), edit.getLengthOld(), edit.getLengthNew(),
+                    edit.getTimestamp());
+            german.setWiki("de.wikipedia.org");
+            de.add(service.detectEdit(german, EditWarDetectionService.NO_PARTITION));
+        }
+
+        // Then: Only English Wikipedia's window is a war yet
+        assertTrue(en.get(4).isPresent());
+        assertTrue(de.stream().noneMatch(Optional::isPresent));
+        assertEquals(6, service.thresholdsFor("de.wikipedia.org").minEdits());
+        assertEquals(5, service.thresholdsFor("fr.wikipedia.org").minEdits());
+        assertEquals(1.0, meterRegistry.get("editwar.tracked.pages").tag("wiki", "de.wikipedia.org").gauge().value());
+        assertEquals(Map.of("en.wikipedia.org", 1, "de.wikipedia.org", 1), service.getStats().get("trackedPagesPerWiki"));
+        assertEquals(2, service.getStats().get("trackedPages"));
+    }
+
+    // ==================== METRICS ====================
+
+    @Test
+    @DisplayName("Should record processing time, window fill and alerts per severity")
+    void testProcessEdit_RecordsMetrics() {
+        // Given
+        long now = System.currentTimeMillis() / 1000;
+        EditWarAlertEntity mockEntity = new EditWarAlertEntity();
+        when(alertMapper.toEntity(any(EditWarAlert.class))).thenReturn(mockEntity);
+        when(alertRepository.save(any(EditWarAlertEntity.class))).thenReturn(mockEntity);
+
+        // When
+        detectionService.processEdit(createTestEdit("Alice", 5000, 5200, now));
+        detectionService.processEdit(createTestEdit("Bob", 5200, 5000, now + 180));
+        detectionService.processEdit(createTestEdit("Alice", 5000, 5200, now + 360));
+        detectionService.processEdit(createTestEdit("Bob", 5200, 5000, now + 540));
+        EditWarAlert alert = detectionService.processEdit(createTestEdit("Alice", 5000, 5200, now + 720)).orElseThrow();
+
+        // Then
+        assertEquals(5, meterRegistry.get("editwar.process.edit").timer().count());
+        assertEquals(5.0, meterRegistry.get("editwar.window.fill").summary().max());
+        assertEquals(1.0, meterRegistry.get("editwar.tracked.pages").gauge().value());
+        assertEquals(1.0, meterRegistry.get("editwar.alerts").tag("severity", alert.getSeverityLevel()).counter().count());
+        assertEquals(1, meterRegistry.get("editwar.db.save").timer().count());
+    }
+
+    // ==================== JFR ====================
+
+    @Test
+    @DisplayName("Should emit flight recorder events with page key and window size for each stage")
+    void testProcessEdit_EmitsJfrEvents() throws Exception {
+        // Given
+        long now = System.currentTimeMillis() / 1000;
+        EditWarAlertEntity mockEntity = new EditWarAlertEntity();
+        mockEntity.setId(42L);
+        when(alertMapper.toEntity(any(EditWarAlert.class))).thenReturn(mockEntity);
+        when(alertRepository.save(any(EditWarAlertEntity.class))).thenReturn(mockEntity);
+        Path dump = Files.createTempFile("editwar", ".jfr");
+
+        // When
+        try (Recording recording = new Recording()) {
+            recording.enable("com.epaitoo.editwar.WindowUpdate");
+            recording.enable("com.epaitoo.editwar.WarEvaluation");
+            recording.enable("com.epaitoo.editwar.AlertPersist");
+            recording.start();
+            detectionService.processEdit(createTestEdit("Alice", 5000, 5200, now));
+            detectionService.processEdit(createTestEdit("Bob", 5200, 5000, now + 180));
+            detectionService.processEdit(createTestEdit("Alice", 5000, 5200, now + 360));
+            detectionService.processEdit(createTestEdit("Bob", 5200, 5000, now + 540));
+            detectionService.processEdit(createTestEdit("Alice", 5000, 5200, now + 720));
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        // Then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        Files.delete(dump);
+        Map<String, List<RecordedEvent>> byType = events.stream()
+                .collect(Collectors.groupingBy(event -> event.getEventType().getName()));
+        assertEquals(5, byType.get("com.epaitoo.editwar.WindowUpdate").size());
+        List<RecordedEvent> evaluations = byType.get("com.epaitoo.editwar.WarEvaluation");
+        assertEquals(5, evaluations.size());
+        assertTrue(evaluations.stream().anyMatch(event -> event.getBoolean("editWar")));
+        RecordedEvent persist = byType.get("com.epaitoo.editwar.AlertPersist").get(0);
+        assertEquals("en.wikipedia.org:Test_Article", persist.getString("pageKey"));
+        assertEquals(5, persist.getInt("windowSize"));
+        assertEquals(42L, persist.getLong("alertId"));
+    }
+}
@@ -0,0 +1,201 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.EditWarAlert;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the Kafka Streams detection engine, run with the topology test driver (no broker)
+ */
+@ExtendWith(MockitoExtension.class)
+class EditWarTopologyTest {
+
+    private static final String PAGE_KEY = "en.wikipedia.org:Test_Article";
+
+    @Mock
+    private EditWarDetectionService detectionService;
+
+    @Mock
+    private AlertEventPublisher eventPublisher;
+
+    @TempDir
+    Path stateDir;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, String> edits;
+    private TestOutputTopic<String, String> alerts;
+    private KeyValueStore<String, PageWindowState> windows;
+
+    @BeforeEach
+    void setUp() {
+        start(new RoutingFilter(meterRegistry, Set.of(), Set.of(), true));
+    }
+
+    private void start(RoutingFilter routingFilter) {
+        EditWarTopology topology = new EditWarTopology(new WikimediaEventParser(meterRegistry), detectionService,
+                eventPublisher, objectMapper, DetectionThresholds.defaults(), routingFilter,
+                "wikimedia-stream-api", "edit-war-alerts");
+        StreamsBuilder builder = new StreamsBuilder();
+        topology.build(builder);
+
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "edit-war-detector-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        driver = new TopologyTestDriver(builder.build(), props);
+
+        edits = driver.createInputTopic("wikimedia-stream-api", new StringSerializer(), new StringSerializer());
+        alerts = driver.createOutputTopic("edit-war-alerts", new StringDeserializer(), new StringDeserializer());
+        windows = driver.getKeyValueStore(EditWarTopology.WINDOW_STORE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    /**
+     * Raw Wikimedia edit as the producer writes it (timestamp in seconds)
+     */
+    private static String rawEdit(String title, String user, int oldLen, int newLen, long timestamp) {
+        return rawEdit("en.wikipedia.org", title, user, oldLen, newLen, timestamp);
+    }
+
+    private static String rawEdit(String wiki, String title, String user, int oldLen, int newLen, long timestamp) {
+        return String.format("""
+                {"type":"edit","title":"%s","user":"%s","bot":false,"namespace":0,"timestamp":%d,\
+                "length":{"old":%d,"new":%d},"meta":{"domain":"%s"}}""",
+                title, user, timestamp, oldLen, newLen, wiki);
+    }
+
+    private void pipe(String rawEdit, long timestampSeconds) {
+        edits.pipeInput(null, rawEdit, Instant.ofEpochSecond(timestampSeconds));
+    }
+
+    private void pipeEditWar(String title, long start) {
+        for (int i = 0; i < 5; i++) {
+            boolean alice = i % 2 == 0;
+            pipe(rawEdit(title, alice ? "Alice" : "Bob", alice ? 5000 : 5200, alice ? 5200 : 5000, start + i * 180),
+                    start + i * 180);
+        }
+    }
+
+    // ==================== DETECTION ====================
+
+    @Test
+    @DisplayName("Should detect an edit war and publish it keyed by wiki:title")
+    void testTopology_DetectsEditWar() throws Exception {
+        // Given
+        when(detectionService.saveAlert(any(EditWarAlert.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        long now = Instant.now().getEpochSecond();
+
+        // When: Two users revert each other five times
+        pipeEditWar("Test_Article", now);
+
+        // Then: The window lives in the state store, re-keyed by page
+        assertEquals(5, windows.get(PAGE_KEY).edits().size());
+
+        // And: The alert is saved, streamed instead of the edit that raised it, and written to the alert topic
+        verify(detectionService).saveAlert(any(EditWarAlert.class));
+        verify(eventPublisher).publishAlert(any(EditWarAlert.class));
+        verify(eventPublisher, times(4)).publishEdit(any(), isNull(byte[].class), isNull());
+
+        List<KeyValue<String, String>> records = alerts.readKeyValuesToList();
+        assertEquals(1, records.size());
+        assertEquals(PAGE_KEY, records.get(0).key);
+        EditWarAlert alert = objectMapper.readerFor(EditWarAlert.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValue(records.get(0).value);
+        assertEquals("Test_Article", alert.getPageTitle());
+        assertEquals(List.of("Alice", "Bob"), alert.getInvolvedUsers());
+    }
+
+    @Test
+    @DisplayName("Should keep separate windows per page and skip invalid events")
+    void testTopology_WindowPerPage() {
+        // Given
+        long now = Instant.now().getEpochSecond();
+
+        // When: Edits interleave across pages, with junk in between
+        pipe(rawEdit("Page_A", "Alice", 100, 200, now), now);
+        pipe("{not json", now);
+        pipe(rawEdit("Page_B", "Bob", 100, 200, now + 1), now + 1);
+        pipe(rawEdit("Page_A", "Bob", 200, 100, now + 2), now + 2);
+
+        // Then
+        assertEquals(2, windows.get("en.wikipedia.org:Page_A").edits().size());
+        assertEquals(1, windows.get("en.wikipedia.org:Page_B").edits().size());
+        assertTrue(alerts.isEmpty());
+        verify(detectionService, never()).saveAlert(any());
+        assertEquals(1.0, meterRegistry.get("wikimedia.parse.failures").counter().count());
+        assertEquals(4, meterRegistry.get("wikimedia.parse").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should only detect on and stream edits in the detection scope")
+    void testTopology_AppliesRoutingFilter() {
+        // Given: Detection limited to de.wikipedia.org
+        driver.close();
+        start(new RoutingFilter(meterRegistry, Set.of("de.wikipedia.org"), Set.of(), true));
+        long now = Instant.now().getEpochSecond();
+
+        // When
+        pipe(rawEdit("en.wikipedia.org", "Page_A", "Alice", 100, 200, now), now);
+        pipe(rawEdit("de.wikipedia.org", "Seite_A", "Bob", 100, 200, now + 1), now + 1);
+
+        // Then: Only the German edit got a window and an SSE frame
+        assertNull(windows.get("en.wikipedia.org:Page_A"));
+        assertNotNull(windows.get("de.wikipedia.org:Seite_A"));
+        verify(eventPublisher).publishEdit(argThat(event -> "Seite_A".equals(event.getPageTitle())),
+                isNull(byte[].class), isNull());
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Should evict idle page windows as stream time advances")
+    void testTopology_EvictsIdleWindows() {
+        // Given
+        long now = Instant.now().getEpochSecond();
+        pipe(rawEdit("Quiet_Page", "Alice", 100, 200, now), now);
+
+        // When: Stream time moves past the idle limit
+        long later = now + EditWarDetectionService.IDLE_WINDOW.toSeconds() + 3600;
+        pipe(rawEdit("Busy_Page", "Bob", 100, 200, later), later);
+
+        // Then
+        assertNull(windows.get("en.wikipedia.org:Quiet_Page"));
+        assertNotNull(windows.get("en.wikipedia.org:Busy_Page"));
+    }
+}
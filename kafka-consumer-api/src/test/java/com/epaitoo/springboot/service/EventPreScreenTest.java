@@ -0,0 +1,64 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.service.EventPreScreen.Verdict;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the byte-level screen in front of the parser
+ */
+class EventPreScreenTest {
+
+    private static Verdict screen(String json) {
+        return EventPreScreen.screen(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ==================== EDITS ====================
+
+    @Test
+    @DisplayName("Should pass edits, whatever else they contain")
+    void testScreen_Edit() {
+        assertEquals(Verdict.EDIT, screen("""
+                {"meta":{"type":"ignored","dt":"2024-03-01T12:00:00Z"},"id":1,
+                 "comment":"rv \\"type\\":\\"log\\" {[","tags":[{"type":null}],"type":"edit","title":"Zoë"}"""));
+        assertEquals(Verdict.EDIT, screen(" { \"type\" : \"edit\" , \"title\" : 42 } \n"));
+    }
+
+    @Test
+    @DisplayName("Should stop at the type, leaving required fields and the rest to the parser")
+    void testScreen_StopsAtType() {
+        assertEquals(Verdict.EDIT, screen("{\"type\":\"edit\"}"));
+        assertEquals(Verdict.EDIT, screen("{\"type\":\"edit\", broken after the type }"));
+    }
+
+    // ==================== REJECTED ====================
+
+    @Test
+    @DisplayName("Should reject other event types as soon as the top-level type is read")
+    void testScreen_NotEdit() {
+        assertEquals(Verdict.NOT_EDIT, screen("{\"type\":\"log\",\"title\":\"Page\",\"user\":\"Bob\"}"));
+        assertEquals(Verdict.NOT_EDIT, screen("{\"type\":\"categorize\", this part is never read }"));
+        assertEquals(Verdict.NOT_EDIT, screen("{\"type\":null}"));
+        assertEquals(Verdict.NOT_EDIT, screen("{\"type\":{\"name\":\"edit\"}}"));
+        assertEquals(Verdict.NOT_EDIT, screen("{\"meta\":{\"type\":\"edit\"},\"title\":\"Page\",\"user\":\"Bob\"}"));
+        assertEquals(Verdict.NOT_EDIT, screen("{}"));
+    }
+
+    @Test
+    @DisplayName("Should flag payloads that are not a complete JSON object")
+    void testScreen_Malformed() {
+        assertEquals(Verdict.MALFORMED, EventPreScreen.screen(null));
+        assertEquals(Verdict.MALFORMED, screen(""));
+        assertEquals(Verdict.MALFORMED, screen("[1,2,3]"));
+        assertEquals(Verdict.MALFORMED, screen("data: {\"type\":\"edit\"}"));
+        assertEquals(Verdict.MALFORMED, screen("{not json}"));
+        assertEquals(Verdict.MALFORMED, screen("{\"meta\":{\"domain\":\"en.wikipedia.org\"},\"id\":17"));
+        assertEquals(Verdict.MALFORMED, screen("{\"meta\":{\"domain\":\"en.wikipedia.org\"}"));
+        assertEquals(Verdict.MALFORMED, screen("{\"comment\":\"never closed}"));
+        assertEquals(Verdict.MALFORMED, screen("{\"id\":1}{\"type\":\"edit\"}"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for per-stage latency tracking from the producer's header stamps to the SSE emit
+ */
+class LatencyTrackerTest {
+
+    private LatencyTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new LatencyTracker();
+    }
+
+    private static WikimediaEditEvent edit(String dt, Long timestamp) {
+        WikimediaEditEvent event = new WikimediaEditEvent();
+        event.setPageTitle("Page");
+        event.setTimestamp(timestamp);
+        if (dt != null) {
+            WikimediaEditEvent.MetaInfo meta = new WikimediaEditEvent.MetaInfo();
+            meta.setDt(dt);
+            event.setMeta(meta);
+        }
+        return event;
+    }
+
+    private static ConsumerRecord<String, String> record(long createTimeMillis, RecordHeaders headers) {
+        return new ConsumerRecord<>("wikimedia-stream-api", 0, 0L, createTimeMillis, TimestampType.CREATE_TIME,
+                4, 2, "key", "{}", headers, Optional.empty());
+    }
+
+    private static RecordHeaders stamps(long receivedMicros, long sentMicros) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(LatencyTracker.PRODUCER_RECEIVED_HEADER,
+                Long.toString(receivedMicros).getBytes(StandardCharsets.US_ASCII));
+        headers.add(LatencyTracker.PRODUCER_SENT_HEADER,
+                Long.toString(sentMicros).getBytes(StandardCharsets.US_ASCII));
+        return headers;
+    }
+
+    private long count(LatencyTracker.Stage stage) {
+        return (long) tracker.getSnapshot().get(stage.name()).get("count");
+    }
+
+    // ==================== EVENT TIME ====================
+
+    @Test
+    @DisplayName("Should take event time from meta.dt, falling back to the timestamp in seconds")
+    void testEventTime_MetaDtThenTimestamp() {
+        // Given
+        Instant dt = Instant.parse("2024-03-01T12:00:00.250Z");
+
+        // When & Then
+        assertEquals(TimeUnit.MILLISECONDS.toMicros(dt.toEpochMilli()),
+                LatencyTracker.eventTimeMicros(edit("2024-03-01T12:00:00.250Z", 1L)));
+        assertEquals(TimeUnit.SECONDS.toMicros(1_709_294_400L),
+                LatencyTracker.eventTimeMicros(edit("not a date", 1_709_294_400L)));
+        assertEquals(EventTimeline.UNKNOWN, LatencyTracker.eventTimeMicros(edit(null, null)));
+    }
+
+    // ==================== STAGES ====================
+
+    @Test
+    @DisplayName("Should record every stage of an alert once it is emitted")
+    void testTimeline_AlertRecordsAllStages() {
+        // Given: An edit made 2s ago, received by the producer 1s ago and sent right after
+        long now = LatencyTracker.nowMicros();
+        long received = now - 1_000_000;
+        WikimediaEditEvent event = edit(null, TimeUnit.MICROSECONDS.toSeconds(now) - 2);
+        EventTimeline timeline = tracker.start(record(0L, stamps(received, received + 500)), event);
+
+        // When
+        timeline.detected();
+        timeline.committed();
+        timeline.emitted(true);
+
+        // Then
+        for (LatencyTracker.Stage stage : LatencyTracker.Stage.values()) {
+            assertEquals(1, count(stage), stage.name());
+        }
+        Map<String, Object> producer = tracker.getSnapshot().get("PRODUCER");
+        assertEquals(0.5, (double) producer.get("maxMs"), 0.01);
+        Map<String, Object> kafka = tracker.getSnapshot().get("KAFKA");
+        assertTrue((double) kafka.get("p50Ms") >= 999.0);
+    }
+
+    @Test
+    @DisplayName("Should skip DB commit for plain edits and stages whose stamps are missing")
+    void testTimeline_EditWithoutProducerStamps() {
+        // Given: A record without headers; its create time stands in for the send
+        long now = LatencyTracker.nowMicros();
+        WikimediaEditEvent event = edit(null, TimeUnit.MICROSECONDS.toSeconds(now));
+        EventTimeline timeline = tracker.start(record(TimeUnit.MICROSECONDS.toMillis(now) - 20, new RecordHeaders()),
+                event);
+
+        // When
+        timeline.detected();
+        timeline.emitted(false);
+
+        // Then
+        assertEquals(0, count(LatencyTracker.Stage.EVENT_TO_PRODUCER));
+        assertEquals(0, count(LatencyTracker.Stage.PRODUCER));
+        assertEquals(1, count(LatencyTracker.Stage.KAFKA));
+        assertEquals(1, count(LatencyTracker.Stage.DETECTION));
+        assertEquals(0, count(LatencyTracker.Stage.DB_COMMIT));
+        assertEquals(1, count(LatencyTracker.Stage.SSE_EMIT));
+        assertEquals(1, count(LatencyTracker.Stage.END_TO_END));
+        assertEquals(0, count(LatencyTracker.Stage.ALERT_END_TO_END));
+    }
+
+    @Test
+    @DisplayName("Should clamp clock skew to zero and clear on reset")
+    void testRecord_ClampAndReset() {
+        // Given: Consumer clock behind the producer's
+        tracker.record(LatencyTracker.Stage.KAFKA, 2_000_000, 1_000_000);
+        tracker.record(LatencyTracker.Stage.KAFKA, 0, LatencyTracker.MAX_LATENCY_MICROS * 2);
+
+        // Then: counted as zero; unknown start (0) skipped
+        assertEquals(1, count(LatencyTracker.Stage.KAFKA));
+        assertEquals(0.0, (double) tracker.getSnapshot().get("KAFKA").get("maxMs"));
+
+        // When
+        tracker.reset();
+
+        // Then
+        assertEquals(0, count(LatencyTracker.Stage.KAFKA));
+    }
+}
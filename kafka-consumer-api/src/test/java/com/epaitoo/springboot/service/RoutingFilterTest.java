@@ -0,0 +1,103 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the header-based filter in front of the parser
+ */
+class RoutingFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RoutingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Main-namespace human edits on English Wikipedia only
+        filter = new RoutingFilter(meterRegistry, Set.of("en.wikipedia.org"), Set.of(0), false);
+    }
+
+    private static Headers headers(String wiki, String namespace) {
+        Headers headers = new RecordHeaders();
+        headers.add(RoutingFilter.WIKI_HEADER, wiki.getBytes(StandardCharsets.UTF_8));
+        headers.add(RoutingFilter.NAMESPACE_HEADER, namespace.getBytes(StandardCharsets.US_ASCII));
+        return headers;
+    }
+
+    private double skipped(String reason) {
+        return meterRegistry.get("wikimedia.records.skipped").tag("reason", reason).counter().count();
+    }
+
+    private static WikimediaEditEvent event(String wiki, int namespace, boolean bot) {
+        WikimediaEditEvent event = new WikimediaEditEvent();
+        event.setWiki(wiki);
+        event.setNamespace(namespace);
+        event.setIsBot(bot);
+        return event;
+    }
+
+    // ==================== HEADERS ====================
+
+    @Test
+    @DisplayName("Should accept records whose headers are in scope")
+    void testAccept_InScope() {
+        // When & Then
+        assertTrue(filter.accept(headers("en.wikipedia.org", "0")));
+    }
+
+    @Test
+    @DisplayName("Should skip records on their headers alone, counting why")
+    void testAccept_OutOfScope() {
+        // When & Then
+        assertFalse(filter.accept(headers("de.wikipedia.org", "0")));
+        assertFalse(filter.accept(headers("en.wikipedia.org", "1")));
+        assertFalse(filter.accept(headers("en.wikipedia.org", "-1")));
+        assertFalse(filter.accept(headers("en.wikipedia.org", "x")));
+
+        assertEquals(1, skipped("wiki"));
+        assertEquals(3, skipped("namespace"));
+    }
+
+    @Test
+    @DisplayName("Should let records without routing headers through to be parsed")
+    void testAccept_Unrouted() {
+        // When & Then
+        assertTrue(filter.accept(new RecordHeaders()));
+        assertEquals(1, meterRegistry.get("wikimedia.records.unrouted").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should accept everything when no wikis or namespaces are configured")
+    void testAccept_NoRestrictions() {
+        // Given
+        RoutingFilter all = new RoutingFilter(meterRegistry, Set.of(), Set.of(), true);
+
+        // When & Then
+        assertTrue(all.accept(headers("de.wikipedia.org", "4")));
+        assertTrue(all.accept(headers("commons.wikimedia.org", "14")));
+    }
+
+    // ==================== PARSED EVENTS ====================
+
+    @Test
+    @DisplayName("Should hold parsed events to the same rules as headers")
+    void testAccept_Event() {
+        // When & Then
+        assertTrue(filter.accept(event("en.wikipedia.org", 0, false)));
+        assertFalse(filter.accept(event("de.wikipedia.org", 0, false)));
+        assertFalse(filter.accept(event("en.wikipedia.org", 1, false)));
+        assertFalse(filter.accept(event("en.wikipedia.org", 0, true)));
+        assertEquals(1, skipped("bot"));
+    }
+}
@@ -0,0 +1,167 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the streaming recentchange parser
+ */
+class WikimediaEventParserTest {
+
+    // Shape of a real recentchange event, fields the parser doesn't need included
+    private static final String EDIT = """
+            {"$schema":"/mediawiki/recentchange/1.0.0",
+             "meta":{"uri":"https://en.wikipedia.org/wiki/Climate_Change","id":"7b3c","dt":"2024-03-01T12:00:00.250Z",
+                     "domain":"en.wikipedia.org","stream":"mediawiki.recentchange","offset":5432},
+             "id":1734021,"type":"edit","namespace":0,"title":"Climate_Change",
+             "comment":"rv \\"vandalism\\" {{tag}}","timestamp":1709294400,"user":"Alice","bot":false,
+             "minor":false,"patrolled":true,"length":{"old":5200,"new":5000},
+             "revision":{"old":1200000000,"new":1200000001},"tags":["mw-undo",{"nested":[1,2]}],
+             "server_name":"en.wikipedia.org","wiki":"enwiki"}
+            """;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WikimediaEventParser parser;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        parser = new WikimediaEventParser(meterRegistry);
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private double failures() {
+        return meterRegistry.get("wikimedia.parse.failures").counter().count();
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("wikimedia.parse.rejected").tag("reason", reason).counter().count();
+    }
+
+    // ==================== EDITS ====================
+
+    @Test
+    @DisplayName("Should read the detection fields straight from the record bytes")
+    void testParse_Bytes() {
+        // When
+        WikimediaEditEvent event = parser.parse(bytes(EDIT));
+
+        // Then
+        assertNotNull(event);
+        assertEquals("Climate_Change", event.getPageTitle());
+        assertEquals("Alice", event.getUsername());
+        assertEquals(1_709_294_400L, event.getTimestamp());
+        assertFalse(event.getIsBot());
+        assertEquals(0, event.getNamespace());
+        assertEquals("edit", event.getType());
+        assertEquals(5200, event.getLengthOld());
+        assertEquals(5000, event.getLengthNew());
+        assertEquals(-200, event.getLengthChange());
+        assertEquals(1_200_000_000L, event.getRevisionOld());
+        assertEquals(1_200_000_001L, event.getRevisionNew());
+        assertEquals("en.wikipedia.org", event.getWiki());
+        assertEquals("2024-03-01T12:00:00.250Z", event.getEventTime());
+        assertNull(event.getMeta());
+        assertNull(event.getLength());
+        assertNull(event.getRevision());
+    }
+
+    @Test
+    @DisplayName("Should give the same event for a String and its UTF-8 bytes")
+    void testParse_StringMatchesBytes() {
+        // Given
+        String json = EDIT.replace("Alice", "Zoë_😀");
+
+        // When & Then
+        assertEquals(parser.parse(bytes(json)), parser.parse(json));
+        assertEquals("Zoë_😀", parser.parse(bytes(json)).getUsername());
+    }
+
+    @Test
+    @DisplayName("Should default missing optional fields")
+    void testParse_Defaults() {
+        // When
+        WikimediaEditEvent event = parser.parse(bytes("""
+                {"type":"edit","title":"Page","user":"Bob","length":{"old":null,"new":12}}"""));
+
+        // Then
+        assertNotNull(event);
+        assertFalse(event.getIsBot());
+        assertEquals(-1, event.getNamespace());
+        assertEquals("unknown", event.getWiki());
+        assertNotNull(event.getTimestamp());
+        assertNull(event.getLengthOld());
+        assertEquals(0, event.getLengthChange());
+    }
+
+    @Test
+    @DisplayName("Should parse a producer-projected event exactly like the raw event")
+    void testParse_ProjectedMatchesRaw() throws Exception {
+        // Given: A raw event and the producer's projection of it (PayloadProjectorTest checks the pair)
+        byte[] raw = resource("/recentchange/edit.raw.json");
+        byte[] projected = resource("/recentchange/edit.projected.json");
+
+        // When
+        WikimediaEditEvent fromRaw = parser.parse(raw);
+        WikimediaEditEvent fromProjected = parser.parse(projected);
+
+        // Then
+        assertNotNull(fromRaw);
+        assertEquals(fromRaw, fromProjected);
+        assertEquals(1_200_000_000L, fromProjected.getRevisionOld());
+        assertEquals(1_200_000_001L, fromProjected.getRevisionNew());
+        assertEquals("en.wikipedia.org", fromProjected.getWiki());
+    }
+
+    private static byte[] resource(String name) throws Exception {
+        try (var in = WikimediaEventParserTest.class.getResourceAsStream(name)) {
+            return in.readAllBytes();
+        }
+    }
+
+    // ==================== REJECTED ====================
+
+    @Test
+    @DisplayName("Should skip non-edit and incomplete events without counting them as failures")
+    void testParse_NonEdit() {
+        // When & Then
+        assertNull(parser.parse(bytes(EDIT.replace("\"type\":\"edit\"", "\"type\":\"log\""))));
+        assertNull(parser.parse(bytes("{\"title\":\"Page\",\"user\":\"Bob\"}")));
+        assertNull(parser.parse(bytes("{\"type\":\"edit\",\"title\":\"Page\"}")));
+        assertEquals(0, failures());
+        assertEquals(2, rejected("not_edit"));
+        assertEquals(1, rejected("incomplete"));
+        assertEquals(3, meterRegistry.get("wikimedia.parse").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should count malformed payloads as failures")
+    void testParse_Malformed() {
+        // When & Then
+        assertNull(parser.parse(bytes("{not json")));
+        assertNull(parser.parse(bytes("[1,2,3]")));
+        assertNull(parser.parse(bytes("{\"title\":\"Page\",\"user\":")));
+        assertEquals(3, failures());
+    }
+
+    @Test
+    @DisplayName("Should count an edit that breaks after the pre-screen has passed it as a failure")
+    void testParse_MalformedAfterScreen() {
+        // When: the screen stops at the type, before the broken part
+        WikimediaEditEvent event = parser.parse(bytes("{\"type\":\"edit\",\"title\":\"P\",\"user\":\"U\",\"bot\":tru}"));
+
+        // Then
+        assertNull(event);
+        assertEquals(1, failures());
+    }
+}
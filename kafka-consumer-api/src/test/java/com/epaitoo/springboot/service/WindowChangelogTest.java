@@ -0,0 +1,180 @@
+package com.epaitoo.springboot.service;
+
+import com.epaitoo.springboot.entity.PageEditWindow;
+import com.epaitoo.springboot.entity.WikimediaEditEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the listener engine's window changelog (restores run against a MockConsumer)
+ */
+@ExtendWith(MockitoExtension.class)
+class WindowChangelogTest {
+
+    private static final String TOPIC = "page-edit-windows-changelog";
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MockConsumer<String, String> consumer;
+    private WindowChangelog changelog;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        Node node = new Node(0, "localhost", 9092);
+        consumer.updatePartitions(TOPIC, List.of(
+                new PartitionInfo(TOPIC, 0, node, null, null),
+                new PartitionInfo(TOPIC, 1, node, null, null)));
+        changelog = new WindowChangelog(kafkaTemplate, objectMapper, () -> consumer, TOPIC, Duration.ofSeconds(5),
+                meterRegistry);
+    }
+
+    private static PageEditWindow window(String title, int edits) {
+        PageEditWindow window = new PageEditWindow(title);
+        for (int i = 0; i < edits; i++) {
+            WikimediaEditEvent edit = new WikimediaEditEvent();
+            edit.setPageTitle(title);
+            edit.setUsername(i % 2 == 0 ? "Alice" : "Bob");
+            edit.setTimestamp(1_700_000_000L + i);
+            edit.setLengthOld(100);
+            edit.setLengthNew(200);
+            window.addEdit(edit);
+        }
+        return window;
+    }
+
+    private ConsumerRecord<String, String> record(int partition, long offset, String key, String value) {
+        int valueSize = value == null ? -1 : value.getBytes(StandardCharsets.UTF_8).length;
+        return new ConsumerRecord<>(TOPIC, partition, offset, 0L, TimestampType.CREATE_TIME,
+                key.length(), valueSize, key, value, new RecordHeaders(), Optional.empty());
+    }
+
+    private String json(PageEditWindow window) throws Exception {
+        return objectMapper.writeValueAsString(PageWindowState.of(window));
+    }
+
+    // ==================== WRITE ====================
+
+    @Test
+    @DisplayName("Should write window changes to the edit's partition, keyed by page")
+    void testAppend_SamePartitionAsSource() {
+        // Given
+        when(kafkaTemplate.send(anyString(), anyInt(), anyString(), any())).thenReturn(new CompletableFuture<>());
+
+        // When
+        changelog.append(2, "en.wikipedia.org:Page", PageWindowState.of(window("Page", 3)));
+        changelog.remove(2, "en.wikipedia.org:Old_Page");
+
+        // Then
+        verify(kafkaTemplate).send(eq(TOPIC), eq(2), eq("en.wikipedia.org:Page"), contains("\"pageTitle\":\"Page\""));
+        verify(kafkaTemplate).send(eq(TOPIC), eq(2), eq("en.wikipedia.org:Old_Page"), isNull());
+    }
+
+    @Test
+    @DisplayName("Should flush the writes and count the ones that failed")
+    void testFlush_ReportsFailedWrites() {
+        // Given: One write fails once sent, one before it is queued, one succeeds
+        when(kafkaTemplate.send(anyString(), anyInt(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("down")))
+                .thenThrow(new KafkaException("no metadata"))
+                .thenReturn(new CompletableFuture<>());
+        changelog.append(0, "en.wikipedia.org:Page_A", PageWindowState.of(window("Page_A", 1)));
+        changelog.remove(0, "en.wikipedia.org:Page_B");
+
+        // When & Then
+        assertFalse(changelog.flush());
+        verify(kafkaTemplate).flush();
+        assertEquals(2, meterRegistry.get("editwar.changelog.failures").counter().count());
+
+        // Then: Each failure is reported once; a write still unacknowledged after the flush is reported too
+        assertTrue(changelog.flush());
+        changelog.remove(1, "en.wikipedia.org:Page_C");
+        assertFalse(changelog.flush());
+    }
+
+    // ==================== RESTORE ====================
+
+    @Test
+    @DisplayName("Should rebuild the latest window per page and report records and bytes")
+    void testRestore_LatestWindowPerPage() throws Exception {
+        // Given: Partition 0 has two versions of one page and a deleted page
+        String v1 = json(window("Page_A", 2));
+        String v2 = json(window("Page_A", 4));
+        String other = json(window("Page_B", 1));
+        TopicPartition p0 = new TopicPartition(TOPIC, 0);
+        consumer.updateBeginningOffsets(Map.of(p0, 0L));
+        consumer.updateEndOffsets(Map.of(p0, 4L));
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(record(0, 0, "en.wikipedia.org:Page_A", v1));
+            consumer.addRecord(record(0, 1, "en.wikipedia.org:Page_B", other));
+            consumer.addRecord(record(0, 2, "en.wikipedia.org:Page_A", v2));
+            consumer.addRecord(record(0, 3, "en.wikipedia.org:Page_B", null));
+        });
+
+        // When
+        Map<String, PageEditWindow> restored = new HashMap<>();
+        WindowChangelog.RestoreStats stats = changelog.restore(List.of(0), (partition, key, window) -> {
+            if (window == null) restored.remove(key);
+            else restored.put(key, window);
+        });
+
+        // Then
+        assertEquals(1, restored.size());
+        assertEquals(4, restored.get("en.wikipedia.org:Page_A").getEditCount());
+        assertEquals(4, stats.records());
+        long expectedBytes = 4L * "en.wikipedia.org:Page_A".length()
+                + v1.length() + other.length() + v2.length();
+        assertEquals(expectedBytes, stats.bytes());
+        assertTrue(consumer.closed());
+    }
+
+    @Test
+    @DisplayName("Should skip partitions the changelog does not have and finish on empty ones")
+    void testRestore_MissingAndEmptyPartitions() {
+        // Given: Partition 1 is empty, partition 5 does not exist
+        consumer.updateBeginningOffsets(Map.of(new TopicPartition(TOPIC, 1), 0L));
+        consumer.updateEndOffsets(Map.of(new TopicPartition(TOPIC, 1), 0L));
+
+        // When
+        WindowChangelog.RestoreStats stats = changelog.restore(List.of(1, 5), (partition, key, window) ->
+                fail("Nothing to restore"));
+
+        // Then
+        assertEquals(0, stats.records());
+        assertEquals(List.of(new TopicPartition(TOPIC, 1)), List.copyOf(consumer.assignment()));
+    }
+}
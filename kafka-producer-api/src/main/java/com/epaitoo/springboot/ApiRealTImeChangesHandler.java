@@ -4,28 +4,97 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.launchdarkly.eventsource.MessageEvent;
 import com.launchdarkly.eventsource.background.BackgroundEventHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public class ApiRealTImeChangesHandler implements BackgroundEventHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ApiRealTImeChangesHandler.class);
+    private static final LogSampler EDIT_LOG = LogSampler.of(LOGGER, "edit.sent", 1, Duration.ofSeconds(1));
 
-    // Only process English Wikipedia
-    private static final Set<String> MONITORED_WIKIS = Set.of(
-            "en.wikipedia.org"
-    );
+    // Latency stamps (microseconds since the epoch) read by the consumer's LatencyTracker: keep in sync
+    static final String RECEIVED_HEADER = "wiki-received-us";
+    static final String SENT_HEADER = "wiki-sent-us";
+    // Routing fields read by the consumer's RoutingFilter, so it can skip records without parsing them.
+    // Only these two: every forwarded event is a human edit, so a type or bot header would be constant
+    static final String WIKI_HEADER = "wiki-domain";
+    static final String NAMESPACE_HEADER = "wiki-ns";
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final String topic;
+    /**
+     * What goes on the topic for each forwarded edit
+     */
+    public enum Payload {
+        /** The event as received from Wikimedia */
+        RAW,
+        /** Only the fields the consumer reads, see {@link PayloadProjector} */
+        PROJECTED,
+        /** The event as received, encoded by {@link EditEventSerializer} (the value serializer in this mode) */
+        BINARY
+    }
+
+    /**
+     * Event counters of one wiki: the reader thread looks them up once per event, without
+     * building tags or going through the registry
+     */
+    private record WikiCounters(String wiki, Counter received, Counter sent, Map<String, Counter> filtered) {
+    }
+
+    private final EditSender sender;
+    private final WikiRouter router;
+    private final DuplicateFilter duplicates;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PayloadProjector projector;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary payloadSize;
+    private final Map<String, WikiCounters> wikiCounters = new ConcurrentHashMap<>();
+    // SSE id of the newest event handled (sent or filtered), the stream's resume point
+    private volatile String lastEventId;
+
+    public ApiRealTImeChangesHandler(KafkaTemplate<String, String> kafkaTemplate, String topic,
+                                     MeterRegistry meterRegistry) {
+        this(kafkaTemplate, topic, Payload.RAW, meterRegistry);
+    }
+
+    public ApiRealTImeChangesHandler(KafkaTemplate<String, String> kafkaTemplate, String topic,
+                                     Payload payload, MeterRegistry meterRegistry) {
+        this(new EditSender(kafkaTemplate, EditSender.DEFAULT_MAX_IN_FLIGHT, meterRegistry), topic, payload, meterRegistry);
+    }
+
+    public ApiRealTImeChangesHandler(EditSender sender, String topic, Payload payload, MeterRegistry meterRegistry) {
+        this(sender, WikiRouter.single(topic), payload, meterRegistry);
+    }
 
-    public ApiRealTImeChangesHandler(KafkaTemplate<String, String> kafkaTemplate, String topic) {
-        this.kafkaTemplate = kafkaTemplate;
-        this.topic = topic;
+    public ApiRealTImeChangesHandler(EditSender sender, WikiRouter router, Payload payload, MeterRegistry meterRegistry) {
+        this(sender, router, null, payload, meterRegistry);
+    }
+
+    /**
+     * @param duplicates Drops edits already forwarded, null = forward every edit
+     */
+    public ApiRealTImeChangesHandler(EditSender sender, WikiRouter router, DuplicateFilter duplicates,
+                                     Payload payload, MeterRegistry meterRegistry) {
+        this.sender = sender;
+        this.router = router;
+        this.duplicates = duplicates;
+        this.projector = payload == Payload.PROJECTED ? new PayloadProjector(objectMapper) : null;
+        this.meterRegistry = meterRegistry;
+        // Binary values are sized by the serializer: see the Kafka client's record-size metrics
+        this.payloadSize = payload == Payload.BINARY ? null : DistributionSummary.builder("wikimedia.events.sent.size")
+                .description("Record value length in characters (about bytes, events are mostly ASCII), before compression")
+                .tag("payload", payload.name().toLowerCase())
+                .register(meterRegistry);
     }
 
     @Override
@@ -38,8 +107,36 @@ public class ApiRealTImeChangesHandler implements BackgroundEventHandler {
         LOGGER.info("Connection to Wikimedia CLOSED");
     }
 
+    /**
+     * Tell whether an edit was lost since this handler started, when sent or when Kafka failed it
+     */
+    public boolean isLost() {
+        return sender.isLost();
+    }
+
+    /**
+     * Get the SSE id of the newest event handled; its record (if any) is in Kafka's hands or
+     * the spill buffer. Stops moving once an edit has been lost, so the producer's replay covers it.
+     * A loss found when Kafka fails a record comes later, so the id may already be past it:
+     * the producer then keeps its previous checkpoint.
+     */
+    public String getLastEventId() {
+        return lastEventId;
+    }
+
     @Override
     public void onMessage(String s, MessageEvent messageEvent) throws Exception {
+        try {
+            handle(messageEvent);
+        } finally {
+            if (messageEvent.getLastEventId() != null && !isLost()) {
+                lastEventId = messageEvent.getLastEventId();
+            }
+        }
+    }
+
+    private void handle(MessageEvent messageEvent) {
+        long receivedMicros = nowMicros();
         String data = messageEvent.getData();
 
         try {
@@ -53,33 +150,105 @@ public class ApiRealTImeChangesHandler implements BackgroundEventHandler {
                 wiki = json.get("meta").get("domain").asText();
             }
 
-            // Skip if not a monitored wiki
-            if (wiki == null || !MONITORED_WIKIS.contains(wiki)) {
+            WikiCounters counters = counters(wiki == null ? "unknown" : wiki);
+            counters.received().increment();
+
+            // Skip if not a monitored wiki (producer.routing)
+            WikiRouter.Destination destination = wiki == null ? null : router.route(wiki);
+            if (destination == null) {
+                filtered(counters, "wiki");
                 return;
             }
 
             // Only process "edit" type events
             String type = json.has("type") ? json.get("type").asText() : "";
             if (!"edit".equals(type)) {
+                filtered(counters, "type");
                 return;
             }
 
             // Skip bot edits
             boolean isBot = json.has("bot") && json.get("bot").asBoolean();
             if (isBot) {
+                filtered(counters, "bot");
+                return;
+            }
+
+            // Skip edits already forwarded (replayed around reconnects and restarts)
+            if (duplicates != null && duplicates.isDuplicate(wiki,
+                    json.path("revision").path("new").asLong(0), json.path("id").asLong(0))) {
+                filtered(counters, "duplicate");
                 return;
             }
 
-            LOGGER.info("Processing edit: {}",
-                    json.has("title") ? json.get("title").asText() : "unknown");
+            String title = json.has("title") ? json.get("title").asText() : "unknown";
+            int namespace = json.path("namespace").asInt(-1);
+            EDIT_LOG.info("Processing edit: {}", title);
 
-            kafkaTemplate.send(topic, data);
+            // Key by page (wiki:title): all edits of a page land on the same partition, in order
+            String value = projector == null ? data : projector.project(json);
+            if (payloadSize != null) {
+                payloadSize.record(value.length());
+            }
+            String key = wiki + ":" + title;
+            ProducerRecord<String, String> record = new ProducerRecord<>(
+                    destination.topic(), destination.partition(key), key, value);
+            route(record, wiki, namespace);
+            stamp(record, RECEIVED_HEADER, receivedMicros);
+            stamp(record, SENT_HEADER, nowMicros());
+            if (!sender.send(record)) {
+                return;  // lost (logged by the sender): the resume point stays before it until it is replayed
+            }
+            counters.sent().increment();
 
         } catch (Exception e) {
             LOGGER.debug("Failed to parse event: {}", e.getMessage());
         }
     }
 
+    private static void route(ProducerRecord<String, String> record, String wiki, int namespace) {
+        record.headers()
+                .add(WIKI_HEADER, wiki.getBytes(StandardCharsets.UTF_8))
+                .add(NAMESPACE_HEADER, Integer.toString(namespace).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void stamp(ProducerRecord<String, String> record, String header, long micros) {
+        record.headers().add(header, Long.toString(micros).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long nowMicros() {
+        Instant now = Instant.now();
+        return TimeUnit.SECONDS.toMicros(now.getEpochSecond()) + now.getNano() / 1_000;
+    }
+
+    /**
+     * Get a wiki's counters, registering them on its first event
+     */
+    private WikiCounters counters(String wiki) {
+        WikiCounters counters = wikiCounters.get(wiki);
+        return counters != null ? counters : wikiCounters.computeIfAbsent(wiki, w -> new WikiCounters(w,
+                Counter.builder("wikimedia.events.received")
+                        .description("Events read from the Wikimedia stream")
+                        .tag("wiki", w)
+                        .register(meterRegistry),
+                Counter.builder("wikimedia.events.sent")
+                        .description("Edits handed to Kafka or the spill buffer")
+                        .tag("wiki", w)
+                        .register(meterRegistry),
+                new ConcurrentHashMap<>()));
+    }
+
+    private void filtered(WikiCounters counters, String reason) {
+        Counter counter = counters.filtered().get(reason);
+        if (counter == null) {
+            counter = counters.filtered().computeIfAbsent(reason, r -> Counter.builder("wikimedia.events.filtered")
+                    .description("Events not forwarded, by reason")
+                    .tags("wiki", counters.wiki(), "reason", r)
+                    .register(meterRegistry));
+        }
+        counter.increment();
+    }
+
     @Override
     public void onComment(String s) throws Exception {
     }
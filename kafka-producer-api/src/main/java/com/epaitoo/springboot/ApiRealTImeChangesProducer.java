@@ -2,66 +2,240 @@ package com.epaitoo.springboot;
 
 import com.launchdarkly.eventsource.ConnectStrategy;
 import com.launchdarkly.eventsource.EventSource;
-import com.launchdarkly.eventsource.background.BackgroundEventHandler;
+import com.launchdarkly.eventsource.RetryDelayStrategy;
 import com.launchdarkly.eventsource.background.BackgroundEventSource;
+import com.launchdarkly.eventsource.background.ConnectionErrorHandler;
+import io.micrometer.core.instrument.MeterRegistry;
 import okhttp3.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Streams Wikimedia recentchange events into Kafka for as long as the application runs
+ *
+ * Started and stopped with the application context. The event source reconnects on its own
+ * with capped exponential backoff, sending the last event id so no events are skipped. That
+ * id is also checkpointed to a local file (producer.checkpoint.file) once everything before
+ * it is acknowledged by Kafka, so a restarted producer resumes where it stopped. Events
+ * between the last checkpoint and a crash are sent again.
+ *
+ * Sends go through an EditSender: the stream's reader thread never waits on Kafka, and
+ * while the broker is unreachable edits collect in a memory-mapped spill buffer
+ * (producer.spill.file) that is sent back in order when it returns.
+ *
+ * If the spill buffer overflows, edits are lost and the checkpoint stops moving. Once the
+ * buffer has drained, the producer reconnects from that checkpoint to replay them (with the
+ * duplicate filter cleared, as it holds the lost edits) and checkpoints resume.
+ */
 @Service
-public class ApiRealTImeChangesProducer {
+@ConditionalOnProperty(name = "producer.source", havingValue = "wikimedia", matchIfMissing = true)
+public class ApiRealTImeChangesProducer implements SmartLifecycle {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ApiRealTImeChangesProducer.class);
 
-    private KafkaTemplate<String, String> kafkaTemplate;
-
-    public ApiRealTImeChangesProducer(KafkaTemplate<String, String> kafkaTemplate) {
+    static final String TOPIC = "wikimedia-stream-api";
+    private static final String URL = "https://stream.wikimedia.org/v2/stream/recentchange";
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final WikiRouter router;
+    private final DuplicateFilter duplicates;
+    private final MeterRegistry meterRegistry;
+    private final ApiRealTImeChangesHandler.Payload payload;
+    private final EventIdCheckpoint checkpoint;
+    private final Duration checkpointInterval;
+    private final Duration reconnectDelay;
+    private final Duration maxReconnectDelay;
+    private final int maxInFlight;
+    private final Path spillFile;
+    private final DataSize spillCapacity;
+    private final Duration drainInterval;
+
+    private EditSender sender;
+    // Replaced by a reconnect after lost edits, on the checkpoint thread
+    private volatile ApiRealTImeChangesHandler handler;
+    private volatile BackgroundEventSource eventSource;
+    private ScheduledExecutorService checkpointer;
+    private volatile boolean running;
+
+    public ApiRealTImeChangesProducer(
+            KafkaTemplate<String, String> kafkaTemplate,
+            WikiRouter router,
+            DuplicateFilter duplicates,
+            MeterRegistry meterRegistry,
+            @Value("${producer.payload:PROJECTED}") ApiRealTImeChangesHandler.Payload payload,
+            @Value("${producer.checkpoint.file:data/wikimedia-last-event-id}") Path checkpointFile,
+            @Value("${producer.checkpoint.interval:5s}") Duration checkpointInterval,
+            @Value("${producer.reconnect.initial-delay:1s}") Duration reconnectDelay,
+            @Value("${producer.reconnect.max-delay:60s}") Duration maxReconnectDelay,
+            @Value("${producer.in-flight.max:10000}") int maxInFlight,
+            @Value("${producer.spill.file:data/wikimedia-spill}") Path spillFile,
+            @Value("${producer.spill.capacity:256MB}") DataSize spillCapacity,
+            @Value("${producer.spill.drain-interval:1s}") Duration drainInterval
+    ) {
         this.kafkaTemplate = kafkaTemplate;
+        this.router = router;
+        this.duplicates = duplicates;
+        this.meterRegistry = meterRegistry;
+        this.payload = payload;
+        this.checkpoint = new EventIdCheckpoint(checkpointFile);
+        this.checkpointInterval = checkpointInterval;
+        this.reconnectDelay = reconnectDelay;
+        this.maxReconnectDelay = maxReconnectDelay;
+        this.maxInFlight = maxInFlight;
+        this.spillFile = spillFile;
+        this.spillCapacity = spillCapacity;
+        this.drainInterval = drainInterval;
+        if (spillCapacity.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("producer.spill.capacity is limited to 2GB (one mapping)");
+        }
     }
 
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        try {
+            SpillBuffer spill = new SpillBuffer(spillFile, (int) spillCapacity.toBytes());
+            sender = new EditSender(kafkaTemplate, maxInFlight, spill, drainInterval, meterRegistry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the spill buffer " + spillFile, e);
+        }
+        if (handler != null && handler.isLost()) {
+            // The lost edits are in the filter but not in Kafka: let the replay through
+            duplicates.clear();
+        }
+        running = true;
+        connect();
+
+        checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-id-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(this::checkpoint,
+                checkpointInterval.toMillis(), checkpointInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
 
-    public void sendMessage() throws InterruptedException {
-        LOGGER.info("STARTING TO CONNECT TO WIKIMEDIA...");
-
-        String topic = "wikimedia-stream-api";
-        String url = "https://stream.wikimedia.org/v2/stream/recentchange";
-
-
-        BackgroundEventHandler backgroundEventHandler = new ApiRealTImeChangesHandler(kafkaTemplate, topic);
-        LOGGER.info("Building EventSource for URL: {}", url);
+    /**
+     * Open the stream with a new handler, from the checkpoint
+     */
+    private void connect() {
+        handler = new ApiRealTImeChangesHandler(sender, router, duplicates, payload, meterRegistry);
+        String lastEventId = checkpoint.load();
+        LOGGER.info("Connecting to {} ({})", URL,
+                lastEventId == null ? "live edge" : "resuming after event " + lastEventId);
 
         Headers headers = new Headers.Builder()
                 .add("User-Agent", "SpringBootKafkaApp/1.0 (johnsmith@gmail.com) EditWarDetector")
                 .build();
+        EventSource.Builder eventSourceBuilder = new EventSource.Builder(
+                ConnectStrategy.http(URI.create(URL)).headers(headers))
+                .lastEventId(lastEventId)
+                .retryDelay(reconnectDelay.toMillis(), TimeUnit.MILLISECONDS)
+                .retryDelayStrategy(RetryDelayStrategy.defaultStrategy()
+                        .maxDelay(maxReconnectDelay.toMillis(), TimeUnit.MILLISECONDS)
+                        .backoffMultiplier(2))
+                // A connection that stayed up this long starts the next backoff from the beginning
+                .retryDelayResetThreshold(1, TimeUnit.MINUTES);
+
+        eventSource = new BackgroundEventSource.Builder(handler, eventSourceBuilder)
+                .threadPriority(Thread.NORM_PRIORITY)
+                .connectionErrorHandler(this::onConnectionError)
+                .build();
+        eventSource.start();
+    }
 
-        ConnectStrategy connectStrategy = ConnectStrategy.http(URI.create(url))
-                .headers(headers);
-
-
-        EventSource.Builder eventSourceBuilder = new EventSource.Builder(connectStrategy);
-
-        BackgroundEventSource.Builder backgroundEventSourceBuilder =
-                new BackgroundEventSource.Builder(backgroundEventHandler, eventSourceBuilder);
-
-        backgroundEventSourceBuilder.threadPriority(Thread.NORM_PRIORITY);
-
-        BackgroundEventSource backgroundEventSource = backgroundEventSourceBuilder.build();
-        LOGGER.info("Starting BackgroundEventSource...");
-        backgroundEventSource.start();
+    /**
+     * Stop reading, wait for in-flight sends (failures are spilled) and save the resume point
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LOGGER.info("Stopping the Wikimedia stream");
+        // First, so a reconnect in progress is done before its stream is closed
+        checkpointer.shutdown();
+        try {
+            checkpointer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        eventSource.close();
+        String lastEventId = handler.getLastEventId();
+        sender.close();
+        if (sender.isLost()) {
+            LOGGER.warn("Wikimedia stream stopped after losing edits: resuming from the previous checkpoint");
+            return;
+        }
+        checkpoint.save(lastEventId);
+        LOGGER.info("Wikimedia stream stopped (resume point: {})", lastEventId);
+    }
 
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
 
-        LOGGER.info("EventSource started! Listening for Wikimedia events for 8 minutes...");
-        LOGGER.info("If you don't see events, check:");
-        LOGGER.info("  1. Internet connection");
-        LOGGER.info("  2. Wikimedia URL is accessible: {}", url);
-        LOGGER.info("  3. Check ApiRealTImeChangesHandler for errors");
+    /**
+     * Save the newest event id once every edit before it is acknowledged or on disk in the spill buffer
+     *
+     * Once an edit is lost the checkpoint stays where it is: the previous one was saved with
+     * every edit before it accounted for, so the lost edit comes after it. When the spill
+     * buffer has drained, the stream is replayed from there (see replayLost()).
+     */
+    private void checkpoint() {
+        try {
+            String lastEventId = handler.getLastEventId();  // read before the flush: it covers this id
+            sender.flush();
+            if (sender.isLost()) {
+                if (sender.isSpillEmpty() && running) {
+                    replayLost();
+                }
+                return;
+            }
+            checkpoint.save(lastEventId);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Checkpoint failed: {}", e.getMessage());
+        }
+    }
 
-        TimeUnit.MINUTES.sleep(8);
+    /**
+     * Reconnect from the checkpoint, which is before every lost edit, so they are sent again
+     *
+     * The edits between the checkpoint and the loss that did reach Kafka are sent twice. The
+     * sender's loss is cleared only after the old stream is closed and its sends flushed: a
+     * record it loses after all is caught by the next checkpoint, which replays again.
+     */
+    private void replayLost() {
+        LOGGER.warn("Spill buffer drained after losing edits: replaying the stream from the last checkpoint");
+        eventSource.close();
+        sender.flush();
+        // The lost edits are in the filter but not in Kafka: let the replay through
+        duplicates.clear();
+        sender.clearLost();
+        connect();
+    }
 
+    private ConnectionErrorHandler.Action onConnectionError(Throwable error) {
+        // The handler's onError logs the failure; keep retrying (with backoff) unless stopping
+        return running ? ConnectionErrorHandler.Action.PROCEED : ConnectionErrorHandler.Action.SHUTDOWN;
     }
 }
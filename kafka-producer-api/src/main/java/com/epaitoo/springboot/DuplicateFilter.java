@@ -0,0 +1,144 @@
+package com.epaitoo.springboot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Remembers recently forwarded events to drop ones Wikimedia delivers again (around
+ * reconnects, and when a restarted producer resumes from its checkpoint)
+ *
+ * An event is identified by its wiki and revision id (revision.new), or by its recentchange
+ * id if it has no revision. The ids go into a rotating pair of Bloom filters of fixed size:
+ * new ids are added to the current one, lookups check both, and every window (or once the
+ * current filter holds expectedEvents ids) the older one is cleared and becomes current. An id
+ * is therefore remembered for at least one window and at most two, in constant memory.
+ *
+ * A Bloom filter can mistake a new id for a seen one, never the other way round. Sized for
+ * expectedEvents ids per window, that happens to falsePositiveRate of new events, up to twice
+ * that as both filters are checked; they are dropped as duplicates.
+ */
+@Component
+public class DuplicateFilter {
+
+    private final long windowNanos;
+    private final int expectedEvents;
+    private final int hashes;
+    private final int bits;
+    private long[] current;
+    private long[] previous;
+    private int added;
+    private long rotatedAt;
+
+    private final Counter rotations;
+
+    public DuplicateFilter(
+            MeterRegistry meterRegistry,
+            @Value("${producer.dedup.window:10m}") Duration window,
+            @Value("${producer.dedup.expected-events:100000}") int expectedEvents,
+            @Value("${producer.dedup.false-positive-rate:0.0001}") double falsePositiveRate
+    ) {
+        if (expectedEvents < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("producer.dedup: need expected-events >= 1 and 0 < false-positive-rate < 1");
+        }
+        this.windowNanos = window.toNanos();
+        this.expectedEvents = expectedEvents;
+        // Optimal Bloom filter size and hash count for n ids at false positive rate p
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedEvents * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bits = (int) Math.min(Math.max(optimalBits, 64), Integer.MAX_VALUE - 63);
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedEvents * ln2));
+        this.current = new long[(bits + 63) / 64];
+        this.previous = new long[current.length];
+        this.rotatedAt = System.nanoTime();
+
+        this.rotations = Counter.builder("wikimedia.dedup.rotations")
+                .description("Times the older duplicate filter was cleared")
+                .register(meterRegistry);
+        Gauge.builder("wikimedia.dedup.load", this, filter -> (double) filter.added / filter.expectedEvents)
+                .description("Ids in the current duplicate filter, relative to its capacity")
+                .register(meterRegistry);
+        Gauge.builder("wikimedia.dedup.memory", this, filter -> 2L * filter.current.length * Long.BYTES)
+                .description("Memory of the duplicate filters")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record an event and tell whether it was seen before
+     *
+     * @param wiki The event's wiki
+     * @param revision revision.new, or 0 if it has none
+     * @param rcId The recentchange id, used without a revision
+     * @return true if the event is (probably) a duplicate
+     */
+    public synchronized boolean isDuplicate(String wiki, long revision, long rcId) {
+        rotateIfDue();
+        // Revision ids and recentchange ids are separate sequences: mix in which one this is
+        long id = revision > 0 ? revision : ~rcId;
+        long hash1 = mix(wiki.hashCode() * 0x9E3779B97F4A7C15L ^ id);
+        long hash2 = mix(hash1 ^ 0xC2B2AE3D27D4EB4FL) | 1;  // odd, so the probes cover the filter
+
+        // Add to the current filter (also for ids from the previous one, so they live on)
+        boolean inCurrent = true;
+        boolean inPrevious = true;
+        for (int i = 0; i < hashes; i++) {
+            // Map the probe's top 32 bits onto [0, bits) with a multiply instead of a division
+            int bit = (int) (((hash1 + i * hash2) >>> 32) * bits >>> 32);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            if ((current[word] & mask) == 0) {
+                current[word] |= mask;
+                inCurrent = false;
+            }
+            if ((previous[word] & mask) == 0) {
+                inPrevious = false;
+            }
+        }
+        if (!inCurrent) {
+            added++;
+        }
+        return inCurrent || inPrevious;
+    }
+
+    /**
+     * Forget every id
+     */
+    public synchronized void clear() {
+        Arrays.fill(current, 0L);
+        Arrays.fill(previous, 0L);
+        added = 0;
+        rotatedAt = System.nanoTime();
+    }
+
+    private void rotateIfDue() {
+        long now = System.nanoTime();
+        if (now - rotatedAt < windowNanos && added < expectedEvents) {
+            return;
+        }
+        long[] cleared = previous;
+        Arrays.fill(cleared, 0L);
+        previous = current;
+        current = cleared;
+        added = 0;
+        rotatedAt = now;
+        rotations.increment();
+    }
+
+    /**
+     * Stable 64-bit mixer (MurmurHash3's finalizer)
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE53A87CDL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,279 @@
+package com.epaitoo.springboot;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Value serializer that writes recentchange edits in the compact binary form the consumer's
+ * EditEventCodec reads (producer.payload=BINARY)
+ *
+ * Takes the event's JSON text, streams over it for the fields the consumer reads and
+ * encodes those. The record gets a wiki-format header naming the encoding; anything that
+ * isn't an edit with a title and user goes out unchanged as JSON, without the header.
+ *
+ * Version 2, integers as unsigned LEB128 varints (signed ones zigzag-encoded first):
+ *   byte     version (2)
+ *   byte     flags: 1 bot, 2 namespace, 4 timestamp, 8 length.old, 16 length.new,
+ *            32 revision.old, 64 revision.new
+ *   varint   wiki (meta.domain): 1 + index into WIKIS, or 0 followed by the name as a string
+ *   string   title, user, meta.dt (varint UTF-8 byte count, then the bytes; empty = no meta.dt)
+ *   zigzag   namespace, if flagged
+ *   varint   timestamp (seconds), if flagged
+ *   zigzag   length.old, length.new, if flagged
+ *   varint   revision.old, revision.new, if flagged
+ *
+ * Version 1 (header edit-v1) is the same without the revision ids; consumers still read it.
+ * The layout, the header and WIKIS are shared with EditEventCodec: keep them in sync, and
+ * only ever append to WIKIS (a new entry in a new version). Both modules' tests share recorded
+ * records (kafka-consumer-api/src/test/resources/recentchange) that fail when they drift;
+ * a format change means re-recording them.
+ */
+public class EditEventSerializer implements Serializer<String> {
+
+    static final String FORMAT_HEADER = "wiki-format";
+    static final byte[] FORMAT_V2 = "edit-v2".getBytes(StandardCharsets.US_ASCII);
+    static final byte VERSION_2 = 2;
+
+    static final List<String> WIKIS = List.of(
+            "en.wikipedia.org", "commons.wikimedia.org", "www.wikidata.org", "de.wikipedia.org",
+            "fr.wikipedia.org", "es.wikipedia.org", "ja.wikipedia.org", "ru.wikipedia.org",
+            "it.wikipedia.org", "zh.wikipedia.org", "pt.wikipedia.org", "pl.wikipedia.org",
+            "nl.wikipedia.org", "ar.wikipedia.org", "uk.wikipedia.org", "fa.wikipedia.org",
+            "sv.wikipedia.org", "meta.wikimedia.org", "species.wikimedia.org", "en.wiktionary.org");
+
+    static final int FLAG_BOT = 1;
+    static final int FLAG_NAMESPACE = 2;
+    static final int FLAG_TIMESTAMP = 4;
+    static final int FLAG_LENGTH_OLD = 8;
+    static final int FLAG_LENGTH_NEW = 16;
+    static final int FLAG_REVISION_OLD = 32;
+    static final int FLAG_REVISION_NEW = 64;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Fields of one edit, as read from its JSON
+     */
+    private static final class Edit {
+        String type;
+        String title;
+        String user;
+        String wiki;
+        String eventTime;
+        boolean bot;
+        Integer namespace;
+        Long timestamp;
+        Integer lengthOld;
+        Integer lengthNew;
+        Long revisionOld;
+        Long revisionNew;
+    }
+
+    @Override
+    public byte[] serialize(String topic, String data) {
+        // No headers to label the record with, so it can only go out as JSON
+        return data == null ? null : data.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, String data) {
+        if (data == null) {
+            return null;
+        }
+        Edit edit = read(data);
+        if (edit == null) {
+            return data.getBytes(StandardCharsets.UTF_8);
+        }
+        headers.add(FORMAT_HEADER, FORMAT_V2);
+        return encode(edit);
+    }
+
+    /**
+     * The edit's fields, or null if it isn't a readable edit with a title and user
+     */
+    private Edit read(String json) {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            Edit edit = new Edit();
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "type" -> edit.type = text(parser, token);
+                    case "title" -> edit.title = text(parser, token);
+                    case "user" -> edit.user = text(parser, token);
+                    case "timestamp" -> edit.timestamp = token == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+                    case "bot" -> edit.bot = parser.getValueAsBoolean();
+                    case "namespace" -> edit.namespace = integer(parser, token);
+                    case "length" -> readObject(parser, token, (name, value) -> {
+                        switch (name) {
+                            case "old" -> edit.lengthOld = integer(parser, value);
+                            case "new" -> edit.lengthNew = integer(parser, value);
+                            default -> parser.skipChildren();
+                        }
+                    });
+                    case "revision" -> readObject(parser, token, (name, value) -> {
+                        switch (name) {
+                            case "old" -> edit.revisionOld = longValue(parser, value);
+                            case "new" -> edit.revisionNew = longValue(parser, value);
+                            default -> parser.skipChildren();
+                        }
+                    });
+                    case "meta" -> readObject(parser, token, (name, value) -> {
+                        switch (name) {
+                            case "domain" -> edit.wiki = text(parser, value);
+                            case "dt" -> edit.eventTime = text(parser, value);
+                            default -> parser.skipChildren();
+                        }
+                    });
+                    default -> parser.skipChildren();
+                }
+            }
+            boolean complete = "edit".equals(edit.type) && edit.title != null && edit.user != null;
+            return complete ? edit : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private interface FieldReader {
+        void read(String name, JsonToken value) throws IOException;
+    }
+
+    private static void readObject(JsonParser parser, JsonToken token, FieldReader reader) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            reader.read(field, parser.nextToken());
+        }
+    }
+
+    private static String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+
+    private static Integer integer(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+    }
+
+    private static Long longValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+    }
+
+    private static byte[] encode(Edit edit) {
+        Output out = new Output(16 + 2 * (edit.title.length() + edit.user.length()));
+        int flags = (edit.bot ? FLAG_BOT : 0)
+                | (edit.namespace != null ? FLAG_NAMESPACE : 0)
+                | (edit.timestamp != null ? FLAG_TIMESTAMP : 0)
+                | (edit.lengthOld != null ? FLAG_LENGTH_OLD : 0)
+                | (edit.lengthNew != null ? FLAG_LENGTH_NEW : 0)
+                | (edit.revisionOld != null ? FLAG_REVISION_OLD : 0)
+                | (edit.revisionNew != null ? FLAG_REVISION_NEW : 0);
+        out.write(VERSION_2);
+        out.write(flags);
+
+        int wiki = edit.wiki == null ? -1 : WIKIS.indexOf(edit.wiki);
+        if (wiki >= 0) {
+            out.varint(wiki + 1);
+        } else {
+            out.varint(0);
+            out.string(edit.wiki == null ? "unknown" : edit.wiki);
+        }
+        out.string(edit.title);
+        out.string(edit.user);
+        out.string(edit.eventTime == null ? "" : edit.eventTime);
+
+        if (edit.namespace != null) {
+            out.zigzag(edit.namespace);
+        }
+        if (edit.timestamp != null) {
+            out.varint(edit.timestamp);
+        }
+        if (edit.lengthOld != null) {
+            out.zigzag(edit.lengthOld);
+        }
+        if (edit.lengthNew != null) {
+            out.zigzag(edit.lengthNew);
+        }
+        if (edit.revisionOld != null) {
+            out.varint(edit.revisionOld);
+        }
+        if (edit.revisionNew != null) {
+            out.varint(edit.revisionNew);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Growable byte buffer with the varint and string writers
+     */
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        Output(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void write(int b) {
+            ensure(1);
+            buffer[size++] = (byte) b;
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void zigzag(int value) {
+            varint(Integer.toUnsignedLong((value << 1) ^ (value >> 31)));
+        }
+
+        void string(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, buffer, size, utf8.length);
+            size += utf8.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int bytes) {
+            if (size + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes));
+            }
+        }
+    }
+}
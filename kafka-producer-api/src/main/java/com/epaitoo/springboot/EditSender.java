@@ -0,0 +1,281 @@
+package com.epaitoo.springboot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends records to Kafka with at most maxInFlight of them unacknowledged, tracking every result
+ *
+ * Without a spill buffer, send() waits for a free slot, which throttles the workload
+ * generator to what the broker takes. With one (the live stream), send() never waits: a
+ * record goes to the spill buffer instead when every slot is taken, when older records are
+ * already waiting there, or when Kafka fails it (the broker stayed unreachable past
+ * delivery.timeout.ms). A drainer thread sends the buffer back in order, in batches. It
+ * removes the records Kafka acknowledged up to the first failure in a batch; the rest is
+ * retried on the next round. Records after a failed one that Kafka did take are therefore
+ * sent twice (the consumer sees them again), but no record is lost while it fits the buffer.
+ *
+ * The first failed record goes to the buffer as soon as Kafka reports it, and every record
+ * sent after that joins it behind. Records already in flight at that point can't be
+ * recalled: each fails on its own delivery timeout and joins the buffer behind the records
+ * spilled in the meantime. Around an outage a page's edits can therefore come out of order,
+ * by at most maxInFlight records.
+ *
+ * A record that doesn't fit the buffer is lost, found either by send() or, for a record
+ * Kafka failed, when its failure is reported. isLost() tells either way, so the caller can
+ * keep its resume point before the loss, until it has arranged to send the lost records
+ * again (clearLost()).
+ */
+public class EditSender implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EditSender.class);
+    private static final LogSampler FAILURE_LOG = LogSampler.of(LOGGER, "kafka.send.failed", 1, Duration.ofSeconds(10));
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 10_000;
+    private static final int DRAIN_BATCH = 500;
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final SpillBuffer spill;
+    private final ScheduledExecutorService drainer;
+    private final Timer sendSuccessTimer;
+    private final Timer sendFailureTimer;
+    private final Counter spilled;
+    private final Counter drained;
+    private final Counter dropped;
+    private volatile boolean closed;
+    private volatile boolean lost;
+
+    /**
+     * Sender that waits for a free slot when maxInFlight records are unacknowledged
+     */
+    public EditSender(KafkaTemplate<String, String> kafkaTemplate, int maxInFlight, MeterRegistry meterRegistry) {
+        this(kafkaTemplate, maxInFlight, null, null, meterRegistry);
+    }
+
+    /**
+     * Sender that never waits, spilling what Kafka can't take to a buffer drained every drainInterval
+     */
+    EditSender(KafkaTemplate<String, String> kafkaTemplate, int maxInFlight, SpillBuffer spill,
+               Duration drainInterval, MeterRegistry meterRegistry) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.kafkaTemplate = kafkaTemplate;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.spill = spill;
+        this.sendSuccessTimer = sendTimer("success", meterRegistry);
+        this.sendFailureTimer = sendTimer("failure", meterRegistry);
+        this.spilled = spillCounter("spilled", meterRegistry);
+        this.drained = spillCounter("drained", meterRegistry);
+        this.dropped = Counter.builder("wikimedia.spill.dropped")
+                .description("Records lost because the spill buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("wikimedia.kafka.inflight", permits, p -> maxInFlight - p.availablePermits())
+                .description("Records sent and not yet acknowledged")
+                .register(meterRegistry);
+
+        if (spill == null) {
+            drainer = null;
+            return;
+        }
+        Gauge.builder("wikimedia.spill.records", spill, SpillBuffer::getRecords)
+                .description("Records in the spill buffer, waiting to be sent")
+                .register(meterRegistry);
+        Gauge.builder("wikimedia.spill.bytes", spill, SpillBuffer::bytes)
+                .description("Spill buffer bytes in use")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spill-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Right away if a previous run left records behind
+        drainer.scheduleWithFixedDelay(this::drain, spill.isEmpty() ? drainInterval.toMillis() : 0,
+                drainInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static Timer sendTimer(String result, MeterRegistry meterRegistry) {
+        return Timer.builder("wikimedia.kafka.send")
+                .description("Time from send to broker acknowledgement")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter spillCounter(String operation, MeterRegistry meterRegistry) {
+        return Counter.builder("wikimedia.spill.operations")
+                .description("Records written to and drained from the spill buffer")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Send a record, or keep it in the spill buffer to send later
+     *
+     * @return false if the record is lost (the spill buffer is full); true doesn't rule out
+     *         losing it later, if Kafka fails it and the buffer is full by then: see isLost()
+     */
+    public boolean send(ProducerRecord<String, String> record) {
+        if (spill == null) {
+            permits.acquireUninterruptibly();
+        } else if (!spill.isEmpty() || !permits.tryAcquire()) {
+            return spill(record);
+        }
+        dispatch(record).whenComplete((result, ex) -> {
+            if (ex != null && spill != null) {
+                spill(record);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Hand a record to Kafka; the caller holds its permit, released on completion
+     */
+    private CompletableFuture<SendResult<String, String>> dispatch(ProducerRecord<String, String> record) {
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, String>> future;
+        try {
+            future = kafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            // Failures found before the record is queued (e.g. no metadata within max.block.ms)
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, ex) -> {
+            permits.release();
+            (ex == null ? sendSuccessTimer : sendFailureTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (ex != null) {
+                FAILURE_LOG.warn("Failed to send {} to Kafka{}: {}", record.key(),
+                        spill == null ? "" : " (spilled)", ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Tell whether a record was lost since this sender started, at send or when Kafka failed it
+     * (flush() first to have every record sent so far accounted for)
+     */
+    public boolean isLost() {
+        return lost;
+    }
+
+    /**
+     * Forget a loss, once the caller has arranged for the lost records to be sent again
+     */
+    void clearLost() {
+        lost = false;
+    }
+
+    /**
+     * Tell whether the spill buffer has nothing left to send (always true without one)
+     */
+    public boolean isSpillEmpty() {
+        return spill == null || spill.isEmpty();
+    }
+
+    private boolean spill(ProducerRecord<String, String> record) {
+        if (spill.append(record)) {
+            spilled.increment();
+            return true;
+        }
+        dropped.increment();
+        if (!lost) {
+            LOGGER.error("Spill buffer full, record {} lost (and any after it until the buffer drains)",
+                    record.key());
+        }
+        lost = true;
+        return false;
+    }
+
+    /**
+     * Send the spill buffer back to Kafka, a batch at a time, until it is empty or a batch fails
+     */
+    void drain() {
+        try {
+            SpillBuffer.Batch batch;
+            while (!closed && (batch = spill.peek(Math.min(DRAIN_BATCH, maxInFlight))) != null) {
+                permits.acquire(batch.records().size());
+                CompletableFuture<?>[] sends = batch.records().stream()
+                        .map(this::dispatch)
+                        .toArray(CompletableFuture[]::new);
+                try {
+                    CompletableFuture.allOf(sends).get();
+                } catch (ExecutionException e) {
+                    // Logged per record by dispatch
+                }
+
+                // Keep the acknowledged records up to the first failure; the rest is retried next round
+                int acked = 0;
+                while (acked < sends.length && !sends[acked].isCompletedExceptionally()) {
+                    acked++;
+                }
+                if (acked > 0) {
+                    spill.commit(batch.prefix(acked));
+                    drained.increment(acked);
+                }
+                if (acked < sends.length) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOGGER.error("Spill buffer drain failed", e);
+        }
+    }
+
+    /**
+     * Wait for every record handed to Kafka to complete (failures land in the spill buffer),
+     * then write the spill buffer to disk
+     */
+    public void flush() {
+        kafkaTemplate.flush();
+        if (spill != null) {
+            spill.force();
+        }
+    }
+
+    /**
+     * Stop draining, flush, and close the spill buffer; its records are sent by the next run
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (drainer != null) {
+            drainer.shutdownNow();
+            try {
+                drainer.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        kafkaTemplate.flush();
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException e) {
+                LOGGER.warn("Could not close the spill buffer: {}", e.getMessage());
+            }
+        }
+    }
+}
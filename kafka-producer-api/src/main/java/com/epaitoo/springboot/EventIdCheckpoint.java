@@ -0,0 +1,64 @@
+package com.epaitoo.springboot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The last Wikimedia SSE event id whose edit is safely in Kafka, kept in a local file so a
+ * restarted producer resumes the stream where it stopped (EventStreams replays from a
+ * Last-Event-ID for a few days)
+ */
+class EventIdCheckpoint {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventIdCheckpoint.class);
+
+    private final Path file;
+    private String saved;
+
+    EventIdCheckpoint(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Read the saved id
+     *
+     * @return The id, or null to start from the live edge (no file, or unreadable)
+     */
+    String load() {
+        try {
+            if (Files.exists(file)) {
+                String id = Files.readString(file, StandardCharsets.UTF_8).trim();
+                saved = id.isEmpty() ? null : id;
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not read the last event id from {}, starting from the live stream: {}",
+                    file, e.getMessage());
+        }
+        return saved;
+    }
+
+    /**
+     * Save an id, replacing the file atomically so a crash never leaves half an id; no-op if unchanged
+     */
+    synchronized void save(String id) {
+        if (id == null || id.equals(saved)) {
+            return;
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            Files.writeString(temp, id, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            saved = id;
+        } catch (IOException e) {
+            LOGGER.warn("Could not save the last event id to {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.epaitoo.springboot;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+@Configuration
+public class KafkaProducerConfig {
+
+    /**
+     * producer.payload=BINARY: the handler passes events through and the value serializer encodes them
+     */
+    @Bean
+    @ConditionalOnProperty(name = "producer.payload", havingValue = "BINARY")
+    public DefaultKafkaProducerFactoryCustomizer binaryEditSerializer() {
+        return factory -> factory.updateConfigs(
+                Map.of(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EditEventSerializer.class));
+    }
+}
@@ -4,12 +4,17 @@ import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
 
 @Configuration
 public class KafkaTopicConfig {
     @Bean
-    public NewTopic topic() {
-        return TopicBuilder.name("wikimedia-stream-api")
-                .build();
+    public KafkaAdmin.NewTopics topics(WikiRouter router) {
+        // Keyed by page, so each page's edits stay in order on one partition; one topic per route
+        return new KafkaAdmin.NewTopics(router.getTopics().stream()
+                .map(name -> TopicBuilder.name(name)
+                        .partitions(router.getPartitions())
+                        .build())
+                .toArray(NewTopic[]::new));
     }
 }
@@ -0,0 +1,80 @@
+package com.epaitoo.springboot;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the synthetic workload generator (producer.source=synthetic), prefix "loadgen"
+ *
+ * @param rate Mean events per second of simulated time (before the diurnal curve)
+ * @param events Events to generate, 0 = until stopped
+ * @param timeScale Simulated seconds per wall-clock second (1 = real time, 60 = a day in 24 min), 0 = unpaced
+ * @param output Where events go: KAFKA (through the same handler as the live stream) or FILE
+ * @param file File for FILE output, one JSON event per line (gzipped if it ends in .gz)
+ * @param pages Distinct English Wikipedia pages
+ * @param zipfExponent Skew of page popularity (0 = uniform, ~1 = Wikipedia-like)
+ * @param editRatio Share of "edit" events (the rest are "new", "log" and "categorize")
+ * @param botRatio Share of events made by bots
+ * @param otherWikiRatio Share of events on other wikis (filtered out by the producer)
+ * @param namespaceMix Namespace weights, "namespace:weight,..."
+ * @param seed Random seed, so runs are repeatable
+ */
+@ConfigurationProperties(prefix = "loadgen")
+public record LoadgenProperties(
+        @DefaultValue("5000") double rate,
+        @DefaultValue("0") long events,
+        @DefaultValue("1") double timeScale,
+        @DefaultValue("KAFKA") Output output,
+        @DefaultValue("edits.ndjson") Path file,
+        @DefaultValue("100000") int pages,
+        @DefaultValue("1.1") double zipfExponent,
+        @DefaultValue("0.8") double editRatio,
+        @DefaultValue("0.25") double botRatio,
+        @DefaultValue("0.6") double otherWikiRatio,
+        @DefaultValue("0:0.72,1:0.06,2:0.08,3:0.05,4:0.03,6:0.02,14:0.04") String namespaceMix,
+        @DefaultValue("42") long seed,
+        @DefaultValue War war,
+        @DefaultValue Diurnal diurnal
+) {
+
+    public enum Output { KAFKA, FILE }
+
+    /**
+     * How the editors of an injected war undo each other
+     * REVERT: exact reverts (lengths swing between two values), OPPOSING: one adds, the other
+     * removes varying amounts, MIXED: either, per edit
+     */
+    public enum RevertPattern { REVERT, OPPOSING, MIXED }
+
+    /**
+     * Injected edit wars, running concurrently on random main-namespace pages
+     *
+     * @param concurrent Wars in progress at any time (a finished war is replaced by a new one)
+     * @param editors Human editors per war (the detector looks for 2-3)
+     * @param pattern Revert pattern
+     * @param conflictRatio Share of war edits that undo the previous one (the rest add content)
+     * @param editInterval Simulated time between two edits of one war
+     * @param edits Edits before a war ends
+     */
+    public record War(
+            @DefaultValue("10") int concurrent,
+            @DefaultValue("2") int editors,
+            @DefaultValue("REVERT") RevertPattern pattern,
+            @DefaultValue("0.8") double conflictRatio,
+            @DefaultValue("2m") Duration editInterval,
+            @DefaultValue("12") int edits
+    ) {
+    }
+
+    /**
+     * Daily rate curve: rate * (1 + amplitude * cos(2π (hour - peakHourUtc) / 24))
+     */
+    public record Diurnal(
+            @DefaultValue("0.3") double amplitude,
+            @DefaultValue("15") double peakHourUtc
+    ) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.epaitoo.springboot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.List;
+
+/**
+ * Cuts a recentchange event down to the fields the consumer's WikimediaEditEvent reads
+ *
+ * The projection keeps the event's shape (same names, same nesting), so a consumer parses
+ * a projected record exactly like a raw one. What goes is what nobody downstream reads:
+ * the comment and its HTML rendering, URLs, log parameters and the rest of meta, which
+ * make up most of a raw event's 1 KB or so. "type" is written first, so the
+ * consumer's pre-screen has its answer after the first key.
+ */
+public final class PayloadProjector {
+
+    // Top-level fields of WikimediaEditEvent, plus server_name (the wiki), in output order
+    private static final List<String> FIELDS = List.of(
+            "type", "meta", "namespace", "title", "timestamp", "user", "bot", "length", "revision", "server_name");
+    // WikimediaEditEvent.MetaInfo
+    private static final List<String> META_FIELDS = List.of("uri", "dt", "domain");
+
+    private final ObjectMapper objectMapper;
+
+    public PayloadProjector(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Project a parsed event
+     *
+     * @param event The full recentchange event
+     * @return JSON with only the fields the consumer reads (missing fields stay missing)
+     */
+    public String project(JsonNode event) throws Exception {
+        ObjectNode projected = objectMapper.createObjectNode();
+        for (String field : FIELDS) {
+            JsonNode value = event.get(field);
+            if (value == null) {
+                continue;
+            }
+            if (field.equals("meta") && value.isObject()) {
+                ObjectNode meta = projected.putObject(field);
+                for (String metaField : META_FIELDS) {
+                    JsonNode metaValue = value.get(metaField);
+                    if (metaValue != null) {
+                        meta.set(metaField, metaValue);
+                    }
+                }
+            } else {
+                projected.set(field, value);
+            }
+        }
+        return objectMapper.writeValueAsString(projected);
+    }
+}
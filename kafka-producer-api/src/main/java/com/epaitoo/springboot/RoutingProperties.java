@@ -0,0 +1,41 @@
+package com.epaitoo.springboot;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Which wikis the producer forwards and where each one goes, prefix "producer.routing"
+ *
+ * @param wikis Wikis forwarded to the default topic (domains, or * for every wiki); the wikis
+ *              of routes are forwarded as well
+ * @param defaultTopic Topic of the wikis without a route
+ * @param partitions Partitions of the topics the producer creates
+ * @param routes Wikis or wiki groups with their own topic, or their own partition range
+ */
+@ConfigurationProperties(prefix = "producer.routing")
+public record RoutingProperties(
+        @DefaultValue("en.wikipedia.org") List<String> wikis,
+        @DefaultValue(ApiRealTImeChangesProducer.TOPIC) String defaultTopic,
+        @DefaultValue("3") int partitions,
+        @DefaultValue List<Route> routes
+) {
+
+    /**
+     * A wiki group's destination
+     *
+     * @param wikis The group's wikis (domains)
+     * @param topic Its topic, the default topic if not set
+     * @param firstPartition With partitionCount: the group's edits only go to partitions
+     *                       firstPartition to firstPartition + partitionCount - 1, still keyed by page
+     * @param partitionCount Partitions of the range, 0 = the whole topic
+     */
+    public record Route(
+            List<String> wikis,
+            String topic,
+            @DefaultValue("0") int firstPartition,
+            @DefaultValue("0") int partitionCount
+    ) {
+    }
+}
@@ -0,0 +1,334 @@
+package com.epaitoo.springboot;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records Kafka couldn't take, in a memory-mapped file, until they can be sent again
+ *
+ * A FIFO ring over the file: appends go to the tail, the drainer reads from the head and
+ * commits once Kafka has acknowledged what it read. Appending is a copy into mapped memory,
+ * so it never waits on the disk; the OS writes the pages back, and force() (at every
+ * checkpoint and on close) makes them durable. Each append or commit moves one of the two
+ * positions in the file header, after the data it covers is in place, so the file reopens
+ * consistent after a crash and the drainer carries on where it stopped.
+ *
+ * File layout:
+ *   int    magic ("WSP1")
+ *   int    capacity (file length)
+ *   long   head, long tail (offsets of the oldest record and of the next append)
+ *   ...    records from DATA_START: int length, then topic, key, value and headers,
+ *          strings as an int UTF-8 byte count (-1 = null) and the bytes.
+ *          A length of -1, or fewer than 4 bytes left, wraps the ring back to DATA_START.
+ */
+class SpillBuffer implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpillBuffer.class);
+
+    private static final int MAGIC = 0x57535031;  // "WSP1"
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int HEAD_OFFSET = 8;
+    private static final int TAIL_OFFSET = 16;
+    static final int DATA_START = 32;
+    private static final int WRAP = -1;
+
+    /**
+     * Records read from the head, and where the head goes once each of them is sent
+     */
+    record Batch(List<ProducerRecord<String, String>> records, int[] ends) {
+
+        /**
+         * Where the head goes once the whole batch is sent
+         */
+        int end() {
+            return ends[ends.length - 1];
+        }
+
+        /**
+         * The batch's first records, to commit the part that was sent
+         */
+        Batch prefix(int size) {
+            return new Batch(records.subList(0, size), Arrays.copyOf(ends, size));
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int head;
+    private int tail;
+    private int records;
+    private boolean closed;
+
+    /**
+     * Open the buffer, keeping the records of an existing file (and its capacity)
+     *
+     * @param file Buffer file, created if missing
+     * @param capacity Size of a new file in bytes
+     */
+    SpillBuffer(Path file, int capacity) throws IOException {
+        if (capacity < DATA_START + 1024) {
+            throw new IllegalArgumentException("Spill buffer capacity too small: " + capacity + " bytes");
+        }
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        boolean created = channel.size() == 0;
+        boolean existing = channel.size() >= DATA_START && readInt(0) == MAGIC;
+        this.capacity = existing ? readInt(CAPACITY_OFFSET) : capacity;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.capacity);
+        if (existing && isValid(buffer.getLong(HEAD_OFFSET), buffer.getLong(TAIL_OFFSET))) {
+            head = (int) buffer.getLong(HEAD_OFFSET);
+            tail = (int) buffer.getLong(TAIL_OFFSET);
+            records = count();
+            if (records > 0) {
+                LOGGER.info("Spill buffer {} holds {} records ({} bytes) to send", file, records, bytes());
+            }
+        } else {
+            if (!created) {
+                LOGGER.warn("Spill buffer {} is not readable, starting it empty", file);
+            }
+            head = DATA_START;
+            tail = DATA_START;
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(CAPACITY_OFFSET, this.capacity);
+            buffer.putLong(HEAD_OFFSET, head);
+            buffer.putLong(TAIL_OFFSET, tail);
+        }
+    }
+
+    private int readInt(long position) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(4);
+        channel.read(bytes, position);
+        return bytes.flip().remaining() == 4 ? bytes.getInt() : 0;
+    }
+
+    private boolean isValid(long head, long tail) {
+        return head >= DATA_START && head < capacity && tail >= DATA_START && tail < capacity;
+    }
+
+    /**
+     * Append a record at the tail
+     *
+     * @return false if the buffer is full (or closed) and the record was not kept
+     */
+    synchronized boolean append(ProducerRecord<String, String> record) {
+        if (closed) {
+            return false;
+        }
+        byte[] topic = utf8(record.topic());
+        byte[] key = utf8(record.key());
+        byte[] value = utf8(record.value());
+        int length = 4 + size(topic) + size(key) + size(value);
+        List<byte[]> headers = new ArrayList<>();
+        for (Header header : record.headers()) {
+            if (!EditEventSerializer.FORMAT_HEADER.equals(header.key())) {  // the serializer adds it again
+                headers.add(utf8(header.key()));
+                headers.add(header.value());
+            }
+        }
+        for (byte[] header : headers) {
+            length += size(header);
+        }
+
+        int position = reserve(4 + length);
+        if (position < 0) {
+            return false;
+        }
+        buffer.position(position);
+        buffer.putInt(length);
+        put(topic);
+        put(key);
+        put(value);
+        buffer.putInt(headers.size() / 2);
+        for (byte[] header : headers) {
+            put(header);
+        }
+        tail = buffer.position() == capacity ? DATA_START : buffer.position();
+        buffer.putLong(TAIL_OFFSET, tail);  // last: the record is complete
+        records++;
+        return true;
+    }
+
+    /**
+     * Where a record of this many bytes goes (writing the wrap marker if it goes to the
+     * start), or -1 if it doesn't fit. The tail never catches up with the head: equal means empty.
+     */
+    private int reserve(int bytes) {
+        if (head == tail && head != DATA_START) {
+            // Empty: start again from the beginning, so the whole ring is free. Both positions
+            // sit next to each other in the header, which an OS crash writes back as one page
+            tail = DATA_START;
+            head = DATA_START;
+            buffer.putLong(TAIL_OFFSET, tail);
+            buffer.putLong(HEAD_OFFSET, head);
+        }
+        if (tail >= head) {
+            if (capacity - tail >= bytes && (tail + bytes < capacity || head > DATA_START)) {
+                return tail;
+            }
+            if (DATA_START + bytes >= head) {
+                return -1;
+            }
+            if (capacity - tail >= 4) {
+                buffer.putInt(tail, WRAP);
+            }
+            return DATA_START;
+        }
+        return tail + bytes < head ? tail : -1;
+    }
+
+    /**
+     * Read up to max records from the head, without removing them
+     *
+     * @return The records, or null if the buffer is empty
+     */
+    synchronized Batch peek(int max) {
+        if (closed || head == tail) {
+            return null;
+        }
+        List<ProducerRecord<String, String>> batch = new ArrayList<>(Math.min(max, records));
+        int[] ends = new int[Math.max(1, Math.min(max, records))];
+        int position = head;
+        while (position != tail && batch.size() < max) {
+            position = wrap(position);
+            buffer.position(position + 4);
+            String topic = getString();
+            String key = getString();
+            String value = getString();
+            RecordHeaders headers = new RecordHeaders();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                headers.add(getString(), getBytes());
+            }
+            batch.add(new ProducerRecord<>(topic, null, key, value, headers));
+            position = buffer.position();
+            if (position == capacity) {
+                position = DATA_START;
+            }
+            if (batch.size() > ends.length) {
+                ends = Arrays.copyOf(ends, batch.size() * 2);
+            }
+            ends[batch.size() - 1] = position;
+        }
+        return new Batch(batch, Arrays.copyOf(ends, batch.size()));
+    }
+
+    /**
+     * Remove the records of a batch from peek() (or a prefix of it), now that they are sent
+     */
+    synchronized void commit(Batch batch) {
+        if (closed) {
+            return;
+        }
+        head = batch.end();
+        buffer.putLong(HEAD_OFFSET, head);
+        records -= batch.records().size();
+    }
+
+    private int wrap(int position) {
+        return capacity - position < 4 || buffer.getInt(position) == WRAP ? DATA_START : position;
+    }
+
+    private int count() {
+        int count = 0;
+        for (int position = head; position != tail; count++) {
+            position = wrap(position);
+            position += 4 + buffer.getInt(position);
+            if (position == capacity) {
+                position = DATA_START;
+            }
+        }
+        return count;
+    }
+
+    synchronized boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * Get the number of records waiting to be sent
+     */
+    synchronized int getRecords() {
+        return records;
+    }
+
+    /**
+     * Get the bytes taken by the records waiting to be sent
+     */
+    synchronized long bytes() {
+        return tail >= head ? tail - head : (long) capacity - head + tail - DATA_START;
+    }
+
+    /**
+     * Write the buffer's changed pages to disk
+     */
+    synchronized void force() {
+        if (!closed) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Force and close the file; the mapping itself is released when collected
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        buffer.force();
+        closed = true;
+        channel.close();
+        LOGGER.info("Spill buffer {} closed with {} records to send", file, records);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int size(byte[] value) {
+        return 4 + (value == null ? 0 : value.length);
+    }
+
+    private void put(byte[] value) {
+        buffer.putInt(value == null ? -1 : value.length);
+        if (value != null) {
+            buffer.put(value);
+        }
+    }
+
+    private byte[] getBytes() {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return value;
+    }
+
+    private String getString() {
+        byte[] value = getBytes();
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+}
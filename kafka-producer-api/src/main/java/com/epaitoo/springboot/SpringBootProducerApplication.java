@@ -1,5 +1,6 @@
 package com.epaitoo.springboot;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -8,16 +9,21 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SpringBootApplication
 public class SpringBootProducerApplication implements CommandLineRunner {
 
+    // producer.source picks the live Wikimedia stream (default, ApiRealTImeChangesProducer starts and
+    // stops with the context) or the synthetic workload, which runs here until its events are done
     @Autowired
-    private ApiRealTImeChangesProducer apiRealTImeChangesProducer;
+    private ObjectProvider<WorkloadGenerator> workloadGenerator;
 
     public static void main(String[] args) {
-        SpringApplication.run(SpringBootProducerApplication.class);
+        SpringApplication.run(SpringBootProducerApplication.class, args);
     }
 
 
     @Override
     public void run(String... args) throws Exception {
-        apiRealTImeChangesProducer.sendMessage();
+        WorkloadGenerator generator = workloadGenerator.getIfAvailable();
+        if (generator != null) {
+            generator.generate();
+        }
     }
 }
@@ -0,0 +1,321 @@
+package com.epaitoo.springboot;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Endless stream of synthetic recentchange events (the JSON the Wikimedia stream sends)
+ *
+ * Background traffic: pages drawn with Zipf popularity, a mix of wikis, event types,
+ * namespaces and bots, at a rate that follows a daily curve in simulated time.
+ * On top of that, a fixed number of edit wars run at once: two or three humans taking turns
+ * on one article, undoing each other with the configured revert pattern. A war that has
+ * made all its edits is replaced by a new one on another page.
+ *
+ * Articles (en.wikipedia.org, namespace 0, where the wars run too) keep their length and
+ * latest revision, so each edit's revision.old is the page's previous revision.new and
+ * length.old its length. Edits to other wikis and namespaces have no page history: they get
+ * a random length and a parent revision that no other edit names.
+ *
+ * Not thread-safe: one generator thread.
+ */
+final class SyntheticEditStream {
+
+    private static final String EN_WIKI = "en.wikipedia.org";
+    private static final String[][] OTHER_WIKIS = {
+            {"de.wikipedia.org", "dewiki"},
+            {"fr.wikipedia.org", "frwiki"},
+            {"es.wikipedia.org", "eswiki"},
+            {"www.wikidata.org", "wikidatawiki"},
+            {"commons.wikimedia.org", "commonswiki"}
+    };
+    private static final String[] OTHER_TYPES = {"new", "log", "categorize"};
+
+    // Wars start on pages below the head, so they don't all land on the most popular articles
+    private static final int WAR_MIN_RANK = 100;
+
+    /**
+     * One generated event and its simulated event time
+     */
+    record SyntheticEdit(long eventTimeMillis, String json) {
+    }
+
+    private final LoadgenProperties props;
+    private final SplittableRandom random;
+    private final double[] pageCdf;
+    private final int[] pageLengths;
+    private final long[] pageRevisions;  // latest revision.new of each article, 0 before its first edit
+    private final int[] namespaces;
+    private final double[] namespaceCdf;
+    private final War[] wars;
+
+    private double simMillis;
+    private long sequence;
+    private long revision = 1_200_000_000L;
+
+    SyntheticEditStream(LoadgenProperties props, long startMillis) {
+        this.props = props;
+        this.random = new SplittableRandom(props.seed());
+        this.pageCdf = zipfCdf(props.pages(), props.zipfExponent());
+        this.pageLengths = new int[props.pages()];
+        this.pageRevisions = new long[props.pages()];
+        for (int i = 0; i < pageLengths.length; i++) {
+            pageLengths[i] = 2_000 + random.nextInt(60_000);
+        }
+
+        String[] mix = props.namespaceMix().split(",");
+        this.namespaces = new int[mix.length];
+        this.namespaceCdf = new double[mix.length];
+        double total = 0;
+        for (int i = 0; i < mix.length; i++) {
+            String[] entry = mix[i].trim().split(":");
+            namespaces[i] = Integer.parseInt(entry[0].trim());
+            total += Double.parseDouble(entry[1].trim());
+            namespaceCdf[i] = total;
+        }
+        for (int i = 0; i < namespaceCdf.length; i++) {
+            namespaceCdf[i] /= total;
+        }
+
+        this.simMillis = startMillis;
+        this.wars = new War[props.war().concurrent()];
+        long interval = props.war().editInterval().toMillis();
+        for (int i = 0; i < wars.length; i++) {
+            // Stagger the first edits so the wars don't move in lockstep
+            wars[i] = newWar(startMillis + (long) (random.nextDouble() * interval));
+        }
+    }
+
+    /**
+     * Get the current simulated time (epoch millis)
+     */
+    long simMillis() {
+        return (long) simMillis;
+    }
+
+    /**
+     * Next event: a due war edit, else background traffic (which advances simulated time)
+     */
+    SyntheticEdit next() {
+        for (int i = 0; i < wars.length; i++) {
+            War war = wars[i];
+            if (war.nextEditAt <= simMillis) {
+                String json = warEdit(war);
+                war.nextEditAt += props.war().editInterval().toMillis();
+                if (--war.editsLeft == 0) {
+                    wars[i] = newWar(war.nextEditAt);
+                }
+                return new SyntheticEdit((long) simMillis, json);
+            }
+        }
+
+        simMillis += 1000.0 / currentRate();
+        return new SyntheticEdit((long) simMillis, backgroundEdit());
+    }
+
+    /**
+     * Events per second at the current simulated time of day
+     */
+    double currentRate() {
+        double hour = (simMillis / 3_600_000.0) % 24;
+        double phase = 2 * Math.PI * (hour - props.diurnal().peakHourUtc()) / 24;
+        return Math.max(1, props.rate() * (1 + props.diurnal().amplitude() * Math.cos(phase)));
+    }
+
+    // ==================== BACKGROUND ====================
+
+    private String backgroundEdit() {
+        int rank = samplePage();
+        boolean bot = random.nextDouble() < props.botRatio();
+        String user = bot ? "SyntheticBot" + random.nextInt(50) : "User_" + random.nextInt(200_000);
+
+        if (random.nextDouble() < props.otherWikiRatio()) {
+            String[] wiki = OTHER_WIKIS[random.nextInt(OTHER_WIKIS.length)];
+            int old = 1_000 + random.nextInt(30_000);
+            return edit(wiki[0], wiki[1], "edit", 0, "Page_" + rank, user, bot, old, old + delta(), ++revision);
+        }
+
+        int namespace = sampleNamespace();
+        String title = namespacePrefix(namespace) + "Synthetic_Page_" + rank;
+        if (random.nextDouble() >= props.editRatio()) {
+            String type = OTHER_TYPES[random.nextInt(OTHER_TYPES.length)];
+            return edit(EN_WIKI, "enwiki", type, namespace, title, user, bot, 0, 500 + random.nextInt(5_000), 0);
+        }
+        if (namespace != 0) {
+            // Talk, user, ... pages share the article's rank but not its history
+            int old = 500 + random.nextInt(20_000);
+            return edit(EN_WIKI, "enwiki", "edit", namespace, title, user, bot, old, Math.max(0, old + delta()),
+                    ++revision);
+        }
+
+        int old = pageLengths[rank];
+        int updated = Math.max(0, old + delta());
+        return articleEdit(rank, user, bot, old, updated);
+    }
+
+    /**
+     * Edit an article: chained to its previous revision, and its new length kept
+     */
+    private String articleEdit(int rank, String user, boolean bot, int oldLength, int newLength) {
+        // An article edited for the first time has history from before the stream started
+        long parent = pageRevisions[rank] != 0 ? pageRevisions[rank] : ++revision;
+        String json = edit(EN_WIKI, "enwiki", "edit", 0, "Synthetic_Page_" + rank, user, bot,
+                oldLength, newLength, parent);
+        pageLengths[rank] = newLength;
+        pageRevisions[rank] = revision;
+        return json;
+    }
+
+    private int delta() {
+        // Mostly small additions, some removals, rare large changes
+        int delta = (int) (random.nextDouble() * random.nextDouble() * 800) - 120;
+        return random.nextInt(50) == 0 ? delta * 20 : delta;
+    }
+
+    private int samplePage() {
+        int index = Arrays.binarySearch(pageCdf, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, pageCdf.length - 1);
+    }
+
+    private int sampleNamespace() {
+        int index = Arrays.binarySearch(namespaceCdf, random.nextDouble());
+        return namespaces[Math.min(index < 0 ? -index - 1 : index, namespaces.length - 1)];
+    }
+
+    private static String namespacePrefix(int namespace) {
+        return switch (namespace) {
+            case 0 -> "";
+            case 1 -> "Talk:";
+            case 2 -> "User:";
+            case 3 -> "User_talk:";
+            case 4 -> "Wikipedia:";
+            case 6 -> "File:";
+            case 10 -> "Template:";
+            case 14 -> "Category:";
+            default -> "Namespace_" + namespace + ":";
+        };
+    }
+
+    private static double[] zipfCdf(int pages, double exponent) {
+        double[] cdf = new double[pages];
+        double total = 0;
+        for (int k = 0; k < pages; k++) {
+            total += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = total;
+        }
+        for (int k = 0; k < pages; k++) {
+            cdf[k] /= total;
+        }
+        return cdf;
+    }
+
+    // ==================== WARS ====================
+
+    /**
+     * One injected edit war
+     */
+    private static final class War {
+        private final int rank;
+        private final String[] editors;
+        private long nextEditAt;
+        private int editsLeft;
+        private int turn;
+        private int previousLength;  // length before the last edit, for exact reverts
+        private int lastChange;
+
+        private War(int rank, String[] editors, long nextEditAt, int editsLeft) {
+            this.rank = rank;
+            this.editors = editors;
+            this.nextEditAt = nextEditAt;
+            this.editsLeft = editsLeft;
+        }
+    }
+
+    private War newWar(long firstEditAt) {
+        int rank = WAR_MIN_RANK + random.nextInt(Math.max(1, props.pages() - WAR_MIN_RANK));
+        String[] editors = new String[Math.max(2, props.war().editors())];
+        int group = random.nextInt(1_000_000);
+        for (int i = 0; i < editors.length; i++) {
+            editors[i] = "Warrior_" + group + "_" + (char) ('A' + i);
+        }
+        return new War(rank % props.pages(), editors, firstEditAt, Math.max(1, props.war().edits()));
+    }
+
+    private String warEdit(War war) {
+        int old = pageLengths[war.rank];
+        int updated;
+        if (war.lastChange == 0 || random.nextDouble() >= props.war().conflictRatio()) {
+            // Content added in good faith (or the war's opening edit)
+            updated = old + 50 + random.nextInt(400);
+        } else if (useExactRevert()) {
+            updated = war.previousLength;
+        } else {
+            // Opposing: push the other way by a different amount
+            int magnitude = 30 + random.nextInt(500);
+            updated = Math.max(0, war.lastChange > 0 ? old - magnitude : old + magnitude);
+        }
+
+        war.previousLength = old;
+        war.lastChange = updated - old;
+        String editor = war.editors[war.turn++ % war.editors.length];
+        return articleEdit(war.rank, editor, false, old, updated);
+    }
+
+    private boolean useExactRevert() {
+        return switch (props.war().pattern()) {
+            case REVERT -> true;
+            case OPPOSING -> false;
+            case MIXED -> random.nextBoolean();
+        };
+    }
+
+    // ==================== JSON ====================
+
+    /**
+     * Render one event; an edit gets the next revision id
+     *
+     * @param parentRevision revision.old of an edit (ignored for other types)
+     */
+    private String edit(String domain, String dbName, String type, int namespace, String title,
+                        String user, boolean bot, int oldLength, int newLength, long parentRevision) {
+        long id = ++sequence;
+        long millis = (long) simMillis;
+        String url = "https://" + domain + "/wiki/" + title;
+        StringBuilder json = new StringBuilder(640)
+                .append("{\"$schema\":\"/mediawiki/recentchange/1.0.0\",\"meta\":{\"uri\":\"").append(url)
+                .append("\",\"id\":\"synthetic-").append(id)
+                .append("\",\"dt\":\"").append(Instant.ofEpochMilli(millis))
+                .append("\",\"domain\":\"").append(domain)
+                .append("\",\"stream\":\"mediawiki.recentchange\"},\"id\":").append(id)
+                .append(",\"type\":\"").append(type)
+                .append("\",\"namespace\":").append(namespace)
+                .append(",\"title\":\"").append(title)
+                .append("\",\"title_url\":\"").append(url)
+                .append("\",\"comment\":\"synthetic ").append(type)
+                .append("\",\"timestamp\":").append(millis / 1000)
+                .append(",\"user\":\"").append(user)
+                .append("\",\"bot\":").append(bot);
+        if ("edit".equals(type) || "new".equals(type)) {
+            long rev = ++revision;
+            json.append(",\"minor\":").append(random.nextInt(5) == 0)
+                    .append(",\"length\":{");
+            if ("edit".equals(type)) {
+                json.append("\"old\":").append(oldLength).append(',');
+            }
+            json.append("\"new\":").append(newLength)
+                    .append("},\"revision\":{");
+            if ("edit".equals(type)) {
+                json.append("\"old\":").append(parentRevision).append(',');
+            }
+            json.append("\"new\":").append(rev).append('}');
+        } else if ("log".equals(type)) {
+            json.append(",\"log_type\":\"patrol\",\"log_action\":\"patrol\"");
+        }
+        return json.append(",\"server_url\":\"https://").append(domain)
+                .append("\",\"server_name\":\"").append(domain)
+                .append("\",\"server_script_path\":\"/w\",\"wiki\":\"").append(dbName)
+                .append("\"}")
+                .toString();
+    }
+}
@@ -0,0 +1,111 @@
+package com.epaitoo.springboot;
+
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides which wikis are forwarded and to which topic and partitions (producer.routing)
+ *
+ * Within a partition range, a page's edits always land on the same partition (the page key's
+ * murmur2 hash, like Kafka's default partitioner), so they stay in order.
+ */
+@Component
+@EnableConfigurationProperties(RoutingProperties.class)
+public class WikiRouter {
+
+    private static final String ALL_WIKIS = "*";
+
+    /**
+     * Where a wiki's edits go
+     *
+     * @param topic Topic
+     * @param firstPartition First partition of the range
+     * @param partitionCount Partitions of the range, 0 = the whole topic (default partitioner)
+     */
+    public record Destination(String topic, int firstPartition, int partitionCount) {
+
+        /**
+         * Get the partition of a page key, or null to let the producer pick it
+         */
+        Integer partition(String key) {
+            if (partitionCount == 0) {
+                return null;
+            }
+            return firstPartition + Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % partitionCount;
+        }
+    }
+
+    private final Destination defaultDestination;
+    private final boolean allWikis;
+    private final Set<String> wikis;
+    private final Map<String, Destination> routes = new HashMap<>();
+    private final Set<String> topics = new LinkedHashSet<>();
+    private final int partitions;
+
+    public WikiRouter(RoutingProperties properties) {
+        this.defaultDestination = new Destination(properties.defaultTopic(), 0, 0);
+        this.allWikis = properties.wikis().contains(ALL_WIKIS);
+        this.wikis = Set.copyOf(properties.wikis());
+        this.partitions = properties.partitions();
+        topics.add(properties.defaultTopic());
+
+        for (RoutingProperties.Route route : properties.routes()) {
+            String topic = route.topic() == null ? properties.defaultTopic() : route.topic();
+            if (route.partitionCount() < 0 || route.firstPartition() < 0
+                    || route.firstPartition() + route.partitionCount() > partitions) {
+                throw new IllegalArgumentException("Route to " + topic + ": partitions " + route.firstPartition()
+                        + " to " + (route.firstPartition() + route.partitionCount() - 1)
+                        + " are outside the topic's " + partitions);
+            }
+            Destination destination = new Destination(topic, route.firstPartition(), route.partitionCount());
+            for (String wiki : route.wikis() == null ? List.<String>of() : route.wikis()) {
+                if (routes.put(wiki, destination) != null) {
+                    throw new IllegalArgumentException("Wiki " + wiki + " is in more than one route");
+                }
+            }
+            topics.add(topic);
+        }
+    }
+
+    /**
+     * Router that forwards English Wikipedia only, to one topic
+     */
+    public static WikiRouter single(String topic) {
+        return new WikiRouter(new RoutingProperties(List.of("en.wikipedia.org"), topic, 1, List.of()));
+    }
+
+    /**
+     * Get where a wiki's edits go
+     *
+     * @return The destination, or null if the wiki isn't forwarded
+     */
+    public Destination route(String wiki) {
+        Destination destination = routes.get(wiki);
+        if (destination != null) {
+            return destination;
+        }
+        return allWikis || wikis.contains(wiki) ? defaultDestination : null;
+    }
+
+    /**
+     * Get every topic edits can go to
+     */
+    public Set<String> getTopics() {
+        return Set.copyOf(topics);
+    }
+
+    /**
+     * Get the partition count of the topics the producer creates
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+}
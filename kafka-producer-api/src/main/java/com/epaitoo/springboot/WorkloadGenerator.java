@@ -0,0 +1,136 @@
+package com.epaitoo.springboot;
+
+import com.launchdarkly.eventsource.MessageEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Replaces the live Wikimedia stream with a synthetic workload (producer.source=synthetic)
+ *
+ * KAFKA output goes through ApiRealTImeChangesHandler, so the generated events are filtered,
+ * keyed and stamped exactly like live ones. FILE output writes one JSON event per line,
+ * which the benchmark can replay (-Dbenchmark.corpus=...).
+ */
+@Service
+@ConditionalOnProperty(name = "producer.source", havingValue = "synthetic")
+@EnableConfigurationProperties(LoadgenProperties.class)
+public class WorkloadGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkloadGenerator.class);
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    // Sleeping for less than this costs more than it saves
+    private static final long MIN_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LoadgenProperties props;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final WikiRouter router;
+    private final DuplicateFilter duplicates;
+    private final MeterRegistry meterRegistry;
+    private final ApiRealTImeChangesHandler.Payload payload;
+    private final Counter generated;
+
+    public WorkloadGenerator(LoadgenProperties props, KafkaTemplate<String, String> kafkaTemplate,
+                             WikiRouter router, DuplicateFilter duplicates, MeterRegistry meterRegistry,
+                             @Value("${producer.payload:PROJECTED}") ApiRealTImeChangesHandler.Payload payload) {
+        this.props = props;
+        this.kafkaTemplate = kafkaTemplate;
+        this.router = router;
+        this.duplicates = duplicates;
+        this.meterRegistry = meterRegistry;
+        this.payload = payload;
+        this.generated = Counter.builder("loadgen.events.generated")
+                .description("Synthetic events generated")
+                .tag("output", props.output().name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Generate events until loadgen.events are done (or forever if 0)
+     */
+    public void generate() throws Exception {
+        LOGGER.info("Generating synthetic edits: {}/s mean, time scale {}, {} concurrent edit wars, output {}",
+                props.rate(), props.timeScale(), props.war().concurrent(),
+                props.output() == LoadgenProperties.Output.FILE ? props.file() : "Kafka");
+
+        if (props.output() == LoadgenProperties.Output.FILE) {
+            try (Writer writer = openFile()) {
+                run(json -> {
+                    writer.write(json);
+                    writer.write('\n');
+                });
+            }
+        } else {
+            EditSender sender = new EditSender(kafkaTemplate, EditSender.DEFAULT_MAX_IN_FLIGHT, meterRegistry);
+            ApiRealTImeChangesHandler handler = new ApiRealTImeChangesHandler(sender, router, duplicates, payload, meterRegistry);
+            run(json -> handler.onMessage("message", new MessageEvent(json)));
+            kafkaTemplate.flush();
+        }
+    }
+
+    private void run(Sink sink) throws Exception {
+        SyntheticEditStream stream = new SyntheticEditStream(props, Instant.now().toEpochMilli());
+        long simStart = stream.simMillis();
+        long wallStart = System.nanoTime();
+        long lastProgress = wallStart;
+        long sent = 0;
+        long sentAtLastProgress = 0;
+
+        while (props.events() == 0 || sent < props.events()) {
+            SyntheticEditStream.SyntheticEdit edit = stream.next();
+            long now = System.nanoTime();
+            if (props.timeScale() > 0) {
+                // Wall-clock time at which this event is due
+                long due = wallStart + (long) ((edit.eventTimeMillis() - simStart) * 1_000_000 / props.timeScale());
+                if (due - now > MIN_PARK_NANOS) {
+                    LockSupport.parkNanos(due - now);
+                    if (Thread.interrupted()) {
+                        break;
+                    }
+                }
+            }
+            sink.accept(edit.json());
+            generated.increment();
+            sent++;
+
+            if (now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                double rate = (sent - sentAtLastProgress) / ((now - lastProgress) / 1e9);
+                LOGGER.info("Generated {} events ({}/s), simulated time {}",
+                        sent, Math.round(rate), Instant.ofEpochMilli(edit.eventTimeMillis()));
+                sentAtLastProgress = sent;
+                lastProgress = now;
+            }
+        }
+
+        double seconds = (System.nanoTime() - wallStart) / 1e9;
+        LOGGER.info("Generated {} events in {}s ({}/s)", sent, Math.round(seconds), Math.round(sent / seconds));
+    }
+
+    private Writer openFile() throws IOException {
+        var out = Files.newOutputStream(props.file());
+        var stream = props.file().toString().endsWith(".gz") ? new GZIPOutputStream(out, 1 << 16) : out;
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    @FunctionalInterface
+    private interface Sink {
+        void accept(String json) throws Exception;
+    }
+}
@@ -0,0 +1,130 @@
+package com.epaitoo.springboot;
+
+import com.launchdarkly.eventsource.MessageEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for turning Wikimedia events into Kafka records (against a MockProducer)
+ */
+class ApiRealTImeChangesHandlerTest {
+
+    private static final String TOPIC = "wikimedia-stream-api";
+    private static final URI ORIGIN = URI.create("https://stream.wikimedia.org/v2/stream/recentchange");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockProducer<String, String> producer;
+    private ApiRealTImeChangesHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        // The template closes its producer after each send: keep this one open for the whole test
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer()) {
+            @Override
+            public void close(Duration timeout) {
+            }
+        };
+        KafkaTemplate<String, String> kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>(() -> producer));
+        EditSender sender = new EditSender(kafkaTemplate, 10, meterRegistry);
+        DuplicateFilter duplicates = new DuplicateFilter(meterRegistry, Duration.ofMinutes(10), 1000, 0.0001);
+        handler = new ApiRealTImeChangesHandler(sender, WikiRouter.single(TOPIC), duplicates,
+                ApiRealTImeChangesHandler.Payload.RAW, meterRegistry);
+    }
+
+    private static String edit(long id, String title, long revision) {
+        return String.format("""
+                {"id":%d,"type":"edit","title":"%s","user":"Alice","bot":false,"namespace":0,\
+                "revision":{"old":%d,"new":%d},"meta":{"domain":"en.wikipedia.org"}}""",
+                id, title, revision - 1, revision);
+    }
+
+    private void receive(String data, String eventId) throws Exception {
+        handler.onMessage("message", new MessageEvent("message", data, eventId, ORIGIN));
+    }
+
+    private List<String> sentKeys() {
+        return producer.history().stream().map(ProducerRecord::key).toList();
+    }
+
+    private double filtered(String reason) {
+        return meterRegistry.get("wikimedia.events.filtered").tag("reason", reason).counter().count();
+    }
+
+    private double count(String name, String wiki) {
+        return meterRegistry.get(name).tag("wiki", wiki).counter().count();
+    }
+
+    // ==================== HEADERS ====================
+
+    @Test
+    @DisplayName("Should stamp the wiki and namespace the consumer routes on")
+    void testOnMessage_StampsRoutingHeaders() throws Exception {
+        // When
+        receive(edit(1, "Page_A", 1001), "e1");
+
+        // Then
+        Headers headers = producer.history().get(0).headers();
+        assertArrayEquals("en.wikipedia.org".getBytes(StandardCharsets.UTF_8),
+                headers.lastHeader(ApiRealTImeChangesHandler.WIKI_HEADER).value());
+        assertArrayEquals("0".getBytes(StandardCharsets.US_ASCII),
+                headers.lastHeader(ApiRealTImeChangesHandler.NAMESPACE_HEADER).value());
+        assertNull(headers.lastHeader("wiki-type"));
+        assertNull(headers.lastHeader("wiki-bot"));
+    }
+
+    // ==================== METRICS ====================
+
+    @Test
+    @DisplayName("Should count events per wiki, and filtered ones per reason")
+    void testOnMessage_CountsPerWiki() throws Exception {
+        // When
+        receive(edit(1, "Page_A", 1001), "e1");
+        receive(edit(2, "Page_B", 1002), "e2");
+        receive(edit(3, "Seite_A", 2001).replace("en.wikipedia.org", "de.wikipedia.org"), "e3");
+        receive(edit(1, "Page_A", 1001), "e1");
+
+        // Then
+        assertEquals(3, count("wikimedia.events.received", "en.wikipedia.org"));
+        assertEquals(2, count("wikimedia.events.sent", "en.wikipedia.org"));
+        assertEquals(1, count("wikimedia.events.received", "de.wikipedia.org"));
+        assertEquals(1, meterRegistry.get("wikimedia.events.filtered")
+                .tags("wiki", "de.wikipedia.org", "reason", "wiki").counter().count());
+        assertEquals(1, meterRegistry.get("wikimedia.events.filtered")
+                .tags("wiki", "en.wikipedia.org", "reason", "duplicate").counter().count());
+    }
+
+    // ==================== DUPLICATES ====================
+
+    @Test
+    @DisplayName("Should forward an edit once when Wikimedia delivers it again")
+    void testOnMessage_DropsReplayedEdit() throws Exception {
+        // Given
+        receive(edit(1, "Page_A", 1001), "e1");
+        receive(edit(2, "Page_B", 1002), "e2");
+
+        // When: A reconnect replays the first edit, then the stream carries on
+        receive(edit(1, "Page_A", 1001), "e1");
+        receive(edit(3, "Page_A", 1003), "e3");
+
+        // Then: The replay is filtered as a duplicate, and the resume point still moves
+        assertEquals(List.of("en.wikipedia.org:Page_A", "en.wikipedia.org:Page_B", "en.wikipedia.org:Page_A"),
+                sentKeys());
+        assertEquals(1, filtered("duplicate"));
+        assertEquals("e3", handler.getLastEventId());
+    }
+}
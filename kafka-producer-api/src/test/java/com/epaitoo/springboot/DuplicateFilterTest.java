@@ -0,0 +1,139 @@
+package com.epaitoo.springboot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the rotating Bloom filter pair that drops replayed events
+ */
+class DuplicateFilterTest {
+
+    private static final String WIKI = "en.wikipedia.org";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private DuplicateFilter filter(Duration window, int expectedEvents, double falsePositiveRate) {
+        return new DuplicateFilter(meterRegistry, window, expectedEvents, falsePositiveRate);
+    }
+
+    private double rotations() {
+        return meterRegistry.get("wikimedia.dedup.rotations").counter().count();
+    }
+
+    // ==================== DUPLICATES ====================
+
+    @Test
+    @DisplayName("Should report an event seen before, by wiki and revision")
+    void testIsDuplicate_SameRevision() {
+        // Given
+        DuplicateFilter filter = filter(Duration.ofMinutes(10), 1000, 0.0001);
+
+        // When & Then
+        assertFalse(filter.isDuplicate(WIKI, 1001, 1));
+        assertTrue(filter.isDuplicate(WIKI, 1001, 1));
+        assertTrue(filter.isDuplicate(WIKI, 1001, 2));  // the revision identifies it, not the rc id
+
+        // The same revision id on another wiki is another edit
+        assertFalse(filter.isDuplicate("de.wikipedia.org", 1001, 1));
+    }
+
+    @Test
+    @DisplayName("Should identify events without a revision by their recentchange id")
+    void testIsDuplicate_WithoutRevision() {
+        // Given
+        DuplicateFilter filter = filter(Duration.ofMinutes(10), 1000, 0.0001);
+
+        // When & Then
+        assertFalse(filter.isDuplicate(WIKI, 0, 42));
+        assertTrue(filter.isDuplicate(WIKI, 0, 42));
+
+        // Revision 42 is not recentchange 42
+        assertFalse(filter.isDuplicate(WIKI, 42, 7));
+    }
+
+    @Test
+    @DisplayName("Should forget every event on clear")
+    void testClear() {
+        // Given
+        DuplicateFilter filter = filter(Duration.ofMinutes(10), 1000, 0.0001);
+        filter.isDuplicate(WIKI, 1001, 1);
+
+        // When
+        filter.clear();
+
+        // Then
+        assertFalse(filter.isDuplicate(WIKI, 1001, 1));
+    }
+
+    // ==================== ROTATION ====================
+
+    @Test
+    @DisplayName("Should remember events for one more filter's worth once the current filter is full")
+    void testRotate_WhenFull() {
+        // Given: Filters of 100 events
+        DuplicateFilter filter = filter(Duration.ofMinutes(10), 100, 0.0001);
+
+        // When: 100 events fill the first filter, 100 the second, then 50 more
+        for (long revision = 1; revision <= 250; revision++) {
+            assertFalse(filter.isDuplicate(WIKI, revision, revision));
+        }
+
+        // Then: The middle 100 are still known, the first 100 are forgotten
+        assertEquals(2, rotations());
+        assertTrue(filter.isDuplicate(WIKI, 150, 150));
+        assertFalse(filter.isDuplicate(WIKI, 1, 1));
+    }
+
+    @Test
+    @DisplayName("Should remember an event for at least one window and at most two")
+    void testRotate_EveryWindow() {
+        // Given: A window that is over at every call
+        DuplicateFilter filter = filter(Duration.ZERO, 1000, 0.0001);
+
+        // When & Then: Seen one window ago (and re-added then)
+        assertFalse(filter.isDuplicate(WIKI, 1001, 1));
+        assertTrue(filter.isDuplicate(WIKI, 1001, 1));
+
+        // Two windows ago
+        filter.isDuplicate(WIKI, 1002, 2);
+        assertFalse(filter.isDuplicate(WIKI, 1001, 1));
+    }
+
+    // ==================== SIZING ====================
+
+    @Test
+    @DisplayName("Should mistake new events for duplicates at about the configured rate")
+    void testIsDuplicate_FalsePositiveRate() {
+        // Given: A full filter
+        DuplicateFilter filter = filter(Duration.ofMinutes(10), 10_000, 0.01);
+        for (long revision = 1; revision <= 10_000; revision++) {
+            filter.isDuplicate(WIKI, revision, revision);
+        }
+
+        // When: As many new events arrive
+        int falsePositives = 0;
+        for (long revision = 1_000_001; revision <= 1_010_000; revision++) {
+            if (filter.isDuplicate(WIKI, revision, revision)) {
+                falsePositives++;
+            }
+        }
+
+        // Then: At most twice the rate, both filters being checked
+        assertTrue(falsePositives <= 2 * 0.01 * 10_000, falsePositives + " false positives");
+        // -ln(p) / ln(2)² = 9.585 bits per event, for each of the two filters
+        assertEquals(2 * 10_000 * 9.585 / 8, meterRegistry.get("wikimedia.dedup.memory").gauge().value(), 64);
+    }
+
+    @Test
+    @DisplayName("Should reject a capacity or false positive rate it can't size a filter for")
+    void testFilter_RejectsBadSizing() {
+        assertThrows(IllegalArgumentException.class, () -> filter(Duration.ofMinutes(10), 0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> filter(Duration.ofMinutes(10), 1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> filter(Duration.ofMinutes(10), 1000, 1));
+    }
+}
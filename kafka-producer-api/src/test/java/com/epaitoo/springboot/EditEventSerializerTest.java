@@ -0,0 +1,63 @@
+package com.epaitoo.springboot;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the binary edit encoding (records read by the consumer's EditEventCodec)
+ */
+class EditEventSerializerTest {
+
+    // The consumer's EditEventCodecTest decodes these records and compares them to the parsed events
+    private static final Path FIXTURES = Path.of("../kafka-consumer-api/src/test/resources/recentchange");
+
+    private final EditEventSerializer serializer = new EditEventSerializer();
+
+    // ==================== ENCODE ====================
+
+    @Test
+    @DisplayName("Should encode real events to the records the consumer decodes")
+    void testSerialize_MatchesConsumerRecords() throws Exception {
+        for (String name : new String[]{"edit", "edit-bot"}) {
+            // Given: A listed wiki, and an unlisted one with a bot, namespace and non-ASCII text
+            Headers headers = new RecordHeaders();
+            String json = Files.readString(FIXTURES.resolve(name + ".raw.json")).strip();
+
+            // When
+            byte[] value = serializer.serialize("wikimedia-stream-api", headers, json);
+
+            // Then
+            assertArrayEquals(Files.readAllBytes(FIXTURES.resolve(name + ".v2.bin")), value, name);
+            assertArrayEquals(EditEventSerializer.FORMAT_V2,
+                    headers.lastHeader(EditEventSerializer.FORMAT_HEADER).value(), name);
+        }
+    }
+
+    @Test
+    @DisplayName("Should send anything but a complete edit unchanged, without the format header")
+    void testSerialize_PassesThroughNonEdits() {
+        // Given
+        String log = "{\"type\":\"log\",\"title\":\"Page\",\"user\":\"Bob\"}";
+        String noUser = "{\"type\":\"edit\",\"title\":\"Page\"}";
+        String malformed = "{\"type\":\"edit\",";
+
+        for (String json : new String[]{log, noUser, malformed}) {
+            Headers headers = new RecordHeaders();
+
+            // When
+            byte[] value = serializer.serialize("wikimedia-stream-api", headers, json);
+
+            // Then
+            assertArrayEquals(json.getBytes(StandardCharsets.UTF_8), value, json);
+            assertNull(headers.lastHeader(EditEventSerializer.FORMAT_HEADER), json);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.epaitoo.springboot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for spilling and draining sends (against a MockProducer whose sends complete on demand)
+ */
+class EditSenderTest {
+
+    private static final Duration NEVER = Duration.ofHours(1);  // the tests drain by hand
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockProducer<String, String> producer;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private EditSender sender;
+
+    @BeforeEach
+    void setUp() {
+        // The template closes its producer after each send: keep this one open for the whole test
+        producer = new MockProducer<>(false, new StringSerializer(), new StringSerializer()) {
+            @Override
+            public void close(Duration timeout) {
+            }
+        };
+        kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>(() -> producer));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (sender != null) {
+            sender.close();
+        }
+    }
+
+    private EditSender spillingSender(int maxInFlight, int spillCapacity) throws Exception {
+        return new EditSender(kafkaTemplate, maxInFlight, new SpillBuffer(dir.resolve("spill"), spillCapacity),
+                NEVER, meterRegistry);
+    }
+
+    private static ProducerRecord<String, String> record(String key) {
+        return record(key, "{}");
+    }
+
+    private static ProducerRecord<String, String> record(String key, String value) {
+        return new ProducerRecord<>("wikimedia-stream-api", key, value);
+    }
+
+    private List<String> sentKeys() {
+        return producer.history().stream().map(ProducerRecord::key).toList();
+    }
+
+    /**
+     * Drain on another thread, acknowledging (or failing) each send it makes, in order
+     */
+    private void drain(boolean... acks) throws Exception {
+        int before = producer.history().size();
+        Thread drainer = new Thread(sender::drain);
+        drainer.start();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        for (boolean ack : acks) {
+            while (producer.history().size() == before) {
+                assertTrue(System.nanoTime() < deadline, "drain sent " + sentKeys().subList(before, sentKeys().size()));
+                Thread.sleep(1);
+            }
+            before++;
+            assertTrue(ack ? producer.completeNext() : producer.errorNext(new TimeoutException("down")));
+        }
+        drainer.join(10_000);
+        assertFalse(drainer.isAlive());
+    }
+
+    private double spillOperations(String operation) {
+        return meterRegistry.get("wikimedia.spill.operations").tag("operation", operation).counter().count();
+    }
+
+    // ==================== SPILL ====================
+
+    @Test
+    @DisplayName("Should spill from the first failure on and send the buffer back in order")
+    void testSend_SpillsAndDrainsInOrder() throws Exception {
+        // Given
+        sender = spillingSender(10, 64 * 1024);
+
+        // When: Kafka fails the first record; two more are sent after that
+        assertTrue(sender.send(record("a")));
+        assertTrue(producer.errorNext(new TimeoutException("down")));
+        assertTrue(sender.send(record("b")));
+        assertTrue(sender.send(record("c")));
+
+        // Then: They wait behind it instead of going to Kafka
+        assertEquals(List.of("a"), sentKeys());
+        assertEquals(3, spillOperations("spilled"));
+
+        // When: Kafka is back
+        drain(true, true, true);
+        assertTrue(sender.send(record("d")));
+
+        // Then: Everything went out once more, in order, and new records go straight to Kafka
+        assertEquals(List.of("a", "a", "b", "c", "d"), sentKeys());
+        assertEquals(3, spillOperations("drained"));
+        assertFalse(sender.isLost());
+    }
+
+    @Test
+    @DisplayName("Should keep the records a drain sent up to its first failure, and retry from there")
+    void testDrain_CommitsAcknowledgedPrefix() throws Exception {
+        // Given: Three records in the buffer
+        sender = spillingSender(10, 64 * 1024);
+        sender.send(record("a"));
+        producer.errorNext(new TimeoutException("down"));
+        sender.send(record("b"));
+        sender.send(record("c"));
+
+        // When: Kafka takes a and c, but fails b
+        drain(true, false, true);
+
+        // Then: a is done; b and c go again (c twice, as its retry can't be told from a new send)
+        drain(true, true);
+        assertEquals(List.of("a", "a", "b", "c", "b", "c"), sentKeys());
+        assertEquals(3, spillOperations("drained"));
+    }
+
+    // ==================== LOSS ====================
+
+    @Test
+    @DisplayName("Should report a record lost when Kafka fails it and the buffer has no room left")
+    void testSend_LostWhenFailedRecordDoesNotFit() throws Exception {
+        // Given: One slot, and a buffer with room for one large record
+        sender = spillingSender(1, SpillBuffer.DATA_START + 1024);
+        String large = "{\"pad\":\"" + "x".repeat(600) + "\"}";
+
+        // When: a takes the slot, b is spilled for lack of one, then Kafka fails a
+        assertTrue(sender.send(record("a", large)));
+        assertTrue(sender.send(record("b", large)));
+        assertFalse(sender.isLost());
+        assertTrue(producer.errorNext(new TimeoutException("down")));
+
+        // Then: send() had accepted a, but it is lost
+        assertTrue(sender.isLost());
+        assertEquals(1, meterRegistry.get("wikimedia.spill.dropped").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should refuse a record the buffer has no room for")
+    void testSend_LostWhenBufferFull() throws Exception {
+        // Given
+        sender = spillingSender(1, SpillBuffer.DATA_START + 1024);
+        String large = "{\"pad\":\"" + "x".repeat(600) + "\"}";
+        sender.send(record("a", large));
+        sender.send(record("b", large));
+
+        // When & Then
+        assertFalse(sender.send(record("c", large)));
+        assertTrue(sender.isLost());
+    }
+
+    @Test
+    @DisplayName("Should keep reporting a loss once the buffer has drained, until it is cleared")
+    void testClearLost_AfterDrain() throws Exception {
+        // Given: c lost, b in the buffer
+        sender = spillingSender(1, SpillBuffer.DATA_START + 1024);
+        String large = "{\"pad\":\"" + "x".repeat(600) + "\"}";
+        sender.send(record("a", large));
+        sender.send(record("b", large));
+        assertFalse(sender.send(record("c", large)));
+
+        // When: Kafka takes a and the buffer drains
+        assertTrue(producer.completeNext());
+        drain(true);
+
+        // Then
+        assertTrue(sender.isSpillEmpty());
+        assertTrue(sender.isLost());
+
+        // When: The caller has c sent again
+        sender.clearLost();
+
+        // Then
+        assertFalse(sender.isLost());
+        assertTrue(sender.send(record("c", large)));
+        assertEquals(List.of("a", "b", "c"), sentKeys());
+    }
+}
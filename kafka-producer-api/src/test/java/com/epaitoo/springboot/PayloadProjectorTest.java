@@ -0,0 +1,80 @@
+package com.epaitoo.springboot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the PROJECTED payload's field selection
+ */
+class PayloadProjectorTest {
+
+    // The consumer's WikimediaEventParserTest parses this pair and expects the same event from both
+    private static final Path FIXTURES = Path.of("../kafka-consumer-api/src/test/resources/recentchange");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PayloadProjector projector = new PayloadProjector(objectMapper);
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    // ==================== PROJECTION ====================
+
+    @Test
+    @DisplayName("Should project a raw event to the fixture the consumer parses")
+    void testProject_MatchesConsumerFixture() throws Exception {
+        // Given
+        JsonNode raw = objectMapper.readTree(Files.readString(FIXTURES.resolve("edit.raw.json")));
+
+        // When
+        String projected = projector.project(raw);
+
+        // Then
+        assertEquals(Files.readString(FIXTURES.resolve("edit.projected.json")).strip(), projected);
+    }
+
+    @Test
+    @DisplayName("Should keep exactly the fields the consumer reads, type first")
+    void testProject_KeepsParserFields() throws Exception {
+        // Given
+        JsonNode raw = objectMapper.readTree(Files.readString(FIXTURES.resolve("edit.raw.json")));
+
+        // When
+        JsonNode projected = objectMapper.readTree(projector.project(raw));
+
+        // Then
+        assertEquals(List.of("type", "meta", "namespace", "title", "timestamp", "user", "bot", "length",
+                "revision", "server_name"), fieldNames(projected));
+        assertEquals(List.of("uri", "dt", "domain"), fieldNames(projected.get("meta")));
+        assertEquals(List.of("old", "new"), fieldNames(projected.get("length")));
+        assertEquals(List.of("old", "new"), fieldNames(projected.get("revision")));
+        assertEquals(1_200_000_001L, projected.path("revision").path("new").asLong());
+    }
+
+    @Test
+    @DisplayName("Should leave missing fields out rather than write nulls")
+    void testProject_MissingFields() throws Exception {
+        // Given: A page creation (no parent revision or old length) without meta
+        JsonNode raw = objectMapper.readTree("""
+                {"id":7,"type":"new","title":"Fresh","comment":"created","user":"Carol",
+                 "length":{"new":120},"revision":{"new":42},"wiki":"enwiki"}""");
+
+        // When
+        String projected = projector.project(raw);
+
+        // Then
+        assertEquals("{\"type\":\"new\",\"title\":\"Fresh\",\"user\":\"Carol\",\"length\":{\"new\":120},"
+                + "\"revision\":{\"new\":42}}", projected);
+    }
+}
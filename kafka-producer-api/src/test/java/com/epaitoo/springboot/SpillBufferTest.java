@@ -0,0 +1,209 @@
+package com.epaitoo.springboot;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the memory-mapped spill buffer
+ */
+class SpillBufferTest {
+
+    // The smallest buffer allowed: five records (about 200 bytes each) fill it
+    private static final int CAPACITY = SpillBuffer.DATA_START + 1024;
+    private static final int VALUE_SIZE = 100;
+
+    @TempDir
+    Path dir;
+
+    private static ProducerRecord<String, String> record(int n) {
+        String value = ("{\"n\":" + n + ",\"pad\":\"" + "x".repeat(VALUE_SIZE)).substring(0, VALUE_SIZE) + "\"}";
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("wiki-domain", "en.wikipedia.org".getBytes(StandardCharsets.UTF_8));
+        return new ProducerRecord<>("wikimedia-stream-api", null, key(n), value, headers);
+    }
+
+    private static String key(int n) {
+        return String.format("en.wikipedia.org:Page_%03d", n);
+    }
+
+    private static List<String> keys(SpillBuffer.Batch batch) {
+        return batch.records().stream().map(ProducerRecord::key).toList();
+    }
+
+    // ==================== FIFO ====================
+
+    @Test
+    @DisplayName("Should hand records back in order, with their topic and headers")
+    void testPeekCommit_InOrder() throws Exception {
+        try (SpillBuffer spill = new SpillBuffer(dir.resolve("spill"), CAPACITY)) {
+            // Given
+            ProducerRecord<String, String> first = record(1);
+            first.headers().add(EditEventSerializer.FORMAT_HEADER, EditEventSerializer.FORMAT_V2);
+            assertTrue(spill.append(first));
+            assertTrue(spill.append(record(2)));
+            assertTrue(spill.append(new ProducerRecord<>("wikimedia-stream-api", null, null)));
+
+            // When
+            SpillBuffer.Batch batch = spill.peek(2);
+
+            // Then: The format header is left to the serializer to add again
+            assertEquals(List.of(key(1), key(2)), keys(batch));
+            ProducerRecord<String, String> read = batch.records().get(0);
+            assertEquals(first.topic(), read.topic());
+            assertEquals(first.value(), read.value());
+            assertNotNull(read.headers().lastHeader("wiki-domain"));
+            assertNull(read.headers().lastHeader(EditEventSerializer.FORMAT_HEADER));
+
+            // When: Peeking again without a commit, then committing
+            assertEquals(keys(batch), keys(spill.peek(2)));
+            spill.commit(batch);
+
+            // Then
+            assertEquals(1, spill.getRecords());
+            ProducerRecord<String, String> last = spill.peek(10).records().get(0);
+            assertNull(last.key());
+            assertNull(last.value());
+        }
+    }
+
+    @Test
+    @DisplayName("Should commit only the sent start of a batch")
+    void testCommit_Prefix() throws Exception {
+        try (SpillBuffer spill = new SpillBuffer(dir.resolve("spill"), CAPACITY)) {
+            // Given
+            for (int n = 1; n <= 3; n++) {
+                spill.append(record(n));
+            }
+
+            // When
+            spill.commit(spill.peek(3).prefix(1));
+
+            // Then
+            assertEquals(2, spill.getRecords());
+            assertEquals(List.of(key(2), key(3)), keys(spill.peek(3)));
+        }
+    }
+
+    // ==================== RING ====================
+
+    @Test
+    @DisplayName("Should keep records in order as the ring wraps around many times")
+    void testAppend_WrapsAround() throws Exception {
+        try (SpillBuffer spill = new SpillBuffer(dir.resolve("spill"), CAPACITY)) {
+            // Given: Two records waiting, so head and tail chase each other round the ring
+            spill.append(record(0));
+            spill.append(record(1));
+
+            for (int n = 2; n < 100; n++) {
+                // When
+                assertTrue(spill.append(record(n)), "append " + n);
+                SpillBuffer.Batch oldest = spill.peek(1);
+                spill.commit(oldest);
+
+                // Then
+                assertEquals(List.of(key(n - 2)), keys(oldest));
+                assertEquals(2, spill.getRecords());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should take a record as large as the whole ring once the buffer is empty, wherever it stopped")
+    void testAppend_EmptyRestartsAtBeginning() throws Exception {
+        Path file = dir.resolve("spill");
+        ProducerRecord<String, String> large = new ProducerRecord<>("wikimedia-stream-api", "en.wikipedia.org:Large",
+                "x".repeat(600));
+        try (SpillBuffer spill = new SpillBuffer(file, CAPACITY)) {
+            // Given: Three records sent, leaving the empty buffer mid-file, with less room before
+            // the end of the file or after its start than the large record needs
+            for (int n = 1; n <= 3; n++) {
+                assertTrue(spill.append(record(n)));
+            }
+            spill.commit(spill.peek(10));
+            assertTrue(spill.isEmpty());
+
+            // When & Then
+            assertTrue(spill.append(large));
+        }
+
+        // Then: It is where a reopened buffer reads from
+        try (SpillBuffer reopened = new SpillBuffer(file, CAPACITY)) {
+            assertEquals(List.of(large.key()), keys(reopened.peek(10)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a record that doesn't fit, and take it once there is room")
+    void testAppend_RejectsWhenFull() throws Exception {
+        try (SpillBuffer spill = new SpillBuffer(dir.resolve("spill"), CAPACITY)) {
+            // Given: A full buffer
+            int appended = 0;
+            while (spill.append(record(appended))) {
+                appended++;
+            }
+            assertTrue(appended > 1);
+            assertEquals(appended, spill.getRecords());
+
+            // When: The oldest two records are sent (a record can't end right at the head)
+            spill.commit(spill.peek(2));
+
+            // Then: A record fits again, at the start of the file and the end of the line
+            assertTrue(spill.append(record(appended)));
+            List<String> keys = keys(spill.peek(appended));
+            assertEquals(appended - 1, keys.size());
+            assertEquals(key(2), keys.get(0));
+            assertEquals(key(appended), keys.get(keys.size() - 1));
+        }
+    }
+
+    // ==================== FILE ====================
+
+    @Test
+    @DisplayName("Should reopen a file with the records it still holds, and its capacity")
+    void testReopen_KeepsPendingRecords() throws Exception {
+        // Given: A wrapped ring with records waiting, closed
+        Path file = dir.resolve("spill");
+        try (SpillBuffer spill = new SpillBuffer(file, CAPACITY)) {
+            for (int n = 0; n < 6; n++) {
+                assertTrue(spill.append(record(n)));
+                if (n >= 2) {
+                    spill.commit(spill.peek(1));
+                }
+            }
+        }
+
+        // When: Reopened, asking for another size
+        try (SpillBuffer spill = new SpillBuffer(file, 4 * CAPACITY)) {
+            // Then
+            assertEquals(CAPACITY, Files.size(file));
+            assertEquals(2, spill.getRecords());
+            assertEquals(List.of(key(4), key(5)), keys(spill.peek(10)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should start empty over a file that isn't a spill buffer")
+    void testOpen_UnreadableFile() throws Exception {
+        // Given
+        Path file = dir.resolve("spill");
+        Files.writeString(file, "not a spill buffer, just some text that is long enough");
+
+        // When
+        try (SpillBuffer spill = new SpillBuffer(file, CAPACITY)) {
+            // Then
+            assertTrue(spill.isEmpty());
+            assertNull(spill.peek(10));
+            assertTrue(spill.append(record(1)));
+        }
+    }
+}
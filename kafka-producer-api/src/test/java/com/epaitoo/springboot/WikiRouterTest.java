@@ -0,0 +1,123 @@
+package com.epaitoo.springboot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for routing wikis to topics and partition ranges (producer.routing)
+ */
+class WikiRouterTest {
+
+    private static final String DEFAULT_TOPIC = "wikimedia-stream-api";
+
+    private static WikiRouter router(List<String> wikis, int partitions, RoutingProperties.Route... routes) {
+        return new WikiRouter(new RoutingProperties(wikis, DEFAULT_TOPIC, partitions, List.of(routes)));
+    }
+
+    private static RoutingProperties.Route route(String topic, int firstPartition, int partitionCount, String... wikis) {
+        return new RoutingProperties.Route(List.of(wikis), topic, firstPartition, partitionCount);
+    }
+
+    private static String pageKey(int n) {
+        return "de.wikipedia.org:Seite_" + n;
+    }
+
+    // ==================== ROUTES ====================
+
+    @Test
+    @DisplayName("Should send listed wikis to the default topic, routed ones to theirs, and drop the rest")
+    void testRoute_ByWiki() {
+        // Given
+        WikiRouter router = router(List.of("en.wikipedia.org"), 6,
+                route("wikimedia-de", 0, 0, "de.wikipedia.org"),
+                route(null, 4, 2, "fr.wikipedia.org"));
+
+        // When & Then
+        assertEquals(new WikiRouter.Destination(DEFAULT_TOPIC, 0, 0), router.route("en.wikipedia.org"));
+        assertEquals(new WikiRouter.Destination("wikimedia-de", 0, 0), router.route("de.wikipedia.org"));
+        assertEquals(new WikiRouter.Destination(DEFAULT_TOPIC, 4, 2), router.route("fr.wikipedia.org"));
+        assertNull(router.route("it.wikipedia.org"));
+        assertEquals(Set.of(DEFAULT_TOPIC, "wikimedia-de"), router.getTopics());
+    }
+
+    @Test
+    @DisplayName("Should forward every wiki with *")
+    void testRoute_AllWikis() {
+        // Given
+        WikiRouter router = router(List.of("*"), 3);
+
+        // When & Then
+        assertEquals(DEFAULT_TOPIC, router.route("ja.wikipedia.org").topic());
+        assertEquals(DEFAULT_TOPIC, router.route("commons.wikimedia.org").topic());
+    }
+
+    // ==================== PARTITIONS ====================
+
+    @Test
+    @DisplayName("Should keep a range's pages within it, each page on one partition")
+    void testPartition_WithinRange() {
+        // Given: Partitions 2 to 4 of 6
+        WikiRouter.Destination destination = router(List.of(), 6, route(null, 2, 3, "de.wikipedia.org"))
+                .route("de.wikipedia.org");
+
+        // When
+        Set<Integer> used = new HashSet<>();
+        for (int n = 0; n < 1000; n++) {
+            Integer partition = destination.partition(pageKey(n));
+
+            // Then
+            assertTrue(partition >= 2 && partition <= 4, pageKey(n) + " went to " + partition);
+            assertEquals(partition, destination.partition(pageKey(n)));
+            used.add(partition);
+        }
+        assertEquals(Set.of(2, 3, 4), used);
+    }
+
+    @Test
+    @DisplayName("Should leave the partition to the producer without a range")
+    void testPartition_WholeTopic() {
+        // Given
+        WikiRouter router = router(List.of("en.wikipedia.org"), 3);
+
+        // When & Then
+        assertNull(router.route("en.wikipedia.org").partition("en.wikipedia.org:Page"));
+    }
+
+    // ==================== CONFIGURATION ====================
+
+    @Test
+    @DisplayName("Should reject a partition range outside the topic")
+    void testRouter_RejectsRangeOutsideTopic() {
+        // Past the last partition
+        assertThrows(IllegalArgumentException.class,
+                () -> router(List.of(), 6, route(null, 4, 3, "de.wikipedia.org")));
+
+        // Negative first partition or count
+        assertThrows(IllegalArgumentException.class,
+                () -> router(List.of(), 6, route(null, -1, 2, "de.wikipedia.org")));
+        assertThrows(IllegalArgumentException.class,
+                () -> router(List.of(), 6, route(null, 0, -1, "de.wikipedia.org")));
+
+        // The last partition itself is fine
+        assertDoesNotThrow(() -> router(List.of(), 6, route(null, 5, 1, "de.wikipedia.org")));
+    }
+
+    @Test
+    @DisplayName("Should reject a wiki in more than one route")
+    void testRouter_RejectsDuplicateWiki() {
+        // When
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> router(List.of(), 6,
+                        route("wikimedia-de", 0, 0, "de.wikipedia.org"),
+                        route(null, 0, 2, "fr.wikipedia.org", "de.wikipedia.org")));
+
+        // Then
+        assertTrue(e.getMessage().contains("de.wikipedia.org"));
+    }
+}